@@ -0,0 +1,141 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.SwingUtilities;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Prüft das Übertragen des Journals in eine H2-Datenbank im Arbeitsspeicher: wiederholtes Übertragen neuer Einträge,
+ * abgelehnte Operationen und das Löschen aller Einträge zwischen anderen Operationen.
+ */
+class JournalAbgleichTest {
+
+    private static final LocalDate DATUM = LocalDate.of(2026, 10, 5);
+
+    @TempDir
+    Path verzeichnis;
+
+    private DatenbankManager dbManager;
+    private Journal journal;
+
+    // Was der Abgleich dem Beobachter gemeldet hat.
+    private final List<JournalEintrag> verworfen = new ArrayList<>();
+
+    @BeforeEach
+    void oeffnen() throws Exception {
+        dbManager = new DatenbankManager(DatenbankKonfiguration.imSpeicher("journalabgleich" + System.nanoTime()), false);
+        dbManager.addKategorie(new Kategorie("Miete"));
+        journal = new Journal(verzeichnis.resolve("journal.log"), Journal.Synchronisierung.IMMER);
+        dbManager.setKennung(journal.getKennung());
+    }
+
+    @AfterEach
+    void schliessen() throws Exception {
+        journal.close();
+        dbManager.close();
+    }
+
+    @Test
+    void neuenEintragNurEinmalAnlegen() throws Exception {
+        JournalEintrag operation = journal.einfuegen(eintrag("Miete", 50000));
+        List<JournalEintrag> block = Collections.singletonList(operation);
+
+        Integer id = dbManager.journalAnwenden(block).getIds().get(operation.getSchluessel());
+        // Wie nach einem Absturz, bevor die Bestätigung im Journal stand.
+        Integer nochmal = dbManager.journalAnwenden(block).getIds().get(operation.getSchluessel());
+
+        assertEquals(id, nochmal);
+        assertEquals(1, dbManager.getAllEintraege().size());
+        assertEquals(0, dbManager.monatssummenPruefen());
+    }
+
+    @Test
+    void abgelehnteOperationVerwerfen() throws Exception {
+        // Am Abgleich vorbei angehängt, damit die Datenbank den Eintrag erst beim Übertragen ablehnt.
+        char[] lang = new char[DatenbankManager.MAX_TEXT_LAENGE + 1];
+        Arrays.fill(lang, 'x');
+        JournalEintrag abgelehnt = journal.einfuegen(eintrag(new String(lang), 100));
+        journal.einfuegen(eintrag("Miete", 50000));
+
+        abgleichen();
+
+        assertEquals(0, journal.getAnzahlOffen());
+        assertEquals(1, verworfen.size());
+        assertEquals(abgelehnt.getSequenz(), verworfen.get(0).getSequenz());
+        List<Eintrag> eintraege = dbManager.getAllEintraege();
+        assertEquals(1, eintraege.size());
+        assertEquals("Miete", eintraege.get(0).getBezeichnung());
+    }
+
+    @Test
+    void alleLoeschenZwischenAnderenOperationen() throws Exception {
+        journal.einfuegen(eintrag("Miete", 50000));
+        journal.einfuegen(eintrag("Miete", 1250));
+        journal.alleLoeschen();
+        journal.einfuegen(eintrag("Miete", 700));
+
+        abgleichen();
+
+        assertEquals(0, journal.getAnzahlOffen());
+        assertEquals(0, verworfen.size());
+        List<Eintrag> eintraege = dbManager.getAllEintraege();
+        assertEquals(1, eintraege.size());
+        assertEquals(700, eintraege.get(0).getBetragCent());
+        assertEquals(0, dbManager.monatssummenPruefen());
+        // ALLE_LOESCHEN steht allein in seinem Block; kein Block ist erst am gemeinsamen Übertragen gescheitert.
+        assertEquals(0, fehler("journalAnwenden"));
+    }
+
+    private long fehler(String operation) {
+        for (OperationsStatistik statistik : dbManager.getMesswerte().getOperationen()) {
+            if (statistik.getName().equals(operation)) {
+                return statistik.getFehler();
+            }
+        }
+        return 0;
+    }
+
+    // Überträgt alle offenen Operationen und wartet, bis die Meldungen an den Beobachter zugestellt sind.
+    private void abgleichen() throws Exception {
+        new JournalAbgleich(dbManager, journal, new JournalAbgleich.Beobachter() {
+            @Override
+            public void eingefuegt(Eintrag eintrag) {
+            }
+
+            @Override
+            public void wiederhergestellt() {
+            }
+
+            @Override
+            public void statusGeaendert() {
+            }
+
+            @Override
+            public void konflikt(List<Eintrag> eintraege) {
+            }
+
+            @Override
+            public void geloescht(boolean alle) {
+            }
+
+            @Override
+            public void verworfen(JournalEintrag operation, String grund) {
+                verworfen.add(operation);
+            }
+        }).close();
+        SwingUtilities.invokeAndWait(() -> { });
+    }
+
+    private static Eintrag eintrag(String bezeichnung, long cent) {
+        return new Eintrag(0, bezeichnung, cent, DATUM, "", new Kategorie("Miete"), "Ausgabe");
+    }
+}
@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Prüft das Lesen des Journals beim Öffnen: offene Operationen werden wiederhergestellt, ein unvollständiger oder
+ * beschädigter Satz am Ende wird abgeschnitten.
+ */
+class JournalTest {
+
+    private static final LocalDate DATUM = LocalDate.of(2026, 10, 5);
+
+    @TempDir
+    Path verzeichnis;
+
+    @Test
+    void offeneOperationenWiederherstellen() throws Exception {
+        Path datei = verzeichnis.resolve("journal.log");
+        try (Journal journal = new Journal(datei, Journal.Synchronisierung.IMMER)) {
+            journal.einfuegen(eintrag("Miete", 50000));
+            journal.loeschen(new int[]{7, 8});
+            journal.tagLoeschen(DATUM);
+            journal.bestaetigen(1);
+        }
+        try (Journal journal = new Journal(datei, Journal.Synchronisierung.IMMER)) {
+            List<JournalEintrag> offen = journal.offene(10);
+            assertEquals(2, offen.size());
+            assertEquals(JournalEintrag.Art.LOESCHEN, offen.get(0).getArt());
+            assertEquals(8, offen.get(0).getIds()[1]);
+            assertEquals(JournalEintrag.Art.TAG_LOESCHEN, offen.get(1).getArt());
+            assertEquals(DATUM, offen.get(1).getDatum());
+            assertEquals(3, journal.getLetzteSequenz());
+            // Neue Operationen setzen die Sequenz fort.
+            assertEquals(4, journal.alleLoeschen().getSequenz());
+        }
+    }
+
+    @Test
+    void unvollstaendigenSatzAbschneiden() throws Exception {
+        Path datei = verzeichnis.resolve("journal.log");
+        try (Journal journal = new Journal(datei, Journal.Synchronisierung.IMMER)) {
+            journal.einfuegen(eintrag("Miete", 50000));
+            journal.einfuegen(eintrag("Strom", 8000));
+        }
+        long groesse = Files.size(datei);
+        // Absturz beim Schreiben: Länge und Prüfsumme stehen schon da, die Nutzdaten nur zum Teil.
+        Files.write(datei, ByteBuffer.allocate(12).putInt(40).putInt(0).putInt(1).array(), StandardOpenOption.APPEND);
+
+        try (Journal journal = new Journal(datei, Journal.Synchronisierung.IMMER)) {
+            assertEquals(2, journal.getAnzahlOffen());
+        }
+        assertEquals(groesse, Files.size(datei));
+    }
+
+    @Test
+    void beschaedigtenSatzAbschneiden() throws Exception {
+        Path datei = verzeichnis.resolve("journal.log");
+        try (Journal journal = new Journal(datei, Journal.Synchronisierung.IMMER)) {
+            journal.einfuegen(eintrag("Miete", 50000));
+        }
+        long groesse = Files.size(datei);
+        try (Journal journal = new Journal(datei, Journal.Synchronisierung.IMMER)) {
+            journal.einfuegen(eintrag("Strom", 8000));
+        }
+        // Ein Byte in den Nutzdaten des zweiten Satzes kippt; seine Prüfsumme stimmt nicht mehr.
+        byte[] inhalt = Files.readAllBytes(datei);
+        inhalt[inhalt.length - 1] ^= 1;
+        Files.write(datei, inhalt);
+
+        try (Journal journal = new Journal(datei, Journal.Synchronisierung.IMMER)) {
+            List<JournalEintrag> offen = journal.offene(10);
+            assertEquals(1, offen.size());
+            assertEquals("Miete", offen.get(0).getEintrag().getBezeichnung());
+        }
+        assertEquals(groesse, Files.size(datei));
+    }
+
+    private static Eintrag eintrag(String bezeichnung, long cent) {
+        return new Eintrag(0, bezeichnung, cent, DATUM, "", new Kategorie(bezeichnung), "Ausgabe");
+    }
+}
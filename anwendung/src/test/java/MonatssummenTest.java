@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Prüft, dass die Monatssummen nach dem Löschen von Kategorien zu den Einträgen passen. Mehrere Kategorien mit
+ * Summen im selben Monat und Typ werden dabei auf dieselbe, noch nicht vorhandene Zeile "ohne Kategorie" umgebucht.
+ */
+class MonatssummenTest {
+
+    private static final LocalDate DATUM = LocalDate.of(2026, 10, 5);
+
+    private DatenbankManager dbManager;
+
+    @BeforeEach
+    void oeffnen() throws Exception {
+        dbManager = new DatenbankManager(DatenbankKonfiguration.imSpeicher("monatssummen" + System.nanoTime()), false);
+        for (String name : new String[]{"Miete", "Strom", "Wasser"}) {
+            dbManager.addKategorie(new Kategorie(name));
+        }
+        speichern("Miete", 50000);
+        speichern("Miete", 1250);
+        speichern("Strom", 8000);
+        // Eine Kategorie, deren einziger Eintrag wieder gelöscht ist, behält eine Summenzeile mit Anzahl 0.
+        int id = speichern("Wasser", 3000);
+        dbManager.deleteEintraege(new int[]{id});
+    }
+
+    @AfterEach
+    void schliessen() {
+        dbManager.close();
+    }
+
+    @Test
+    void alleKategorienLoeschen() throws Exception {
+        dbManager.deleteAllKategorien();
+        assertEquals(0, dbManager.monatssummenPruefen());
+    }
+
+    @Test
+    void kategorienEinzelnLoeschen() throws Exception {
+        dbManager.deleteKategorie("Strom");
+        dbManager.deleteKategorie("Wasser");
+        dbManager.deleteKategorie("Miete");
+        assertEquals(0, dbManager.monatssummenPruefen());
+    }
+
+    private int speichern(String kategorie, long cent) {
+        return dbManager.addEintrag(new Eintrag(0, kategorie, cent, DATUM, "", dbManager.getKategorie(kategorie), "Ausgabe"));
+    }
+}
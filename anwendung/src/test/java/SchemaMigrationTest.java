@@ -0,0 +1,89 @@
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+ * Prüft die Umstellung einer Datenbank aus der Zeit vor den Migrationen: Kategorie und Typ der Einträge als Text,
+ * doppelte Kategorienamen und eine Kategorie, die nur bei den Einträgen vorkommt.
+ */
+class SchemaMigrationTest {
+
+    @Test
+    void grundschemaUmstellen() throws Exception {
+        DatenbankKonfiguration konfiguration = DatenbankKonfiguration.imSpeicher("migration" + System.nanoTime());
+        try (Connection conn = DriverManager.getConnection(konfiguration.getUrl(), konfiguration.getBenutzer(),
+                konfiguration.getPasswort());
+             Statement stmt = conn.createStatement()) {
+            // Die Tabellen, wie sie die Anwendung vor den Migrationen angelegt hat.
+            stmt.execute("CREATE TABLE eintraege (id INT AUTO_INCREMENT PRIMARY KEY, bezeichnung VARCHAR(255) NOT NULL, "
+                    + "betrag DECIMAL(10, 2) NOT NULL, kategorie VARCHAR(255) NOT NULL, typ VARCHAR(50) NOT NULL, "
+                    + "datum DATE NOT NULL, info TEXT)");
+            stmt.execute("CREATE TABLE kategorien (id INT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255) NOT NULL)");
+            stmt.execute("INSERT INTO kategorien(name) VALUES('Miete'), ('Strom'), ('Miete')");
+            stmt.execute("INSERT INTO eintraege(bezeichnung, betrag, kategorie, typ, datum, info) VALUES"
+                    + "('Miete', 500.00, 'Miete', 'Ausgabe', '2025-11-01', 'November'), "
+                    + "('Miete', 12.50, 'Miete', 'Ausgabe', '2025-12-01', NULL), "
+                    + "('Strom', 80.00, 'Strom', 'Ausgabe', '2025-12-15', ''), "
+                    + "('Gehalt', 2500.00, 'Gehalt', 'Einnahme', '2025-12-28', 'Dezember')");
+        }
+
+        DatenbankManager dbManager = new DatenbankManager(konfiguration, false);
+        try {
+            try (Connection conn = DriverManager.getConnection(konfiguration.getUrl(), konfiguration.getBenutzer(),
+                    konfiguration.getPasswort());
+                 Statement stmt = conn.createStatement();
+                 ResultSet rs = stmt.executeQuery("SELECT MAX(version) FROM schema_version")) {
+                rs.next();
+                assertEquals(new SchemaMigration().getZielVersion(), rs.getInt(1));
+            }
+
+            List<String> kategorien = new ArrayList<>();
+            for (Kategorie kategorie : dbManager.getAllKategorien()) {
+                kategorien.add(kategorie.getName());
+            }
+            kategorien.sort(null);
+            assertEquals(List.of("Gehalt", "Miete", "Strom"), kategorien);
+
+            List<Eintrag> eintraege = dbManager.getAllEintraege();
+            eintraege.sort((a, b) -> Integer.compare(a.getId(), b.getId()));
+            assertEquals(4, eintraege.size());
+            pruefen(eintraege.get(0), "Miete", 50000, "Ausgabe", LocalDate.of(2025, 11, 1), "November");
+            pruefen(eintraege.get(1), "Miete", 1250, "Ausgabe", LocalDate.of(2025, 12, 1), null);
+            pruefen(eintraege.get(2), "Strom", 8000, "Ausgabe", LocalDate.of(2025, 12, 15), "");
+            pruefen(eintraege.get(3), "Gehalt", 250000, "Einnahme", LocalDate.of(2025, 12, 28), "Dezember");
+
+            assertEquals(0, dbManager.monatssummenPruefen());
+
+            // Die doppelte Kategorie "Miete" ist entfernt; der Name ist jetzt eindeutig.
+            try (Connection conn = DriverManager.getConnection(konfiguration.getUrl(), konfiguration.getBenutzer(),
+                    konfiguration.getPasswort());
+                 PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM kategorien WHERE name = ?")) {
+                pstmt.setString(1, "Miete");
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    rs.next();
+                    assertEquals(1, rs.getInt(1));
+                }
+            }
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    private static void pruefen(Eintrag eintrag, String kategorie, long cent, String typ, LocalDate datum, String info) {
+        assertEquals(kategorie, eintrag.getBezeichnung());
+        assertEquals(kategorie, eintrag.getKategorie().getName());
+        assertEquals(cent, eintrag.getBetragCent());
+        assertEquals(typ, eintrag.getTyp());
+        assertEquals(datum, eintrag.getDatum());
+        assertEquals(info, eintrag.getInfo());
+    }
+}
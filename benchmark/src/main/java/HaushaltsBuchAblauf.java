@@ -0,0 +1,140 @@
+import benchmark.Ablauf;
+
+import javax.swing.SwingUtilities;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Die Klasse "HaushaltsBuchAblauf" führt die Benchmarks mit den Klassen der Anwendung aus (siehe benchmark.Ablauf).
+ * Die Testdaten sind zufällig, aber bei gleicher Zeilenzahl immer gleich: 30 Kategorien, Beträge bis 500 €,
+ * Daten von 2015 bis 2026, etwa ein Zehntel Einnahmen.
+ */
+public class HaushaltsBuchAblauf implements Ablauf {
+
+    private static final String[] KATEGORIEN = {
+            "Lebensmittel", "Miete", "Strom", "Gas", "Wasser", "Internet", "Telefon", "Versicherung", "Auto", "Tanken",
+            "Bahn", "Kleidung", "Drogerie", "Apotheke", "Arzt", "Sport", "Kino", "Restaurant", "Urlaub", "Geschenke",
+            "Bücher", "Spenden", "Haushalt", "Garten", "Möbel", "Elektronik", "Gehalt", "Zinsen", "Erstattung", "Sonstiges"};
+
+    private static final String[] INFOS = {"Supermarkt", "Wochenmarkt", "Dauerauftrag", "Lastschrift", "Karte", "bar", "", "Online"};
+
+    private static final int BLOCK = 10_000;
+
+    private DatenbankManager dbManager;
+    private EintragTableModel tableModel;
+    private int zeilen;
+    private volatile CountDownLatch geladen;
+
+    @Override
+    public void vorbereiten(int zeilen) throws Exception {
+        this.zeilen = zeilen;
+        dbManager = new DatenbankManager(DatenbankKonfiguration.imSpeicher("benchmark" + System.nanoTime()));
+        int[] kategorieIds = new int[KATEGORIEN.length];
+        for (int i = 0; i < KATEGORIEN.length; i++) {
+            kategorieIds[i] = dbManager.getKategorieId(new Kategorie(KATEGORIEN[i]));
+        }
+        Random zufall = new Random(42);
+        LocalDate beginn = LocalDate.of(2015, 1, 1);
+        int tage = (int) (LocalDate.of(2026, 12, 31).toEpochDay() - beginn.toEpochDay());
+        String sql = "INSERT INTO eintraege(bezeichnung, betrag, kategorie_id, typ, datum, info) VALUES(?, ?, ?, ?, ?, ?)";
+        try (Connection conn = dbManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            for (int i = 0; i < zeilen; i++) {
+                int kategorie = zufall.nextInt(KATEGORIEN.length);
+                pstmt.setString(1, KATEGORIEN[kategorie]);
+                pstmt.setBigDecimal(2, Geld.zuBigDecimal(1 + zufall.nextInt(50_000)));
+                pstmt.setInt(3, kategorieIds[kategorie]);
+                pstmt.setInt(4, zufall.nextInt(10) == 0 ? DatenbankManager.TYP_EINNAHME : DatenbankManager.TYP_AUSGABE);
+                pstmt.setDate(5, Date.valueOf(beginn.plusDays(zufall.nextInt(tage))));
+                pstmt.setString(6, INFOS[zufall.nextInt(INFOS.length)]);
+                pstmt.addBatch();
+                if ((i + 1) % BLOCK == 0) {
+                    pstmt.executeBatch();
+                    conn.commit();
+                }
+            }
+            pstmt.executeBatch();
+            conn.commit();
+        }
+        dbManager.monatssummenNeuAufbauen();
+
+        // Das Tabellenmodell meldet das Ende des Vorladens mit Fortschritt -1 (auf dem Event Dispatch Thread).
+        SwingUtilities.invokeAndWait(() -> {
+            tableModel = new EintragTableModel(dbManager);
+            tableModel.addPropertyChangeListener(e -> {
+                CountDownLatch latch = geladen;
+                if (latch != null && EintragTableModel.LADEFORTSCHRITT.equals(e.getPropertyName())
+                        && (Integer) e.getNewValue() < 0) {
+                    latch.countDown();
+                }
+            });
+        });
+    }
+
+    @Override
+    public int alleEintraegeLesen() {
+        return dbManager.getAllEintraege().size();
+    }
+
+    @Override
+    public int tabelleLaden() throws Exception {
+        CountDownLatch latch = new CountDownLatch(1);
+        SwingUtilities.invokeAndWait(() -> {
+            tableModel.neuLaden();
+            // Erst nach neuLaden setzen: das Abbrechen alter Ladevorgänge meldet ebenfalls -1.
+            geladen = latch;
+        });
+        if (!latch.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("Tabelle wurde nicht geladen");
+        }
+        geladen = null;
+        int[] anzahl = new int[1];
+        SwingUtilities.invokeAndWait(() -> anzahl[0] = tableModel.getRowCount());
+        return anzahl[0];
+    }
+
+    @Override
+    public String summeAnzeigen() {
+        SummenAggregator summen = dbManager.getSummen(new EintragAbfrage());
+        StringBuilder text = new StringBuilder("Summe: ");
+        Geld.anhaengen(text, summen.getSaldoCent());
+        return text.append(" €").toString();
+    }
+
+    @Override
+    public int filtern(String spalte, String text) {
+        EintragAbfrage abfrage = new EintragAbfrage().mitFilter(EintragSpalte.valueOf(spalte), text);
+        return dbManager.getSummen(abfrage).getAnzahl()
+                + dbManager.getEintraegeSeite(abfrage, null, 0, EintragTableModel.SEITEN_GROESSE).size();
+    }
+
+    @Override
+    public int eintragAendern(int nummer) throws Exception {
+        int id = 1 + nummer % zeilen;
+        String kategorie = KATEGORIEN[nummer % KATEGORIEN.length];
+        Eintrag eintrag = new Eintrag(id, kategorie, 100 + nummer % 10_000, LocalDate.of(2024, 1 + nummer % 12, 1),
+                "geändert", dbManager.getKategorie(kategorie), "Ausgabe");
+        return dbManager.updateEintraege(Collections.singletonList(eintrag));
+    }
+
+    @Override
+    public void close() {
+        try (Connection conn = dbManager.getConnection();
+             Statement stmt = conn.createStatement()) {
+            // Die Datenbank im Arbeitsspeicher bleibt sonst bis zum Ende der JVM bestehen.
+            stmt.execute("DROP ALL OBJECTS");
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        dbManager.close();
+    }
+}
@@ -0,0 +1,38 @@
+package benchmark;
+
+/*
+ * Die Schnittstelle "Ablauf" trennt die JMH-Benchmarks von der Anwendung: Die Klassen des Haushaltsbuchs liegen
+ * im Standardpaket und können aus einem benannten Paket (das JMH verlangt) nicht direkt angesprochen werden.
+ * Die Implementierung "HaushaltsBuchAblauf" liegt deshalb selbst im Standardpaket und wird per Namen geladen.
+ *
+ * Jede Methode entspricht einem zeitkritischen Pfad der Anwendung und gibt ein Ergebnis zurück, damit der
+ * JIT-Compiler die Arbeit nicht wegoptimieren kann.
+ */
+public interface Ablauf extends AutoCloseable {
+
+    // Legt eine neue H2-Datenbank im Arbeitsspeicher mit der angegebenen Anzahl Einträge an.
+    void vorbereiten(int zeilen) throws Exception;
+
+    // DatenbankManager.getAllEintraege: alle Einträge lesen und in Eintrag-Objekte umwandeln.
+    int alleEintraegeLesen();
+
+    // HaushaltsBuch.loadEntries: Summen zählen und die ersten Seiten in das Tabellenmodell laden.
+    int tabelleLaden() throws Exception;
+
+    // HaushaltsBuch.updateSum: Summen aller Einträge lesen und als Text der Summenanzeige formatieren.
+    String summeAnzeigen();
+
+    // HaushaltsBuch.applyFilter: gefilterte Anzahl und erste Seite für einen Filter auf eine Spalte.
+    int filtern(String spalte, String text);
+
+    // HaushaltsBuch.updateDatabase: einen Eintrag ändern (ein UPDATE samt Monatssummen in einer Transaktion).
+    int eintragAendern(int nummer) throws Exception;
+
+    @Override
+    void close();
+
+    // Lädt die Implementierung aus dem Standardpaket.
+    static Ablauf erzeugen() throws ReflectiveOperationException {
+        return (Ablauf) Class.forName("HaushaltsBuchAblauf").getDeclaredConstructor().newInstance();
+    }
+}
@@ -0,0 +1,93 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Benchmarks für die zeitkritischen Pfade des Haushaltsbuchs gegen eine H2-Datenbank im Arbeitsspeicher
+ * (MySQL-Modus, dasselbe SQL wie mit MySQL). Die Datenbank wird je Anzahl Zeilen einmal angelegt und befüllt.
+ *
+ * Große Datenbestände brauchen beim Befüllen deutlich länger als die Messung selbst, z.B. nur die kleinen:
+ *   java -jar benchmark/target/benchmarks.jar -p zeilen=1000,100000
+ * 5.000.000 Zeilen sind nicht voreingestellt, weil sie mehr Arbeitsspeicher brauchen, als viele Rechner haben;
+ * auf einem Rechner mit genug Speicher:
+ *   java -jar benchmark/target/benchmarks.jar -p zeilen=5000000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx6g", "-Djava.awt.headless=true"})
+public class HaushaltsBuchBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int zeilen;
+
+    private Ablauf ablauf;
+    private int nummer;
+
+    @Setup(Level.Trial)
+    public void vorbereiten() throws Exception {
+        ablauf = Ablauf.erzeugen();
+        ablauf.vorbereiten(zeilen);
+    }
+
+    @TearDown(Level.Trial)
+    public void aufraeumen() {
+        ablauf.close();
+    }
+
+    @Benchmark
+    public int alleEintraegeLesen() {
+        return ablauf.alleEintraegeLesen();
+    }
+
+    @Benchmark
+    public int tabelleLaden() throws Exception {
+        return ablauf.tabelleLaden();
+    }
+
+    @Benchmark
+    public String summeAnzeigen() {
+        return ablauf.summeAnzeigen();
+    }
+
+    // Teiltext in der Info (LIKE über alle Zeilen).
+    @Benchmark
+    public int filterText() {
+        return ablauf.filtern("INFO", "markt");
+    }
+
+    // Ein Monat in der Spalte Datum (Bereich auf dem Index von "datum").
+    @Benchmark
+    public int filterMonat() {
+        return ablauf.filtern("DATUM", "03.2024");
+    }
+
+    // Ein Betrag in der Spalte Ausgaben (Bereich auf dem Index von "betrag").
+    @Benchmark
+    public int filterBetrag() {
+        return ablauf.filtern("AUSGABEN", "12");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int eintragAendern() throws Exception {
+        return ablauf.eintragAendern(nummer++);
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.List;
+
+/*
+ * Die Klasse "Aenderungen" enthält alle Änderungen an den Einträgen und Kategorien zwischen zwei Änderungsständen
+ * (siehe DatenbankManager.getAenderungenSeit): geänderte und neue Einträge mit ihren aktuellen Werten und die IDs
+ * gelöschter Einträge. Mit "getStand" als neuem Ausgangspunkt erhält die nächste Abfrage nur die folgenden Änderungen.
+ *
+ * Ist "isNeuLesen" gesetzt, lassen sich die Änderungen nicht einzeln nachvollziehen (z.B. nach "Alle löschen", einem
+ * Aufräumen alter Jahre oder wenn es mehr Änderungen als angefordert sind); dann muss alles neu gelesen werden.
+ */
+public class Aenderungen {
+
+    private final long stand;
+    private final List<Eintrag> eintraege;
+    private final int[] geloeschteIds;
+    private final boolean kategorienGeaendert;
+    private final boolean neuLesen;
+
+    public Aenderungen(long stand, List<Eintrag> eintraege, int[] geloeschteIds, boolean kategorienGeaendert, boolean neuLesen) {
+        this.stand = stand;
+        this.eintraege = eintraege;
+        this.geloeschteIds = geloeschteIds;
+        this.kategorienGeaendert = kategorienGeaendert;
+        this.neuLesen = neuLesen;
+    }
+
+    // Änderungsstand, bis zu dem die Änderungen enthalten sind.
+    public long getStand() {
+        return stand;
+    }
+
+    // Geänderte und neue Einträge, aufsteigend nach ihrer Änderungsnummer.
+    public List<Eintrag> getEintraege() {
+        return eintraege;
+    }
+
+    public int[] getGeloeschteIds() {
+        return geloeschteIds;
+    }
+
+    // Ob Kategorien angelegt oder gelöscht wurden.
+    public boolean isKategorienGeaendert() {
+        return kategorienGeaendert;
+    }
+
+    public boolean isNeuLesen() {
+        return neuLesen;
+    }
+
+    public boolean isLeer() {
+        return eintraege.isEmpty() && geloeschteIds.length == 0 && !kategorienGeaendert && !neuLesen;
+    }
+}
@@ -0,0 +1,85 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+ * Die Klasse "Aenderungsnummern" vergibt die fortlaufenden Änderungsnummern der Tabellen "eintraege" und "kategorien"
+ * und vermerkt gelöschte Zeilen in der Tabelle "loeschungen". Damit kann eine Anwendung alle Änderungen seit einem
+ * bekannten Stand abfragen, statt alles neu zu lesen (siehe DatenbankManager.getAenderungenSeit).
+ *
+ * Jede schreibende Transaktion holt sich mit "naechste" eine Nummer und trägt sie in alle Zeilen ein, die sie ändert.
+ * Die Zeile in "aenderungsstand" bleibt dabei bis zum Commit gesperrt; andere schreibende Transaktionen warten so lange.
+ * Deshalb werden die Nummern in der Reihenfolge der Commits sichtbar: Wer den Stand n liest, hat alle Änderungen bis
+ * n vollständig vor sich und verpasst keine, die erst später mit einer kleineren Nummer committet wird.
+ *
+ * Gelöschte Zeilen stehen mit der Nummer der löschenden Transaktion in "loeschungen". Wird eine ganze Tabelle (oder ein
+ * großer Teil davon) gelöscht, steht dort nur eine Zeile mit der ID ALLE; wer sie sieht, muss alles neu lesen. Ältere
+ * Löschungen derselben Tabelle werden dabei entfernt, weil sie damit überholt sind.
+ */
+public final class Aenderungsnummern {
+
+    public static final String EINTRAEGE = "eintraege";
+    public static final String KATEGORIEN = "kategorien";
+
+    // ID in "loeschungen" für "Tabelle ganz oder zu großen Teilen gelöscht, alles neu lesen".
+    public static final int ALLE = 0;
+
+    private Aenderungsnummern() {
+    }
+
+    /*
+     * Vergibt die nächste Änderungsnummer in der laufenden Transaktion der Verbindung (AutoCommit aus).
+     * Die Nummer gilt für alle Änderungen dieser Transaktion.
+     */
+    public static long naechste(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("UPDATE aenderungsstand SET nummer = nummer + 1 WHERE id = 1");
+            try (ResultSet rs = stmt.executeQuery("SELECT nummer FROM aenderungsstand WHERE id = 1")) {
+                rs.next();
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    // Die zuletzt committete Änderungsnummer (0, solange noch nichts geändert wurde).
+    public static long aktuell(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT nummer FROM aenderungsstand WHERE id = 1")) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+
+    /*
+     * Vermerkt die Zeilen der Tabelle, die zu der Bedingung passen, als gelöscht. Muss in derselben Transaktion
+     * vor dem Löschen aufgerufen werden.
+     */
+    public static void loeschungen(Connection conn, String tabelle, long nummer, String bedingung, Object... parameter) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO loeschungen(tabelle, id, aenderung) SELECT ?, id, ? FROM "
+                + tabelle + " " + bedingung)) {
+            pstmt.setString(1, tabelle);
+            pstmt.setLong(2, nummer);
+            for (int i = 0; i < parameter.length; i++) {
+                pstmt.setObject(i + 3, parameter[i]);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    /*
+     * Vermerkt, dass alle (oder so viele) Zeilen der Tabelle gelöscht wurden, dass jeder sie neu lesen muss, und
+     * entfernt die damit überholten Löschungen.
+     */
+    public static void alleNeuLesen(Connection conn, String tabelle, long nummer) throws SQLException {
+        try (PreparedStatement entfernen = conn.prepareStatement("DELETE FROM loeschungen WHERE tabelle = ?");
+             PreparedStatement vermerken = conn.prepareStatement("INSERT INTO loeschungen(tabelle, id, aenderung) VALUES(?, ?, ?)")) {
+            entfernen.setString(1, tabelle);
+            entfernen.executeUpdate();
+            vermerken.setString(1, tabelle);
+            vermerken.setInt(2, ALLE);
+            vermerken.setLong(3, nummer);
+            vermerken.executeUpdate();
+        }
+    }
+}
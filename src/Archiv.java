@@ -0,0 +1,177 @@
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Die Klasse "Archiv" lagert abgeschlossene Jahre aus der Tabelle "eintraege" in eine eigene Tabelle je Jahr aus
+ * ("eintraege_2019" usw.). Die Tabelle "eintraege" enthält danach nur noch die laufenden Jahre; Abfragen ohne
+ * Zeitraum, Summen, Löschen und Aufräumen lesen nur sie. Welche Jahre ausgelagert sind, steht in "archivjahre".
+ *
+ * Reicht der Zeitraum einer Abfrage in ausgelagerte Jahre, liest sie aus "quelle": einer abgeleiteten Tabelle mit dem
+ * Namen "eintraege", die die laufenden Einträge und die betroffenen Jahre mit UNION ALL zusammenfasst. Alle Spalten-
+ * ausdrücke und Filter gelten dafür unverändert.
+ *
+ * Ein ausgelagertes Jahr wird nur noch gelesen, nicht mehr geändert; beim Aufräumen wird seine Tabelle als Ganzes
+ * gelöscht. Unter MySQL werden die Archivtabellen komprimiert gespeichert (ROW_FORMAT=COMPRESSED). Natives
+ * Partitionieren kommt nicht in Frage, weil InnoDB es nur ohne Fremdschlüssel und mit "datum" in jedem eindeutigen
+ * Schlüssel erlaubt.
+ */
+public final class Archiv {
+
+    // Spalten einer Archivtabelle, in dieser Reihenfolge; "journal_id" und "geaendert_von" braucht ein Archiv nicht.
+    public static final String SPALTEN = "id, bezeichnung, betrag, kategorie_id, typ, datum, info, aenderung";
+
+    private Archiv() {
+    }
+
+    // Name der Archivtabelle eines Jahres.
+    public static String tabelle(int jahr) {
+        return "eintraege_" + jahr;
+    }
+
+    // Die ausgelagerten Jahre, aufsteigend.
+    public static List<Integer> jahre(Connection conn) throws SQLException {
+        List<Integer> jahre = new ArrayList<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT jahr FROM archivjahre ORDER BY jahr")) {
+            while (rs.next()) {
+                jahre.add(rs.getInt(1));
+            }
+        }
+        return jahre;
+    }
+
+    /*
+     * Tabelle, aus der eine Abfrage über die laufenden Einträge und die angegebenen Jahre liest: ohne Jahre nur
+     * "eintraege", sonst eine abgeleitete Tabelle gleichen Namens mit den Spalten aus SPALTEN.
+     */
+    public static String quelle(Collection<Integer> jahre) {
+        if (jahre.isEmpty()) {
+            return "eintraege";
+        }
+        StringBuilder sql = new StringBuilder("(SELECT ").append(SPALTEN).append(" FROM eintraege");
+        for (int jahr : jahre) {
+            sql.append(" UNION ALL SELECT ").append(SPALTEN).append(" FROM ").append(tabelle(jahr));
+        }
+        return sql.append(") eintraege").toString();
+    }
+
+    /*
+     * Legt die Archivtabelle eines Jahres an, falls es sie noch nicht gibt. Eine Tabelle, deren Jahr nicht in
+     * "archivjahre" steht (z.B. nach einem abgebrochenen Aufräumen), wird vorher verworfen.
+     * Läuft außerhalb einer Transaktion, weil MySQL bei CREATE TABLE ohnehin committet.
+     */
+    public static void anlegen(Connection conn, int jahr, boolean komprimiert) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!jahre(conn).contains(jahr)) {
+                stmt.execute("DROP TABLE IF EXISTS " + tabelle(jahr));
+            }
+            stmt.execute("CREATE TABLE IF NOT EXISTS " + tabelle(jahr) + " ("
+                    + "id INT PRIMARY KEY, "
+                    + "bezeichnung VARCHAR(255) NOT NULL, "
+                    + "betrag DECIMAL(10, 2) NOT NULL, "
+                    + "kategorie_id INT NULL, "
+                    + "typ TINYINT NOT NULL, "
+                    + "datum DATE NOT NULL, "
+                    + "info TEXT, "
+                    + "aenderung BIGINT NOT NULL DEFAULT 0"
+                    + ")" + (komprimiert ? " ROW_FORMAT=COMPRESSED" : ""));
+        }
+    }
+
+    /*
+     * Verschiebt alle Einträge eines Jahres aus "eintraege" in seine Archivtabelle (die es schon geben muss) und
+     * vermerkt das Jahr. Gibt die Anzahl der verschobenen Einträge zurück. Muss in einer Transaktion laufen.
+     */
+    public static int verschieben(Connection conn, int jahr) throws SQLException {
+        String bedingung = " WHERE datum >= ? AND datum < ?";
+        int verschoben;
+        try (PreparedStatement kopieren = conn.prepareStatement("INSERT INTO " + tabelle(jahr) + "(" + SPALTEN + ") SELECT "
+                + SPALTEN + " FROM eintraege" + bedingung);
+             PreparedStatement loeschen = conn.prepareStatement("DELETE FROM eintraege" + bedingung)) {
+            for (PreparedStatement pstmt : new PreparedStatement[]{kopieren, loeschen}) {
+                pstmt.setDate(1, Date.valueOf(LocalDate.of(jahr, 1, 1)));
+                pstmt.setDate(2, Date.valueOf(LocalDate.of(jahr + 1, 1, 1)));
+            }
+            verschoben = kopieren.executeUpdate();
+            loeschen.executeUpdate();
+        }
+        try (PreparedStatement vermerken = conn.prepareStatement("INSERT INTO archivjahre(jahr, anzahl) VALUES(?, ?) "
+                + "ON DUPLICATE KEY UPDATE anzahl = anzahl + VALUES(anzahl)")) {
+            vermerken.setInt(1, jahr);
+            vermerken.setInt(2, verschoben);
+            vermerken.executeUpdate();
+        }
+        return verschoben;
+    }
+
+    // Anzahl der Einträge in der Archivtabelle eines Jahres, wie in "archivjahre" vermerkt.
+    public static int anzahl(Connection conn, int jahr) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT anzahl FROM archivjahre WHERE jahr = ?")) {
+            pstmt.setInt(1, jahr);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        }
+    }
+
+    /*
+     * Löscht die Einträge eines ausgelagerten Jahres vor dem Datum und passt die vermerkte Anzahl an.
+     * Gibt die Anzahl der gelöschten Einträge zurück. Muss in einer Transaktion laufen.
+     */
+    public static int loeschenVor(Connection conn, int jahr, LocalDate datum) throws SQLException {
+        int geloescht;
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + tabelle(jahr) + " WHERE datum < ?")) {
+            pstmt.setDate(1, Date.valueOf(datum));
+            geloescht = pstmt.executeUpdate();
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("UPDATE archivjahre SET anzahl = anzahl - ? WHERE jahr = ?")) {
+            pstmt.setInt(1, geloescht);
+            pstmt.setInt(2, jahr);
+            pstmt.executeUpdate();
+        }
+        return geloescht;
+    }
+
+    /*
+     * Nimmt den Einträgen aller Archivtabellen die Kategorien, die zu der Bedingung auf "kategorien" passen.
+     * Muss wie Monatssummen.kategorienAufloesen in derselben Transaktion vor dem Löschen der Kategorien laufen;
+     * Archivtabellen haben keinen Fremdschlüssel, der das übernähme.
+     */
+    public static void kategorienAufloesen(Connection conn, String bedingung, Object... parameter) throws SQLException {
+        for (int jahr : jahre(conn)) {
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE " + tabelle(jahr) + " SET kategorie_id = NULL "
+                    + "WHERE kategorie_id IN (SELECT id FROM kategorien " + bedingung + ")")) {
+                for (int i = 0; i < parameter.length; i++) {
+                    pstmt.setObject(i + 1, parameter[i]);
+                }
+                pstmt.executeUpdate();
+            }
+        }
+    }
+
+    /*
+     * Streicht ein Jahr aus "archivjahre"; Abfragen lesen seine Tabelle danach nicht mehr. Muss in einer
+     * Transaktion laufen; die Tabelle selbst löscht "verwerfen" nach dem Commit.
+     */
+    public static void austragen(Connection conn, int jahr) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM archivjahre WHERE jahr = ?")) {
+            pstmt.setInt(1, jahr);
+            pstmt.executeUpdate();
+        }
+    }
+
+    // Löscht die Archivtabelle eines ausgetragenen Jahres.
+    public static void verwerfen(Connection conn, int jahr) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS " + tabelle(jahr));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+
+/*
+ * Die Klasse "BankImport" übernimmt Kontoauszüge (CSV oder CAMT.053) in die Tabelle "eintraege".
+ *
+ * Die Datei wird als Datenstrom gelesen und Buchung für Buchung in Einträge umgewandelt. Geschrieben wird
+ * über eine einzige Verbindung mit einem PreparedStatement: jeweils BATCH_GROESSE Einträge werden mit
+ * addBatch()/executeBatch() gesammelt gesendet, und alle TRANSAKTIONS_GROESSE Einträge wird committet.
+ * Bei MySQL fasst der Treiber einen Batch dank "rewriteBatchedStatements" zu mehrzeiligen INSERTs zusammen.
+ * Der Speicherbedarf hängt damit nicht von der Größe der Datei ab.
+ *
+ * Jeder Block bekommt eine eigene Änderungsnummer (siehe Aenderungsnummern). Die Nummer bleibt bis zum Commit
+ * gesperrt; taucht mitten in einem Block eine neue Kategorie auf, wird der Block deshalb vorzeitig committet, bevor
+ * die Kategorie (mit ihrer eigenen Nummer) angelegt wird.
+ *
+ * Fehlerhafte Buchungen werden übersprungen und im ImportBericht vermerkt. Bricht der Import ab (Fehler beim
+ * Schreiben oder auf Wunsch des Benutzers), bleiben bereits committete Blöcke erhalten; der Bericht nennt ihre Anzahl.
+ */
+public class BankImport {
+
+    // Anzahl der Einträge, die in einem Batch an die Datenbank gesendet werden.
+    public static final int BATCH_GROESSE = 1000;
+
+    // Anzahl der Einträge pro Transaktion.
+    public static final int TRANSAKTIONS_GROESSE = 20 * BATCH_GROESSE;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO eintraege(bezeichnung, betrag, kategorie_id, typ, datum, info, aenderung, geaendert_von) VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final DatenbankManager dbManager;
+    private final ImportRegeln regeln;
+
+    public BankImport(DatenbankManager dbManager, ImportRegeln regeln) {
+        this.dbManager = dbManager;
+        this.regeln = regeln;
+    }
+
+    /*
+     * Importiert eine Datei. Dateien mit der Endung ".xml" werden als CAMT.053 gelesen, alle anderen als CSV.
+     *
+     * @param fortschritt erhält nach jedem Batch den Fortschritt in Prozent (nach gelesenen Bytes)
+     * @param abbrechen   wird vor jeder Buchung geprüft; liefert er "true", endet der Import nach dem letzten Commit
+     * @throws IOException wenn die Datei nicht geöffnet werden kann oder ihr Aufbau nicht passt
+     */
+    public ImportBericht importieren(Path datei, IntConsumer fortschritt, BooleanSupplier abbrechen) throws IOException {
+        long start = System.currentTimeMillis();
+        long groesse = Math.max(1, Files.size(datei));
+        ImportBericht bericht = new ImportBericht();
+        try (ZaehlenderStrom eingabe = new ZaehlenderStrom(new BufferedInputStream(Files.newInputStream(datei), 1 << 16));
+             ImportQuelle quelle = oeffnen(datei, eingabe)) {
+            schreiben(quelle, bericht, () -> fortschritt.accept((int) (eingabe.gelesen * 100 / groesse)), abbrechen);
+        }
+        bericht.setDauerMillis(System.currentTimeMillis() - start);
+        fortschritt.accept(100);
+        return bericht;
+    }
+
+    private ImportQuelle oeffnen(Path datei, InputStream eingabe) throws IOException {
+        if (datei.getFileName().toString().toLowerCase().endsWith(".xml")) {
+            return new Camt053ImportQuelle(eingabe);
+        }
+        return new CsvImportQuelle(eingabe, regeln);
+    }
+
+    private void schreiben(ImportQuelle quelle, ImportBericht bericht, Runnable fortschritt, BooleanSupplier abbrechen) {
+        // IDs der vergebenen Kategorien; es gibt höchstens so viele wie Kategorien in den ImportRegeln.
+        Map<String, Integer> kategorieIds = new HashMap<>();
+        try (Messung messung = dbManager.getMesswerte().messen("import");
+             Connection conn = dbManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(INSERT_SQL)) {
+            conn.setAutoCommit(false);
+            // Summen je Monat und Kategorie des laufenden Blocks, werden mit ihm committet.
+            Monatssummen summen = new Monatssummen();
+            int imBatch = 0;
+            int inTransaktion = 0;
+            // Änderungsnummer des laufenden Blocks, 0 solange er noch keine hat.
+            long nummer = 0;
+            while (true) {
+                if (abbrechen.getAsBoolean()) {
+                    bericht.abbruch(null);
+                    break;
+                }
+                Buchung buchung;
+                try {
+                    buchung = quelle.naechste();
+                } catch (RuntimeException e) {
+                    bericht.gelesen();
+                    bericht.fehler(quelle.getPosition(), e.getMessage());
+                    continue;
+                } catch (IOException e) {
+                    // Die Datei ist ab hier nicht lesbar; alles bis dahin Gelesene wird noch übernommen.
+                    bericht.abbruch(e.getMessage());
+                    break;
+                }
+                if (buchung == null) {
+                    break;
+                }
+                bericht.gelesen();
+
+                Eintrag eintrag = regeln.abbilden(buchung);
+                Integer kategorieId = kategorieIds.get(eintrag.getKategorie().getName());
+                if (!kategorieIds.containsKey(eintrag.getKategorie().getName())) {
+                    if (nummer != 0) {
+                        // Die Kategorie bräuchte die Änderungsnummer, die dieser Block bis zum Commit sperrt.
+                        bericht.importiert(committen(conn, pstmt, summen, imBatch, inTransaktion));
+                        imBatch = 0;
+                        inTransaktion = 0;
+                        nummer = 0;
+                    }
+                    // Eigene Verbindung, damit die Kategorie sofort committet ist und nicht im Importblock liegt.
+                    kategorieId = dbManager.getKategorieId(eintrag.getKategorie());
+                    kategorieIds.put(eintrag.getKategorie().getName(), kategorieId);
+                }
+                if (nummer == 0) {
+                    nummer = Aenderungsnummern.naechste(conn);
+                }
+                pstmt.setString(1, eintrag.getBezeichnung());
+                pstmt.setBigDecimal(2, Geld.zuBigDecimal(eintrag.getBetragCent()));
+                if (kategorieId == null) {
+                    pstmt.setNull(3, Types.INTEGER);
+                } else {
+                    pstmt.setInt(3, kategorieId);
+                }
+                pstmt.setInt(4, DatenbankManager.typCode(eintrag.getTyp()));
+                pstmt.setDate(5, Date.valueOf(eintrag.getDatum()));
+                pstmt.setString(6, eintrag.getInfo());
+                pstmt.setLong(7, nummer);
+                pstmt.setString(8, dbManager.getKennung());
+                pstmt.addBatch();
+                summen.hinzufuegen(eintrag.getDatum(), kategorieId, DatenbankManager.typCode(eintrag.getTyp()), eintrag.getBetragCent());
+
+                if (++imBatch == BATCH_GROESSE) {
+                    pstmt.executeBatch();
+                    inTransaktion += imBatch;
+                    imBatch = 0;
+                    if (inTransaktion >= TRANSAKTIONS_GROESSE) {
+                        bericht.importiert(committen(conn, pstmt, summen, 0, inTransaktion));
+                        inTransaktion = 0;
+                        nummer = 0;
+                    }
+                    fortschritt.run();
+                }
+            }
+            bericht.importiert(committen(conn, pstmt, summen, imBatch, inTransaktion));
+            messung.zeilen(bericht.getImportiert()).batch(BATCH_GROESSE).erfolg();
+        } catch (SQLException e) {
+            // Der nicht committete Block wird beim Zurückgeben der Verbindung an den Pool zurückgerollt.
+            e.printStackTrace();
+            bericht.abbruch("Fehler beim Schreiben in die Datenbank: " + e.getMessage());
+        }
+    }
+
+    /*
+     * Sendet den noch offenen Batch, schreibt die Monatssummen und committet den Block.
+     * Gibt die Anzahl der damit übernommenen Einträge zurück.
+     */
+    private static int committen(Connection conn, PreparedStatement pstmt, Monatssummen summen, int imBatch, int inTransaktion) throws SQLException {
+        if (imBatch > 0) {
+            pstmt.executeBatch();
+        }
+        summen.schreiben(conn);
+        conn.commit();
+        return inTransaktion + imBatch;
+    }
+
+    // Zählt die gelesenen Bytes, um den Fortschritt unabhängig vom Dateiformat anzeigen zu können.
+    private static final class ZaehlenderStrom extends FilterInputStream {
+
+        private long gelesen;
+
+        private ZaehlenderStrom(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                gelesen++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                gelesen += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long uebersprungen = super.skip(n);
+            gelesen += uebersprungen;
+            return uebersprungen;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+import java.time.LocalDate;
+
+/*
+ * Die Klasse "Buchung" ist ein einzelner Umsatz aus einem Kontoauszug, so wie ihn eine ImportQuelle liest.
+ * Sie ist noch kein Eintrag: Kategorie, Typ und Info werden erst durch die ImportRegeln bestimmt.
+ */
+public class Buchung {
+
+    private final LocalDate datum;
+
+    // Betrag in Cent mit Vorzeichen: positiv für Gutschriften, negativ für Belastungen.
+    private final long betragCent;
+
+    private final String verwendungszweck;
+    private final String gegenpartei;
+
+    public Buchung(LocalDate datum, long betragCent, String verwendungszweck, String gegenpartei) {
+        this.datum = datum;
+        this.betragCent = betragCent;
+        this.verwendungszweck = verwendungszweck;
+        this.gegenpartei = gegenpartei;
+    }
+
+    public LocalDate getDatum() {
+        return datum;
+    }
+
+    public long getBetragCent() {
+        return betragCent;
+    }
+
+    public String getVerwendungszweck() {
+        return verwendungszweck;
+    }
+
+    public String getGegenpartei() {
+        return gegenpartei;
+    }
+}
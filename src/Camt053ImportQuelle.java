@@ -0,0 +1,166 @@
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+
+/*
+ * Liest Buchungen aus einem Kontoauszug im Format CAMT.053 (ISO 20022, "BkToCstmrStmt").
+ * Die XML-Datei wird mit einem StAX-Pull-Parser gelesen, sodass nie der ganze Auszug im Speicher liegt.
+ *
+ * Jeder Umsatz ("Ntry") wird zu einer Buchung mit:
+ *   - Betrag aus "Amt", Vorzeichen aus "CdtDbtInd" (CRDT = Gutschrift, DBIT = Belastung),
+ *   - Datum aus "BookgDt" ("Dt" oder "DtTm"),
+ *   - Verwendungszweck aus allen "Ustrd"-Elementen,
+ *   - Gegenpartei aus "Nm" des Zahlungspflichtigen (bei Gutschriften) bzw. des Empfängers (bei Belastungen).
+ * Sammelbuchungen mit mehreren "TxDtls" werden als ein Umsatz übernommen, so wie sie auf dem Konto gebucht sind.
+ */
+public class Camt053ImportQuelle implements ImportQuelle {
+
+    private final XMLStreamReader xml;
+    private int eintrag;
+
+    /*
+     * @throws IOException wenn die Datei kein lesbares XML ist
+     */
+    public Camt053ImportQuelle(InputStream eingabe) throws IOException {
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            // Externe Entitäten werden in Kontoauszügen nicht benötigt und aus Sicherheitsgründen nicht aufgelöst.
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+            this.xml = factory.createXMLStreamReader(eingabe);
+        } catch (XMLStreamException e) {
+            throw new IOException("Der Kontoauszug kann nicht gelesen werden: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Buchung naechste() throws IOException {
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT && xml.getLocalName().equals("Ntry")) {
+                    eintrag++;
+                    return umsatzLesen();
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new IOException("Fehler im Kontoauszug bei " + getPosition() + ": " + e.getMessage(), e);
+        }
+    }
+
+    /*
+     * Liest einen "Ntry"-Block bis zu seinem Ende. Der Parser steht danach immer hinter dem Block,
+     * auch wenn Betrag oder Datum fehlerhaft sind.
+     */
+    private Buchung umsatzLesen() throws XMLStreamException {
+        String betrag = null;
+        String richtung = null;
+        String datum = null;
+        StringBuilder zweck = new StringBuilder();
+        String zahlungspflichtiger = null;
+        String empfaenger = null;
+
+        // Pfad der aktuell offenen Elemente unterhalb von "Ntry", soweit für die Zuordnung nötig.
+        boolean inBuchungsdatum = false;
+        boolean inDbtr = false;
+        boolean inCdtr = false;
+        int tiefe = 1;
+        while (tiefe > 0) {
+            int ereignis = xml.next();
+            if (ereignis == XMLStreamConstants.START_ELEMENT) {
+                tiefe++;
+                switch (xml.getLocalName()) {
+                    case "Amt":
+                        // Nur der Betrag des Umsatzes selbst, nicht die Beträge einzelner Transaktionsdetails.
+                        if (tiefe == 2) {
+                            betrag = xml.getElementText();
+                            tiefe--;
+                        }
+                        break;
+                    case "CdtDbtInd":
+                        if (tiefe == 2) {
+                            richtung = xml.getElementText();
+                            tiefe--;
+                        }
+                        break;
+                    case "BookgDt":
+                        inBuchungsdatum = true;
+                        break;
+                    case "Dt":
+                    case "DtTm":
+                        if (inBuchungsdatum && datum == null) {
+                            datum = xml.getElementText();
+                            tiefe--;
+                        }
+                        break;
+                    case "Ustrd":
+                        if (zweck.length() > 0) {
+                            zweck.append(' ');
+                        }
+                        zweck.append(xml.getElementText().trim());
+                        tiefe--;
+                        break;
+                    case "Dbtr":
+                        inDbtr = true;
+                        break;
+                    case "Cdtr":
+                        inCdtr = true;
+                        break;
+                    case "Nm":
+                        if (inDbtr && zahlungspflichtiger == null) {
+                            zahlungspflichtiger = xml.getElementText();
+                            tiefe--;
+                        } else if (inCdtr && empfaenger == null) {
+                            empfaenger = xml.getElementText();
+                            tiefe--;
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            } else if (ereignis == XMLStreamConstants.END_ELEMENT) {
+                tiefe--;
+                switch (xml.getLocalName()) {
+                    case "BookgDt":
+                        inBuchungsdatum = false;
+                        break;
+                    case "Dbtr":
+                        inDbtr = false;
+                        break;
+                    case "Cdtr":
+                        inCdtr = false;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+
+        if (betrag == null || datum == null) {
+            throw new IllegalArgumentException("Umsatz ohne Betrag oder Buchungsdatum");
+        }
+        long cent = Geld.parsen(betrag);
+        boolean gutschrift = "CRDT".equals(richtung == null ? null : richtung.trim());
+        return new Buchung(LocalDate.parse(datum.trim().substring(0, 10)), gutschrift ? cent : -cent,
+                zweck.toString(), gutschrift ? zahlungspflichtiger : empfaenger);
+    }
+
+    @Override
+    public String getPosition() {
+        return "Umsatz " + eintrag + " (Zeile " + xml.getLocation().getLineNumber() + ")";
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Liest Buchungen aus einer CSV-Datei, wie sie Banken als Umsatzexport anbieten.
+ * Die erste Zeile enthält die Spaltennamen; welche Spalten Datum, Betrag, Verwendungszweck und Gegenpartei
+ * enthalten, legen die ImportRegeln fest. Felder dürfen in Anführungszeichen stehen und dann auch
+ * Trennzeichen und Zeilenumbrüche enthalten ("" steht für ein Anführungszeichen im Feld).
+ *
+ * Die Datei wird zeichenweise aus einem eigenen Puffer gelesen; pro Zeile werden nur die Feldtexte erzeugt.
+ */
+public class CsvImportQuelle implements ImportQuelle {
+
+    private final Reader reader;
+    private final char[] puffer = new char[8192];
+    private int pufferPos;
+    private int pufferEnde;
+
+    private final ImportRegeln regeln;
+    private final char trennzeichen;
+    private final int spalteDatum;
+    private final int spalteBetrag;
+    private final int spalteVerwendungszweck;
+    private final int spalteGegenpartei;
+
+    // Wiederverwendete Puffer für die Felder der aktuellen Zeile.
+    private final StringBuilder feld = new StringBuilder();
+    private final List<String> felder = new ArrayList<>();
+
+    // Nummer der zuletzt gelesenen Zeile (die Kopfzeile ist Zeile 1).
+    private int zeile;
+    private int zeilenumbrueche;
+
+    /*
+     * Öffnet die CSV-Datei und liest die Kopfzeile.
+     *
+     * @throws IOException wenn die Kopfzeile fehlt oder eine benötigte Spalte nicht enthält
+     */
+    public CsvImportQuelle(InputStream eingabe, ImportRegeln regeln) throws IOException {
+        this.reader = new InputStreamReader(eingabe, regeln.getZeichensatz());
+        this.regeln = regeln;
+        this.trennzeichen = regeln.getTrennzeichen();
+        // Ein Byte Order Mark am Dateianfang gehört nicht zum ersten Spaltennamen.
+        if (zeichen() != '\uFEFF' && pufferEnde > 0) {
+            pufferPos--;
+        }
+        if (!zeileLesen()) {
+            throw new IOException("Die CSV-Datei ist leer.");
+        }
+        List<String> kopf = new ArrayList<>(felder);
+        spalteDatum = spalte(kopf, regeln.getSpalteDatum(), true);
+        spalteBetrag = spalte(kopf, regeln.getSpalteBetrag(), true);
+        spalteVerwendungszweck = spalte(kopf, regeln.getSpalteVerwendungszweck(), false);
+        spalteGegenpartei = spalte(kopf, regeln.getSpalteGegenpartei(), false);
+    }
+
+    private static int spalte(List<String> kopf, String name, boolean pflicht) throws IOException {
+        for (int i = 0; i < kopf.size(); i++) {
+            if (kopf.get(i).trim().equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        if (pflicht) {
+            throw new IOException("Die CSV-Datei enthält keine Spalte \"" + name + "\".");
+        }
+        return -1;
+    }
+
+    @Override
+    public Buchung naechste() throws IOException {
+        do {
+            if (!zeileLesen()) {
+                return null;
+            }
+        } while (felder.size() == 1 && felder.get(0).trim().isEmpty()); // Leerzeilen überspringen
+
+        LocalDate datum = LocalDate.parse(feld(spalteDatum).trim(), regeln.getDatumsformat());
+        String betrag = feld(spalteBetrag);
+        if (!regeln.getTausendertrennzeichen().isEmpty()) {
+            betrag = betrag.replace(regeln.getTausendertrennzeichen(), "");
+        }
+        long betragCent = Geld.parsen(betrag);
+        return new Buchung(datum, betragCent, feld(spalteVerwendungszweck), feld(spalteGegenpartei));
+    }
+
+    // Liefert ein Feld der aktuellen Zeile; fehlende Felder sind leer.
+    private String feld(int spalte) {
+        return spalte >= 0 && spalte < felder.size() ? felder.get(spalte) : "";
+    }
+
+    @Override
+    public String getPosition() {
+        return "Zeile " + zeile;
+    }
+
+    /*
+     * Liest die nächste logische Zeile (die wegen Feldern in Anführungszeichen mehrere Dateizeilen umfassen kann)
+     * in "felder". Gibt "false" am Dateiende zurück.
+     */
+    private boolean zeileLesen() throws IOException {
+        felder.clear();
+        feld.setLength(0);
+        zeile += 1 + zeilenumbrueche;
+        zeilenumbrueche = 0;
+        int c = zeichen();
+        if (c < 0) {
+            return false;
+        }
+        boolean inAnfuehrung = false;
+        while (c >= 0) {
+            if (inAnfuehrung) {
+                if (c == '"') {
+                    c = zeichen();
+                    if (c == '"') {
+                        feld.append('"');
+                    } else {
+                        inAnfuehrung = false;
+                        continue;
+                    }
+                } else {
+                    if (c == '\n') {
+                        zeilenumbrueche++;
+                    }
+                    feld.append((char) c);
+                }
+            } else if (c == '"' && feld.length() == 0) {
+                inAnfuehrung = true;
+            } else if (c == trennzeichen) {
+                felder.add(feld.toString());
+                feld.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    c = zeichen();
+                    if (c != '\n' && c >= 0) {
+                        pufferPos--; // Einzelnes \r als Zeilenende; das gelesene Zeichen gehört zur nächsten Zeile.
+                    }
+                }
+                break;
+            } else {
+                feld.append((char) c);
+            }
+            c = zeichen();
+        }
+        felder.add(feld.toString());
+        return true;
+    }
+
+    private int zeichen() throws IOException {
+        if (pufferPos == pufferEnde) {
+            pufferEnde = reader.read(puffer, 0, puffer.length);
+            pufferPos = 0;
+            if (pufferEnde <= 0) {
+                pufferEnde = 0;
+                return -1;
+            }
+        }
+        return puffer[pufferPos++];
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
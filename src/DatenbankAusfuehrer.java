@@ -0,0 +1,152 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Die Klasse "DatenbankAusfuehrer" führt Datenbankoperationen asynchron aus und liefert ihr Ergebnis als
+ * CompletableFuture (siehe die ...Async-Methoden des DatenbankManagers).
+ *
+ * Jede Operation bekommt einen eigenen Thread: ab Java 21 einen virtuellen Thread, davor einen Thread aus
+ * einem festen Pool mit "grenze" Threads. Höchstens "grenze" Operationen greifen gleichzeitig auf die Datenbank
+ * zu (in der Regel so viele, wie der Verbindungspool Verbindungen hat); weitere warten, ohne eine Verbindung
+ * zu belegen.
+ *
+ * Abbrechen und Zeitlimits: Wird das gelieferte Future vorzeitig abgeschlossen, z.B. mit cancel() oder durch
+ * orTimeout(), startet eine noch wartende Operation nicht mehr. Eine bereits laufende Anweisung wird zu Ende
+ * ausgeführt (eine Unterbrechung mitten in JDBC kann die Verbindung unbrauchbar machen), ihr Ergebnis aber
+ * verworfen. Abgebrochen werden muss das gelieferte Future selbst, nicht ein davon abgeleitetes (thenApply usw.).
+ */
+public class DatenbankAusfuehrer implements AutoCloseable {
+
+    private final ExecutorService executor;
+    private final Semaphore erlaubnisse;
+    private final boolean virtuell;
+
+    public DatenbankAusfuehrer(int grenze) {
+        this.erlaubnisse = new Semaphore(grenze, true);
+        ExecutorService virtuellerExecutor = virtuellerExecutor();
+        this.virtuell = virtuellerExecutor != null;
+        this.executor = virtuell ? virtuellerExecutor : plattformExecutor(grenze);
+    }
+
+    /*
+     * Executors.newVirtualThreadPerTaskExecutor() gibt es erst ab Java 21; die Anwendung wird für Java 17 gebaut
+     * und sucht die Methode daher zur Laufzeit. Gibt null zurück, wenn sie nicht vorhanden ist.
+     */
+    private static ExecutorService virtuellerExecutor() {
+        try {
+            Method methode = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) methode.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static ExecutorService plattformExecutor(int grenze) {
+        AtomicInteger nummer = new AtomicInteger();
+        return Executors.newFixedThreadPool(grenze, r -> {
+            Thread thread = new Thread(r, "Datenbank-Async-" + nummer.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // true, wenn die Operationen auf virtuellen Threads laufen.
+    public boolean isVirtuell() {
+        return virtuell;
+    }
+
+    /*
+     * Führt "arbeit" asynchron aus. Das Future wird mit dem Ergebnis abgeschlossen oder mit der Exception,
+     * die "arbeit" wirft. Nach close() wird es sofort mit einer CancellationException abgeschlossen.
+     */
+    public <T> CompletableFuture<T> ausfuehren(Callable<T> arbeit) {
+        Aufgabe<T> aufgabe = new Aufgabe<>(arbeit);
+        try {
+            executor.execute(aufgabe::ausfuehren);
+        } catch (RuntimeException e) {
+            aufgabe.completeExceptionally(new CancellationException("Der DatenbankAusfuehrer ist geschlossen"));
+        }
+        return aufgabe;
+    }
+
+    /*
+     * Nimmt keine neuen Operationen mehr an und wartet einige Sekunden auf die laufenden, damit sie ihre
+     * Verbindungen zurückgeben, bevor der Verbindungspool geschlossen wird.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Eine Operation als Future. Solange sie auf eine Erlaubnis wartet, wird ihr Thread beim vorzeitigen
+     * Abschließen des Futures unterbrochen; danach nicht mehr.
+     */
+    private final class Aufgabe<T> extends CompletableFuture<T> {
+
+        private final Callable<T> arbeit;
+
+        // Der Thread, solange er auf eine Erlaubnis wartet, sonst null.
+        private Thread wartend;
+
+        private Aufgabe(Callable<T> arbeit) {
+            this.arbeit = arbeit;
+            whenComplete((ergebnis, fehler) -> wartendenUnterbrechen());
+        }
+
+        private synchronized void wartendenUnterbrechen() {
+            if (wartend != null) {
+                wartend.interrupt();
+            }
+        }
+
+        private void ausfuehren() {
+            if (isDone()) {
+                return;
+            }
+            synchronized (this) {
+                wartend = Thread.currentThread();
+            }
+            try {
+                erlaubnisse.acquire();
+            } catch (InterruptedException e) {
+                synchronized (this) {
+                    wartend = null;
+                }
+                Thread.interrupted();
+                completeExceptionally(new CancellationException("Abgebrochen, bevor die Operation gestartet wurde"));
+                return;
+            }
+            try {
+                synchronized (this) {
+                    wartend = null;
+                }
+                // Eine Unterbrechung kurz vor dem Zurücksetzen darf nicht in die Datenbankoperation hineinwirken.
+                Thread.interrupted();
+                if (!isDone()) {
+                    complete(arbeit.call());
+                }
+            } catch (Exception e) {
+                completeExceptionally(e instanceof CompletionException ? e.getCause() : e);
+            } catch (Error e) {
+                completeExceptionally(e);
+                throw e;
+            } finally {
+                erlaubnisse.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * JFR-Ereignis für eine Datenbankoperation (siehe Messung). In einer Aufzeichnung mit Java Flight Recorder
+ * (z.B. java -XX:StartFlightRecording=filename=haushaltsbuch.jfr ...) erscheinen die Operationen so auf derselben
+ * Zeitachse wie Garbage Collection und Stockungen des Event Dispatch Threads (EdtStockungEvent).
+ */
+@Name("haushaltsbuch.Datenbank")
+@Label("Datenbankoperation")
+@Category({"Haushaltsbuch", "Datenbank"})
+@Description("Eine Operation des DatenbankManagers, des Imports oder des Exports")
+@StackTrace(false)
+public class DatenbankEvent extends Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Zeilen")
+    long zeilen;
+
+    @Label("Batchgröße")
+    int batchGroesse;
+
+    @Label("Fehlgeschlagen")
+    boolean fehlgeschlagen;
+}
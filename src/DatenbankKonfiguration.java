@@ -0,0 +1,222 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Properties;
+
+/*
+ * Die Klasse "DatenbankKonfiguration" legt fest, in welcher Datenbank die Einträge gespeichert werden.
+ * Die Einstellungen werden aus einer Properties-Datei gelesen, z.B.:
+ *
+ *   datenbank.art=h2-datei
+ *   datenbank.datei=/home/anna/.haushaltsbuch/haushaltsbuch
+ *
+ * oder für einen MySQL-Server:
+ *
+ *   datenbank.art=mysql
+ *   datenbank.url=jdbc:mysql://localhost:3306/haushaltskosten?rewriteBatchedStatements=true
+ *   datenbank.benutzer=root
+ *   datenbank.passwort=
+ *
+ * Die Größe des Verbindungspools lässt sich mit datenbank.pool.min und datenbank.pool.max anpassen; ohne Angabe
+ * hält der Pool mindestens eine Verbindung offen und öffnet höchstens 4 (eingebettet) bzw. 8 (MySQL).
+ *
+ * Jede Einstellung kann beim Start auch als Systemeigenschaft übergeben werden (z.B. -Ddatenbank.art=h2-speicher);
+ * diese hat Vorrang vor der Datei. Ohne Einstellungen wird wie bisher die lokale MySQL-Datenbank verwendet.
+ *
+ * Alle Arten werden über JDBC mit demselben SQL angesprochen; H2 läuft dafür im MySQL-Modus.
+ * Die eingebetteten Arten brauchen keinen Server und keine Netzwerkverbindung, die Daten liegen im selben Prozess.
+ */
+public class DatenbankKonfiguration {
+
+    public enum Art {
+        // MySQL-Server, Zugang über URL, Benutzer und Passwort.
+        MYSQL("mysql"),
+        // Eingebettete H2-Datenbank in einer Datei, für Einzelplatz-Installationen ohne Server.
+        H2_DATEI("h2-datei"),
+        // H2 nur im Arbeitsspeicher; die Daten gehen beim Beenden verloren (für Tests und zum Ausprobieren).
+        H2_SPEICHER("h2-speicher");
+
+        private final String name;
+
+        Art(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public static Art ausName(String name) {
+            for (Art art : values()) {
+                if (art.name.equalsIgnoreCase(name.trim())) {
+                    return art;
+                }
+            }
+            throw new IllegalArgumentException("Unbekannte Datenbankart \"" + name + "\" (erlaubt: mysql, h2-datei, h2-speicher)");
+        }
+    }
+
+    public static final String STANDARD_DATEI = "datenbank.properties";
+
+    private static final String MYSQL_URL = "jdbc:mysql://localhost:3306/haushaltskosten?rewriteBatchedStatements=true";
+
+    // Damit H2 dieselben Abfragen versteht wie MySQL (Bezeichner klein geschrieben, MySQL-Syntax).
+    private static final String H2_OPTIONEN = ";MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+
+    // Höchstzahl der Verbindungen bei einer eingebetteten Datenbank, wenn nichts anderes eingestellt ist.
+    private static final int MAX_VERBINDUNGEN_EINGEBETTET = 4;
+
+    private final Art art;
+    private final String url;
+    private final String benutzer;
+    private final String passwort;
+    private final int poolMin;
+    private final int poolMax;
+
+    public DatenbankKonfiguration(Art art, String url, String benutzer, String passwort) {
+        this(art, url, benutzer, passwort, 1, art != Art.MYSQL ? MAX_VERBINDUNGEN_EINGEBETTET : VerbindungsPool.STANDARD_MAX_GROESSE);
+    }
+
+    public DatenbankKonfiguration(Art art, String url, String benutzer, String passwort, int poolMin, int poolMax) {
+        if (poolMin < 0 || poolMax < 1 || poolMin > poolMax) {
+            throw new IllegalArgumentException("Ungültige Poolgröße: min=" + poolMin + ", max=" + poolMax);
+        }
+        this.art = art;
+        this.url = url;
+        this.benutzer = benutzer;
+        this.passwort = passwort;
+        this.poolMin = poolMin;
+        this.poolMax = poolMax;
+    }
+
+    // Dieselbe Datenbank mit einer anderen Größe des Verbindungspools.
+    public DatenbankKonfiguration mitPool(int poolMin, int poolMax) {
+        return new DatenbankKonfiguration(art, url, benutzer, passwort, poolMin, poolMax);
+    }
+
+    // Die lokale MySQL-Datenbank mit Benutzer "root" ohne Passwort, wie vor der Konfigurationsdatei.
+    public static DatenbankKonfiguration standard() {
+        return new DatenbankKonfiguration(Art.MYSQL, MYSQL_URL, "root", "");
+    }
+
+    // Eine eigene, leere Datenbank im Arbeitsspeicher. Verschiedene Namen ergeben getrennte Datenbanken.
+    public static DatenbankKonfiguration imSpeicher(String name) {
+        return new DatenbankKonfiguration(Art.H2_SPEICHER, "jdbc:h2:mem:" + name + H2_OPTIONEN + ";DB_CLOSE_DELAY=-1", "sa", "");
+    }
+
+    // Eine eingebettete Datenbank in der angegebenen Datei (ohne die Endung ".mv.db").
+    public static DatenbankKonfiguration inDatei(Path datei) {
+        return new DatenbankKonfiguration(Art.H2_DATEI, "jdbc:h2:file:" + datei.toAbsolutePath() + H2_OPTIONEN, "sa", "");
+    }
+
+    /*
+     * Liest die Konfiguration aus "datenbank.properties" im Arbeitsverzeichnis und den Systemeigenschaften.
+     * Fehlt die Datei, gelten nur die Systemeigenschaften und die Standardwerte.
+     *
+     * @throws IOException wenn die Datei nicht gelesen werden kann
+     */
+    public static DatenbankKonfiguration laden() throws IOException {
+        return laden(Paths.get(STANDARD_DATEI));
+    }
+
+    public static DatenbankKonfiguration laden(Path datei) throws IOException {
+        Properties properties = new Properties();
+        if (Files.exists(datei)) {
+            try (Reader reader = Files.newBufferedReader(datei, StandardCharsets.UTF_8)) {
+                properties.load(reader);
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("datenbank.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+
+        DatenbankKonfiguration konfiguration = datenbank(properties);
+        return konfiguration.mitPool(zahl(properties, "datenbank.pool.min", konfiguration.poolMin),
+                zahl(properties, "datenbank.pool.max", konfiguration.poolMax));
+    }
+
+    private static DatenbankKonfiguration datenbank(Properties properties) {
+        Art art = Art.ausName(properties.getProperty("datenbank.art", Art.MYSQL.getName()));
+        String url = properties.getProperty("datenbank.url");
+        if (url != null && !url.trim().isEmpty()) {
+            String benutzer = properties.getProperty("datenbank.benutzer", art == Art.MYSQL ? "root" : "sa");
+            return new DatenbankKonfiguration(art, url.trim(), benutzer, properties.getProperty("datenbank.passwort", ""));
+        }
+        switch (art) {
+            case H2_DATEI:
+                String standardDatei = Paths.get(System.getProperty("user.home"), ".haushaltsbuch", "haushaltsbuch").toString();
+                return inDatei(Paths.get(properties.getProperty("datenbank.datei", standardDatei)));
+            case H2_SPEICHER:
+                return imSpeicher("haushaltsbuch");
+            default:
+                return new DatenbankKonfiguration(art, MYSQL_URL, properties.getProperty("datenbank.benutzer", "root"),
+                        properties.getProperty("datenbank.passwort", ""));
+        }
+    }
+
+    // Liest eine ganze Zahl; fehlt die Einstellung, gilt der Standardwert.
+    private static int zahl(Properties properties, String name, int standard) {
+        String wert = properties.getProperty(name);
+        if (wert == null || wert.trim().isEmpty()) {
+            return standard;
+        }
+        try {
+            return Integer.parseInt(wert.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Ungültige Zahl für " + name + ": \"" + wert + "\"");
+        }
+    }
+
+    public Art getArt() {
+        return art;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getBenutzer() {
+        return benutzer;
+    }
+
+    public String getPasswort() {
+        return passwort;
+    }
+
+    // Anzahl der Verbindungen, die der Pool mindestens offen hält.
+    public int getPoolMin() {
+        return poolMin;
+    }
+
+    // Anzahl der Verbindungen, die der Pool höchstens öffnet.
+    public int getPoolMax() {
+        return poolMax;
+    }
+
+    /*
+     * Gibt an, ob die Datenbank im selben Prozess läuft. Dann kostet eine Verbindung fast nichts und der Pool
+     * braucht nur wenige Verbindungen; ein Netzwerk-Ping vor dem Ausleihen entfällt ebenfalls.
+     */
+    public boolean isEingebettet() {
+        return art != Art.MYSQL;
+    }
+
+    /*
+     * Fetch-Größe für gestreamte Abfragen. Der MySQL-Treiber streamt nur mit Integer.MIN_VALUE;
+     * andere Treiber lesen jeweils die angegebene Anzahl Zeilen auf einmal.
+     */
+    public int streamingFetchGroesse(int zeilen) {
+        return url.toLowerCase(Locale.ROOT).startsWith("jdbc:mysql:") ? Integer.MIN_VALUE : zeilen;
+    }
+
+    @Override
+    public String toString() {
+        return art.getName() + " (" + url + ")";
+    }
+}
@@ -1,88 +1,466 @@
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 public class DatenbankManager {
 
     /*
-     * URL, Benutzername und Passwort für die Verbindung zur MySQL-Datenbank.
-     * Diese Werte werden verwendet, um eine Verbindung zur Datenbank herzustellen,
-     * in der die Haushaltskosten verwaltet werden.
+     * Datenbank, in der die Haushaltskosten verwaltet werden (MySQL-Server oder eingebettetes H2),
+     * mit URL, Benutzername und Passwort für die Verbindung.
      */
-    private static final String URL = "jdbc:mysql://localhost:3306/haushaltskosten";
-    private static final String USER = "root";
-    private static final String PASSWORD = "";
+    private final DatenbankKonfiguration konfiguration;
 
     /*
-     * Konstruktor für den DatenbankManager.
-     * Der Konstruktor stellt sicher, dass die benötigten Tabellen "eintraege" und "kategorien" existieren,
-     * indem er diese erstellt, falls sie nicht vorhanden sind.
+     * Verbindungspool, aus dem alle Operationen ihre Verbindungen ausleihen.
+     * Dadurch entfällt der Verbindungsaufbau zur Datenbank bei jeder einzelnen Operation.
+     * Beim Start im Hintergrund (siehe imHintergrundStarten) ist er null, bis "gestartet" abgeschlossen ist.
+     */
+    private volatile VerbindungsPool pool;
+
+    /*
+     * Abgeschlossen, sobald Pool, MBean und Schema bereit sind. Jede Operation wartet beim Ausleihen einer
+     * Verbindung darauf; ohne Start im Hintergrund ist das schon nach dem Konstruktor der Fall.
+     */
+    private final CompletableFuture<Void> gestartet;
+
+    // Alle Kategorien im Speicher; liefert beim Lesen von Einträgen für jede Kategorie dasselbe Objekt.
+    private final KategorieKatalog katalog;
+
+    // Messwerte aller Operationen und ihr Name beim MBean-Server (null, wenn nicht angemeldet).
+    private final Messwerte messwerte;
+    private volatile ObjectName mbeanName;
+
+    // Führt die ...Async-Methoden aus, höchstens so viele gleichzeitig, wie der Pool Verbindungen hat.
+    private final DatenbankAusfuehrer ausfuehrer;
+
+    /*
+     * Kennung dieser Anwendung, die in "geaendert_von" jeder geänderten Zeile steht. Eigene Änderungen gelten
+     * damit beim Prüfen auf gleichzeitige Änderungen nicht als Konflikt (siehe eintraegeAendern).
+     */
+    private volatile String kennung = UUID.randomUUID().toString();
+
+    /*
+     * In eigene Tabellen ausgelagerte Jahre (siehe Archiv), oder "null", wenn sie beim nächsten Zugriff gelesen werden.
+     * Wird nach dem Auslagern und Aufräumen verworfen, ebenso wenn eine andere Anwendung alles neu lesen lässt.
+     */
+    private volatile List<Integer> archivJahre;
+
+    /*
+     * Werte der Spalte "typ" in der Tabelle "eintraege".
+     * In Java bleibt der Typ ein Text ("Einnahme" bzw. "Ausgabe"); umgerechnet wird nur beim Lesen und Schreiben.
+     */
+    public static final int TYP_EINNAHME = 1;
+    public static final int TYP_AUSGABE = 2;
+
+    // Größter Betrag, den die Spalte "betrag" (DECIMAL(10, 2)) fasst: 99 999 999,99.
+    public static final long MAX_BETRAG_CENT = 9_999_999_999L;
+
+    // Höchstlänge der Bezeichnung und des Kategorienamens (VARCHAR(255)).
+    public static final int MAX_TEXT_LAENGE = 255;
+
+    // Höchstlänge der Info in Bytes (TEXT unter MySQL; zugleich die Grenze eines Texts im Journal).
+    public static final int MAX_INFO_BYTES = 65_535;
+
+    // Anzahl der IDs, die beim Löschen in einer Anweisung zusammengefasst werden.
+    private static final int LOESCH_BLOCK = 500;
+
+    /*
+     * Quelle für alle Abfragen, die ganze Einträge lesen: die Einträge mit dem Namen ihrer Kategorie.
+     * Die Kategorie wird in einer abgeleiteten Tabelle umbenannt, damit "id" und die Spaltenausdrücke aus
+     * EintragSpalte weiterhin eindeutig die Spalten von "eintraege" bezeichnen.
+     */
+    private static final String EINTRAEGE_MIT_KATEGORIE = eintraegeMitKategorie("eintraege");
+
+    // Wie EINTRAEGE_MIT_KATEGORIE, aber aus einer Quelle, die ausgelagerte Jahre einschließen kann (siehe Archiv.quelle).
+    private static String eintraegeMitKategorie(String quelle) {
+        return "SELECT id, bezeichnung, betrag, kategorie_id, kategorie, typ, datum, info, aenderung "
+                + "FROM " + quelle + " LEFT JOIN (SELECT id AS kategorie_nr, name AS kategorie FROM kategorien) k "
+                + "ON k.kategorie_nr = eintraege.kategorie_id";
+    }
+
+    /*
+     * Konstruktor für den DatenbankManager mit der Datenbank aus "datenbank.properties" bzw. den Systemeigenschaften
+     * (siehe DatenbankKonfiguration). Kann die Datei nicht gelesen werden, wird die lokale MySQL-Datenbank verwendet.
      */
     public DatenbankManager() {
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD)) {
-            if (conn != null) {
-
-                // SQL-Befehl zum Erstellen der Tabelle "eintraege", falls diese nicht existiert.
-                String createEintraegeTableSQL = "CREATE TABLE IF NOT EXISTS eintraege ("
-                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                        + "bezeichnung VARCHAR(255) NOT NULL, "
-                        + "betrag DECIMAL(10, 2) NOT NULL, "
-                        + "kategorie VARCHAR(255) NOT NULL, "
-                        + "typ VARCHAR(50) NOT NULL, "
-                        + "datum DATE NOT NULL, "
-                        + "info TEXT"
-                        + ");";
-                Statement stmt = conn.createStatement();
-                stmt.execute(createEintraegeTableSQL);
-
-                // SQL-Befehl zum Erstellen der Tabelle "kategorien", falls diese nicht existiert.
-                String createKategorienTableSQL = "CREATE TABLE IF NOT EXISTS kategorien ("
-                        + "id INT AUTO_INCREMENT PRIMARY KEY, "
-                        + "name VARCHAR(255) NOT NULL"
-                        + ");";
-                stmt.execute(createKategorienTableSQL);
+        this(konfigurationLaden());
+    }
+
+    /*
+     * Konstruktor für den DatenbankManager mit einer bestimmten Datenbank.
+     * Der Konstruktor bringt das Datenbankschema mit der SchemaMigration auf den aktuellen Stand; dabei werden
+     * die Tabellen "eintraege" und "kategorien" erstellt, falls sie nicht vorhanden sind.
+     */
+    public DatenbankManager(DatenbankKonfiguration konfiguration) {
+        this(konfiguration, true);
+    }
+
+    /*
+     * Wie oben; mit "ueberwachung" = false werden die Messwerte weder beim MBean-Server angemeldet noch als
+     * Events an Java Flight Recorder gemeldet, sondern nur gezählt. Für kurzlebige Aufrufe wie die
+     * HaushaltsBuchKonsole, deren Start dadurch deutlich schneller wird.
+     */
+    public DatenbankManager(DatenbankKonfiguration konfiguration, boolean ueberwachung) {
+        this(konfiguration, ueberwachung, false);
+    }
+
+    private DatenbankManager(DatenbankKonfiguration konfiguration, boolean ueberwachung, boolean imHintergrund) {
+        this.konfiguration = konfiguration;
+        messwerte = new Messwerte(() -> pool != null ? pool.getStatistik() : null, ueberwachung);
+        katalog = new KategorieKatalog(this::verbindung);
+        ausfuehrer = new DatenbankAusfuehrer(konfiguration.getPoolMax());
+        if (imHintergrund) {
+            gestartet = CompletableFuture.runAsync(() -> starten(ueberwachung), r -> {
+                Thread thread = new Thread(r, "Datenbank-Start");
+                thread.setDaemon(true);
+                thread.start();
+            });
+        } else {
+            starten(ueberwachung);
+            gestartet = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    /*
+     * Erstellt einen DatenbankManager mit der Datenbank aus "datenbank.properties", ohne auf die Datenbank zu warten:
+     * Verbindungsaufbau, Anmeldung beim MBean-Server und Prüfung des Schemas laufen in einem eigenen Thread.
+     * Der Aufrufer (z.B. das Fenster beim Start) kann sofort weitermachen; die erste Operation wartet, bis der
+     * Start abgeschlossen ist. Wie lange das gedauert hat, steht in den Messwerten unter "datenbankStart".
+     */
+    public static DatenbankManager imHintergrundStarten() {
+        return new DatenbankManager(konfigurationLaden(), true, true);
+    }
+
+    // Öffnet den Pool, meldet die Messwerte an und bringt das Schema auf den aktuellen Stand.
+    private void starten(boolean ueberwachung) {
+        try (Messung start = messwerte.messen("datenbankStart")) {
+            if (konfiguration.isEingebettet()) {
+                // Eingebettet: mindestens eine Verbindung bleibt offen, damit H2 die Datenbank nicht schließt;
+                // eine Prüfung vor dem Ausleihen ist ohne Netzwerk überflüssig.
+                pool = new VerbindungsPool(konfiguration.getUrl(), konfiguration.getBenutzer(), konfiguration.getPasswort(),
+                        Math.max(1, konfiguration.getPoolMin()), konfiguration.getPoolMax(),
+                        TimeUnit.MINUTES.toMillis(5), TimeUnit.SECONDS.toMillis(30), Long.MAX_VALUE, 64);
+            } else {
+                pool = new VerbindungsPool(konfiguration.getUrl(), konfiguration.getBenutzer(), konfiguration.getPasswort(),
+                        konfiguration.getPoolMin(), konfiguration.getPoolMax(),
+                        TimeUnit.MINUTES.toMillis(5), TimeUnit.SECONDS.toMillis(30), 1000, 64);
             }
-        } catch (SQLException e) {
+            if (ueberwachung) {
+                mbeanName = messwerteRegistrieren(messwerte);
+            }
+            try (Messung messung = messwerte.messen("schemaMigration");
+                 Connection conn = pool.getConnection()) {
+                new SchemaMigration().migrieren(conn);
+                messung.erfolg();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+            start.erfolg();
+        }
+    }
+
+    /*
+     * Meldet die Messwerte beim MBean-Server der JVM an (z.B. für JConsole). Jeder DatenbankManager bekommt
+     * einen eigenen Namen; der erste heißt "haushaltsbuch:type=Datenbank". Gibt den Namen zurück, oder null,
+     * wenn die Anmeldung nicht möglich war.
+     */
+    private static ObjectName messwerteRegistrieren(Messwerte messwerte) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (int nummer = 1; nummer < 100; nummer++) {
+            try {
+                ObjectName name = new ObjectName("haushaltsbuch:type=Datenbank" + (nummer == 1 ? "" : ",nummer=" + nummer));
+                server.registerMBean(messwerte, name);
+                return name;
+            } catch (InstanceAlreadyExistsException e) {
+                // nächsten Namen versuchen
+            } catch (JMException e) {
+                e.printStackTrace();
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static DatenbankKonfiguration konfigurationLaden() {
+        try {
+            return DatenbankKonfiguration.laden();
+        } catch (IOException | IllegalArgumentException e) {
             e.printStackTrace();
+            return DatenbankKonfiguration.standard();
         }
     }
 
     /*
-     * Getter-Methoden zum Abrufen der URL, des Benutzernamens und des Passworts.
+     * Getter-Methoden zum Abrufen der Konfiguration, der URL, des Benutzernamens und des Passworts.
      * Diese Methoden werden verwendet, um Datenbankinformationen für Verbindungen zu erhalten.
      */
+    public DatenbankKonfiguration getKonfiguration() {
+        return konfiguration;
+    }
+
     public String getUrl() {
-        return URL;
+        return konfiguration.getUrl();
     }
 
     public String getUser() {
-        return USER;
+        return konfiguration.getBenutzer();
     }
 
     public String getPassword() {
-        return PASSWORD;
+        return konfiguration.getPasswort();
+    }
+
+    public String getKennung() {
+        return kennung;
+    }
+
+    /*
+     * Setzt die Kennung, unter der diese Anwendung ihre Änderungen schreibt. Sie sollte über Neustarts gleich
+     * bleiben (z.B. die des Journals), damit beim Start nachgeholte eigene Änderungen nicht als Konflikt gelten.
+     */
+    public void setKennung(String kennung) {
+        this.kennung = kennung;
+    }
+
+    /*
+     * Leiht eine Verbindung aus dem Verbindungspool aus.
+     * Die Verbindung muss nach Gebrauch geschlossen werden (try-with-resources), wodurch sie an den Pool zurückgeht.
+     */
+    public Connection getConnection() throws SQLException {
+        return verbindung();
+    }
+
+    // Leiht eine Verbindung aus und erfasst die Wartezeit darauf als Operation "verbindung".
+    private Connection verbindung() throws SQLException {
+        startAbwarten();
+        long beginn = System.nanoTime();
+        boolean erfolgreich = false;
+        try {
+            Connection conn = pool.getConnection();
+            erfolgreich = true;
+            return conn;
+        } finally {
+            messwerte.erfassen("verbindung", System.nanoTime() - beginn, 0, 0, !erfolgreich);
+        }
+    }
+
+    // Wird abgeschlossen, sobald die Datenbank bereit ist (z.B. um die Startzeit zu messen).
+    public CompletableFuture<Void> getGestartet() {
+        return gestartet.copy();
+    }
+
+    private void startAbwarten() throws SQLException {
+        if (!gestartet.isDone()) {
+            try {
+                gestartet.join();
+            } catch (CompletionException e) {
+                throw new SQLException("Die Datenbank konnte nicht gestartet werden", e.getCause());
+            }
+        }
+    }
+
+    /*
+     * Laufzeiten, Zeilenzahlen und Fehler aller Operationen (auch des Imports und Exports), z.B. für das
+     * Diagnosefenster. Dieselben Werte sind über JMX abrufbar.
+     */
+    public Messwerte getMesswerte() {
+        return messwerte;
+    }
+
+    /*
+     * Gibt die aktuellen Zähler des Verbindungspools zurück (aktive/freie Verbindungen, Wartezeiten),
+     * oder null, solange der Pool beim Start im Hintergrund noch nicht geöffnet ist.
+     */
+    public VerbindungsPool.Statistik getPoolStatistik() {
+        VerbindungsPool aktuell = pool;
+        return aktuell != null ? aktuell.getStatistik() : null;
+    }
+
+    /*
+     * Schließt alle Verbindungen des Pools. Wird beim Beenden der Anwendung aufgerufen.
+     * Laufende asynchrone Operationen dürfen vorher noch einige Sekunden zu Ende laufen.
+     */
+    public void close() {
+        ausfuehrer.close();
+        try {
+            // Ein noch laufender Start soll seinen Pool nicht erst nach dem Schließen öffnen.
+            gestartet.get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            e.printStackTrace();
+        }
+        if (mbeanName != null) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+            } catch (JMException e) {
+                e.printStackTrace();
+            }
+        }
+        if (pool != null) {
+            pool.close();
+        }
     }
 
     /*
      * Methode zum Hinzufügen eines neuen Eintrags zur Tabelle "eintraege".
      * Nimmt einen Eintrag als Parameter, öffnet eine Verbindung zur Datenbank und führt ein
      * PreparedStatement aus, um die Eintragsdaten in die Tabelle einzufügen.
+     * Gibt die von der Datenbank vergebene ID zurück, oder -1, wenn das Speichern fehlgeschlagen ist.
+     * Die Monatssummen werden in derselben Transaktion angepasst.
      */
-    public void addEintrag(Eintrag eintrag) {
-        String sql = "INSERT INTO eintraege(bezeichnung, betrag, kategorie, typ, datum, info) VALUES(?, ?, ?, ?, ?, ?)";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+    public int addEintrag(Eintrag eintrag) {
+        String sql = "INSERT INTO eintraege(bezeichnung, betrag, kategorie_id, typ, datum, info, aenderung, geaendert_von) "
+                + "VALUES(?, ?, ?, ?, ?, ?, ?, ?)";
+        try (Messung messung = messwerte.messen("addEintrag");
+             Connection conn = verbindung();
+             PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
+            long nummer = Aenderungsnummern.naechste(conn);
+            Integer kategorieId = kategorieId(conn, eintrag.getKategorie(), null);
             pstmt.setString(1, eintrag.getBezeichnung());
-            pstmt.setDouble(2, eintrag.getBetrag());
-            pstmt.setString(3, eintrag.getKategorie().getName());
-            pstmt.setString(4, eintrag.getTyp());
+            pstmt.setBigDecimal(2, Geld.zuBigDecimal(eintrag.getBetragCent()));
+            kategorieBinden(pstmt, 3, kategorieId);
+            pstmt.setInt(4, typCode(eintrag.getTyp()));
             pstmt.setDate(5, Date.valueOf(eintrag.getDatum()));
             pstmt.setString(6, eintrag.getInfo());
+            pstmt.setLong(7, nummer);
+            pstmt.setString(8, kennung);
             pstmt.executeUpdate();
+            Monatssummen summen = new Monatssummen();
+            summen.hinzufuegen(eintrag.getDatum(), kategorieId, typCode(eintrag.getTyp()), eintrag.getBetragCent());
+            summen.schreiben(conn);
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                if (keys.next()) {
+                    int id = keys.getInt(1);
+                    conn.commit();
+                    messung.zeilen(1).erfolg();
+                    return id;
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    /*
+     * Methode zum Aktualisieren eines bestehenden Eintrags (anhand seiner ID) mit allen Werten des übergebenen Eintrags.
+     * Gibt "true" zurück, wenn der Eintrag gespeichert wurde.
+     */
+    public boolean updateEintrag(Eintrag eintrag) {
+        try {
+            return updateEintraege(Collections.singletonList(eintrag)) > 0;
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return false;
+    }
+
+    /*
+     * Aktualisiert mehrere Einträge als Batch in einer gemeinsamen Transaktion (z.B. aus dem Schreibpuffer).
+     * Gibt die Anzahl der geänderten Einträge zurück; nicht mehr vorhandene Einträge werden übergangen, ebenso
+     * Einträge, die seit dem Lesen eine andere Anwendung geändert hat (siehe eintraegeAendern).
+     * Die bisherigen Werte werden gesperrt gelesen, um die Monatssummen in derselben Transaktion anzupassen.
+     *
+     * @throws SQLException wenn die Einträge nicht geschrieben werden konnten; dann wurde keiner geändert
+     */
+    public int updateEintraege(List<Eintrag> eintraege) throws SQLException {
+        try (Messung messung = messwerte.messen("updateEintraege");
+             Connection conn = verbindung()) {
+            conn.setAutoCommit(false);
+            try {
+                int geaendert = eintraegeAendern(conn, eintraege, Aenderungsnummern.naechste(conn), new ArrayList<>());
+                conn.commit();
+                messung.zeilen(geaendert).batch(eintraege.size()).erfolg();
+                return geaendert;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /*
+     * Ändert die Einträge in der laufenden Transaktion samt Monatssummen (siehe updateEintraege) und versieht sie
+     * mit der Änderungsnummer "nummer".
+     *
+     * Optimistische Sperre: Ist die Änderungsnummer eines Eintrags bekannt und hat seitdem eine andere Anwendung
+     * (andere Kennung in "geaendert_von") die Zeile geändert, wird er nicht geschrieben, sondern in "konflikte"
+     * eingetragen. Eigene spätere Änderungen derselben Zeile gelten nicht als Konflikt. Ebenso kommt ein Eintrag in
+     * "konflikte", der nicht mehr in "eintraege" steht, weil er inzwischen gelöscht oder in ein Archivjahr ausgelagert
+     * wurde; sonst ginge die Änderung verloren, ohne dass es jemand erfährt.
+     */
+    private int eintraegeAendern(Connection conn, List<Eintrag> eintraege, long nummer, List<Eintrag> konflikte) throws SQLException {
+        String alterStandSql = "SELECT datum, kategorie_id, typ, betrag, aenderung, geaendert_von FROM eintraege WHERE id = ? FOR UPDATE";
+        String sql = "UPDATE eintraege SET bezeichnung=?, betrag=?, datum=?, info=?, kategorie_id=?, typ=?, aenderung=?, geaendert_von=? WHERE id=?";
+        try (PreparedStatement alterStand = conn.prepareStatement(alterStandSql);
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            Monatssummen summen = new Monatssummen();
+            boolean geschrieben = false;
+            for (Eintrag eintrag : eintraege) {
+                alterStand.setInt(1, eintrag.getId());
+                Integer bisherigeKategorie;
+                try (ResultSet rs = alterStand.executeQuery()) {
+                    if (!rs.next()) {
+                        konflikte.add(eintrag);
+                        continue;
+                    }
+                    if (eintrag.getAenderung() != Eintrag.STAND_UNBEKANNT && rs.getLong(5) != eintrag.getAenderung()
+                            && !kennung.equals(rs.getString(6))) {
+                        konflikte.add(eintrag);
+                        continue;
+                    }
+                    bisherigeKategorie = (Integer) rs.getObject(2);
+                    summen.entfernen(rs.getDate(1).toLocalDate(), bisherigeKategorie, rs.getInt(3),
+                            Geld.ausBigDecimal(rs.getBigDecimal(4)));
+                }
+                // Eine Bezeichnung, die keine Kategorie ist, legt keine an; der Eintrag behält dann seine Kategorie.
+                Integer kategorieId = kategorieId(conn, eintrag.getKategorie(), bisherigeKategorie);
+                summen.hinzufuegen(eintrag.getDatum(), kategorieId, typCode(eintrag.getTyp()), eintrag.getBetragCent());
+                pstmt.setString(1, eintrag.getBezeichnung());
+                pstmt.setBigDecimal(2, Geld.zuBigDecimal(eintrag.getBetragCent()));
+                pstmt.setDate(3, Date.valueOf(eintrag.getDatum()));
+                pstmt.setString(4, eintrag.getInfo());
+                kategorieBinden(pstmt, 5, kategorieId);
+                pstmt.setInt(6, typCode(eintrag.getTyp()));
+                pstmt.setLong(7, nummer);
+                pstmt.setString(8, kennung);
+                pstmt.setInt(9, eintrag.getId());
+                pstmt.addBatch();
+                geschrieben = true;
+            }
+            if (!geschrieben) {
+                return 0;
+            }
+            int geaendert = 0;
+            for (int anzahl : pstmt.executeBatch()) {
+                geaendert += Math.max(anzahl, 0);
+            }
+            summen.schreiben(conn);
+            return geaendert;
+        }
     }
 
     /*
@@ -92,53 +470,968 @@ public class DatenbankManager {
      */
     public List<Eintrag> getAllEintraege() {
         List<Eintrag> eintraege = new ArrayList<>();
-        String sql = "SELECT * FROM eintraege";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        String sql = EINTRAEGE_MIT_KATEGORIE;
+        try (Messung messung = messwerte.messen("getAllEintraege");
+             Connection conn = verbindung();
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                int id = rs.getInt("id");
-                String bezeichnung = rs.getString("bezeichnung");
-                double betrag = rs.getDouble("betrag");
-                String kategorieName = rs.getString("kategorie");
-                String typ = rs.getString("typ");
-                LocalDate datum = rs.getDate("datum").toLocalDate();
-                String info = rs.getString("info");
-                Kategorie kategorie = new Kategorie(kategorieName);
-                Eintrag eintrag = new Eintrag(id, bezeichnung, betrag, datum, info, kategorie, typ);
-                eintraege.add(eintrag);
+                eintraege.add(eintragAusResultSet(rs));
             }
+            messung.zeilen(eintraege.size()).erfolg();
         } catch (SQLException e) {
             e.printStackTrace();
         }
         return eintraege;
     }
 
+    /*
+     * Methode zum seitenweisen Abrufen von Einträgen (Keyset-Paginierung).
+     * Ist "nach" gesetzt, beginnt die Seite direkt hinter diesem Eintrag in der Sortierreihenfolge der Abfrage;
+     * die Datenbank kann dann über den Index springen, statt alle vorherigen Zeilen zu überlesen.
+     * Ohne bekannten Vorgänger wird ersatzweise mit OFFSET gearbeitet.
+     */
+    public List<Eintrag> getEintraegeSeite(EintragAbfrage abfrage, Eintrag nach, int offset, int limit) {
+        List<Eintrag> eintraege = new ArrayList<>(limit);
+        streamEintraege(abfrage, nach, offset, limit, eintraege::add);
+        return eintraege;
+    }
+
+    /*
+     * Liefert die Einträge eines Zeitraums aufsteigend nach Datum, höchstens "limit" Stück.
+     * "von" und "bis" gelten jeweils einschließlich (null = offen), "kategorien" sind Kategorienamen
+     * (null = alle, "" = ohne Kategorie), "typ" ist "Einnahme" oder "Ausgabe" (null = beide).
+     * Für weitere Einschränkungen, andere Sortierungen und das Weiterblättern dient "getEintraegeSeite".
+     */
+    public List<Eintrag> getEintraege(LocalDate von, LocalDate bis, Collection<String> kategorien, String typ, int limit) {
+        EintragAbfrage abfrage = new EintragAbfrage()
+                .mitSortierung(EintragSpalte.DATUM, false)
+                .mitZeitraum(von, bis)
+                .mitKategorien(kategorien)
+                .mitTyp(typ);
+        return getEintraegeSeite(abfrage, null, 0, limit);
+    }
+
+    /*
+     * Wie "getEintraegeSeite", übergibt die Einträge aber einzeln an den Verarbeiter, während sie aus dem
+     * ResultSet gelesen werden, statt sie erst in einer Liste zu sammeln. Gibt der Verarbeiter "false" zurück,
+     * wird das Lesen abgebrochen (z.B. wenn der Benutzer das Laden abbricht).
+     */
+    public void streamEintraege(EintragAbfrage abfrage, Eintrag nach, int offset, int limit, Predicate<Eintrag> verarbeiter) {
+        EintragSpalte spalte = abfrage.getSortierSpalte();
+        String ausdruck = spalte.getSortierAusdruck();
+        String vergleich = abfrage.isAbsteigend() ? "<" : ">";
+        String richtung = abfrage.isAbsteigend() ? " DESC" : " ASC";
+
+        StringBuilder sql = new StringBuilder(" WHERE 1=1");
+        Filterbedingung filter = new Filterbedingung(abfrage);
+        sql.append(filter.getSql());
+        if (nach != null) {
+            if (spalte == EintragSpalte.ID) {
+                sql.append(" AND id ").append(vergleich).append(" ?");
+            } else {
+                sql.append(" AND (").append(ausdruck).append(' ').append(vergleich).append(" ? OR (")
+                        .append(ausdruck).append(" = ? AND id ").append(vergleich).append(" ?))");
+            }
+        }
+        sql.append(" ORDER BY ");
+        if (spalte != EintragSpalte.ID) {
+            sql.append(ausdruck).append(richtung).append(", ");
+        }
+        sql.append("id").append(richtung).append(" LIMIT ?");
+        if (nach == null) {
+            sql.append(" OFFSET ?");
+        }
+
+        try (Messung messung = messwerte.messen("streamEintraege");
+             Connection conn = verbindung();
+             PreparedStatement pstmt = conn.prepareStatement(eintraegeMitKategorie(quelle(conn, abfrage)) + sql)) {
+            int index = filter.binden(pstmt, 1);
+            if (nach != null) {
+                if (spalte == EintragSpalte.ID) {
+                    pstmt.setInt(index++, nach.getId());
+                } else {
+                    Object wert = spalte.sortierWert(nach);
+                    pstmt.setObject(index++, wert);
+                    pstmt.setObject(index++, wert);
+                    pstmt.setInt(index++, nach.getId());
+                }
+            }
+            pstmt.setInt(index++, limit);
+            if (nach == null) {
+                pstmt.setInt(index, offset);
+            }
+            streamingAktivieren(pstmt);
+            long zeilen = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    zeilen++;
+                    if (!verarbeiter.test(eintragAusResultSet(rs))) {
+                        break;
+                    }
+                }
+            }
+            messung.zeilen(zeilen).erfolg();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Liest alle Einträge einer Abfrage in ihrer Sortierung über einen vorwärts gerichteten, gestreamten ResultSet
+     * und übergibt sie einzeln an den Verarbeiter (z.B. für einen Export). Es liegt immer nur die aktuelle Zeile
+     * im Speicher. Gibt der Verarbeiter "false" zurück, wird das Lesen abgebrochen.
+     * Anders als bei "streamEintraege" werden Fehler an den Aufrufer weitergegeben.
+     */
+    public void alleEintraegeStreamen(EintragAbfrage abfrage, Predicate<Eintrag> verarbeiter) throws SQLException {
+        EintragSpalte spalte = abfrage.getSortierSpalte();
+        String richtung = abfrage.isAbsteigend() ? " DESC" : " ASC";
+        StringBuilder sql = new StringBuilder(" WHERE 1=1");
+        Filterbedingung filter = new Filterbedingung(abfrage);
+        sql.append(filter.getSql());
+        sql.append(" ORDER BY ");
+        if (spalte != EintragSpalte.ID) {
+            sql.append(spalte.getSortierAusdruck()).append(richtung).append(", ");
+        }
+        sql.append("id").append(richtung);
+
+        try (Messung messung = messwerte.messen("alleEintraegeStreamen");
+             Connection conn = verbindung();
+             PreparedStatement pstmt = conn.prepareStatement(eintraegeMitKategorie(quelle(conn, abfrage)) + sql,
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            filter.binden(pstmt, 1);
+            streamingAktivieren(pstmt);
+            long zeilen = 0;
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    zeilen++;
+                    if (!verarbeiter.test(eintragAusResultSet(rs))) {
+                        break;
+                    }
+                }
+            }
+            messung.zeilen(zeilen).erfolg();
+        }
+    }
+
+    /*
+     * Erstellt eine Momentaufnahme der Standardansicht: den Änderungsstand, die höchste ID, Anzahl und Summen aller
+     * Einträge bis zu dieser ID und die ersten "maxZeilen" davon aufsteigend nach ID, gelesen in einer gemeinsamen
+     * Transaktion. Anders als bei "getSummen" werden Fehler an den Aufrufer weitergegeben.
+     */
+    public Momentaufnahme momentaufnahmeErstellen(int maxZeilen) throws SQLException {
+        try (Messung messung = messwerte.messen("momentaufnahmeErstellen");
+             Connection conn = verbindung()) {
+            conn.setAutoCommit(false);
+            try {
+                // Der Stand zuerst: Was danach noch geändert wird, liefert getAenderungenSeit(stand) beim nächsten Start.
+                long stand = Aenderungsnummern.aktuell(conn);
+                int obergrenze;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM eintraege")) {
+                    rs.next();
+                    obergrenze = rs.getInt(1);
+                }
+                SummenAggregator summen;
+                try (PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*), "
+                        + "SUM(CASE WHEN typ = " + TYP_EINNAHME + " THEN betrag ELSE 0 END), "
+                        + "SUM(CASE WHEN typ = " + TYP_EINNAHME + " THEN 0 ELSE betrag END) "
+                        + "FROM eintraege WHERE id <= ?")) {
+                    pstmt.setInt(1, obergrenze);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        rs.next();
+                        summen = new SummenAggregator(rs.getInt(1), Geld.ausBigDecimal(rs.getBigDecimal(2)),
+                                Geld.ausBigDecimal(rs.getBigDecimal(3)));
+                    }
+                }
+                List<Eintrag> eintraege = new ArrayList<>(Math.min(maxZeilen, summen.getAnzahl()));
+                try (PreparedStatement pstmt = conn.prepareStatement(EINTRAEGE_MIT_KATEGORIE + " WHERE id <= ? ORDER BY id LIMIT ?")) {
+                    pstmt.setInt(1, obergrenze);
+                    pstmt.setInt(2, maxZeilen);
+                    try (ResultSet rs = pstmt.executeQuery()) {
+                        while (rs.next()) {
+                            eintraege.add(eintragAusResultSet(rs));
+                        }
+                    }
+                }
+                conn.commit();
+                messung.zeilen(eintraege.size()).erfolg();
+                return Momentaufnahme.aus(getUrl(), obergrenze, summen, stand, eintraege);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /*
+     * Gibt den aktuellen Änderungsstand zurück (siehe Aenderungsnummern). Wer sich ihn vor dem Lesen merkt, erhält
+     * mit getAenderungenSeit später alle Änderungen, die danach committet wurden.
+     */
+    public long getAenderungsstand() throws SQLException {
+        try (Messung messung = messwerte.messen("getAenderungsstand");
+             Connection conn = verbindung()) {
+            long stand = Aenderungsnummern.aktuell(conn);
+            messung.erfolg();
+            return stand;
+        }
+    }
+
+    /*
+     * Liest alle Änderungen seit dem Änderungsstand "stand" in einer Transaktion: geänderte und neue Einträge,
+     * gelöschte IDs und ob sich Kategorien geändert haben (dann wird auch der Katalog neu geladen).
+     * Sind es mehr als "max" Einträge oder Löschungen, wurde alles gelöscht oder gehört der Stand nicht zu dieser
+     * Datenbank, ist im Ergebnis "isNeuLesen" gesetzt. Fehler werden an den Aufrufer weitergegeben.
+     */
+    public Aenderungen getAenderungenSeit(long stand, int max) throws SQLException {
+        try (Messung messung = messwerte.messen("getAenderungenSeit");
+             Connection conn = verbindung()) {
+            conn.setAutoCommit(false);
+            try {
+                // Bis zu diesem Stand ist alles committet (siehe Aenderungsnummern); Späteres kommt beim nächsten Mal.
+                long neu = Aenderungsnummern.aktuell(conn);
+                if (neu < stand) {
+                    conn.commit();
+                    messung.erfolg();
+                    return new Aenderungen(neu, new ArrayList<>(), new int[0], true, true);
+                }
+                List<Eintrag> eintraege = new ArrayList<>();
+                List<Integer> geloescht = new ArrayList<>();
+                boolean kategorienGeaendert = false;
+                boolean neuLesen = false;
+                if (neu > stand) {
+                    try (PreparedStatement pstmt = conn.prepareStatement(EINTRAEGE_MIT_KATEGORIE
+                            + " WHERE aenderung > ? AND aenderung <= ? ORDER BY aenderung, id LIMIT ?")) {
+                        pstmt.setLong(1, stand);
+                        pstmt.setLong(2, neu);
+                        pstmt.setInt(3, max + 1);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                eintraege.add(eintragAusResultSet(rs));
+                            }
+                        }
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement("SELECT tabelle, id FROM loeschungen "
+                            + "WHERE aenderung > ? AND aenderung <= ? LIMIT ?")) {
+                        pstmt.setLong(1, stand);
+                        pstmt.setLong(2, neu);
+                        pstmt.setInt(3, max + 1);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            while (rs.next()) {
+                                if (Aenderungsnummern.KATEGORIEN.equals(rs.getString(1))) {
+                                    kategorienGeaendert = true;
+                                } else if (rs.getInt(2) == Aenderungsnummern.ALLE) {
+                                    // Z.B. nach dem Auslagern oder Aufräumen: dann auch die ausgelagerten Jahre neu lesen.
+                                    neuLesen = true;
+                                    archivJahre = null;
+                                } else {
+                                    geloescht.add(rs.getInt(2));
+                                }
+                            }
+                        }
+                    }
+                    try (PreparedStatement pstmt = conn.prepareStatement("SELECT COUNT(*) FROM kategorien WHERE aenderung > ? AND aenderung <= ?")) {
+                        pstmt.setLong(1, stand);
+                        pstmt.setLong(2, neu);
+                        try (ResultSet rs = pstmt.executeQuery()) {
+                            rs.next();
+                            kategorienGeaendert |= rs.getInt(1) > 0;
+                        }
+                    }
+                }
+                conn.commit();
+                if (kategorienGeaendert) {
+                    katalog.ungueltig();
+                }
+                neuLesen |= eintraege.size() > max || geloescht.size() > max;
+                int[] ids = new int[geloescht.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = geloescht.get(i);
+                }
+                messung.zeilen(eintraege.size() + ids.length).erfolg();
+                return new Aenderungen(neu, eintraege, ids, kategorienGeaendert, neuLesen);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /*
+     * Tabelle, aus der eine Abfrage liest: nur "eintraege", solange ihr Zeitraum kein ausgelagertes Jahr berührt,
+     * sonst zusätzlich die Archivtabellen dieser Jahre. Abfragen ohne Zeitraum lesen nur die laufenden Jahre.
+     */
+    private String quelle(Connection conn, EintragAbfrage abfrage) throws SQLException {
+        LocalDate von = abfrage.getDatumVon();
+        LocalDate bis = abfrage.getDatumBis();
+        if (von == null && bis == null) {
+            return "eintraege";
+        }
+        List<Integer> jahre = new ArrayList<>();
+        for (int jahr : archivJahre(conn)) {
+            if ((von == null || jahr >= von.getYear()) && (bis == null || jahr <= bis.getYear())) {
+                jahre.add(jahr);
+            }
+        }
+        return Archiv.quelle(jahre);
+    }
+
+    // Die ausgelagerten Jahre; aus der Datenbank gelesen wird nur beim ersten Zugriff und nach einer Änderung.
+    private List<Integer> archivJahre(Connection conn) throws SQLException {
+        List<Integer> jahre = archivJahre;
+        if (jahre == null) {
+            jahre = Collections.unmodifiableList(Archiv.jahre(conn));
+            archivJahre = jahre;
+        }
+        return jahre;
+    }
+
+    /*
+     * Gibt an, ob das Jahr in eine Archivtabelle ausgelagert ist. Liest nicht aus der Datenbank und darf deshalb auf
+     * dem Event Dispatch Thread aufgerufen werden; solange die Jahre noch nicht gelesen sind, ist die Antwort "false".
+     */
+    public boolean istArchiviert(int jahr) {
+        List<Integer> jahre = archivJahre;
+        return jahre != null && jahre.contains(jahr);
+    }
+
+    /*
+     * Weist den Treiber an, die Zeilen eines Statements schrittweise zu liefern, statt das ganze Ergebnis
+     * vorab in den Speicher zu laden. MySQL streamt nur mit der Fetch-Größe Integer.MIN_VALUE.
+     */
+    private void streamingAktivieren(Statement stmt) throws SQLException {
+        stmt.setFetchSize(konfiguration.streamingFetchGroesse(EintragTableModel.SEITEN_GROESSE));
+    }
+
+    /*
+     * Methode zum Ermitteln von Anzahl, Einnahmen und Ausgaben der Einträge, die zu einer Abfrage passen.
+     * Alle drei Werte werden mit einer einzigen Abfrage in der Datenbank berechnet. Die Beträge werden exakt
+     * als BigDecimal gelesen und in ganze Cent umgerechnet.
+     */
+    public SummenAggregator getSummen(EintragAbfrage abfrage) {
+        String summen = "SELECT COUNT(*), "
+                + "SUM(CASE WHEN typ = " + TYP_EINNAHME + " THEN betrag ELSE 0 END), "
+                + "SUM(CASE WHEN typ = " + TYP_EINNAHME + " THEN 0 ELSE betrag END) FROM ";
+        Filterbedingung filter = new Filterbedingung(abfrage);
+        try (Messung messung = messwerte.messen("getSummen");
+             Connection conn = verbindung();
+             PreparedStatement pstmt = conn.prepareStatement(summen + quelle(conn, abfrage) + " WHERE 1=1" + filter.getSql())) {
+            filter.binden(pstmt, 1);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    messung.zeilen(1).erfolg();
+                    return new SummenAggregator(rs.getInt(1), Geld.ausBigDecimal(rs.getBigDecimal(2)),
+                            Geld.ausBigDecimal(rs.getBigDecimal(3)));
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new SummenAggregator();
+    }
+
+    // Erstellt einen Eintrag aus der aktuellen Zeile eines ResultSets.
+    private Eintrag eintragAusResultSet(ResultSet rs) throws SQLException {
+        int id = rs.getInt("id");
+        String bezeichnung = rs.getString("bezeichnung");
+        long betragCent = Geld.ausBigDecimal(rs.getBigDecimal("betrag"));
+        int kategorieId = rs.getInt("kategorie_id");
+        // Einträge, deren Kategorie gelöscht wurde, haben keine Kategorie mehr.
+        Kategorie kategorie = rs.wasNull() ? KategorieKatalog.KEINE : katalog.nachId(kategorieId, rs.getString("kategorie"));
+        String typ = typName(rs.getInt("typ"));
+        LocalDate datum = rs.getDate("datum").toLocalDate();
+        String info = rs.getString("info");
+        return new Eintrag(id, bezeichnung, betragCent, datum, info, kategorie, typ, rs.getLong("aenderung"));
+    }
+
+    // Wandelt den Typ eines Eintrags in den Wert der Spalte "typ" um.
+    public static int typCode(String typ) {
+        return "Einnahme".equals(typ) ? TYP_EINNAHME : TYP_AUSGABE;
+    }
+
+    /*
+     * Prüft, ob die Datenbank den Eintrag annehmen wird: Betrag, Länge der Texte, Datum. Aufzurufen, bevor ein
+     * Eintrag als gespeichert gilt (z.B. vor dem Anhängen an das Journal), denn später kann der Benutzer ihn nicht
+     * mehr korrigieren.
+     *
+     * @throws IllegalArgumentException mit einer Meldung für den Benutzer, wenn ein Wert nicht passt
+     */
+    public static void pruefen(Eintrag eintrag) {
+        if (eintrag.getBetragCent() < 0 || eintrag.getBetragCent() > MAX_BETRAG_CENT) {
+            throw new IllegalArgumentException("Der Betrag muss zwischen 0,00 und " + Geld.formatieren(MAX_BETRAG_CENT) + " liegen.");
+        }
+        if (eintrag.getBezeichnung() == null || eintrag.getBezeichnung().length() > MAX_TEXT_LAENGE) {
+            throw new IllegalArgumentException("Die Bezeichnung darf höchstens " + MAX_TEXT_LAENGE + " Zeichen lang sein.");
+        }
+        if (eintrag.getKategorie() != null && eintrag.getKategorie().getName() != null
+                && eintrag.getKategorie().getName().length() > MAX_TEXT_LAENGE) {
+            throw new IllegalArgumentException("Der Name der Kategorie darf höchstens " + MAX_TEXT_LAENGE + " Zeichen lang sein.");
+        }
+        if (eintrag.getInfo() != null && eintrag.getInfo().getBytes(StandardCharsets.UTF_8).length > MAX_INFO_BYTES) {
+            throw new IllegalArgumentException("Die Info ist zu lang.");
+        }
+        if (eintrag.getDatum() == null) {
+            throw new IllegalArgumentException("Es ist kein Datum angegeben.");
+        }
+    }
+
+    // Wandelt den Wert der Spalte "typ" in den Typ eines Eintrags um.
+    public static String typName(int code) {
+        return code == TYP_EINNAHME ? "Einnahme" : "Ausgabe";
+    }
+
+    /*
+     * Liefert die ID einer vorhandenen Kategorie, ohne eine neue anzulegen; das tun nur addKategorie und
+     * getKategorieId. Gibt "null" zurück, wenn kein Kategoriename angegeben ist, und "unbekannt", wenn es keine
+     * Kategorie mit diesem Namen gibt.
+     * Bekannte Kategorien kommen aus dem Katalog. Findet erst die Datenbank den Namen, ist der Katalog veraltet und
+     * wird beim nächsten Zugriff neu geladen; ein Name, den es auch dort nicht gibt, lässt ihn unberührt.
+     */
+    private Integer kategorieId(Connection conn, Kategorie kategorie, Integer unbekannt) throws SQLException {
+        if (kategorie == null || kategorie.getName() == null || kategorie.getName().isEmpty()) {
+            return null;
+        }
+        Integer bekannt = katalog.id(kategorie.getName());
+        if (bekannt != null) {
+            return bekannt;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT id FROM kategorien WHERE name = ?")) {
+            pstmt.setString(1, kategorie.getName());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (!rs.next()) {
+                    return unbekannt;
+                }
+                katalog.ungueltig();
+                return rs.getInt(1);
+            }
+        }
+    }
+
+    // Legt eine Kategorie mit der Änderungsnummer "nummer" der laufenden Transaktion an und liefert ihre ID.
+    private Integer kategorieAnlegen(Connection conn, Kategorie kategorie, long nummer) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO kategorien(name, aenderung) VALUES(?, ?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            pstmt.setString(1, kategorie.getName());
+            pstmt.setLong(2, nummer);
+            pstmt.executeUpdate();
+            katalog.ungueltig();
+            try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                keys.next();
+                return keys.getInt(1);
+            }
+        }
+    }
+
+    /*
+     * Die Kategorie mit diesem Namen aus dem Katalog, ohne Datenbankzugriff (z.B. auf dem Event Dispatch Thread).
+     * Ein leerer Name ergibt die Kategorie der Einträge ohne Kategorie.
+     */
+    public Kategorie getKategorie(String name) {
+        return katalog.nachName(name);
+    }
+
+    /*
+     * Liefert die ID einer Kategorie und legt sie an, falls es sie noch nicht gibt (z.B. für den Import).
+     *
+     * @throws SQLException wenn die Kategorie weder gelesen noch angelegt werden kann
+     */
+    public Integer getKategorieId(Kategorie kategorie) throws SQLException {
+        try (Messung messung = messwerte.messen("getKategorieId")) {
+            Integer id = kategorie == null || kategorie.getName() == null ? null : katalog.id(kategorie.getName());
+            if (id == null && kategorie != null && kategorie.getName() != null && !kategorie.getName().isEmpty()) {
+                // Unbekannt: nur dann wird eine Änderungsnummer (und damit die Sperre bis zum Commit) gebraucht.
+                try (Connection conn = verbindung()) {
+                    conn.setAutoCommit(false);
+                    long nummer = Aenderungsnummern.naechste(conn);
+                    id = kategorieId(conn, kategorie, null);
+                    if (id == null) {
+                        id = kategorieAnlegen(conn, kategorie, nummer);
+                    }
+                    conn.commit();
+                }
+            }
+            messung.erfolg();
+            return id;
+        }
+    }
+
+    private static void kategorieBinden(PreparedStatement pstmt, int index, Integer kategorieId) throws SQLException {
+        if (kategorieId == null) {
+            pstmt.setNull(index, Types.INTEGER);
+        } else {
+            pstmt.setInt(index, kategorieId);
+        }
+    }
+
     /*
      * Methode zum Löschen aller Einträge, die am heutigen Tag erstellt wurden.
      * Diese Methode verwendet den SQL-Befehl "DELETE", um alle Einträge zu löschen,
      * deren Datum dem aktuellen Datum entspricht.
+     * Die gelöschten Einträge werden in derselben Transaktion vorher gelesen und zurückgegeben,
+     * damit die Tabelle genau diese Zeilen entfernen kann, statt alles neu zu laden.
+     * Das Hauptfenster löscht stattdessen über das Journal (siehe JournalAbgleich.tagLoeschen).
+     */
+    public List<Eintrag> deleteTodayEntries() {
+        List<Eintrag> geloescht = new ArrayList<>();
+        String selectSql = EINTRAEGE_MIT_KATEGORIE + " WHERE datum = ? FOR UPDATE";
+        LocalDate heute = LocalDate.now();
+        try (Messung messung = messwerte.messen("deleteTodayEntries");
+             Connection conn = verbindung()) {
+            conn.setAutoCommit(false);
+            // Die Änderungsnummer zuerst: Wer sie hat, sperrt erst danach Zeilen, so warten Schreiber nie über Kreuz.
+            long nummer = Aenderungsnummern.naechste(conn);
+            try (PreparedStatement pstmt = conn.prepareStatement(selectSql)) {
+                pstmt.setDate(1, Date.valueOf(heute));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        geloescht.add(eintragAusResultSet(rs));
+                    }
+                }
+            }
+            eintraegeLoeschenAm(conn, heute, nummer);
+            conn.commit();
+            messung.zeilen(geloescht.size()).erfolg();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            geloescht.clear();
+        }
+        return geloescht;
+    }
+
+    /*
+     * Löscht die Einträge mit den angegebenen IDs in einer Transaktion und passt die Monatssummen an.
+     * Gibt die Anzahl der gelöschten Einträge zurück.
+     */
+    public int deleteEintraege(int[] ids) throws SQLException {
+        try (Messung messung = messwerte.messen("deleteEintraege");
+             Connection conn = verbindung()) {
+            conn.setAutoCommit(false);
+            int geloescht = eintraegeLoeschen(conn, ids, Aenderungsnummern.naechste(conn));
+            conn.commit();
+            messung.zeilen(geloescht).erfolg();
+            return geloescht;
+        }
+    }
+
+    // Löscht alle Einträge eines Tages in der laufenden Transaktion samt Monatssummen und vermerkt sie als gelöscht.
+    private int eintraegeLoeschenAm(Connection conn, LocalDate datum, long nummer) throws SQLException {
+        Date tag = Date.valueOf(datum);
+        Monatssummen.abziehen(conn, "WHERE datum = ?", tag);
+        Aenderungsnummern.loeschungen(conn, Aenderungsnummern.EINTRAEGE, nummer, "WHERE datum = ?", tag);
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM eintraege WHERE datum = ?")) {
+            pstmt.setDate(1, tag);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    // Löscht die Einträge in der laufenden Transaktion samt Monatssummen (siehe deleteEintraege) und vermerkt sie als gelöscht.
+    private int eintraegeLoeschen(Connection conn, int[] ids, long nummer) throws SQLException {
+        int geloescht = 0;
+        // In Blöcken, damit die IN-Liste auch beim Löschen sehr vieler Zeilen überschaubar bleibt.
+        for (int start = 0; start < ids.length; start += LOESCH_BLOCK) {
+            int ende = Math.min(ids.length, start + LOESCH_BLOCK);
+            StringBuilder bedingung = new StringBuilder("WHERE id IN (");
+            Object[] parameter = new Object[ende - start];
+            for (int i = start; i < ende; i++) {
+                bedingung.append(i == start ? "?" : ", ?");
+                parameter[i - start] = ids[i];
+            }
+            bedingung.append(')');
+            Monatssummen.abziehen(conn, bedingung.toString(), parameter);
+            Aenderungsnummern.loeschungen(conn, Aenderungsnummern.EINTRAEGE, nummer, bedingung.toString(), parameter);
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM eintraege " + bedingung)) {
+                for (int i = 0; i < parameter.length; i++) {
+                    pstmt.setObject(i + 1, parameter[i]);
+                }
+                geloescht += pstmt.executeUpdate();
+            }
+        }
+        return geloescht;
+    }
+
+    /*
+     * Löscht alle Einträge vor dem angegebenen Datum (z.B. zum Aufräumen alter Jahre) in einer Transaktion
+     * und passt die Monatssummen an. Gibt die Anzahl der gelöschten Einträge zurück.
+     * Statt jede gelöschte Zeile zu vermerken, müssen andere Anwendungen danach alles neu lesen.
+     *
+     * Ausgelagerte Jahre, die ganz vor dem Datum liegen, werden nicht zeilenweise gelöscht: Ihre Monatssummen
+     * entfallen als Ganzes, nach dem Commit wird ihre Archivtabelle gelöscht. Nur im Jahr des Datums wird gezählt.
      */
-    public void deleteTodayEntries() {
-        String sql = "DELETE FROM eintraege WHERE datum = CURDATE()";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+    public int deleteEintraegeVor(LocalDate datum) throws SQLException {
+        List<Integer> verworfen = new ArrayList<>();
+        try (Messung messung = messwerte.messen("deleteEintraegeVor");
+             Connection conn = verbindung();
+             PreparedStatement pstmt = conn.prepareStatement("DELETE FROM eintraege WHERE datum < ?")) {
+            conn.setAutoCommit(false);
+            long nummer = Aenderungsnummern.naechste(conn);
+            Monatssummen.abziehen(conn, "WHERE datum < ?", Date.valueOf(datum));
+            pstmt.setDate(1, Date.valueOf(datum));
+            int geloescht = pstmt.executeUpdate();
+            for (int jahr : Archiv.jahre(conn)) {
+                if (jahr < datum.getYear()) {
+                    geloescht += Archiv.anzahl(conn, jahr);
+                    Monatssummen.jahrEntfernen(conn, jahr);
+                    Archiv.austragen(conn, jahr);
+                    verworfen.add(jahr);
+                } else if (jahr == datum.getYear()) {
+                    Monatssummen.abziehenAus(conn, Archiv.tabelle(jahr), "WHERE datum < ?", Date.valueOf(datum));
+                    geloescht += Archiv.loeschenVor(conn, jahr, datum);
+                }
+            }
+            if (geloescht > 0) {
+                Aenderungsnummern.alleNeuLesen(conn, Aenderungsnummern.EINTRAEGE, nummer);
+            }
+            conn.commit();
+            archivJahre = null;
+            // Erst nach dem Commit, weil MySQL bei DROP TABLE committet; liest ohnehin niemand mehr daraus.
+            conn.setAutoCommit(true);
+            for (int jahr : verworfen) {
+                Archiv.verwerfen(conn, jahr);
+            }
+            messung.zeilen(geloescht).erfolg();
+            return geloescht;
+        }
+    }
+
+    /*
+     * Lagert alle abgeschlossenen Jahre bis einschließlich "bisJahr" in Archivtabellen aus (siehe Archiv), jedes Jahr
+     * in einer eigenen Transaktion. Gibt die Anzahl der ausgelagerten Einträge zurück. Danach lesen Abfragen ohne
+     * Zeitraum nur noch die laufenden Jahre; andere Anwendungen müssen einmal alles neu lesen.
+     *
+     * @throws IllegalArgumentException wenn "bisJahr" nicht vor dem laufenden Jahr liegt
+     */
+    public int archivieren(int bisJahr) throws SQLException {
+        if (bisJahr >= LocalDate.now().getYear()) {
+            throw new IllegalArgumentException("Nur abgeschlossene Jahre können ausgelagert werden, also vor "
+                    + LocalDate.now().getYear());
+        }
+        try (Messung messung = messwerte.messen("archivieren");
+             Connection conn = verbindung()) {
+            List<Integer> jahre = new ArrayList<>();
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT DISTINCT YEAR(datum) FROM eintraege WHERE datum < ? ORDER BY 1")) {
+                pstmt.setDate(1, Date.valueOf(LocalDate.of(bisJahr + 1, 1, 1)));
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        jahre.add(rs.getInt(1));
+                    }
+                }
+            }
+            int verschoben = 0;
+            for (int jahr : jahre) {
+                Archiv.anlegen(conn, jahr, konfiguration.getArt() == DatenbankKonfiguration.Art.MYSQL);
+                conn.setAutoCommit(false);
+                try {
+                    long nummer = Aenderungsnummern.naechste(conn);
+                    verschoben += Archiv.verschieben(conn, jahr);
+                    // Die Monatssummen bleiben: Die Einträge gibt es weiterhin, nur in einer anderen Tabelle.
+                    Aenderungsnummern.alleNeuLesen(conn, Aenderungsnummern.EINTRAEGE, nummer);
+                    conn.commit();
+                } catch (SQLException e) {
+                    conn.rollback();
+                    throw e;
+                } finally {
+                    conn.setAutoCommit(true);
+                    archivJahre = null;
+                }
+            }
+            messung.zeilen(verschoben).erfolg();
+            return verschoben;
+        }
+    }
+
+    /*
+     * Überträgt Operationen aus dem Journal in ihrer Reihenfolge in einer gemeinsamen Transaktion. Aufeinander
+     * folgende Operationen derselben Art werden als Batch ausgeführt. ALLE_LOESCHEN gehört nicht dazu: Das Verwerfen
+     * der Archivtabellen committet selbst, deshalb überträgt der JournalAbgleich es einzeln mit deleteAllEintraege.
+     *
+     * Neue Einträge sowie das Ändern und Löschen einzelner IDs dürfen wiederholt werden (z.B. wenn die Bestätigung
+     * im Journal bei einem Absturz verloren ging): Neue Einträge, deren Schlüssel schon in der Spalte "journal_id"
+     * steht, werden nicht noch einmal angelegt; Ändern und Löschen ergeben beim zweiten Mal denselben Stand.
+     * TAG_LOESCHEN dagegen löscht beim zweiten Mal auch Einträge, die inzwischen hinzugekommen sind; deshalb
+     * bringt das Journal Bestätigungen solcher Operationen sofort auf den Datenträger.
+     *
+     * Das Ergebnis enthält für jeden neuen Eintrag die ID, unter der er in der Datenbank steht, und die Änderungen,
+     * die wegen einer zwischenzeitlichen Änderung durch eine andere Anwendung nicht geschrieben wurden.
+     *
+     * @throws SQLException wenn die Operationen nicht übertragen werden konnten; dann wurde keine ausgeführt
+     */
+    public JournalErgebnis journalAnwenden(List<JournalEintrag> operationen) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<Eintrag> konflikte = new ArrayList<>();
+        try (Messung messung = messwerte.messen("journalAnwenden");
+             Connection conn = verbindung()) {
+            conn.setAutoCommit(false);
+            try {
+                long nummer = Aenderungsnummern.naechste(conn);
+                int zeilen = 0;
+                int start = 0;
+                while (start < operationen.size()) {
+                    JournalEintrag.Art art = operationen.get(start).getArt();
+                    int ende = start + 1;
+                    while (ende < operationen.size() && operationen.get(ende).getArt() == art) {
+                        ende++;
+                    }
+                    List<JournalEintrag> gruppe = operationen.subList(start, ende);
+                    if (art == JournalEintrag.Art.EINFUEGEN) {
+                        zeilen += journalEinfuegen(conn, gruppe, ids, nummer);
+                    } else if (art == JournalEintrag.Art.AENDERN) {
+                        List<Eintrag> eintraege = new ArrayList<>(gruppe.size());
+                        for (JournalEintrag operation : gruppe) {
+                            eintraege.add(operation.getEintrag());
+                        }
+                        zeilen += eintraegeAendern(conn, eintraege, nummer, konflikte);
+                    } else if (art == JournalEintrag.Art.TAG_LOESCHEN) {
+                        for (JournalEintrag operation : gruppe) {
+                            zeilen += eintraegeLoeschenAm(conn, operation.getDatum(), nummer);
+                        }
+                    } else if (art == JournalEintrag.Art.ALLE_LOESCHEN) {
+                        throw new IllegalArgumentException("Alle Einträge löschen wird einzeln übertragen (deleteAllEintraege)");
+                    } else {
+                        for (JournalEintrag operation : gruppe) {
+                            zeilen += eintraegeLoeschen(conn, operation.getIds(), nummer);
+                        }
+                    }
+                    start = ende;
+                }
+                conn.commit();
+                messung.zeilen(zeilen).batch(operationen.size()).erfolg();
+                return new JournalErgebnis(ids, konflikte);
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // Legt die noch nicht vorhandenen Einträge an und trägt die IDs aller Schlüssel in "ids" ein.
+    private int journalEinfuegen(Connection conn, List<JournalEintrag> operationen, Map<String, Integer> ids, long nummer) throws SQLException {
+        List<String> schluessel = new ArrayList<>(operationen.size());
+        for (JournalEintrag operation : operationen) {
+            schluessel.add(operation.getSchluessel());
+        }
+        Map<String, Integer> vorhanden = journalIds(conn, schluessel);
+        String sql = "INSERT INTO eintraege(bezeichnung, betrag, kategorie_id, typ, datum, info, journal_id, aenderung, geaendert_von) "
+                + "VALUES(?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        int eingefuegt = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            Monatssummen summen = new Monatssummen();
+            for (JournalEintrag operation : operationen) {
+                if (vorhanden.containsKey(operation.getSchluessel())) {
+                    continue;
+                }
+                Eintrag eintrag = operation.getEintrag();
+                Integer kategorieId = kategorieId(conn, eintrag.getKategorie(), null);
+                pstmt.setString(1, eintrag.getBezeichnung());
+                pstmt.setBigDecimal(2, Geld.zuBigDecimal(eintrag.getBetragCent()));
+                kategorieBinden(pstmt, 3, kategorieId);
+                pstmt.setInt(4, typCode(eintrag.getTyp()));
+                pstmt.setDate(5, Date.valueOf(eintrag.getDatum()));
+                pstmt.setString(6, eintrag.getInfo());
+                pstmt.setString(7, operation.getSchluessel());
+                pstmt.setLong(8, nummer);
+                pstmt.setString(9, kennung);
+                pstmt.addBatch();
+                summen.hinzufuegen(eintrag.getDatum(), kategorieId, typCode(eintrag.getTyp()), eintrag.getBetragCent());
+                eingefuegt++;
+            }
+            if (eingefuegt > 0) {
+                pstmt.executeBatch();
+                summen.schreiben(conn);
+            }
+        }
+        // Die IDs über den Schlüssel nachlesen; erzeugte Schlüssel eines Batches liefert nicht jeder Treiber.
+        ids.putAll(eingefuegt > 0 ? journalIds(conn, schluessel) : vorhanden);
+        return eingefuegt;
+    }
+
+    // IDs der Einträge, deren "journal_id" einer der Schlüssel ist.
+    private static Map<String, Integer> journalIds(Connection conn, List<String> schluessel) throws SQLException {
+        Map<String, Integer> ids = new HashMap<>();
+        for (int start = 0; start < schluessel.size(); start += LOESCH_BLOCK) {
+            int ende = Math.min(schluessel.size(), start + LOESCH_BLOCK);
+            StringBuilder sql = new StringBuilder("SELECT journal_id, id FROM eintraege WHERE journal_id IN (");
+            for (int i = start; i < ende; i++) {
+                sql.append(i == start ? "?" : ", ?");
+            }
+            sql.append(')');
+            try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+                for (int i = start; i < ende; i++) {
+                    pstmt.setString(i - start + 1, schluessel.get(i));
+                }
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        ids.put(rs.getString(1), rs.getInt(2));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /*
+     * Löscht alle Einträge samt Archivtabellen und Monatssummen. Die Vergabe der IDs läuft weiter: Eine Änderung oder
+     * Löschung, die noch im Journal oder im Schreibpuffer eines anderen Fensters steht, trifft so keinen neuen Eintrag,
+     * der zufällig dieselbe ID bekommen hat.
+     * Einträge, ausgetragene Archivjahre, Monatssummen und der Vermerk, dass andere Anwendungen alles neu lesen
+     * müssen, ändern sich in einer Transaktion; ein Abbruch mittendrin lässt keinen dieser Schritte aus. Erst danach
+     * werden die Archivtabellen verworfen; bleibt dabei eine übrig, verwirft Archiv.anlegen sie später.
+     * Deshalb kein TRUNCATE: Es setzt AUTO_INCREMENT zurück und committet für sich allein.
+     */
+    public void deleteAllEintraege() throws SQLException {
+        try (Messung messung = messwerte.messen("deleteAllEintraege");
+             Connection conn = verbindung();
+             Statement stmt = conn.createStatement()) {
+            List<Integer> jahre = Archiv.jahre(conn);
+            conn.setAutoCommit(false);
+            try {
+                Aenderungsnummern.alleNeuLesen(conn, Aenderungsnummern.EINTRAEGE, Aenderungsnummern.naechste(conn));
+                for (int jahr : jahre) {
+                    Archiv.austragen(conn, jahr);
+                }
+                messung.zeilen(stmt.executeUpdate("DELETE FROM eintraege"));
+                stmt.executeUpdate("DELETE FROM monatssummen");
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+                archivJahre = null;
+            }
+            for (int jahr : jahre) {
+                Archiv.verwerfen(conn, jahr);
+            }
+            messung.erfolg();
+        }
+    }
+
+    /*
+     * Löscht alle Kategorien. Die Einträge bleiben ohne Kategorie erhalten. Die Vergabe der IDs läuft weiter, damit
+     * der noch nicht neu geladene Katalog eines anderen Fensters einen alten Namen nicht auf die ID einer neuen
+     * Kategorie abbildet.
+     */
+    public void deleteAllKategorien() throws SQLException {
+        try (Messung messung = messwerte.messen("deleteAllKategorien");
+             Connection conn = verbindung();
+             Statement stmt = conn.createStatement()) {
+            conn.setAutoCommit(false);
+            long nummer = Aenderungsnummern.naechste(conn);
+            Monatssummen.kategorienAufloesen(conn, "");
+            // Die Einträge verlieren ihre Kategorie ausdrücklich, damit sie eine neue Änderungsnummer bekommen.
+            try (PreparedStatement pstmt = conn.prepareStatement("UPDATE eintraege SET kategorie_id = NULL, aenderung = ?, "
+                    + "geaendert_von = ? WHERE kategorie_id IS NOT NULL")) {
+                pstmt.setLong(1, nummer);
+                pstmt.setString(2, kennung);
+                pstmt.executeUpdate();
+            }
+            Archiv.kategorienAufloesen(conn, "");
+            Aenderungsnummern.alleNeuLesen(conn, Aenderungsnummern.KATEGORIEN, nummer);
+            stmt.executeUpdate("DELETE FROM kategorien");
+            conn.commit();
+            katalog.ungueltig();
+            messung.erfolg();
+        }
+    }
+
+    /*
+     * Auswertung: Anzahl und Summe je Monat, Kategorie und Typ für die letzten "jahre" Jahre (einschließlich des
+     * laufenden Monats), sortiert nach Monat, Kategorie und Typ. Gelesen wird nur die Tabelle "monatssummen".
+     *
+     * @throws SQLException wenn die Monatssummen nicht gelesen werden können
+     */
+    public List<Monatssumme> getMonatssummen(int jahre) throws SQLException {
+        String sql = "SELECT m.monat, COALESCE(k.name, ''), m.typ, m.anzahl, m.summe FROM monatssummen m "
+                + "LEFT JOIN kategorien k ON k.id = m.kategorie_id "
+                + "WHERE m.monat >= ? AND m.anzahl <> 0 ORDER BY m.monat, 2, m.typ";
+        YearMonth ab = YearMonth.now().minusYears(jahre).plusMonths(1);
+        List<Monatssumme> summen = new ArrayList<>();
+        try (Messung messung = messwerte.messen("getMonatssummen");
+             Connection conn = verbindung();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, ab.getYear() * 100 + ab.getMonthValue());
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int monat = rs.getInt(1);
+                    summen.add(new Monatssumme(YearMonth.of(monat / 100, monat % 100), rs.getString(2), typName(rs.getInt(3)),
+                            rs.getLong(4), Geld.ausBigDecimal(rs.getBigDecimal(5))));
+                }
+            }
+            messung.zeilen(summen.size()).erfolg();
+        }
+        return summen;
+    }
+
+    /*
+     * Prüft die Monatssummen gegen die Einträge und gibt die Anzahl der abweichenden Summen zurück (0 = stimmt).
+     */
+    public int monatssummenPruefen() throws SQLException {
+        try (Messung messung = messwerte.messen("monatssummenPruefen");
+             Connection conn = verbindung()) {
+            int abweichungen = Monatssummen.pruefen(conn, Archiv.quelle(Archiv.jahre(conn)));
+            messung.erfolg();
+            return abweichungen;
+        }
+    }
+
+    // Berechnet die Monatssummen in einer Transaktion vollständig aus den Einträgen neu.
+    public void monatssummenNeuAufbauen() throws SQLException {
+        try (Messung messung = messwerte.messen("monatssummenNeuAufbauen");
+             Connection conn = verbindung()) {
+            conn.setAutoCommit(false);
+            Monatssummen.neuAufbauen(conn, Archiv.quelle(Archiv.jahre(conn)));
+            conn.commit();
+            messung.erfolg();
+        }
+    }
+
+    /*
+     * Methode zum Abrufen der höchsten vergebenen ID der Tabelle "eintraege" und der Archivtabellen (0, wenn alle
+     * leer sind). Nach dem Auslagern kann "eintraege" leer sein, die IDs ausgelagerter Einträge bleiben vergeben.
+     */
+    public int getMaxId() {
+        try (Messung messung = messwerte.messen("getMaxId");
+             Connection conn = verbindung();
              Statement stmt = conn.createStatement()) {
-            stmt.executeUpdate(sql);
+            List<String> tabellen = new ArrayList<>();
+            tabellen.add("eintraege");
+            for (int jahr : archivJahre(conn)) {
+                tabellen.add(Archiv.tabelle(jahr));
+            }
+            int maxId = 0;
+            for (String tabelle : tabellen) {
+                try (ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + tabelle)) {
+                    rs.next();
+                    maxId = Math.max(maxId, rs.getInt(1));
+                }
+            }
+            messung.erfolg();
+            return maxId;
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return 0;
     }
 
     /*
      * Methode zum Hinzufügen einer neuen Kategorie zur Tabelle "kategorien".
      * Diese Methode verwendet ein PreparedStatement, um die neue Kategorie in die Datenbank einzufügen.
+     * Kategorienamen sind eindeutig; eine bereits vorhandene Kategorie wird nicht noch einmal angelegt.
      */
     public void addKategorie(Kategorie kategorie) {
-        String sql = "INSERT INTO kategorien(name) VALUES(?)";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        String sql = "INSERT INTO kategorien(name, aenderung) SELECT ?, ? FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM kategorien WHERE name = ?)";
+        try (Messung messung = messwerte.messen("addKategorie");
+             Connection conn = verbindung();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
             pstmt.setString(1, kategorie.getName());
-            pstmt.executeUpdate();
+            pstmt.setLong(2, Aenderungsnummern.naechste(conn));
+            pstmt.setString(3, kategorie.getName());
+            int angelegt = pstmt.executeUpdate();
+            conn.commit();
+            if (angelegt > 0) {
+                katalog.ungueltig();
+            }
+            messung.erfolg();
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -150,33 +1443,116 @@ public class DatenbankManager {
      */
     public void deleteKategorie(String name) {
         String sql = "DELETE FROM kategorien WHERE name = ?";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Messung messung = messwerte.messen("deleteKategorie");
+             Connection conn = verbindung();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            conn.setAutoCommit(false);
+            long nummer = Aenderungsnummern.naechste(conn);
+            // Die Einträge der Kategorie verlieren ihre Kategorie, ihre Summen ebenso. Das geschieht hier ausdrücklich
+            // (statt durch ON DELETE SET NULL), damit die Einträge eine neue Änderungsnummer bekommen.
+            Monatssummen.kategorienAufloesen(conn, "WHERE name = ?", name);
+            try (PreparedStatement aufloesen = conn.prepareStatement("UPDATE eintraege SET kategorie_id = NULL, aenderung = ?, "
+                    + "geaendert_von = ? WHERE kategorie_id IN (SELECT id FROM kategorien WHERE name = ?)")) {
+                aufloesen.setLong(1, nummer);
+                aufloesen.setString(2, kennung);
+                aufloesen.setString(3, name);
+                aufloesen.executeUpdate();
+            }
+            Archiv.kategorienAufloesen(conn, "WHERE name = ?", name);
+            Aenderungsnummern.loeschungen(conn, Aenderungsnummern.KATEGORIEN, nummer, "WHERE name = ?", name);
             pstmt.setString(1, name);
             pstmt.executeUpdate();
+            conn.commit();
+            katalog.ungueltig();
+            messung.erfolg();
         } catch (SQLException e) {
             e.printStackTrace();
         }
     }
 
     /*
-     * Methode zum Abrufen aller Kategorien aus der Tabelle "kategorien".
-     * Führt eine SQL-Abfrage aus, um alle Kategorien aus der Datenbank zu holen und gibt sie in einer Liste zurück.
+     * Methode zum Abrufen aller Kategorien, nach Namen sortiert.
+     * Die Kategorien kommen aus dem Katalog; die Datenbank wird nur nach einer Änderung erneut abgefragt.
      */
     public List<Kategorie> getAllKategorien() {
-        List<Kategorie> kategorien = new ArrayList<>();
-        String sql = "SELECT * FROM kategorien";
-        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD);
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                String name = rs.getString("name");
-                Kategorie kategorie = new Kategorie(name);
-                kategorien.add(kategorie);
-            }
-        } catch (SQLException e) {
-            e.printStackTrace();
+        return katalog.alle();
+    }
+
+    // Ergebnis von journalAnwenden.
+    public static final class JournalErgebnis {
+
+        private final Map<String, Integer> ids;
+        private final List<Eintrag> konflikte;
+
+        private JournalErgebnis(Map<String, Integer> ids, List<Eintrag> konflikte) {
+            this.ids = ids;
+            this.konflikte = konflikte;
         }
-        return kategorien;
+
+        // ID jedes neuen Eintrags in der Datenbank (Schlüssel -> ID).
+        public Map<String, Integer> getIds() {
+            return ids;
+        }
+
+        // Geänderte Einträge, die nicht geschrieben wurden, weil eine andere Anwendung sie inzwischen geändert hat.
+        public List<Eintrag> getKonflikte() {
+            return konflikte;
+        }
+    }
+
+    /*
+     * Asynchrone Varianten der Methoden oben. Sie kehren sofort zurück und führen die Operation mit dem
+     * DatenbankAusfuehrer aus; das Ergebnis kommt als CompletableFuture. Mehrere unabhängige Abfragen (z.B.
+     * Kategorien und Summen beim Start) laufen so gleichzeitig statt nacheinander.
+     *
+     * Abbrechen mit cancel(), Zeitlimit z.B. mit getEintraegeAsync(...).orTimeout(10, TimeUnit.SECONDS): Eine Operation,
+     * die noch auf eine freie Verbindung wartet, wird dann nicht mehr ausgeführt (siehe DatenbankAusfuehrer).
+     */
+    public <T> CompletableFuture<T> asynchron(Callable<T> operation) {
+        return ausfuehrer.ausfuehren(operation);
+    }
+
+    public CompletableFuture<Integer> addEintragAsync(Eintrag eintrag) {
+        return asynchron(() -> addEintrag(eintrag));
+    }
+
+    public CompletableFuture<Integer> updateEintraegeAsync(List<Eintrag> eintraege) {
+        return asynchron(() -> updateEintraege(eintraege));
+    }
+
+    public CompletableFuture<Integer> deleteEintraegeAsync(int[] ids) {
+        return asynchron(() -> deleteEintraege(ids));
+    }
+
+    public CompletableFuture<List<Eintrag>> getAllEintraegeAsync() {
+        return asynchron(this::getAllEintraege);
+    }
+
+    public CompletableFuture<List<Eintrag>> getEintraegeSeiteAsync(EintragAbfrage abfrage, Eintrag nach, int offset, int limit) {
+        return asynchron(() -> getEintraegeSeite(abfrage, nach, offset, limit));
+    }
+
+    public CompletableFuture<List<Eintrag>> getEintraegeAsync(LocalDate von, LocalDate bis, Collection<String> kategorien, String typ, int limit) {
+        return asynchron(() -> getEintraege(von, bis, kategorien, typ, limit));
+    }
+
+    public CompletableFuture<SummenAggregator> getSummenAsync(EintragAbfrage abfrage) {
+        return asynchron(() -> getSummen(abfrage));
+    }
+
+    public CompletableFuture<Integer> getMaxIdAsync() {
+        return asynchron(this::getMaxId);
+    }
+
+    public CompletableFuture<List<Monatssumme>> getMonatssummenAsync(int jahre) {
+        return asynchron(() -> getMonatssummen(jahre));
+    }
+
+    public CompletableFuture<List<Kategorie>> getAllKategorienAsync() {
+        return asynchron(this::getAllKategorien);
+    }
+
+    public CompletableFuture<Aenderungen> getAenderungenSeitAsync(long stand, int max) {
+        return asynchron(() -> getAenderungenSeit(stand, max));
     }
 }
@@ -0,0 +1,110 @@
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * RowSorter für das EintragTableModel, der nicht im Speicher sortiert, sondern die Sortierung
+ * als Teil der Abfrage an die Datenbank weitergibt. Die Zeilenreihenfolge der Tabelle entspricht
+ * deshalb immer der Reihenfolge im Modell. Der Sortierer sorgt außerdem dafür, dass die
+ * Spaltenköpfe wie gewohnt einen Sortierpfeil anzeigen.
+ */
+public class DatenbankSortierer extends RowSorter<EintragTableModel> {
+
+    private final EintragTableModel model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+
+    public DatenbankSortierer(EintragTableModel model) {
+        this.model = model;
+    }
+
+    @Override
+    public EintragTableModel getModel() {
+        return model;
+    }
+
+    /*
+     * Wird beim Klick auf einen Spaltenkopf aufgerufen.
+     * Ein erster Klick sortiert aufsteigend, jeder weitere Klick kehrt die Richtung um.
+     */
+    @Override
+    public void toggleSortOrder(int column) {
+        SortOrder order = SortOrder.ASCENDING;
+        if (!sortKeys.isEmpty() && sortKeys.get(0).getColumn() == column
+                && sortKeys.get(0).getSortOrder() == SortOrder.ASCENDING) {
+            order = SortOrder.DESCENDING;
+        }
+        setSortKeys(Collections.singletonList(new SortKey(column, order)));
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> neu = keys == null || keys.isEmpty()
+                ? Collections.emptyList()
+                : Collections.singletonList(keys.get(0));
+        if (neu.equals(sortKeys)) {
+            return;
+        }
+        sortKeys = neu;
+        fireSortOrderChanged();
+
+        EintragSpalte spalte = EintragSpalte.ID;
+        boolean absteigend = false;
+        if (!neu.isEmpty() && neu.get(0).getSortOrder() != SortOrder.UNSORTED) {
+            spalte = EintragSpalte.values()[neu.get(0).getColumn()];
+            absteigend = neu.get(0).getSortOrder() == SortOrder.DESCENDING;
+        }
+        model.setAbfrage(model.getAbfrage().mitSortierung(spalte, absteigend));
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    // Die Datenbank liefert die Zeilen bereits sortiert, Ansicht und Modell haben daher dieselben Indizes.
+    @Override
+    public int convertRowIndexToModel(int index) {
+        return index;
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        return index;
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    // Änderungen am Modell erfordern keine eigene Sortierung, da das Modell bereits sortiert ist.
+    @Override
+    public void modelStructureChanged() {
+    }
+
+    @Override
+    public void allRowsChanged() {
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+    }
+}
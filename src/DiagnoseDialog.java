@@ -0,0 +1,141 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Die Klasse "DiagnoseDialog" zeigt die Messwerte aller Datenbankoperationen (Aufrufe, Fehler, Laufzeiten,
+ * Zeilen, Batchgrößen) und die Statistik des Verbindungspools an. Die Anzeige wird jede Sekunde aktualisiert,
+ * solange der Dialog geöffnet ist.
+ */
+public class DiagnoseDialog extends JDialog {
+
+    private static final int AKTUALISIERUNG_MS = 1000;
+
+    private final Messwerte messwerte;
+    private final MesswerteModell modell = new MesswerteModell();
+    private final JLabel poolLabel = new JLabel();
+    private final Timer timer;
+
+    public DiagnoseDialog(Frame besitzer, Messwerte messwerte) {
+        super(besitzer, "Diagnose", false);
+        this.messwerte = messwerte;
+        setLayout(new BorderLayout());
+
+        JTable tabelle = new JTable(modell);
+        tabelle.setAutoCreateRowSorter(true);
+        add(new JScrollPane(tabelle), BorderLayout.CENTER);
+
+        JPanel untenPanel = new JPanel(new BorderLayout());
+        poolLabel.setBorder(BorderFactory.createEmptyBorder(4, 4, 4, 4));
+        untenPanel.add(poolLabel, BorderLayout.CENTER);
+        JButton zuruecksetzenButton = new JButton("Zurücksetzen");
+        zuruecksetzenButton.addActionListener(e -> {
+            messwerte.zuruecksetzen();
+            aktualisieren();
+        });
+        untenPanel.add(zuruecksetzenButton, BorderLayout.EAST);
+        add(untenPanel, BorderLayout.SOUTH);
+
+        // Die Messwerte liegen im Speicher; das Abfragen ist billig genug für den Event Dispatch Thread.
+        timer = new Timer(AKTUALISIERUNG_MS, e -> aktualisieren());
+        setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+        aktualisieren();
+        setSize(900, 400);
+        setLocationRelativeTo(besitzer);
+    }
+
+    @Override
+    public void setVisible(boolean sichtbar) {
+        if (sichtbar) {
+            timer.start();
+        }
+        super.setVisible(sichtbar);
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+        super.dispose();
+    }
+
+    private void aktualisieren() {
+        modell.setOperationen(messwerte.getOperationen());
+        VerbindungsPool.Statistik pool = messwerte.getVerbindungspool();
+        poolLabel.setText("Verbindungspool: " + (pool != null ? pool : "wird geöffnet…"));
+    }
+
+    // Tabellenmodell mit einer Zeile je Operation.
+    private static final class MesswerteModell extends AbstractTableModel {
+
+        private static final String[] SPALTEN = {"Operation", "Aufrufe", "Fehler", "Ø ms", "p50 ms", "p95 ms", "p99 ms", "max ms", "Zeilen", "Ø Batch"};
+
+        private List<OperationsStatistik> operationen = Collections.emptyList();
+
+        private void setOperationen(List<OperationsStatistik> operationen) {
+            this.operationen = operationen;
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return operationen.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return SPALTEN.length;
+        }
+
+        @Override
+        public String getColumnName(int spalte) {
+            return SPALTEN[spalte];
+        }
+
+        @Override
+        public Class<?> getColumnClass(int spalte) {
+            switch (spalte) {
+                case 0:
+                    return String.class;
+                case 1:
+                case 2:
+                case 8:
+                    return Long.class;
+                default:
+                    return Double.class;
+            }
+        }
+
+        @Override
+        public Object getValueAt(int zeile, int spalte) {
+            OperationsStatistik o = operationen.get(zeile);
+            switch (spalte) {
+                case 0:
+                    return o.getName();
+                case 1:
+                    return o.getAufrufe();
+                case 2:
+                    return o.getFehler();
+                case 3:
+                    return runden(o.getMittelMillis());
+                case 4:
+                    return runden(o.getP50Millis());
+                case 5:
+                    return runden(o.getP95Millis());
+                case 6:
+                    return runden(o.getP99Millis());
+                case 7:
+                    return runden(o.getMaxMillis());
+                case 8:
+                    return o.getZeilen();
+                default:
+                    return runden(o.getMittlereBatchGroesse());
+            }
+        }
+
+        private static double runden(double wert) {
+            return Math.round(wert * 100) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/*
+ * JFR-Ereignis für eine Zeitspanne, in der der Event Dispatch Thread nicht reagiert hat (siehe EdtUeberwachung).
+ * Die Dauer des Ereignisses ist die Verzögerung, mit der eine eingereihte Aufgabe ausgeführt wurde.
+ */
+@Name("haushaltsbuch.EdtStockung")
+@Label("EDT-Stockung")
+@Category({"Haushaltsbuch", "Oberfläche"})
+@Description("Der Event Dispatch Thread war länger als erwartet blockiert")
+@StackTrace(false)
+public class EdtStockungEvent extends Event {
+
+    @Label("Verzögerung (ms)")
+    long verzoegerungMillis;
+}
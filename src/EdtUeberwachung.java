@@ -0,0 +1,48 @@
+import javax.swing.SwingUtilities;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Die Klasse "EdtUeberwachung" prüft regelmäßig, wie schnell der Event Dispatch Thread eine eingereihte Aufgabe
+ * ausführt. Dauert das länger als SCHWELLE_MILLIS, war die Oberfläche so lange eingefroren: Die Stockung wird
+ * in den Messwerten (Operation "edt-stockung") gezählt und als EdtStockungEvent an Java Flight Recorder gemeldet.
+ */
+public class EdtUeberwachung {
+
+    public static final long INTERVALL_MILLIS = 100;
+    public static final long SCHWELLE_MILLIS = 100;
+
+    private final Messwerte messwerte;
+
+    public EdtUeberwachung(Messwerte messwerte) {
+        this.messwerte = messwerte;
+    }
+
+    // Startet die Überwachung in einem Daemon-Thread, der mit der Anwendung endet.
+    public void starten() {
+        Thread thread = new Thread(this::ueberwachen, "EDT-Überwachung");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void ueberwachen() {
+        try {
+            while (true) {
+                Thread.sleep(INTERVALL_MILLIS);
+                EdtStockungEvent event = new EdtStockungEvent();
+                event.begin();
+                long eingereiht = System.nanoTime();
+                SwingUtilities.invokeAndWait(() -> { });
+                long verzoegerung = System.nanoTime() - eingereiht;
+                if (verzoegerung >= TimeUnit.MILLISECONDS.toNanos(SCHWELLE_MILLIS)) {
+                    messwerte.erfassen("edt-stockung", verzoegerung, 0, 0, false);
+                    event.verzoegerungMillis = TimeUnit.NANOSECONDS.toMillis(verzoegerung);
+                    event.commit();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -15,10 +15,11 @@ public class Eintrag {
     private final String bezeichnung;
 
     /*
-     * Betrag der Transaktion, kann sowohl positiv als auch negativ sein.
-     * Einnahmen sind positive Werte und Ausgaben sind negative Werte.
+     * Betrag der Transaktion in ganzen Cent (z.B. 1250 für 12,50 €).
+     * Der Betrag wird ohne Vorzeichen gespeichert; ob es sich um eine Einnahme oder Ausgabe handelt, gibt der Typ an.
+     * Durch die Speicherung als long bleiben Summen exakt, was mit double nicht garantiert ist.
      */
-    private final double betrag;
+    private final long betragCent;
 
     /*
      * Datum der Transaktion, gibt an, wann der Eintrag erfolgt ist.
@@ -42,16 +43,31 @@ public class Eintrag {
     //Typ der Transaktion, gibt an, ob es sich um eine "Einnahme" oder "Ausgabe" handelt.
     private final String typ;
 
+    // Wert von "aenderung" für einen Eintrag, dessen Stand in der Datenbank nicht bekannt ist.
+    public static final long STAND_UNBEKANNT = -1;
 
-    // Konstruktor der Klasse Eintrag, der alle Eigenschaften initialisiert.
-    public Eintrag(int id, String bezeichnung, double betrag, LocalDate datum, String info, Kategorie kategorie, String typ) {
+    /*
+     * Änderungsnummer, mit der der Eintrag aus der Datenbank gelesen wurde (siehe Aenderungsnummern).
+     * Beim Speichern einer Änderung wird damit geprüft, ob ihn inzwischen jemand anderes geändert hat.
+     */
+    private final long aenderung;
+
+
+    // Konstruktor der Klasse Eintrag, der alle Eigenschaften initialisiert; der Stand in der Datenbank ist unbekannt.
+    public Eintrag(int id, String bezeichnung, long betragCent, LocalDate datum, String info, Kategorie kategorie, String typ) {
+        this(id, bezeichnung, betragCent, datum, info, kategorie, typ, STAND_UNBEKANNT);
+    }
+
+    // Konstruktor für einen aus der Datenbank gelesenen Eintrag mit seiner Änderungsnummer.
+    public Eintrag(int id, String bezeichnung, long betragCent, LocalDate datum, String info, Kategorie kategorie, String typ, long aenderung) {
         this.id = id;
         this.bezeichnung = bezeichnung;
-        this.betrag = betrag;
+        this.betragCent = betragCent;
         this.datum = datum;
         this.info = info;
         this.kategorie = kategorie;
         this.typ = typ;
+        this.aenderung = aenderung;
     }
 
     /*
@@ -73,12 +89,12 @@ public class Eintrag {
     }
 
     /*
-     * Gibt den Betrag des Eintrags zurück.
+     * Gibt den Betrag des Eintrags in ganzen Cent zurück.
      *
-     * @return Der Betrag der Transaktion
+     * @return Der Betrag der Transaktion in Cent
      */
-    public double getBetrag() {
-        return betrag;
+    public long getBetragCent() {
+        return betragCent;
     }
 
     /*
@@ -116,4 +132,13 @@ public class Eintrag {
     public String getTyp() {
         return typ;
     }
+
+    /*
+     * Gibt die Änderungsnummer zurück, mit der der Eintrag gelesen wurde, oder STAND_UNBEKANNT.
+     *
+     * @return Die Änderungsnummer des Eintrags
+     */
+    public long getAenderung() {
+        return aenderung;
+    }
 }
@@ -0,0 +1,198 @@
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ * Die Klasse "EintragAbfrage" beschreibt, welche Einträge in welcher Reihenfolge aus der Datenbank gelesen werden.
+ * Sie ist unveränderlich; die "mit..."-Methoden liefern jeweils eine geänderte Kopie.
+ * Der DatenbankManager übersetzt eine Abfrage in eine parametrisierte SQL-Abfrage.
+ */
+public class EintragAbfrage {
+
+    // Spalte, nach der in der Datenbank sortiert wird. Bei gleichen Werten wird zusätzlich nach der ID sortiert.
+    private final EintragSpalte sortierSpalte;
+    private final boolean absteigend;
+
+    // Optionaler Textfilter auf eine Spalte; null bzw. leer bedeutet "kein Filter".
+    private final EintragSpalte filterSpalte;
+    private final String filterText;
+
+    /*
+     * Optionale Obergrenze für die ID (null = keine).
+     * Die Tabelle friert damit beim Laden den Datenbestand ein; später gespeicherte Einträge werden
+     * von ihr selbst angehängt und dürfen nicht zusätzlich noch einmal aus der Datenbank kommen.
+     */
+    private final Integer obergrenzeId;
+
+    // Optionaler Zeitraum (jeweils einschließlich, null = offen).
+    private final LocalDate datumVon;
+    private final LocalDate datumBis;
+
+    // Optionale Menge von Kategorienamen (null = alle Kategorien) und optionaler Typ ("Einnahme"/"Ausgabe", null = beide).
+    private final Set<String> kategorien;
+    private final String typ;
+
+    // Optionaler Bereich für den Betrag in Cent (jeweils einschließlich, null = offen).
+    private final Long betragVonCent;
+    private final Long betragBisCent;
+
+    // Standardabfrage: alle Einträge aufsteigend nach ID.
+    public EintragAbfrage() {
+        this(EintragSpalte.ID, false, null, null);
+    }
+
+    public EintragAbfrage(EintragSpalte sortierSpalte, boolean absteigend, EintragSpalte filterSpalte, String filterText) {
+        this(sortierSpalte, absteigend, filterSpalte, filterText, null);
+    }
+
+    public EintragAbfrage(EintragSpalte sortierSpalte, boolean absteigend, EintragSpalte filterSpalte, String filterText,
+                          Integer obergrenzeId) {
+        this(sortierSpalte, absteigend, filterSpalte, filterText, obergrenzeId, null, null, null, null, null, null);
+    }
+
+    private EintragAbfrage(EintragSpalte sortierSpalte, boolean absteigend, EintragSpalte filterSpalte, String filterText,
+                           Integer obergrenzeId, LocalDate datumVon, LocalDate datumBis, Set<String> kategorien, String typ,
+                           Long betragVonCent, Long betragBisCent) {
+        this.sortierSpalte = sortierSpalte;
+        this.absteigend = absteigend;
+        this.filterSpalte = filterSpalte;
+        this.filterText = filterText;
+        this.obergrenzeId = obergrenzeId;
+        this.datumVon = datumVon;
+        this.datumBis = datumBis;
+        this.kategorien = kategorien;
+        this.typ = typ;
+        this.betragVonCent = betragVonCent;
+        this.betragBisCent = betragBisCent;
+    }
+
+    public EintragSpalte getSortierSpalte() {
+        return sortierSpalte;
+    }
+
+    public boolean isAbsteigend() {
+        return absteigend;
+    }
+
+    public EintragSpalte getFilterSpalte() {
+        return filterSpalte;
+    }
+
+    public String getFilterText() {
+        return filterText;
+    }
+
+    public Integer getObergrenzeId() {
+        return obergrenzeId;
+    }
+
+    public LocalDate getDatumVon() {
+        return datumVon;
+    }
+
+    public LocalDate getDatumBis() {
+        return datumBis;
+    }
+
+    // Die Kategorienamen, auf die eingeschränkt wird (unveränderlich), oder null für alle Kategorien.
+    public Set<String> getKategorien() {
+        return kategorien;
+    }
+
+    public String getTyp() {
+        return typ;
+    }
+
+    public Long getBetragVonCent() {
+        return betragVonCent;
+    }
+
+    public Long getBetragBisCent() {
+        return betragBisCent;
+    }
+
+    // Gibt an, ob ein Textfilter gesetzt ist.
+    public boolean hatTextfilter() {
+        return filterSpalte != null && filterText != null && !filterText.trim().isEmpty();
+    }
+
+    /*
+     * Gibt an, ob die Abfrage nur einen Teil der Einträge liefert (Textfilter, Zeitraum, Betragsbereich, Kategorien oder Typ).
+     * Die ID-Obergrenze zählt nicht dazu.
+     */
+    public boolean hatFilter() {
+        return hatTextfilter() || datumVon != null || datumBis != null || betragVonCent != null || betragBisCent != null
+                || kategorien != null || typ != null;
+    }
+
+    public EintragAbfrage mitSortierung(EintragSpalte spalte, boolean absteigend) {
+        return new EintragAbfrage(spalte, absteigend, filterSpalte, filterText, obergrenzeId, datumVon, datumBis, kategorien,
+                typ, betragVonCent, betragBisCent);
+    }
+
+    public EintragAbfrage mitFilter(EintragSpalte spalte, String text) {
+        return new EintragAbfrage(sortierSpalte, absteigend, spalte, text, obergrenzeId, datumVon, datumBis, kategorien,
+                typ, betragVonCent, betragBisCent);
+    }
+
+    public EintragAbfrage mitObergrenzeId(Integer id) {
+        return new EintragAbfrage(sortierSpalte, absteigend, filterSpalte, filterText, id, datumVon, datumBis, kategorien,
+                typ, betragVonCent, betragBisCent);
+    }
+
+    public EintragAbfrage mitZeitraum(LocalDate von, LocalDate bis) {
+        return new EintragAbfrage(sortierSpalte, absteigend, filterSpalte, filterText, obergrenzeId, von, bis, kategorien,
+                typ, betragVonCent, betragBisCent);
+    }
+
+    // Schränkt auf eine Kategorie ein; null hebt die Einschränkung auf.
+    public EintragAbfrage mitKategorie(String name) {
+        return mitKategorien(name == null ? null : Collections.singleton(name));
+    }
+
+    // Schränkt auf mehrere Kategorien ein; null hebt die Einschränkung auf, eine leere Menge liefert keine Einträge.
+    public EintragAbfrage mitKategorien(Collection<String> namen) {
+        Set<String> menge = namen == null ? null : Collections.unmodifiableSet(new LinkedHashSet<>(namen));
+        return new EintragAbfrage(sortierSpalte, absteigend, filterSpalte, filterText, obergrenzeId, datumVon, datumBis, menge,
+                typ, betragVonCent, betragBisCent);
+    }
+
+    // Schränkt auf "Einnahme" oder "Ausgabe" ein; null liefert beide.
+    public EintragAbfrage mitTyp(String typ) {
+        return new EintragAbfrage(sortierSpalte, absteigend, filterSpalte, filterText, obergrenzeId, datumVon, datumBis, kategorien,
+                typ, betragVonCent, betragBisCent);
+    }
+
+    public EintragAbfrage mitBetragsbereich(Long vonCent, Long bisCent) {
+        return new EintragAbfrage(sortierSpalte, absteigend, filterSpalte, filterText, obergrenzeId, datumVon, datumBis, kategorien,
+                typ, vonCent, bisCent);
+    }
+
+    // Zwei Abfragen sind gleich, wenn sie dieselben Einträge in derselben Reihenfolge liefern.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof EintragAbfrage)) {
+            return false;
+        }
+        EintragAbfrage andere = (EintragAbfrage) o;
+        return sortierSpalte == andere.sortierSpalte && absteigend == andere.absteigend
+                && hatTextfilter() == andere.hatTextfilter()
+                && (!hatTextfilter() || (filterSpalte == andere.filterSpalte && filterText.trim().equals(andere.filterText.trim())))
+                && Objects.equals(obergrenzeId, andere.obergrenzeId)
+                && Objects.equals(datumVon, andere.datumVon) && Objects.equals(datumBis, andere.datumBis)
+                && Objects.equals(kategorien, andere.kategorien) && Objects.equals(typ, andere.typ)
+                && Objects.equals(betragVonCent, andere.betragVonCent) && Objects.equals(betragBisCent, andere.betragBisCent);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sortierSpalte, absteigend, hatTextfilter() ? filterSpalte : null,
+                hatTextfilter() ? filterText.trim() : null, obergrenzeId, datumVon, datumBis, kategorien, typ, betragVonCent, betragBisCent);
+    }
+}
@@ -0,0 +1,251 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+import java.util.function.IntConsumer;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Die Klasse "EintragExport" schreibt die Einträge einer Abfrage als CSV oder JSON Lines in eine Datei.
+ *
+ * Die Einträge kommen einzeln aus einem gestreamten ResultSet (DatenbankManager.alleEintraegeStreamen) und werden
+ * sofort über einen gepufferten FileChannel geschrieben, auf Wunsch gzip-komprimiert. Jede Zeile wird in einem
+ * wiederverwendeten StringBuilder aufgebaut; der Speicherbedarf bleibt damit unabhängig von der Anzahl der Einträge.
+ *
+ * Das CSV-Format entspricht der Tabelle im Hauptfenster (Semikolon, deutsches Datums- und Zahlenformat);
+ * JSON Lines enthält pro Zeile ein Objekt mit ISO-Datum und dem Betrag als Zahl mit Punkt.
+ */
+public class EintragExport {
+
+    public enum Format {
+        CSV, JSON_LINES
+    }
+
+    private static final int PUFFER_GROESSE = 1 << 16;
+
+    private final DatenbankManager dbManager;
+
+    public EintragExport(DatenbankManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    /*
+     * Bestimmt das Format aus dem Dateinamen: ".jsonl" bzw. ".json" ergibt JSON Lines, alles andere CSV.
+     * Eine zusätzliche Endung ".gz" wird dabei ignoriert.
+     */
+    public static Format formatFuer(Path datei) {
+        String name = datei.getFileName().toString().toLowerCase();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        return name.endsWith(".jsonl") || name.endsWith(".json") ? Format.JSON_LINES : Format.CSV;
+    }
+
+    /*
+     * Exportiert alle Einträge der Abfrage (Filter, Zeitraum, Kategorie und Sortierung werden übernommen).
+     *
+     * @param fortschritt erhält den Fortschritt in Prozent (nach exportierten Einträgen)
+     * @param abbrechen   wird vor jedem Eintrag geprüft; liefert er "true", wird der Export beendet
+     * @throws IOException wenn die Datei nicht geschrieben oder die Datenbank nicht gelesen werden kann
+     */
+    public Ergebnis exportieren(EintragAbfrage abfrage, Path ziel, Format format, boolean gzip,
+                                IntConsumer fortschritt, BooleanSupplier abbrechen) throws IOException {
+        long start = System.nanoTime();
+        long gesamt = Math.max(1, dbManager.getSummen(abfrage).getAnzahl());
+        long[] anzahl = {0};
+        StringBuilder zeile = new StringBuilder(256);
+
+        try (Messung messung = dbManager.getMesswerte().messen("export");
+             FileChannel kanal = FileChannel.open(ziel, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream ausgabe = Channels.newOutputStream(kanal);
+            if (gzip) {
+                ausgabe = new GZIPOutputStream(ausgabe, PUFFER_GROESSE);
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(ausgabe, StandardCharsets.UTF_8), PUFFER_GROESSE)) {
+                if (format == Format.CSV) {
+                    writer.write("ID;Datum;Bezeichnung;Kategorie;Typ;Betrag;Info\n");
+                }
+                dbManager.alleEintraegeStreamen(abfrage, eintrag -> {
+                    if (abbrechen.getAsBoolean()) {
+                        return false;
+                    }
+                    zeile.setLength(0);
+                    if (format == Format.CSV) {
+                        csvZeile(zeile, eintrag);
+                    } else {
+                        jsonZeile(zeile, eintrag);
+                    }
+                    try {
+                        writer.append(zeile);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    if (++anzahl[0] % 10_000 == 0) {
+                        fortschritt.accept((int) Math.min(99, anzahl[0] * 100 / gesamt));
+                    }
+                    return true;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } catch (SQLException e) {
+                throw new IOException("Fehler beim Lesen der Einträge: " + e.getMessage(), e);
+            }
+            messung.zeilen(anzahl[0]).erfolg();
+        }
+        fortschritt.accept(100);
+        return new Ergebnis(anzahl[0], Files.size(ziel), (System.nanoTime() - start) / 1_000_000, abbrechen.getAsBoolean());
+    }
+
+    private static void csvZeile(StringBuilder zeile, Eintrag eintrag) {
+        LocalDate datum = eintrag.getDatum();
+        zeile.append(eintrag.getId()).append(';');
+        zweistellig(zeile, datum.getDayOfMonth()).append('.');
+        zweistellig(zeile, datum.getMonthValue()).append('.').append(datum.getYear()).append(';');
+        csvFeld(zeile, eintrag.getBezeichnung()).append(';');
+        csvFeld(zeile, eintrag.getKategorie().getName()).append(';');
+        zeile.append(eintrag.getTyp()).append(';');
+        Geld.anhaengen(zeile, eintrag.getBetragCent());
+        zeile.append(';');
+        csvFeld(zeile, eintrag.getInfo()).append('\n');
+    }
+
+    // Setzt ein Feld in Anführungszeichen, wenn es Trennzeichen, Anführungszeichen oder Zeilenumbrüche enthält.
+    private static StringBuilder csvFeld(StringBuilder zeile, String text) {
+        if (text == null) {
+            return zeile;
+        }
+        boolean maskieren = false;
+        for (int i = 0; i < text.length() && !maskieren; i++) {
+            char c = text.charAt(i);
+            maskieren = c == ';' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!maskieren) {
+            return zeile.append(text);
+        }
+        zeile.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                zeile.append('"');
+            }
+            zeile.append(c);
+        }
+        return zeile.append('"');
+    }
+
+    private static void jsonZeile(StringBuilder zeile, Eintrag eintrag) {
+        LocalDate datum = eintrag.getDatum();
+        zeile.append("{\"id\":").append(eintrag.getId());
+        zeile.append(",\"datum\":\"").append(datum.getYear()).append('-');
+        zweistellig(zeile, datum.getMonthValue()).append('-');
+        zweistellig(zeile, datum.getDayOfMonth()).append('"');
+        zeile.append(",\"bezeichnung\":");
+        jsonText(zeile, eintrag.getBezeichnung());
+        zeile.append(",\"kategorie\":");
+        jsonText(zeile, eintrag.getKategorie().getName());
+        zeile.append(",\"typ\":");
+        jsonText(zeile, eintrag.getTyp());
+        zeile.append(",\"betrag\":");
+        Geld.anhaengen(zeile, eintrag.getBetragCent(), '.');
+        zeile.append(",\"info\":");
+        jsonText(zeile, eintrag.getInfo());
+        zeile.append("}\n");
+    }
+
+    private static void jsonText(StringBuilder zeile, String text) {
+        if (text == null) {
+            zeile.append("null");
+            return;
+        }
+        zeile.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':
+                    zeile.append("\\\"");
+                    break;
+                case '\\':
+                    zeile.append("\\\\");
+                    break;
+                case '\n':
+                    zeile.append("\\n");
+                    break;
+                case '\r':
+                    zeile.append("\\r");
+                    break;
+                case '\t':
+                    zeile.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        zeile.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        zeile.append(c);
+                    }
+            }
+        }
+        zeile.append('"');
+    }
+
+    private static StringBuilder zweistellig(StringBuilder zeile, int wert) {
+        if (wert < 10) {
+            zeile.append('0');
+        }
+        return zeile.append(wert);
+    }
+
+    // Ergebnis eines Exports mit Anzahl, Dateigröße und Durchsatz.
+    public static final class Ergebnis {
+
+        private final long anzahl;
+        private final long bytes;
+        private final long dauerMillis;
+        private final boolean abgebrochen;
+
+        private Ergebnis(long anzahl, long bytes, long dauerMillis, boolean abgebrochen) {
+            this.anzahl = anzahl;
+            this.bytes = bytes;
+            this.dauerMillis = dauerMillis;
+            this.abgebrochen = abgebrochen;
+        }
+
+        public long getAnzahl() {
+            return anzahl;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getDauerMillis() {
+            return dauerMillis;
+        }
+
+        public boolean isAbgebrochen() {
+            return abgebrochen;
+        }
+
+        // Exportierte Einträge pro Sekunde.
+        public long getEintraegeProSekunde() {
+            return anzahl * 1000 / Math.max(1, dauerMillis);
+        }
+
+        @Override
+        public String toString() {
+            return anzahl + " Einträge exportiert" + (abgebrochen ? " (abgebrochen)" : "") + ", "
+                    + bytes / 1024 + " KiB in " + dauerMillis + " ms (" + getEintraegeProSekunde() + " Einträge/s)";
+        }
+    }
+}
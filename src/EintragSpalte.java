@@ -0,0 +1,154 @@
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+
+/*
+ * Die Spalten der Eintragstabelle.
+ * Jede Spalte kennt ihre Überschrift, den SQL-Ausdruck, nach dem in der Datenbank sortiert wird,
+ * und den SQL-Ausdruck, auf den ein Textfilter angewendet wird.
+ * Das EintragTableModel liefert die Werte typisiert (Integer, Long in Cent, LocalDate, String); erst Renderer und
+ * Editor wandeln sie mit "formatieren" und "parsen" in Text um.
+ * Die Ausdrücke verwenden nur Funktionen, die MySQL und H2 gleichermaßen kennen (kein CAST AS CHAR, kein DATE_FORMAT).
+ */
+public enum EintragSpalte {
+
+    ID("ID", "id", "CONCAT('', id)"),
+    BEZEICHNUNG("Bezeichnung", "bezeichnung", "bezeichnung"),
+    EINNAHMEN("Einnahmen",
+            "CASE WHEN typ = " + DatenbankManager.TYP_EINNAHME + " THEN betrag ELSE -betrag END",
+            "CASE WHEN typ = " + DatenbankManager.TYP_EINNAHME + " THEN CONCAT('', betrag) END"),
+    AUSGABEN("Ausgaben",
+            "CASE WHEN typ = " + DatenbankManager.TYP_AUSGABE + " THEN betrag ELSE -betrag END",
+            "CASE WHEN typ = " + DatenbankManager.TYP_AUSGABE + " THEN CONCAT('', betrag) END"),
+    DATUM("Datum", "datum", "CONCAT(LPAD(DAY(datum), 2, '0'), '.', LPAD(MONTH(datum), 2, '0'), '.', YEAR(datum))"),
+    INFO("Info", "COALESCE(info, '')", "info");
+
+    // Datumsformat der Tabelle; DateTimeFormatter ist unveränderlich und wird von allen Zellen geteilt.
+    public static final DateTimeFormatter DATUM_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+    private final String ueberschrift;
+    private final String sortierAusdruck;
+    private final String filterAusdruck;
+
+    EintragSpalte(String ueberschrift, String sortierAusdruck, String filterAusdruck) {
+        this.ueberschrift = ueberschrift;
+        this.sortierAusdruck = sortierAusdruck;
+        this.filterAusdruck = filterAusdruck;
+    }
+
+    public String getUeberschrift() {
+        return ueberschrift;
+    }
+
+    public String getSortierAusdruck() {
+        return sortierAusdruck;
+    }
+
+    public String getFilterAusdruck() {
+        return filterAusdruck;
+    }
+
+    // Typ der Werte, die das EintragTableModel in dieser Spalte liefert.
+    public Class<?> getTyp() {
+        switch (this) {
+            case ID:
+                return Integer.class;
+            case EINNAHMEN:
+            case AUSGABEN:
+                return Long.class;
+            case DATUM:
+                return LocalDate.class;
+            default:
+                return String.class;
+        }
+    }
+
+    // Text, mit dem ein Wert dieser Spalte angezeigt und zum Bearbeiten vorbelegt wird; "null" ergibt "".
+    public String formatieren(Object wert) {
+        if (wert == null) {
+            return "";
+        }
+        switch (this) {
+            case EINNAHMEN:
+            case AUSGABEN:
+                return Geld.formatieren((Long) wert);
+            case DATUM:
+                return DATUM_FORMAT.format((LocalDate) wert);
+            default:
+                return wert.toString();
+        }
+    }
+
+    /*
+     * Wandelt einen bearbeiteten Text in einen Wert dieser Spalte um. Ein leerer Betrag ergibt "null" (Betrag bleibt
+     * unverändert), sonst wie beim Speichern den Betrag ohne Vorzeichen.
+     * Wirft bei ungültiger Eingabe eine IllegalArgumentException (auch NumberFormatException), ArithmeticException
+     * oder DateTimeParseException; dazu zählen auch Werte, die die Spalte in der Datenbank nicht fasst.
+     */
+    public Object parsen(String text) {
+        switch (this) {
+            case ID:
+                return Integer.valueOf(text.trim());
+            case EINNAHMEN:
+            case AUSGABEN:
+                if (text.trim().isEmpty()) {
+                    return null;
+                }
+                long betrag = Math.abs(Geld.parsen(text.trim()));
+                if (betrag > DatenbankManager.MAX_BETRAG_CENT) {
+                    throw new IllegalArgumentException("Betrag zu groß: " + text);
+                }
+                return betrag;
+            case DATUM:
+                return LocalDate.parse(text.trim(), DATUM_FORMAT);
+            case BEZEICHNUNG:
+                if (text.length() > DatenbankManager.MAX_TEXT_LAENGE) {
+                    throw new IllegalArgumentException("Bezeichnung zu lang");
+                }
+                return text;
+            default:
+                if (text.getBytes(StandardCharsets.UTF_8).length > DatenbankManager.MAX_INFO_BYTES) {
+                    throw new IllegalArgumentException("Info zu lang");
+                }
+                return text;
+        }
+    }
+
+    /*
+     * Liefert den Sortierwert eines Eintrags, passend zum SQL-Sortierausdruck dieser Spalte.
+     * Der Wert des letzten Eintrags einer Seite dient als Schlüssel für die Abfrage der nächsten Seite.
+     */
+    public Object sortierWert(Eintrag eintrag) {
+        switch (this) {
+            case ID:
+                return eintrag.getId();
+            case BEZEICHNUNG:
+                return eintrag.getBezeichnung();
+            case EINNAHMEN:
+                return vorzeichenBetrag(eintrag, "Einnahme");
+            case AUSGABEN:
+                return vorzeichenBetrag(eintrag, "Ausgabe");
+            case DATUM:
+                return Date.valueOf(eintrag.getDatum());
+            default:
+                return eintrag.getInfo() == null ? "" : eintrag.getInfo();
+        }
+    }
+
+    private static BigDecimal vorzeichenBetrag(Eintrag eintrag, String typ) {
+        BigDecimal betrag = Geld.zuBigDecimal(eintrag.getBetragCent());
+        return eintrag.getTyp().equals(typ) ? betrag : betrag.negate();
+    }
+
+    // Gibt die Überschriften aller Spalten in Tabellenreihenfolge zurück.
+    public static String[] ueberschriften() {
+        EintragSpalte[] spalten = values();
+        String[] ueberschriften = new String[spalten.length];
+        for (int i = 0; i < spalten.length; i++) {
+            ueberschriften[i] = spalten[i].ueberschrift;
+        }
+        return ueberschriften;
+    }
+}
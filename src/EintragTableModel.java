@@ -0,0 +1,1080 @@
+import javax.swing.SwingWorker;
+import javax.swing.table.AbstractTableModel;
+import java.beans.PropertyChangeListener;
+import java.beans.PropertyChangeSupport;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/*
+ * Das EintragTableModel stellt die Einträge für die JTable bereit, ohne die ganze Tabelle in den Speicher zu laden.
+ * Es kennt nur die Anzahl der Zeilen und lädt Seiten fester Größe aus der Datenbank, sobald die Tabelle
+ * (z.B. beim Scrollen) auf eine Zeile zugreift. Die zuletzt benutzten Seiten werden in einem begrenzten
+ * LRU-Cache gehalten; Sortierung und Filter werden als Teil der Abfrage in der Datenbank ausgeführt.
+ *
+ * Jede Seite hält ihre Zeilen spaltenweise in primitiven Arrays (IDs, Beträge in Cent, Datum als Tag seit 1970 usw.).
+ * Das Modell liefert die Werte typisiert und unformatiert; formatiert wird erst beim Zeichnen der sichtbaren Zellen
+ * (siehe EintragSpalte.formatieren), und bearbeitete Werte kommen bereits geparst zurück.
+ *
+ * Alle Datenbankzugriffe laufen in SwingWorkern außerhalb des Event Dispatch Threads. Solange eine Seite
+ * noch nicht geladen ist, liefert das Modell für ihre Zellen "null"; die Zeilen werden blockweise
+ * nachgereicht, sobald sie aus dem ResultSet gelesen wurden.
+ *
+ * Neu gespeicherte Einträge werden nicht durch Neuladen, sondern als angehängte Zeilen hinter den Zeilen aus
+ * der Datenbank angezeigt. Damit sie nicht doppelt erscheinen, liest das Modell beim Neuladen nur Einträge bis
+ * zur damals höchsten ID. Gelöschte Einträge werden ebenso gezielt aus dem Modell entfernt.
+ *
+ * Änderungen anderer Anwendungen (und die eigenen, sobald sie in der Datenbank sind) holt "aktualisieren": Es liest
+ * nur die Änderungen seit dem Änderungsstand beim letzten Laden (siehe DatenbankManager.getAenderungenSeit), ersetzt
+ * geänderte geladene Zeilen an ihrer Stelle, hängt neue Einträge an und entfernt gelöschte. Position und Filter
+ * geänderter Zeilen werden dabei wie bei eigenen Änderungen erst beim nächsten Neuladen angepasst. Anzahl und Summen
+ * kommen danach aus der Datenbank; passt die Anzahl nicht mehr zu den Zeilen im Modell (z.B. weil ein nicht geladener
+ * Eintrag gelöscht wurde oder geänderte Einträge jetzt zum Filter passen), wird neu geladen.
+ *
+ * Beim Start kann eine Momentaufnahme der ersten Seiten angezeigt werden, bevor die Datenbank bereit ist. Das
+ * erste Neuladen wendet dann nur die Änderungen seit ihrem Änderungsstand an, statt alle Seiten neu zu lesen.
+ */
+public class EintragTableModel extends AbstractTableModel {
+
+    // Anzahl der Zeilen, die mit einer Abfrage geladen werden.
+    public static final int SEITEN_GROESSE = 200;
+
+    // Maximale Anzahl an Seiten, die gleichzeitig im Speicher gehalten werden.
+    public static final int MAX_SEITEN = 50;
+
+    // Anzahl der Seiten, die nach dem Neuladen vorab im Hintergrund gelesen werden.
+    public static final int VORLADE_SEITEN = MAX_SEITEN / 2;
+
+    // Anzahl der Seiten, die beim Scrollen zusätzlich zur angeforderten Seite gelesen werden.
+    private static final int VORAUS_SEITEN = 1;
+
+    // Anzahl der Zeilen, die in einer Momentaufnahme gespeichert werden (so viele, wie nach dem Neuladen vorgeladen werden).
+    public static final int MOMENTAUFNAHME_ZEILEN = VORLADE_SEITEN * SEITEN_GROESSE;
+
+    // Höchstzahl an Änderungen, die beim Aktualisieren einzeln angewendet werden; bei mehr wird neu geladen.
+    private static final int MAX_NACHZULESEN = MOMENTAUFNAHME_ZEILEN;
+
+    /*
+     * Name der Eigenschaft, über die der Ladefortschritt gemeldet wird.
+     * Werte von 0 bis 100 geben den Fortschritt an, -1 bedeutet, dass gerade nicht geladen wird.
+     */
+    public static final String LADEFORTSCHRITT = "ladefortschritt";
+
+    // Name der Eigenschaft, die nach jeder Änderung der Summen gemeldet wird.
+    public static final String SUMMEN = "summen";
+
+    // Name der Eigenschaft, die gemeldet wird, wenn beim Aktualisieren geänderte Kategorien gefunden wurden.
+    public static final String KATEGORIEN = "kategorien";
+
+    private static final EintragSpalte[] SPALTEN = EintragSpalte.values();
+
+    private final DatenbankManager dbManager;
+
+    // Noch nicht gespeicherte Änderungen, die beim Laden einer Seite anstelle des Datenbankstands angezeigt werden.
+    private volatile Schreibpuffer schreibpuffer;
+
+    private final PropertyChangeSupport aenderungen = new PropertyChangeSupport(this);
+
+    // Aktuelle Abfrage mit Sortierung und Filter.
+    private EintragAbfrage abfrage = new EintragAbfrage();
+
+    /*
+     * Abfrage, mit der die Seiten gelesen werden: die aktuelle Abfrage, begrenzt auf die beim Neuladen höchste ID.
+     * Ist "null", solange das Neuladen noch nicht abgeschlossen ist; bis dahin werden keine Seiten angefordert.
+     */
+    private EintragAbfrage ladeAbfrage;
+
+    // Anzahl der Zeilen aus der Datenbank, die zur aktuellen Abfrage passen (ohne angehängte Zeilen).
+    private int zeilenAnzahl;
+
+    // Seit dem Neuladen gespeicherte Einträge, die hinter den Zeilen aus der Datenbank angezeigt werden.
+    private Seite angehaengt = new Seite(16);
+    private int angehaengtAnzahl;
+
+    /*
+     * Summen aller Einträge und der Einträge, die zur aktuellen Abfrage passen.
+     * Beide werden beim Neuladen von der Datenbank übernommen und danach bei jeder Änderung einer
+     * Zeile angepasst, ohne die übrigen Zeilen erneut zu durchlaufen.
+     */
+    private final SummenAggregator gesamt = new SummenAggregator();
+    private final SummenAggregator gefiltert = new SummenAggregator();
+
+    // Gibt an, ob die Gesamtsummen beim nächsten Neuladen aus der Datenbank gelesen werden müssen.
+    private boolean gesamtVeraltet = true;
+
+    /*
+     * Änderungsstand der Datenbank, bis zu dem alle Änderungen im Modell enthalten sind (siehe Aenderungsnummern),
+     * oder -1, solange das Neuladen noch nicht abgeschlossen ist.
+     */
+    private long stand = -1;
+
+    // Laufende Aktualisierung; es läuft höchstens eine.
+    private Aktualisierung aktualisierung;
+
+    /*
+     * Wird bei jedem Neuladen erhöht. Ergebnisse von Hintergrundaufgaben, die noch für eine ältere
+     * Abfrage gestartet wurden, werden daran erkannt und verworfen.
+     */
+    private int generation;
+
+    // Geladene Seiten in Zugriffsreihenfolge; die am längsten nicht benutzte Seite wird zuerst verdrängt.
+    private final Map<Integer, Seite> seiten = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Seite> eldest) {
+            return size() > MAX_SEITEN;
+        }
+    };
+
+    /*
+     * Letzter Eintrag jeder bereits geladenen Seite.
+     * Dient als Keyset-Schlüssel für die Folgeseite und bleibt auch erhalten, wenn die Seite selbst verdrängt wurde.
+     */
+    private final Map<Integer, Eintrag> seitenEnden = new HashMap<>();
+
+    // Seiten, für die bereits ein SeitenLader unterwegs ist.
+    private final Set<Integer> angefordert = new HashSet<>();
+
+    // Laufende Hintergrundaufgaben, damit sie beim Neuladen oder auf Wunsch des Benutzers abgebrochen werden können.
+    private final List<SwingWorker<?, ?>> laufend = new ArrayList<>();
+
+    // Lader, dessen Fortschritt angezeigt wird (das Vorladen nach einem Neuladen).
+    private SeitenLader vorlader;
+
+    // Angezeigte, aber noch nicht an der Datenbank geprüfte Momentaufnahme; bis dahin ist nichts bearbeitbar.
+    private Momentaufnahme momentaufnahme;
+
+    public EintragTableModel(DatenbankManager dbManager) {
+        this.dbManager = dbManager;
+    }
+
+    public void setSchreibpuffer(Schreibpuffer schreibpuffer) {
+        this.schreibpuffer = schreibpuffer;
+    }
+
+    public EintragAbfrage getAbfrage() {
+        return abfrage;
+    }
+
+    /*
+     * Setzt eine neue Abfrage (z.B. geänderte Sortierung oder Filter) und lädt die Tabelle neu.
+     * Ist die Abfrage unverändert (z.B. ein Leerzeichen am Ende des Filtertexts), bleibt die Tabelle, wie sie ist.
+     */
+    public void setAbfrage(EintragAbfrage abfrage) {
+        if (abfrage.equals(this.abfrage)) {
+            return;
+        }
+        this.abfrage = abfrage;
+        neuLaden();
+    }
+
+    public SummenAggregator getGesamt() {
+        return gesamt;
+    }
+
+    public SummenAggregator getGefiltert() {
+        return gefiltert;
+    }
+
+    /*
+     * Markiert die Gesamtsummen als veraltet, z.B. nachdem Einträge gelöscht wurden, deren Beträge nicht
+     * bekannt sind. Sie werden beim nächsten Neuladen in der Datenbank neu berechnet.
+     */
+    public void gesamtNeuBerechnen() {
+        gesamtVeraltet = true;
+    }
+
+    /*
+     * Zeigt einen neu gespeicherten Eintrag (mit der von der Datenbank vergebenen ID) als letzte Zeile an
+     * und passt die Summen an. Die übrigen Zeilen werden weder neu gelesen noch neu gezeichnet.
+     * Ist ein Filter gesetzt, lässt sich nur in der Datenbank entscheiden, ob der Eintrag dazu passt;
+     * dann werden nur die Zeilenanzahl und die gefilterten Summen neu ermittelt.
+     */
+    public void eintragAngehaengt(Eintrag eintrag) {
+        // Schon von "aktualisieren" angehängt oder beim Neuladen aus der Datenbank gelesen.
+        if (angehaengtIndex(eintrag.getId()) >= 0 || (ladeAbfrage != null && eintrag.getId() <= ladeAbfrage.getObergrenzeId())) {
+            return;
+        }
+        boolean einnahme = eintrag.getTyp().equals("Einnahme");
+        gesamt.hinzufuegen(einnahme, eintrag.getBetragCent());
+        if (abfrage.hatFilter()) {
+            neuLaden();
+            return;
+        }
+        anhaengen(eintrag, eintrag);
+        gefiltert.hinzufuegen(einnahme, eintrag.getBetragCent());
+
+        int row = getRowCount() - 1;
+        fireTableRowsInserted(row, row);
+        summenMelden();
+    }
+
+    // Hängt eine Zeile an (ohne Summen und Benachrichtigung); "angezeigt" ist der anzuzeigende Stand von "eintrag".
+    private void anhaengen(Eintrag eintrag, Eintrag angezeigt) {
+        if (angehaengtAnzahl == angehaengt.groesse()) {
+            angehaengt = angehaengt.kopie(angehaengtAnzahl * 2);
+        }
+        angehaengt.setzen(angehaengtAnzahl, angezeigt, eintrag.getAenderung());
+        angehaengtAnzahl++;
+    }
+
+    // Position eines angehängten Eintrags, oder -1.
+    private int angehaengtIndex(int id) {
+        for (int i = 0; i < angehaengtAnzahl; i++) {
+            if (angehaengt.id[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Zeigt die Zeilen einer Momentaufnahme an, solange noch nichts aus der Datenbank geladen ist und die
+     * Standardabfrage gilt. Gibt "true" zurück, wenn sie übernommen wurde; geprüft wird sie beim nächsten Neuladen.
+     */
+    public boolean vorabAnzeigen(Momentaufnahme aufnahme) {
+        if (!abfrage.equals(new EintragAbfrage()) || ladeAbfrage != null || !seiten.isEmpty() || angehaengtAnzahl > 0) {
+            return false;
+        }
+        int n = aufnahme.getZeilen();
+        for (int start = 0; start < n; start += SEITEN_GROESSE) {
+            int groesse = Math.min(SEITEN_GROESSE, n - start);
+            Seite seite = new Seite(groesse);
+            Eintrag eintrag = null;
+            for (int i = 0; i < groesse; i++) {
+                eintrag = aufnahme.eintrag(start + i);
+                seite.setzen(i, eintrag, eintrag.getAenderung());
+            }
+            seiten.put(start / SEITEN_GROESSE, seite);
+            // Wie beim SeitenLader hat nur eine volle Seite ein Ende, hinter dem per Keyset weitergelesen wird.
+            if (groesse == SEITEN_GROESSE) {
+                seitenEnden.put(start / SEITEN_GROESSE, eintrag);
+            }
+        }
+        zeilenAnzahl = aufnahme.getSummen().getAnzahl();
+        gefiltert.setzen(aufnahme.getSummen());
+        gesamt.setzen(aufnahme.getSummen());
+        momentaufnahme = aufnahme;
+        fireTableDataChanged();
+        summenMelden();
+        return true;
+    }
+
+    /*
+     * Liefert Anzahl und Summen der angegebenen Zeilen, soweit sie geladen sind.
+     * Wird vor dem Löschen ausgewählter Zeilen aufgerufen, um danach die Summen anpassen zu können.
+     */
+    public SummenAggregator summeDerZeilen(int[] rows) {
+        SummenAggregator summe = new SummenAggregator();
+        for (int row : rows) {
+            Seite seite = seiteDerZeile(row);
+            if (seite != null) {
+                int index = zeilenIndex(row);
+                summe.hinzufuegen(seite.einnahme[index], seite.cent[index]);
+            }
+        }
+        return summe;
+    }
+
+    /*
+     * Entfernt gelöschte Einträge aus dem Modell, ohne die Tabelle neu zu laden.
+     * "entfernt" enthält Anzahl und Summen der gelöschten Einträge und wird von den Summen abgezogen.
+     *
+     * Geladene Zeilen werden direkt entfernt. Seiten ab der ersten betroffenen Seite werden verworfen, weil
+     * sich die Positionen der folgenden Zeilen verschieben; sie werden beim nächsten Zugriff per Keyset hinter
+     * der letzten unveränderten Seite neu gelesen. Liegt ein gelöschter Eintrag in einer nicht geladenen Seite
+     * und ist ein Filter gesetzt, ist unbekannt, ob er überhaupt angezeigt wurde; dann wird neu gezählt.
+     */
+    public void eintraegeEntfernt(int[] ids, SummenAggregator entfernt) {
+        if (ids.length == 0) {
+            return;
+        }
+        if (momentaufnahme != null) {
+            // Die Momentaufnahme ließe sich danach nicht mehr an den Summen der Datenbank prüfen.
+            momentaufnahme = null;
+            neuLaden();
+            return;
+        }
+        gesamt.entfernen(entfernt);
+        Set<Integer> offen = new HashSet<>();
+        for (int id : ids) {
+            offen.add(id);
+        }
+
+        // Angehängte Zeilen entfernen; ihre alten Zeilennummern werden absteigend gemeldet.
+        List<Integer> entfernteZeilen = new ArrayList<>();
+        int behalten = 0;
+        for (int i = 0; i < angehaengtAnzahl; i++) {
+            if (offen.remove(angehaengt.id[i])) {
+                entfernteZeilen.add(0, zeilenAnzahl + i);
+                continue;
+            }
+            angehaengt.verschieben(i, behalten);
+            behalten++;
+        }
+        angehaengt.leeren(behalten, angehaengtAnzahl);
+        angehaengtAnzahl = behalten;
+        for (int row : entfernteZeilen) {
+            fireTableRowsDeleted(row, row);
+        }
+
+        // Geladene Zeilen aus der Datenbank suchen.
+        List<Integer> gefunden = new ArrayList<>();
+        for (Map.Entry<Integer, Seite> eintrag : seiten.entrySet()) {
+            int[] seitenIds = eintrag.getValue().id;
+            for (int i = 0; i < seitenIds.length && !offen.isEmpty(); i++) {
+                if (offen.remove(seitenIds[i])) {
+                    gefunden.add(eintrag.getKey() * SEITEN_GROESSE + i);
+                }
+            }
+        }
+        if (!offen.isEmpty() && (abfrage.hatFilter() || ladeAbfrage == null)) {
+            neuLaden();
+            return;
+        }
+        gefiltert.entfernen(entfernt);
+
+        // Ab der ersten betroffenen Seite verwerfen; nicht gefundene Einträge liegen in einer noch nicht geladenen Seite.
+        int seitenAnzahl = (zeilenAnzahl + SEITEN_GROESSE - 1) / SEITEN_GROESSE;
+        int ersteVerworfene = seitenAnzahl;
+        for (int row : gefunden) {
+            ersteVerworfene = Math.min(ersteVerworfene, row / SEITEN_GROESSE);
+        }
+        if (!offen.isEmpty()) {
+            int seite = 0;
+            while (seite < ersteVerworfene && seiten.containsKey(seite)) {
+                seite++;
+            }
+            ersteVerworfene = seite;
+        }
+        if (ersteVerworfene < seitenAnzahl) {
+            // Laufende Lader rechnen noch mit den alten Positionen.
+            abbrechen();
+            generation++;
+            int grenze = ersteVerworfene;
+            seiten.keySet().removeIf(seite -> seite >= grenze);
+            seitenEnden.keySet().removeIf(seite -> seite >= grenze);
+        }
+
+        int alteAnzahl = zeilenAnzahl;
+        zeilenAnzahl -= gefunden.size() + offen.size();
+        gefunden.sort(null);
+        for (int i = gefunden.size() - 1; i >= 0; i--) {
+            int row = gefunden.get(i);
+            fireTableRowsDeleted(row, row);
+        }
+        if (!offen.isEmpty()) {
+            fireTableRowsDeleted(zeilenAnzahl, alteAnzahl - gefunden.size() - 1);
+        }
+        int ersteZeile = ersteVerworfene * SEITEN_GROESSE;
+        if (ersteZeile < zeilenAnzahl) {
+            fireTableRowsUpdated(ersteZeile, zeilenAnzahl - 1);
+        }
+        summenMelden();
+    }
+
+    /*
+     * Verwirft alle geladenen Seiten und ermittelt die Zeilenanzahl und Summen im Hintergrund neu.
+     * Anschließend werden die ersten Seiten vorgeladen; weitere Seiten folgen, wenn die Tabelle sie anzeigt.
+     */
+    public void neuLaden() {
+        abbrechen();
+        generation++;
+        stand = -1;
+        if (momentaufnahme != null && abfrage.equals(new EintragAbfrage())) {
+            // Die Zeilen der Momentaufnahme bleiben stehen, bis die Änderungen seit ihrem Stand angewendet sind.
+            aktualisierung = new Aktualisierung(generation, momentaufnahme.getStand(),
+                    abfrage.mitObergrenzeId(momentaufnahme.getObergrenzeId()), momentaufnahme);
+            starten(aktualisierung);
+            fortschrittMelden(0);
+            return;
+        }
+        momentaufnahme = null;
+        seiten.clear();
+        seitenEnden.clear();
+        angefordert.clear();
+        ladeAbfrage = null;
+
+        int meineGeneration = generation;
+        EintragAbfrage meineAbfrage = abfrage;
+        boolean gesamtLesen = gesamtVeraltet && meineAbfrage.hatFilter();
+        SwingWorker<SummenAggregator[], Void> zaehler = new SwingWorker<>() {
+
+            private EintragAbfrage begrenzt;
+            private long meinStand;
+
+            @Override
+            protected SummenAggregator[] doInBackground() throws Exception {
+                // Vor dem Zählen: Was danach geändert wird, holt "aktualisieren" nach.
+                meinStand = dbManager.getAenderungsstand();
+                // Spätere Einträge werden als angehängte Zeilen angezeigt, nicht aus der Datenbank gelesen.
+                int obergrenze = dbManager.getMaxId();
+                begrenzt = meineAbfrage.mitObergrenzeId(obergrenze);
+                // Beide Summen werden gleichzeitig berechnet; ohne Filter sind die Summen der Abfrage zugleich die Gesamtsummen.
+                CompletableFuture<SummenAggregator> abfrageSummen = dbManager.getSummenAsync(begrenzt);
+                CompletableFuture<SummenAggregator> gesamtSummen = gesamtLesen
+                        ? dbManager.getSummenAsync(new EintragAbfrage().mitObergrenzeId(obergrenze)) : null;
+                try {
+                    SummenAggregator abfrage = abfrageSummen.get();
+                    SummenAggregator gesamt = gesamtSummen != null ? gesamtSummen.get() : meineAbfrage.hatFilter() ? null : abfrage;
+                    return new SummenAggregator[]{abfrage, gesamt};
+                } catch (InterruptedException e) {
+                    // Abgebrochen (neuer Filter o.ä.): noch nicht gestartete Abfragen entfallen.
+                    abfrageSummen.cancel(false);
+                    if (gesamtSummen != null) {
+                        gesamtSummen.cancel(false);
+                    }
+                    throw e;
+                }
+            }
+
+            @Override
+            protected void done() {
+                laufend.remove(this);
+                if (isCancelled() || meineGeneration != generation) {
+                    return;
+                }
+                try {
+                    SummenAggregator[] summen = get();
+                    gefiltert.setzen(summen[0]);
+                    zeilenAnzahl = summen[0].getAnzahl();
+                    ladeAbfrage = begrenzt;
+                    stand = meinStand;
+                    if (summen[1] != null) {
+                        gesamt.setzen(summen[1]);
+                        gesamtVeraltet = false;
+                    }
+                    angehaengteAbgleichen(begrenzt.getObergrenzeId(), summen[1] != null);
+                } catch (InterruptedException | ExecutionException e) {
+                    e.printStackTrace();
+                    fortschrittMelden(-1);
+                    return;
+                }
+                fireTableDataChanged();
+                summenMelden();
+                if (zeilenAnzahl > 0) {
+                    int anzahl = Math.min(VORLADE_SEITEN, (zeilenAnzahl + SEITEN_GROESSE - 1) / SEITEN_GROESSE);
+                    vorlader = seitenAnfordern(0, anzahl);
+                }
+                if (vorlader == null) {
+                    fortschrittMelden(-1);
+                }
+            }
+        };
+        starten(zaehler);
+        fortschrittMelden(0);
+    }
+
+    /*
+     * Behält nach dem Neuladen nur die angehängten Zeilen, die erst nach dem Zählen gespeichert wurden
+     * und deshalb nicht in den Zeilen aus der Datenbank enthalten sind. Bei gesetztem Filter werden
+     * alle verworfen, weil ein Neuladen mit Filter sie ohnehin aus der Datenbank liest.
+     */
+    private void angehaengteAbgleichen(int obergrenze, boolean gesamtAusDatenbank) {
+        int behalten = 0;
+        for (int i = 0; i < angehaengtAnzahl; i++) {
+            if (abfrage.hatFilter() || angehaengt.id[i] <= obergrenze) {
+                continue;
+            }
+            angehaengt.verschieben(i, behalten);
+            gefiltert.hinzufuegen(angehaengt.einnahme[i], angehaengt.cent[i]);
+            if (gesamtAusDatenbank) {
+                gesamt.hinzufuegen(angehaengt.einnahme[i], angehaengt.cent[i]);
+            }
+            behalten++;
+        }
+        angehaengt.leeren(behalten, angehaengtAnzahl);
+        angehaengtAnzahl = behalten;
+    }
+
+    /*
+     * Bricht alle laufenden Ladevorgänge ab. Bereits geladene Seiten bleiben erhalten,
+     * fehlende Seiten werden beim nächsten Zugriff erneut angefordert.
+     */
+    public void abbrechen() {
+        for (SwingWorker<?, ?> worker : new ArrayList<>(laufend)) {
+            worker.cancel(true);
+        }
+        laufend.clear();
+        angefordert.clear();
+        vorlader = null;
+        aktualisierung = null;
+        fortschrittMelden(-1);
+    }
+
+    /*
+     * Holt die Änderungen seit dem letzten Laden aus der Datenbank und wendet sie auf die angezeigten Zeilen an.
+     * Geschieht nichts, solange noch geladen wird oder eine andere Hintergrundaufgabe läuft, weil deren Zeilen
+     * älter sein könnten als die Änderungen; der nächste Aufruf holt sie dann nach.
+     */
+    public void aktualisieren() {
+        if (stand < 0 || ladeAbfrage == null || !laufend.isEmpty()) {
+            return;
+        }
+        aktualisierung = new Aktualisierung(generation, stand, ladeAbfrage, null);
+        starten(aktualisierung);
+    }
+
+    /*
+     * Änderungsnummer, mit der die Zeile zuletzt aus der Datenbank gelesen wurde, oder Eintrag.STAND_UNBEKANNT.
+     * Wird beim Speichern einer bearbeiteten Zeile mitgegeben, um gleichzeitige Änderungen zu erkennen.
+     */
+    public long getAenderung(int rowIndex) {
+        Seite seite = seiteDerZeile(rowIndex);
+        return seite == null ? Eintrag.STAND_UNBEKANNT : seite.aenderung[zeilenIndex(rowIndex)];
+    }
+
+    public void addPropertyChangeListener(PropertyChangeListener listener) {
+        aenderungen.addPropertyChangeListener(listener);
+    }
+
+    @Override
+    public int getRowCount() {
+        return zeilenAnzahl + angehaengtAnzahl;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return SPALTEN.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return SPALTEN[column].getUeberschrift();
+    }
+
+    // Die ID ist der Primärschlüssel und kann nicht bearbeitet werden, ebenso noch nicht geladene und ausgelagerte Zeilen.
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return columnIndex != 0 && momentaufnahme == null && seiteDerZeile(rowIndex) != null && !isArchiviert(rowIndex);
+    }
+
+    /*
+     * Gibt an, ob die Zeile zu einem ausgelagerten Jahr gehört (siehe Archiv). Solche Zeilen werden nur angezeigt,
+     * aber weder bearbeitet noch gelöscht.
+     */
+    public boolean isArchiviert(int rowIndex) {
+        Seite seite = seiteDerZeile(rowIndex);
+        return seite != null && dbManager.istArchiviert(LocalDate.ofEpochDay(seite.tag[zeilenIndex(rowIndex)]).getYear());
+    }
+
+    // Typ der Werte einer Spalte (siehe EintragSpalte.getTyp); danach wählt die JTable Renderer und Editor.
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return SPALTEN[columnIndex].getTyp();
+    }
+
+    /*
+     * Liefert den unformatierten Wert einer Zelle: die ID als Integer, Beträge als Long in Cent (in der Spalte des
+     * anderen Typs "null"), das Datum als LocalDate. Ist die Seite noch nicht geladen, wird sie im Hintergrund
+     * angefordert und vorerst "null" zurückgegeben.
+     */
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        Seite seite = seiteDerZeile(rowIndex);
+        if (seite == null) {
+            seiteAnfordern(rowIndex);
+            return null;
+        }
+        int i = zeilenIndex(rowIndex);
+        switch (SPALTEN[columnIndex]) {
+            case ID:
+                return seite.id[i];
+            case BEZEICHNUNG:
+                return seite.bezeichnung[i];
+            case EINNAHMEN:
+                return seite.einnahme[i] ? seite.cent[i] : null;
+            case AUSGABEN:
+                return seite.einnahme[i] ? null : seite.cent[i];
+            case DATUM:
+                return LocalDate.ofEpochDay(seite.tag[i]);
+            default:
+                return seite.info[i];
+        }
+    }
+
+    /*
+     * Übernimmt einen bearbeiteten Wert (typisiert wie bei getValueAt) in die geladene Seite.
+     * Ein Betrag in "Einnahmen" macht die Zeile zur Einnahme, einer in "Ausgaben" zur Ausgabe; "null" lässt den
+     * Betrag unverändert. Das Speichern in der Datenbank übernimmt der TableModelListener im Hauptfenster.
+     */
+    @Override
+    public void setValueAt(Object aValue, int rowIndex, int columnIndex) {
+        Seite seite = seiteDerZeile(rowIndex);
+        if (seite == null) {
+            return;
+        }
+        int i = zeilenIndex(rowIndex);
+        boolean typGeaendert = false;
+        switch (SPALTEN[columnIndex]) {
+            case BEZEICHNUNG:
+                seite.bezeichnung[i] = (String) aValue;
+                break;
+            case EINNAHMEN:
+            case AUSGABEN:
+                if (aValue == null) {
+                    return;
+                }
+                boolean neuEinnahme = SPALTEN[columnIndex] == EintragSpalte.EINNAHMEN;
+                typGeaendert = neuEinnahme != seite.einnahme[i];
+                betragAktualisieren(seite, i, neuEinnahme, (Long) aValue);
+                break;
+            case DATUM:
+                seite.tag[i] = (int) ((LocalDate) aValue).toEpochDay();
+                break;
+            case INFO:
+                seite.info[i] = (String) aValue;
+                break;
+            default:
+                return;
+        }
+        fireTableCellUpdated(rowIndex, columnIndex);
+        if (typGeaendert) {
+            // Der Betrag wechselt die Spalte; die ganze Zeile neu zeichnen (ALL_COLUMNS speichert nicht erneut).
+            fireTableRowsUpdated(rowIndex, rowIndex);
+        }
+    }
+
+    // Setzt Typ und Betrag einer Zeile und passt die Summen an, ohne die übrigen Zeilen zu durchlaufen.
+    private void betragAktualisieren(Seite seite, int index, boolean neuEinnahme, long neuCent) {
+        gesamt.ersetzen(seite.einnahme[index], seite.cent[index], neuEinnahme, neuCent);
+        gefiltert.ersetzen(seite.einnahme[index], seite.cent[index], neuEinnahme, neuCent);
+        seite.einnahme[index] = neuEinnahme;
+        seite.cent[index] = neuCent;
+        summenMelden();
+    }
+
+    // ID einer geladenen Zeile ohne Umweg über ein Integer-Objekt, oder -1 (z.B. für Renderer, die jede Zelle prüfen).
+    public int getId(int rowIndex) {
+        Seite seite = seiteDerZeile(rowIndex);
+        return seite == null ? -1 : seite.id[zeilenIndex(rowIndex)];
+    }
+
+    /*
+     * Liefert den angezeigten Stand einer geladenen Zeile als Eintrag, z.B. zum Speichern nach dem Bearbeiten, oder
+     * "null". Wie beim Anlegen ist die Bezeichnung zugleich der Name der Kategorie; die Änderungsnummer ist die, mit
+     * der die Zeile aus der Datenbank gelesen wurde.
+     */
+    public Eintrag getEintrag(int rowIndex) {
+        Seite seite = seiteDerZeile(rowIndex);
+        if (seite == null) {
+            return null;
+        }
+        int i = zeilenIndex(rowIndex);
+        return new Eintrag(seite.id[i], seite.bezeichnung[i], seite.cent[i], LocalDate.ofEpochDay(seite.tag[i]), seite.info[i],
+                dbManager.getKategorie(seite.bezeichnung[i]), seite.einnahme[i] ? "Einnahme" : "Ausgabe", seite.aenderung[i]);
+    }
+
+    private void summenMelden() {
+        aenderungen.firePropertyChange(SUMMEN, null, gefiltert);
+    }
+
+    // Fordert die Seite einer noch nicht geladenen Zeile (und die folgenden) im Hintergrund an.
+    private void seiteAnfordern(int rowIndex) {
+        if (rowIndex >= 0 && rowIndex < zeilenAnzahl && ladeAbfrage != null) {
+            int seitenNummer = rowIndex / SEITEN_GROESSE;
+            if (!angefordert.contains(seitenNummer)) {
+                seitenAnfordern(seitenNummer, 1 + VORAUS_SEITEN);
+            }
+        }
+    }
+
+    // Liefert die geladene Seite (oder die angehängten Zeilen), in der die Zeile liegt, sonst "null".
+    private Seite seiteDerZeile(int rowIndex) {
+        if (rowIndex < 0) {
+            return null;
+        }
+        if (rowIndex >= zeilenAnzahl) {
+            return rowIndex - zeilenAnzahl < angehaengtAnzahl ? angehaengt : null;
+        }
+        Seite seite = seiten.get(rowIndex / SEITEN_GROESSE);
+        return seite != null && rowIndex % SEITEN_GROESSE < seite.groesse() ? seite : null;
+    }
+
+    // Position der Zeile innerhalb der Seite aus seiteDerZeile().
+    private int zeilenIndex(int rowIndex) {
+        return rowIndex >= zeilenAnzahl ? rowIndex - zeilenAnzahl : rowIndex % SEITEN_GROESSE;
+    }
+
+    /*
+     * Startet einen SeitenLader für "anzahl" Seiten ab "ersteSeite".
+     * Bereits geladene oder angeforderte Seiten am Anfang werden übersprungen.
+     */
+    private SeitenLader seitenAnfordern(int ersteSeite, int anzahl) {
+        int letzteSeite = Math.min(ersteSeite + anzahl, (zeilenAnzahl + SEITEN_GROESSE - 1) / SEITEN_GROESSE);
+        while (ersteSeite < letzteSeite && (seiten.containsKey(ersteSeite) || angefordert.contains(ersteSeite))) {
+            ersteSeite++;
+        }
+        if (ersteSeite >= letzteSeite) {
+            return null;
+        }
+        for (int i = ersteSeite; i < letzteSeite; i++) {
+            angefordert.add(i);
+        }
+        Eintrag vorgaenger = ersteSeite == 0 ? null : seitenEnden.get(ersteSeite - 1);
+        SeitenLader lader = new SeitenLader(generation, ladeAbfrage, ersteSeite, letzteSeite - ersteSeite, vorgaenger);
+        starten(lader);
+        return lader;
+    }
+
+    private void starten(SwingWorker<?, ?> worker) {
+        laufend.add(worker);
+        worker.execute();
+    }
+
+    private void fortschrittMelden(int fortschritt) {
+        aenderungen.firePropertyChange(LADEFORTSCHRITT, null, fortschritt);
+    }
+
+    // Ergebnis einer Aktualisierung: die Änderungen und danach gelesene Summen (null, wenn nicht gebraucht).
+    private static final class Abgleich {
+
+        private final Aenderungen aenderungen;
+        private final SummenAggregator summen;
+        private final SummenAggregator gesamt;
+
+        private Abgleich(Aenderungen aenderungen, SummenAggregator summen, SummenAggregator gesamt) {
+            this.aenderungen = aenderungen;
+            this.summen = summen;
+            this.gesamt = gesamt;
+        }
+    }
+
+    /*
+     * Liest die Änderungen seit einem Änderungsstand und danach Anzahl und Summen der Abfrage und wendet beides auf
+     * dem Event Dispatch Thread an (siehe aktualisieren). Mit einer Momentaufnahme prüft sie zugleich deren Zeilen:
+     * Sie gelten danach als aus der Datenbank geladen, die übrigen Seiten folgen wie nach einem Neuladen.
+     */
+    private final class Aktualisierung extends SwingWorker<Abgleich, Void> {
+
+        private final int meineGeneration;
+        private final long vonStand;
+        private final EintragAbfrage meineAbfrage;
+        private final Momentaufnahme aufnahme;
+
+        private Aktualisierung(int meineGeneration, long vonStand, EintragAbfrage meineAbfrage, Momentaufnahme aufnahme) {
+            this.meineGeneration = meineGeneration;
+            this.vonStand = vonStand;
+            this.meineAbfrage = meineAbfrage;
+            this.aufnahme = aufnahme;
+        }
+
+        @Override
+        protected Abgleich doInBackground() throws Exception {
+            Aenderungen aenderungen = dbManager.getAenderungenSeit(vonStand, MAX_NACHZULESEN);
+            if (aenderungen.isNeuLesen() || (aenderungen.getEintraege().isEmpty() && aenderungen.getGeloeschteIds().length == 0
+                    && aufnahme == null)) {
+                return new Abgleich(aenderungen, null, null);
+            }
+            CompletableFuture<SummenAggregator> summen = dbManager.getSummenAsync(meineAbfrage);
+            CompletableFuture<SummenAggregator> gesamt = meineAbfrage.hatFilter() ? dbManager.getSummenAsync(new EintragAbfrage()) : null;
+            return new Abgleich(aenderungen, summen.get(), gesamt != null ? gesamt.get() : null);
+        }
+
+        @Override
+        protected void done() {
+            laufend.remove(this);
+            if (aktualisierung == this) {
+                aktualisierung = null;
+            }
+            if (isCancelled() || meineGeneration != generation) {
+                return;
+            }
+            Abgleich abgleich;
+            try {
+                abgleich = get();
+            } catch (InterruptedException | ExecutionException e) {
+                // Beim nächsten Aufruf wird es erneut versucht; eine Momentaufnahme wird verworfen.
+                e.printStackTrace();
+                if (aufnahme != null) {
+                    momentaufnahme = null;
+                    neuLaden();
+                }
+                return;
+            }
+            Aenderungen geaendert = abgleich.aenderungen;
+            if (geaendert.isKategorienGeaendert()) {
+                aenderungen.firePropertyChange(KATEGORIEN, null, geaendert.getStand());
+            }
+            if (aufnahme != null) {
+                momentaufnahme = null;
+                ladeAbfrage = meineAbfrage;
+            }
+            if (geaendert.isNeuLesen()) {
+                neuLaden();
+                return;
+            }
+            stand = geaendert.getStand();
+            if (abgleich.summen != null && !anwenden(geaendert, abgleich.summen, abgleich.gesamt)) {
+                return;
+            }
+            if (aufnahme != null) {
+                fireTableDataChanged();
+                int anzahl = Math.min(VORLADE_SEITEN, (zeilenAnzahl + SEITEN_GROESSE - 1) / SEITEN_GROESSE);
+                vorlader = seitenAnfordern(0, anzahl);
+                if (vorlader == null) {
+                    fortschrittMelden(-1);
+                }
+            }
+        }
+    }
+
+    /*
+     * Wendet Änderungen aus der Datenbank auf die Zeilen an und übernimmt danach Anzahl und Summen ("summen" für die
+     * Abfrage bis zur Obergrenze, "gesamtSummen" aller Einträge bei gesetztem Filter). Gibt "false" zurück, wenn
+     * stattdessen neu geladen wird.
+     */
+    private boolean anwenden(Aenderungen geaendert, SummenAggregator summen, SummenAggregator gesamtSummen) {
+        // Zeile jeder geladenen oder angehängten ID.
+        Map<Integer, Integer> zeilen = new HashMap<>();
+        for (Map.Entry<Integer, Seite> eintrag : seiten.entrySet()) {
+            int[] seitenIds = eintrag.getValue().id;
+            for (int i = 0; i < seitenIds.length; i++) {
+                zeilen.put(seitenIds[i], eintrag.getKey() * SEITEN_GROESSE + i);
+            }
+        }
+        for (int i = 0; i < angehaengtAnzahl; i++) {
+            zeilen.put(angehaengt.id[i], zeilenAnzahl + i);
+        }
+
+        int obergrenze = ladeAbfrage.getObergrenzeId();
+        boolean neuZaehlen = false;
+        Schreibpuffer puffer = schreibpuffer;
+        for (Eintrag eintrag : geaendert.getEintraege()) {
+            // Noch nicht gespeicherte eigene Änderungen bleiben sichtbar; ihr Konflikt zeigt sich beim Speichern.
+            Eintrag angezeigt = puffer == null ? eintrag : puffer.aktuell(eintrag);
+            Integer row = zeilen.get(eintrag.getId());
+            if (row != null) {
+                Seite seite = seiteDerZeile(row);
+                int index = zeilenIndex(row);
+                // Eine später geladene Seite kann schon einen neueren Stand enthalten.
+                if (eintrag.getAenderung() > seite.aenderung[index]) {
+                    seite.setzen(index, angezeigt, eintrag.getAenderung());
+                    fireTableRowsUpdated(row, row);
+                }
+            } else if (eintrag.getId() > obergrenze && !abfrage.hatFilter()) {
+                anhaengen(eintrag, angezeigt);
+                int neueZeile = getRowCount() - 1;
+                zeilen.put(eintrag.getId(), neueZeile);
+                fireTableRowsInserted(neueZeile, neueZeile);
+            } else if (eintrag.getId() > obergrenze) {
+                // Ob ein neuer Eintrag zum Filter passt, weiß nur die Datenbank.
+                neuZaehlen = true;
+            }
+        }
+
+        // Nur angezeigte Einträge entfernen; nicht geladene fallen unten an der Anzahl auf.
+        int[] ids = new int[geaendert.getGeloeschteIds().length];
+        int[] rows = new int[ids.length];
+        int anzahl = 0;
+        for (int id : geaendert.getGeloeschteIds()) {
+            Integer row = zeilen.get(id);
+            if (row != null) {
+                ids[anzahl] = id;
+                rows[anzahl++] = row;
+            }
+        }
+        if (anzahl > 0) {
+            eintraegeEntfernt(Arrays.copyOf(ids, anzahl), summeDerZeilen(Arrays.copyOf(rows, anzahl)));
+            if (stand < 0) {
+                return false;
+            }
+        }
+
+        if (neuZaehlen || summen.getAnzahl() != zeilenAnzahl) {
+            neuLaden();
+            return false;
+        }
+        gefiltert.setzen(summen);
+        for (int i = 0; i < angehaengtAnzahl; i++) {
+            gefiltert.hinzufuegen(angehaengt.einnahme[i], angehaengt.cent[i]);
+        }
+        gesamt.setzen(gesamtSummen != null ? gesamtSummen : gefiltert);
+        gesamtVeraltet = false;
+        summenMelden();
+        return true;
+    }
+
+    /*
+     * Eine geladene Seite, spaltenweise in Arrays: je Zeile ID, Bezeichnung, Betrag in Cent, Typ, Datum als Tag seit
+     * dem 01.01.1970, Info und die Änderungsnummer, mit der sie aus der Datenbank gelesen wurde. Zahlen und Datum
+     * bleiben so ungeformt und ohne ein Objekt je Zelle; die Summen werden direkt aus "cent" und "einnahme" angepasst.
+     */
+    private static final class Seite {
+
+        private final int[] id;
+        private final String[] bezeichnung;
+        private final long[] cent;
+        private final boolean[] einnahme;
+        private final int[] tag;
+        private final String[] info;
+        private final long[] aenderung;
+
+        private Seite(int groesse) {
+            this(new int[groesse], new String[groesse], new long[groesse], new boolean[groesse], new int[groesse],
+                    new String[groesse], new long[groesse]);
+        }
+
+        private Seite(int[] id, String[] bezeichnung, long[] cent, boolean[] einnahme, int[] tag, String[] info, long[] aenderung) {
+            this.id = id;
+            this.bezeichnung = bezeichnung;
+            this.cent = cent;
+            this.einnahme = einnahme;
+            this.tag = tag;
+            this.info = info;
+            this.aenderung = aenderung;
+        }
+
+        private int groesse() {
+            return id.length;
+        }
+
+        // Setzt die Zeile i aus dem angezeigten Stand eines Eintrags.
+        private void setzen(int i, Eintrag angezeigt, long aenderung) {
+            id[i] = angezeigt.getId();
+            bezeichnung[i] = angezeigt.getBezeichnung();
+            cent[i] = angezeigt.getBetragCent();
+            einnahme[i] = angezeigt.getTyp().equals("Einnahme");
+            tag[i] = (int) angezeigt.getDatum().toEpochDay();
+            info[i] = angezeigt.getInfo();
+            this.aenderung[i] = aenderung;
+        }
+
+        private void verschieben(int von, int nach) {
+            id[nach] = id[von];
+            bezeichnung[nach] = bezeichnung[von];
+            cent[nach] = cent[von];
+            einnahme[nach] = einnahme[von];
+            tag[nach] = tag[von];
+            info[nach] = info[von];
+            aenderung[nach] = aenderung[von];
+        }
+
+        // Gibt die Texte der Zeilen von "von" bis vor "bis" frei, z.B. nach dem Entfernen angehängter Zeilen.
+        private void leeren(int von, int bis) {
+            Arrays.fill(bezeichnung, von, bis, null);
+            Arrays.fill(info, von, bis, null);
+        }
+
+        // Kopie mit "groesse" Zeilen (gekürzt oder mit leeren Zeilen aufgefüllt).
+        private Seite kopie(int groesse) {
+            return new Seite(Arrays.copyOf(id, groesse), Arrays.copyOf(bezeichnung, groesse), Arrays.copyOf(cent, groesse),
+                    Arrays.copyOf(einnahme, groesse), Arrays.copyOf(tag, groesse), Arrays.copyOf(info, groesse),
+                    Arrays.copyOf(aenderung, groesse));
+        }
+    }
+
+    // Ein Block gelesener Zeilen, der vom SeitenLader an den Event Dispatch Thread übergeben wird.
+    private static final class Seitenblock {
+
+        private final int seitenNummer;
+        private final Seite seite;
+        private final Eintrag letzter;
+
+        private Seitenblock(int seitenNummer, Seite seite, Eintrag letzter) {
+            this.seitenNummer = seitenNummer;
+            this.seite = seite;
+            this.letzter = letzter;
+        }
+    }
+
+    /*
+     * Liest zusammenhängende Seiten mit einer einzigen Abfrage aus der Datenbank.
+     * Die Zeilen werden aus dem ResultSet gestreamt, im Hintergrund in die Spalten einer Seite übernommen und seitenweise per
+     * publish() an den Event Dispatch Thread übergeben, wo process() sie in das Modell übernimmt.
+     */
+    private final class SeitenLader extends SwingWorker<Void, Seitenblock> {
+
+        private final int meineGeneration;
+        private final EintragAbfrage meineAbfrage;
+        private final int ersteSeite;
+        private final int anzahlSeiten;
+        private final Eintrag vorgaenger;
+
+        private SeitenLader(int meineGeneration, EintragAbfrage meineAbfrage, int ersteSeite, int anzahlSeiten, Eintrag vorgaenger) {
+            this.meineGeneration = meineGeneration;
+            this.meineAbfrage = meineAbfrage;
+            this.ersteSeite = ersteSeite;
+            this.anzahlSeiten = anzahlSeiten;
+            this.vorgaenger = vorgaenger;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            int limit = anzahlSeiten * SEITEN_GROESSE;
+            Seite block = new Seite(SEITEN_GROESSE);
+            int[] stand = {ersteSeite, 0, 0}; // Seitennummer, Zeilen im Block, gelesene Zeilen insgesamt
+
+            // Keyset hinter dem Vorgänger, sonst über den Offset der ersten Seite.
+            int offset = vorgaenger == null ? ersteSeite * SEITEN_GROESSE : 0;
+            Schreibpuffer puffer = schreibpuffer;
+            dbManager.streamEintraege(meineAbfrage, vorgaenger, offset, limit, eintrag -> {
+                if (isCancelled()) {
+                    return false;
+                }
+                // Angezeigt wird ein noch nicht gespeicherter Stand; der Keyset-Schlüssel bleibt der aus der Datenbank.
+                Eintrag angezeigt = puffer == null ? eintrag : puffer.aktuell(eintrag);
+                // Die Änderungsnummer bleibt die aus der Datenbank, damit "aktualisieren" neuere Stände erkennt.
+                block.setzen(stand[1]++, angezeigt, eintrag.getAenderung());
+                stand[2]++;
+                if (stand[1] == SEITEN_GROESSE) {
+                    publish(new Seitenblock(stand[0]++, block.kopie(SEITEN_GROESSE), eintrag));
+                    stand[1] = 0;
+                    setProgress(stand[2] * 100 / limit);
+                }
+                return true;
+            });
+            if (stand[1] > 0 && !isCancelled()) {
+                publish(new Seitenblock(stand[0], block.kopie(stand[1]), null));
+            }
+            return null;
+        }
+
+        @Override
+        protected void process(List<Seitenblock> bloecke) {
+            if (isCancelled() || meineGeneration != generation) {
+                return;
+            }
+            for (Seitenblock block : bloecke) {
+                seiten.put(block.seitenNummer, block.seite);
+                angefordert.remove(block.seitenNummer);
+                if (block.letzter != null) {
+                    seitenEnden.put(block.seitenNummer, block.letzter);
+                }
+                int erste = block.seitenNummer * SEITEN_GROESSE;
+                int letzte = Math.min(erste + block.seite.groesse(), zeilenAnzahl) - 1;
+                if (letzte >= erste) {
+                    fireTableRowsUpdated(erste, letzte);
+                }
+            }
+            if (this == vorlader) {
+                fortschrittMelden(getProgress());
+            }
+        }
+
+        @Override
+        protected void done() {
+            laufend.remove(this);
+            if (meineGeneration != generation) {
+                return;
+            }
+            // Nicht gelieferte Seiten (Abbruch, Fehler) dürfen später erneut angefordert werden.
+            for (int i = ersteSeite; i < ersteSeite + anzahlSeiten; i++) {
+                if (!seiten.containsKey(i)) {
+                    angefordert.remove(i);
+                }
+            }
+            if (this == vorlader) {
+                vorlader = null;
+                fortschrittMelden(-1);
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ * Die Klasse "Filterbedingung" übersetzt die Einschränkungen einer EintragAbfrage in eine parametrisierte
+ * WHERE-Bedingung (beginnend mit " AND ...") und die dazugehörigen Parameter.
+ *
+ * Der Textfilter wird je nach Spalte so übersetzt, dass die Datenbank einen Index nutzen kann:
+ *   - ID: eine Zahl sucht genau diese ID (Primärschlüssel).
+ *   - Datum: "TT.MM.JJJJ", "MM.JJJJ" oder "JJJJ" werden zu einem Bereich auf "datum".
+ *   - Einnahmen/Ausgaben: ein Betrag ohne Nachkommastellen sucht alle Beträge mit diesen Euro ("12" findet
+ *     12,00 bis 12,99), ein Betrag mit Nachkommastellen genau diesen Betrag; jeweils mit dem passenden Typ.
+ * Alle anderen Eingaben und die Textspalten werden wie bisher als Teiltext mit LIKE gesucht. Platzhalter
+ * in der Eingabe werden dabei maskiert, sodass jede Eingabe gültig ist.
+ */
+public class Filterbedingung {
+
+    private static final Pattern ZAHL = Pattern.compile("\\d{1,9}");
+    private static final Pattern TAG = Pattern.compile("(\\d{1,2})\\.(\\d{1,2})\\.(\\d{4})");
+    private static final Pattern MONAT = Pattern.compile("(\\d{1,2})\\.(\\d{4})");
+    private static final Pattern JAHR = Pattern.compile("\\d{4}");
+    private static final Pattern BETRAG = Pattern.compile("\\d{1,8}([.,]\\d{1,2})?");
+
+    private final StringBuilder sql = new StringBuilder();
+    private final List<Object> parameter = new ArrayList<>();
+
+    public Filterbedingung(EintragAbfrage abfrage) {
+        if (abfrage.hatTextfilter()) {
+            textfilter(abfrage.getFilterSpalte(), abfrage.getFilterText().trim());
+        }
+        if (abfrage.getDatumVon() != null) {
+            bedingung(" AND datum >= ?", Date.valueOf(abfrage.getDatumVon()));
+        }
+        if (abfrage.getDatumBis() != null) {
+            bedingung(" AND datum <= ?", Date.valueOf(abfrage.getDatumBis()));
+        }
+        if (abfrage.getBetragVonCent() != null) {
+            bedingung(" AND betrag >= ?", Geld.zuBigDecimal(abfrage.getBetragVonCent()));
+        }
+        if (abfrage.getBetragBisCent() != null) {
+            bedingung(" AND betrag <= ?", Geld.zuBigDecimal(abfrage.getBetragBisCent()));
+        }
+        if (abfrage.getKategorien() != null) {
+            kategorien(abfrage.getKategorien());
+        }
+        if (abfrage.getTyp() != null) {
+            bedingung(" AND typ = ?", DatenbankManager.typCode(abfrage.getTyp()));
+        }
+        if (abfrage.getObergrenzeId() != null) {
+            bedingung(" AND id <= ?", abfrage.getObergrenzeId());
+        }
+    }
+
+    // Die Bedingung als SQL, leer wenn die Abfrage keine Einschränkungen hat.
+    public String getSql() {
+        return sql.toString();
+    }
+
+    /*
+     * Setzt die Parameter der Bedingung ab dem angegebenen Index und gibt den nächsten freien Index zurück.
+     */
+    public int binden(PreparedStatement pstmt, int index) throws SQLException {
+        for (Object wert : parameter) {
+            pstmt.setObject(index++, wert);
+        }
+        return index;
+    }
+
+    private void textfilter(EintragSpalte spalte, String text) {
+        switch (spalte) {
+            case ID:
+                if (ZAHL.matcher(text).matches()) {
+                    bedingung(" AND id = ?", Integer.valueOf(text));
+                    return;
+                }
+                break;
+            case DATUM:
+                if (datumsfilter(text)) {
+                    return;
+                }
+                break;
+            case EINNAHMEN:
+            case AUSGABEN:
+                if (BETRAG.matcher(text).matches()) {
+                    int typ = spalte == EintragSpalte.EINNAHMEN ? DatenbankManager.TYP_EINNAHME : DatenbankManager.TYP_AUSGABE;
+                    long cent = Geld.parsen(text);
+                    bedingung(" AND typ = ?", typ);
+                    if (text.indexOf(',') < 0 && text.indexOf('.') < 0) {
+                        bedingung(" AND betrag >= ?", Geld.zuBigDecimal(cent));
+                        bedingung(" AND betrag < ?", Geld.zuBigDecimal(cent + 100));
+                    } else {
+                        bedingung(" AND betrag = ?", Geld.zuBigDecimal(cent));
+                    }
+                    return;
+                }
+                text = text.replace(',', '.');
+                break;
+            default:
+                break;
+        }
+        String muster = text.toLowerCase(Locale.GERMANY).replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        bedingung(" AND LOWER(" + spalte.getFilterAusdruck() + ") LIKE ?", "%" + muster + "%");
+    }
+
+    // Übersetzt ein vollständiges Datum, einen Monat oder ein Jahr in einen Bereich auf "datum".
+    private boolean datumsfilter(String text) {
+        LocalDate von;
+        LocalDate bis;
+        try {
+            Matcher m;
+            if ((m = TAG.matcher(text)).matches()) {
+                von = LocalDate.of(Integer.parseInt(m.group(3)), Integer.parseInt(m.group(2)), Integer.parseInt(m.group(1)));
+                bis = von;
+            } else if ((m = MONAT.matcher(text)).matches()) {
+                YearMonth monat = YearMonth.of(Integer.parseInt(m.group(2)), Integer.parseInt(m.group(1)));
+                von = monat.atDay(1);
+                bis = monat.atEndOfMonth();
+            } else if (JAHR.matcher(text).matches()) {
+                int jahr = Integer.parseInt(text);
+                von = LocalDate.of(jahr, 1, 1);
+                bis = LocalDate.of(jahr, 12, 31);
+            } else {
+                return false;
+            }
+        } catch (DateTimeException e) {
+            // Kein gültiges Datum (z.B. "31.02.2024"): wie bisher als Teiltext suchen.
+            return false;
+        }
+        if (von.equals(bis)) {
+            bedingung(" AND datum = ?", Date.valueOf(von));
+        } else {
+            bedingung(" AND datum BETWEEN ? AND ?", Date.valueOf(von));
+            parameter.add(Date.valueOf(bis));
+        }
+        return true;
+    }
+
+    // Einträge, deren Kategorie einen der Namen hat; "" steht für Einträge ohne Kategorie.
+    private void kategorien(Set<String> namen) {
+        List<String> benannt = new ArrayList<>();
+        for (String name : namen) {
+            if (!name.isEmpty()) {
+                benannt.add(name);
+            }
+        }
+        StringBuilder teil = new StringBuilder(" AND (");
+        if (benannt.isEmpty()) {
+            teil.append("1=0");
+        } else {
+            teil.append("kategorie_id IN (SELECT id FROM kategorien WHERE name IN (");
+            for (int i = 0; i < benannt.size(); i++) {
+                teil.append(i == 0 ? "?" : ", ?");
+            }
+            teil.append("))");
+            parameter.addAll(benannt);
+        }
+        if (namen.contains("")) {
+            teil.append(" OR kategorie_id IS NULL");
+        }
+        sql.append(teil).append(')');
+    }
+
+    private void bedingung(String teil, Object wert) {
+        sql.append(teil);
+        parameter.add(wert);
+    }
+}
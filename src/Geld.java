@@ -0,0 +1,138 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/*
+ * Die Klasse "Geld" enthält Hilfsmethoden für Geldbeträge, die als ganze Cent in einem long gespeichert werden.
+ * Dadurch rechnen Summen über beliebig viele Einträge exakt, ohne die Rundungsfehler von double.
+ * Formatiert wird im deutschen Format ohne Tausendertrennzeichen ("1234,56"), wie bisher mit
+ * String.format(Locale.GERMANY, "%.2f", ...), aber ohne Formatter, Locale-Abfragen oder Zwischenobjekte.
+ */
+public final class Geld {
+
+    private Geld() {
+    }
+
+    // Wandelt einen Betrag aus der Datenbank (DECIMAL mit zwei Nachkommastellen) in ganze Cent um.
+    public static long ausBigDecimal(BigDecimal betrag) {
+        if (betrag == null) {
+            return 0;
+        }
+        return betrag.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    // Wandelt einen Betrag in Cent in ein BigDecimal für die Datenbank um.
+    public static BigDecimal zuBigDecimal(long cent) {
+        return BigDecimal.valueOf(cent, 2);
+    }
+
+    /*
+     * Liest einen eingegebenen Betrag wie "12,50", "12.5" oder "1234" in ganze Cent ein.
+     * Als Dezimaltrennzeichen sind Komma und Punkt erlaubt; weitere Nachkommastellen werden kaufmännisch gerundet.
+     *
+     * @throws NumberFormatException wenn der Text kein gültiger Betrag ist
+     */
+    public static long parsen(String text) {
+        if (text == null) {
+            throw new NumberFormatException("Kein Betrag angegeben");
+        }
+        int start = 0;
+        int ende = text.length();
+        while (start < ende && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (ende > start && Character.isWhitespace(text.charAt(ende - 1))) {
+            ende--;
+        }
+        boolean negativ = false;
+        if (start < ende && (text.charAt(start) == '-' || text.charAt(start) == '+')) {
+            negativ = text.charAt(start) == '-';
+            start++;
+        }
+        if (start >= ende) {
+            throw new NumberFormatException("Kein Betrag angegeben: \"" + text + "\"");
+        }
+
+        long euro = 0;
+        long cent = 0;
+        int nachkommastellen = -1;
+        boolean aufrunden = false;
+        boolean ziffern = false;
+        for (int i = start; i < ende; i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '.') {
+                if (nachkommastellen >= 0) {
+                    throw new NumberFormatException("Ungültiger Betrag: \"" + text + "\"");
+                }
+                nachkommastellen = 0;
+            } else if (c >= '0' && c <= '9') {
+                ziffern = true;
+                int ziffer = c - '0';
+                if (nachkommastellen < 0) {
+                    euro = Math.addExact(Math.multiplyExact(euro, 10), ziffer);
+                } else if (nachkommastellen < 2) {
+                    cent = cent * 10 + ziffer;
+                    nachkommastellen++;
+                } else {
+                    if (nachkommastellen == 2) {
+                        aufrunden = ziffer >= 5;
+                    }
+                    nachkommastellen++;
+                }
+            } else {
+                throw new NumberFormatException("Ungültiger Betrag: \"" + text + "\"");
+            }
+        }
+        if (!ziffern) {
+            throw new NumberFormatException("Ungültiger Betrag: \"" + text + "\"");
+        }
+        if (nachkommastellen == 1) {
+            cent *= 10;
+        }
+        long ergebnis = Math.addExact(Math.multiplyExact(euro, 100), cent + (aufrunden ? 1 : 0));
+        return negativ ? -ergebnis : ergebnis;
+    }
+
+    /*
+     * Hängt einen Betrag in Cent formatiert an einen StringBuilder an, z.B. 123456 als "1234,56".
+     * Es werden keine Zwischenobjekte erzeugt; mit einem wiederverwendeten StringBuilder ist die Methode allokationsfrei.
+     */
+    public static void anhaengen(StringBuilder ziel, long cent) {
+        anhaengen(ziel, cent, ',');
+    }
+
+    // Wie anhaengen(ziel, cent), aber mit wählbarem Dezimaltrennzeichen (z.B. '.' für JSON).
+    public static void anhaengen(StringBuilder ziel, long cent, char dezimaltrennzeichen) {
+        if (cent < 0) {
+            ziel.append('-');
+        }
+        // Division und Rest vor dem Betrag bilden, damit auch Long.MIN_VALUE nicht überläuft.
+        int rest = (int) Math.abs(cent % 100);
+        ziel.append(Math.abs(cent / 100)).append(dezimaltrennzeichen);
+        ziel.append((char) ('0' + rest / 10)).append((char) ('0' + rest % 10));
+    }
+
+    /*
+     * Formatiert einen Betrag in Cent, z.B. 123456 als "1234,56".
+     * Die Ziffern werden direkt in ein char-Array geschrieben, sodass nur der Ergebnis-String erzeugt wird.
+     */
+    public static String formatieren(long cent) {
+        char[] puffer = new char[21];
+        int pos = puffer.length;
+        boolean negativ = cent < 0;
+        // Mit negativen Werten rechnen, damit auch Long.MIN_VALUE korrekt formatiert wird.
+        long wert = negativ ? cent : -cent;
+        for (int i = 0; i < 2; i++) {
+            puffer[--pos] = (char) ('0' - (int) (wert % 10));
+            wert /= 10;
+        }
+        puffer[--pos] = ',';
+        do {
+            puffer[--pos] = (char) ('0' - (int) (wert % 10));
+            wert /= 10;
+        } while (wert != 0);
+        if (negativ) {
+            puffer[--pos] = '-';
+        }
+        return new String(puffer, pos, puffer.length - pos);
+    }
+}
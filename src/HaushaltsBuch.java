@@ -1,38 +1,69 @@
 import javax.swing.*;
+import javax.swing.border.LineBorder;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.TableModelEvent;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
-import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.*;
-import java.text.NumberFormat;
-import java.text.ParseException;
+import java.time.DateTimeException;
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Comparator;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class HaushaltsBuch extends JFrame {
 
     /*
-     * DefaultTableModel verwaltet die Daten für die JTable, einschließlich Spaltennamen und Zeilen mit Daten.
-     * Es ermöglicht das dynamische Hinzufügen, Bearbeiten und Löschen von Datenzeilen in der Tabelle.
+     * EintragTableModel verwaltet die Daten für die JTable, einschließlich Spaltennamen und Zeilen mit Daten.
+     * Es lädt die Einträge seitenweise aus der Datenbank, sobald die Tabelle sie anzeigt.
      */
-    private final DefaultTableModel tableModel;
+    private final EintragTableModel tableModel;
 
     /*
-     * TableRowSorter wird verwendet, um die Sortierfunktionalität für die Tabelle zu aktivieren.
-     * Ermöglicht es dem Benutzer, die Tabellenzeilen nach Spalten zu sortieren.
+     * DatenbankSortierer wird verwendet, um die Sortierfunktionalität für die Tabelle zu aktivieren.
+     * Ermöglicht es dem Benutzer, die Tabellenzeilen nach Spalten zu sortieren; sortiert wird in der Datenbank.
      */
-    private final TableRowSorter<DefaultTableModel> sorter;
+    private final DatenbankSortierer sorter;
 
-    // DatenbankManager verwaltet die Datenbankoperationen, wie das Abrufen, Hinzufügen und Löschen von Einträgen.
-    private final DatenbankManager dbManager = new DatenbankManager();
+    /*
+     * DatenbankManager verwaltet die Datenbankoperationen, wie das Abrufen, Hinzufügen und Löschen von Einträgen.
+     * Die Datenbank wird im Hintergrund geöffnet und geprüft, damit das Fenster sofort erscheint;
+     * die ersten Abfragen warten darauf.
+     */
+    private final DatenbankManager dbManager = DatenbankManager.imHintergrundStarten();
+
+    // Dauer der einzelnen Startphasen (Fenster gezeichnet, Daten geladen, bedienbar).
+    private final Startphasen startphasen = new Startphasen(dbManager.getMesswerte());
+
+    /*
+     * Hintergrund-Thread für alle Datenbankoperationen des Fensters.
+     * Die Operationen laufen damit nicht auf dem Event Dispatch Thread und werden in der Reihenfolge
+     * ausgeführt, in der der Benutzer sie ausgelöst hat (z.B. erst Speichern, dann Summe neu berechnen).
+     */
+    private final ExecutorService datenbankThread = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "HaushaltsBuch-Datenbank");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     // Textfelder und andere UI-Komponenten zum Eingeben und Anzeigen von Daten.
     private final JTextField betragField;
@@ -42,6 +73,51 @@ public class HaushaltsBuch extends JFrame {
     private final JLabel sumLabel;
     private final JTextField filterField;
     private final JComboBox<String> filterColumnBox;
+    private final JTextField filterVonField;
+    private final JTextField filterBisField;
+    private final JTextField filterBetragVonField;
+    private final JTextField filterBetragBisField;
+
+    // Auswahl eines Monats, Quartals oder Jahres; füllt die Felder Von/Bis, sodass nur dieser Zeitraum geladen wird.
+    private final JComboBox<Object> zeitraumBox;
+    private final JLabel zeitraumLabel;
+    private final JButton zeitraumZurueckButton;
+    private final JButton zeitraumVorButton;
+
+    /*
+     * Wartezeit nach der letzten Eingabe in einem Filterfeld, bevor der Filter angewendet wird.
+     * So wird beim Tippen nicht für jeden Buchstaben eine Abfrage an die Datenbank gestellt.
+     */
+    private static final int FILTER_VERZOEGERUNG_MS = 300;
+
+    // Höchstens so lange wird vor dem Löschen vieler Einträge gewartet, bis der Schreibpuffer im Journal ist.
+    private static final long PUFFER_LEEREN_MS = 5000;
+    private final Timer filterTimer;
+
+    /*
+     * Holt regelmäßig die Änderungen anderer Anwendungen aus der Datenbank (siehe EintragTableModel.aktualisieren).
+     * Der Abstand in Sekunden lässt sich mit der Systemeigenschaft "aktualisierung.sekunden" einstellen.
+     */
+    private final Timer aktualisierungTimer;
+    private final JProgressBar ladeBalken;
+    private final JButton ladenAbbrechenButton;
+    private final JLabel speicherStatus;
+
+    /*
+     * Sammelt Änderungen aus der Tabelle und schreibt sie verzögert und gebündelt in die Datenbank.
+     * Zeilen mit noch nicht gespeicherten Änderungen werden kursiv und farbig hinterlegt angezeigt.
+     */
+    private final Schreibpuffer schreibpuffer;
+
+    /*
+     * Neue, geänderte und gelöschte Einträge werden zuerst in das lokale Journal geschrieben und von dort im
+     * Hintergrund in die Datenbank übertragen; so geht auch bei einer unterbrochenen Verbindung nichts verloren.
+     */
+    private final Journal journal;
+    private final JournalAbgleich abgleich;
+
+    // Hintergrund von Zeilen, deren Änderungen noch nicht gespeichert sind.
+    private static final Color AUSSTEHEND_FARBE = new Color(255, 245, 200);
 
     public HaushaltsBuch() {
 
@@ -55,6 +131,37 @@ public class HaushaltsBuch extends JFrame {
         setLayout(new BorderLayout());
         setLocationRelativeTo(null);
 
+        /*
+         * Beim Schließen des Fensters den Hintergrund-Thread abarbeiten lassen, Schreibpuffer und Journal in die
+         * Datenbank übertragen, die Momentaufnahme schreiben und den Verbindungspool schließen.
+         */
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                aktualisierungTimer.stop();
+                // Noch ausstehende Schreibvorgänge abschließen lassen, bevor die Verbindungen geschlossen werden.
+                // Laufende Hintergrundaufgaben zuerst, da sie noch in das Journal schreiben können.
+                datenbankThread.shutdown();
+                try {
+                    datenbankThread.awaitTermination(5, TimeUnit.SECONDS);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+                schreibpuffer.close();
+                abgleich.close();
+                // Nur wenn alles in der Datenbank ist, stimmt eine Momentaufnahme mit dem nächsten Start überein.
+                if (schreibpuffer.getAnzahlAusstehend() == 0 && abgleich.getAnzahlOffen() == 0) {
+                    momentaufnahmeSchreiben();
+                }
+                try {
+                    journal.close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+                dbManager.close();
+            }
+        });
+
          //Erstellen einer Menüleiste mit Optionen zum Löschen aller Einträge oder Kategorien.
         JMenuBar menuBar = new JMenuBar();
         JMenu menu = new JMenu("Optionen");
@@ -68,102 +175,126 @@ public class HaushaltsBuch extends JFrame {
         deleteAllCategoriesItem.addActionListener(e -> deleteAllCategories());
         menu.add(deleteAllCategoriesItem);
 
+        menu.addSeparator();
+        JMenuItem importItem = new JMenuItem("Kontoauszug importieren…");
+        importItem.addActionListener(e -> importKontoauszug());
+        menu.add(importItem);
+
+        JMenuItem exportItem = new JMenuItem("Einträge exportieren…");
+        exportItem.addActionListener(e -> exportEntries());
+        menu.add(exportItem);
+
+        menu.addSeparator();
+        JMenuItem auswertungItem = new JMenuItem("Auswertung nach Monat und Kategorie…");
+        auswertungItem.addActionListener(e -> showMonatsauswertung());
+        menu.add(auswertungItem);
+
+        JMenuItem pruefenItem = new JMenuItem("Monatssummen prüfen…");
+        pruefenItem.addActionListener(e -> monatssummenPruefen());
+        menu.add(pruefenItem);
+
+        JMenuItem archivItem = new JMenuItem("Abgeschlossene Jahre auslagern…");
+        archivItem.addActionListener(e -> jahreAuslagern());
+        menu.add(archivItem);
+
+        menu.addSeparator();
+        JMenuItem diagnoseItem = new JMenuItem("Diagnose…");
+        diagnoseItem.addActionListener(e -> new DiagnoseDialog(this, dbManager.getMesswerte()).setVisible(true));
+        menu.add(diagnoseItem);
+
         menuBar.add(menu);
         setJMenuBar(menuBar);
 
         /*
          * Definieren der Spalten für die Tabelle und Einrichten der JTable zur Anzeige der Einträge.
          */
-        String[] columns = {"ID", "Bezeichnung", "Einnahmen", "Ausgaben", "Datum", "Info"};
-        tableModel = new DefaultTableModel(columns, 0);
+        String[] columns = EintragSpalte.ueberschriften();
+        tableModel = new EintragTableModel(dbManager);
         JTable table = new JTable(tableModel);
-        table.setAutoCreateRowSorter(true);
-        sorter = new TableRowSorter<>(tableModel);
-        table.setRowSorter(sorter);
-        JScrollPane scrollPane = new JScrollPane(table);
-        add(scrollPane, BorderLayout.CENTER);
-
-        // Anpassung der Spaltenbreite zur besseren Darstellung der Tabelle
-        table.getColumnModel().getColumn(0).setPreferredWidth(25);
-        table.getColumnModel().getColumn(5).setPreferredWidth(250);
-
-        /*
-         * Einrichten der Spaltenausrichtung für verschiedene Datentypen.
-         * Die Spalten mit numerischen Werten werden rechtsbündig dargestellt, während andere links- oder zentriert ausgerichtet werden.
-         */
-        DefaultTableCellRenderer rightRenderer = new DefaultTableCellRenderer();
-        rightRenderer.setHorizontalAlignment(SwingConstants.RIGHT);
-        DefaultTableCellRenderer centerRenderer = new DefaultTableCellRenderer();
-        centerRenderer.setHorizontalAlignment(SwingConstants.CENTER);
-        DefaultTableCellRenderer leftRenderer = new DefaultTableCellRenderer();
-        leftRenderer.setHorizontalAlignment(SwingConstants.LEFT);
-
-        // Anwenden der Renderer auf die entsprechenden Spalten
-        table.getColumnModel().getColumn(0).setCellRenderer(rightRenderer); // ID-Spalte
-        table.getColumnModel().getColumn(1).setCellRenderer(centerRenderer); // Bezeichnung-Spalte
-        table.getColumnModel().getColumn(2).setCellRenderer(rightRenderer); // Einnahmen-Spalte
-        table.getColumnModel().getColumn(3).setCellRenderer(rightRenderer); // Ausgaben-Spalte
-        table.getColumnModel().getColumn(4).setCellRenderer(centerRenderer); // Datum-Spalte
-        table.getColumnModel().getColumn(5).setCellRenderer(leftRenderer); // Info-Spalte
-
-        /*
-         * Sicherstellen, dass der Renderer auch für bearbeitete Zellen verwendet wird.
-         * Dies betrifft das Layout beim Bearbeiten von Zellen.
-         */
-        table.getColumnModel().getColumn(0).setCellEditor(new DefaultCellEditor(new JTextField()) {
+        journal = journalOeffnen();
+        // Eigene Änderungen gelten beim Prüfen auf gleichzeitige Änderungen nicht als Konflikt, auch nach einem Neustart.
+        dbManager.setKennung(journal.getKennung());
+        abgleich = new JournalAbgleich(dbManager, journal, new JournalAbgleich.Beobachter() {
             @Override
-            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
-                JTextField editor = (JTextField) super.getTableCellEditorComponent(table, value, isSelected, row, column);
-                editor.setHorizontalAlignment(SwingConstants.RIGHT);
-                return editor;
+            public void eingefuegt(Eintrag eintrag) {
+                tableModel.eintragAngehaengt(eintrag);
             }
-        });
 
-        // Ähnliche Konfiguration für alle anderen Spalten
-        table.getColumnModel().getColumn(1).setCellEditor(new DefaultCellEditor(new JTextField()) {
             @Override
-            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
-                JTextField editor = (JTextField) super.getTableCellEditorComponent(table, value, isSelected, row, column);
-                editor.setHorizontalAlignment(SwingConstants.CENTER);
-                return editor;
+            public void wiederhergestellt() {
+                // Einträge aus der letzten Sitzung sind jetzt in der Datenbank und haben ihre IDs.
+                tableModel.aktualisieren();
             }
-        });
 
-        table.getColumnModel().getColumn(2).setCellEditor(new DefaultCellEditor(new JTextField()) {
             @Override
-            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
-                JTextField editor = (JTextField) super.getTableCellEditorComponent(table, value, isSelected, row, column);
-                editor.setHorizontalAlignment(SwingConstants.RIGHT);
-                return editor;
+            public void konflikt(List<Eintrag> eintraege) {
+                JOptionPane.showMessageDialog(HaushaltsBuch.this, eintraege.size() == 1
+                                ? "Ein Eintrag wurde inzwischen an anderer Stelle geändert, gelöscht oder ausgelagert; Ihre Änderung wurde nicht gespeichert."
+                                : eintraege.size() + " Einträge wurden inzwischen an anderer Stelle geändert, gelöscht oder ausgelagert; Ihre Änderungen wurden nicht gespeichert.",
+                        "Gleichzeitige Änderung", JOptionPane.WARNING_MESSAGE);
+                // Zeigt den Stand der anderen Änderung an.
+                tableModel.aktualisieren();
             }
-        });
 
-        table.getColumnModel().getColumn(3).setCellEditor(new DefaultCellEditor(new JTextField()) {
             @Override
-            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
-                JTextField editor = (JTextField) super.getTableCellEditorComponent(table, value, isSelected, row, column);
-                editor.setHorizontalAlignment(SwingConstants.RIGHT);
-                return editor;
+            public void geloescht(boolean alle) {
+                if (alle) {
+                    tableModel.gesamtNeuBerechnen();
+                    loadEntries();
+                } else {
+                    // Die gelöschten Zeilen kommen als Löschungen über die Änderungsnummern.
+                    tableModel.aktualisieren();
+                }
             }
-        });
 
-        table.getColumnModel().getColumn(4).setCellEditor(new DefaultCellEditor(new JTextField()) {
             @Override
-            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
-                JTextField editor = (JTextField) super.getTableCellEditorComponent(table, value, isSelected, row, column);
-                editor.setHorizontalAlignment(SwingConstants.CENTER);
-                return editor;
+            public void verworfen(JournalEintrag operation, String grund) {
+                JOptionPane.showMessageDialog(HaushaltsBuch.this,
+                        "Eine gespeicherte Änderung wurde von der Datenbank abgelehnt und verworfen:\n" + grund,
+                        "Änderung verworfen", JOptionPane.WARNING_MESSAGE);
+                // Zeigt wieder den Stand der Datenbank an.
+                loadEntries();
             }
-        });
 
-        table.getColumnModel().getColumn(5).setCellEditor(new DefaultCellEditor(new JTextField()) {
             @Override
-            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
-                JTextField editor = (JTextField) super.getTableCellEditorComponent(table, value, isSelected, row, column);
-                editor.setHorizontalAlignment(SwingConstants.LEFT);
-                return editor;
+            public void statusGeaendert() {
+                speicherStatusAnzeigen();
             }
         });
+        schreibpuffer = new Schreibpuffer(abgleich::aendern, () -> {
+            table.repaint();
+            speicherStatusAnzeigen();
+        });
+        tableModel.setSchreibpuffer(schreibpuffer);
+        sorter = new DatenbankSortierer(tableModel);
+        table.setRowSorter(sorter);
+        JScrollPane scrollPane = new JScrollPane(table);
+        add(scrollPane, BorderLayout.CENTER);
+
+        // Anpassung der Spaltenbreite zur besseren Darstellung der Tabelle
+        table.getColumnModel().getColumn(0).setPreferredWidth(25);
+        table.getColumnModel().getColumn(5).setPreferredWidth(250);
+
+        /*
+         * Einrichten der Spaltenausrichtung für verschiedene Datentypen.
+         * Die Spalten mit numerischen Werten werden rechtsbündig dargestellt, während andere links- oder zentriert ausgerichtet werden.
+         * Das Modell liefert die Werte unformatiert; Renderer und Editor jeder Spalte formatieren sie erst beim Zeichnen
+         * bzw. Bearbeiten (siehe EintragSpalte.formatieren) und geben bearbeitete Werte geparst zurück.
+         */
+        int[] ausrichtungen = {
+                SwingConstants.RIGHT,  // ID-Spalte
+                SwingConstants.CENTER, // Bezeichnung-Spalte
+                SwingConstants.RIGHT,  // Einnahmen-Spalte
+                SwingConstants.RIGHT,  // Ausgaben-Spalte
+                SwingConstants.CENTER, // Datum-Spalte
+                SwingConstants.LEFT    // Info-Spalte
+        };
+        for (EintragSpalte spalte : EintragSpalte.values()) {
+            int ausrichtung = ausrichtungen[spalte.ordinal()];
+            table.getColumnModel().getColumn(spalte.ordinal()).setCellRenderer(zellenRenderer(spalte, ausrichtung));
+            table.getColumnModel().getColumn(spalte.ordinal()).setCellEditor(spalte == EintragSpalte.BEZEICHNUNG
+                    ? bezeichnungEditor() : zellenEditor(spalte, ausrichtung));
+        }
 
         /*
          * Hinzufügen eines MouseListeners zur Tabelle für das Kontextmenü bei Rechtsklick.
@@ -222,8 +353,10 @@ public class HaushaltsBuch extends JFrame {
             dialog.setVisible(true);
             Kategorie neueKategorie = dialog.getNeueKategorie();
             if (neueKategorie != null) {
-                dbManager.addKategorie(neueKategorie);
-                kategorieBox.addItem(neueKategorie.getName());
+                imHintergrund(() -> {
+                    dbManager.addKategorie(neueKategorie);
+                    return null;
+                }, ergebnis -> kategorieBox.addItem(neueKategorie.getName()));
             }
         });
 
@@ -231,8 +364,10 @@ public class HaushaltsBuch extends JFrame {
         deleteCategoryButton.addActionListener(e -> {
             String selectedCategory = (String) kategorieBox.getSelectedItem();
             if (selectedCategory != null) {
-                dbManager.deleteKategorie(selectedCategory);
-                kategorieBox.removeItem(selectedCategory);
+                imHintergrund(() -> {
+                    dbManager.deleteKategorie(selectedCategory);
+                    return null;
+                }, ergebnis -> kategorieBox.removeItem(selectedCategory));
             }
         });
 
@@ -285,22 +420,21 @@ public class HaushaltsBuch extends JFrame {
         clearButton.addActionListener(e -> clearFields());
 
         /*
-         * Aktualisieren der Datenbank, wenn die Tabelle geändert wird, und Berechnen der neuen Summe.
-         * Diese Funktionalität stellt sicher, dass Änderungen direkt in der Datenbank gespeichert werden.
+         * Aktualisieren der Datenbank, wenn eine Zelle der Tabelle bearbeitet wird.
+         * Diese Funktionalität stellt sicher, dass Änderungen direkt in der Datenbank gespeichert werden;
+         * die Summe wird nach dem Speichern neu berechnet.
          */
         tableModel.addTableModelListener(e -> {
             if (e.getType() == TableModelEvent.UPDATE) {
                 int row = e.getFirstRow();
                 int column = e.getColumn();
-                if (column != 0) {
+                // Nachgeladene Seiten melden alle Spalten; nur einzelne bearbeitete Zellen werden gespeichert.
+                if (column != 0 && column != TableModelEvent.ALL_COLUMNS && row == e.getLastRow()) {
                     updateDatabase(row);
                 }
             }
-            updateSum();
         });
 
-        loadEntries(); // Lädt bestehende Einträge aus der Datenbank in die Tabelle
-
         /*
          * Erstellen eines Filterpanels zur Suche von Einträgen.
          * Das Panel enthält ein Textfeld und eine ComboBox, um nach bestimmten Einträgen zu filtern.
@@ -311,25 +445,122 @@ public class HaushaltsBuch extends JFrame {
         filterPanel.add(filterField);
         filterColumnBox = new JComboBox<>(columns);
         filterPanel.add(filterColumnBox);
+        filterPanel.add(new JLabel("Zeitraum:"));
+        zeitraumBox = new JComboBox<>(new Object[]{"Alle", Zeitraum.Art.MONAT, Zeitraum.Art.QUARTAL, Zeitraum.Art.JAHR});
+        filterPanel.add(zeitraumBox);
+        zeitraumZurueckButton = new JButton("◀");
+        zeitraumZurueckButton.setToolTipText("Vorheriger Zeitraum");
+        filterPanel.add(zeitraumZurueckButton);
+        zeitraumLabel = new JLabel();
+        filterPanel.add(zeitraumLabel);
+        zeitraumVorButton = new JButton("▶");
+        zeitraumVorButton.setToolTipText("Nächster Zeitraum");
+        filterPanel.add(zeitraumVorButton);
+        zeitraumZurueckButton.setEnabled(false);
+        zeitraumVorButton.setEnabled(false);
+        filterPanel.add(new JLabel("Von:"));
+        filterVonField = new JTextField(7);
+        filterVonField.setToolTipText("Datum ab (TT.MM.JJJJ)");
+        filterPanel.add(filterVonField);
+        filterPanel.add(new JLabel("Bis:"));
+        filterBisField = new JTextField(7);
+        filterBisField.setToolTipText("Datum bis (TT.MM.JJJJ)");
+        filterPanel.add(filterBisField);
+        filterPanel.add(new JLabel("Betrag:"));
+        filterBetragVonField = new JTextField(5);
+        filterBetragVonField.setToolTipText("Betrag ab");
+        filterPanel.add(filterBetragVonField);
+        filterPanel.add(new JLabel("–"));
+        filterBetragBisField = new JTextField(5);
+        filterBetragBisField.setToolTipText("Betrag bis");
+        filterPanel.add(filterBetragBisField);
+
+        /*
+         * Fortschrittsanzeige und Abbrechen-Button für das Laden der Einträge im Hintergrund.
+         * Beide sind nur sichtbar, solange Einträge geladen werden.
+         */
+        ladeBalken = new JProgressBar(0, 100);
+        ladeBalken.setStringPainted(true);
+        ladeBalken.setVisible(false);
+        filterPanel.add(ladeBalken);
+        ladenAbbrechenButton = new JButton("Laden abbrechen");
+        ladenAbbrechenButton.setVisible(false);
+        ladenAbbrechenButton.addActionListener(e -> tableModel.abbrechen());
+        filterPanel.add(ladenAbbrechenButton);
+        speicherStatus = new JLabel();
+        filterPanel.add(speicherStatus);
+        tableModel.addPropertyChangeListener(e -> {
+            if (EintragTableModel.LADEFORTSCHRITT.equals(e.getPropertyName())) {
+                int fortschritt = (Integer) e.getNewValue();
+                if (fortschritt < 0) {
+                    startphaseErreicht("eintraege");
+                }
+                ladeBalken.setVisible(fortschritt >= 0);
+                ladenAbbrechenButton.setVisible(fortschritt >= 0);
+                ladeBalken.setValue(Math.max(fortschritt, 0));
+                ladeBalken.setString("Lade Einträge… " + Math.max(fortschritt, 0) + " %");
+            } else if (EintragTableModel.SUMMEN.equals(e.getPropertyName())) {
+                updateSum();
+            } else if (EintragTableModel.KATEGORIEN.equals(e.getPropertyName())) {
+                loadKategorien();
+            }
+        });
         add(filterPanel, BorderLayout.SOUTH);
 
-        // Listener hinzufügen, um den Filter anzuwenden, wenn sich der Text im Filterfeld ändert
-        filterField.getDocument().addDocumentListener(new DocumentListener() {
+        // Die Momentaufnahme vom letzten Beenden zeigt die ersten Seiten sofort; geprüft wird sie beim Laden.
+        Momentaufnahme momentaufnahme = momentaufnahmeLaden();
+        if (momentaufnahme != null && tableModel.vorabAnzeigen(momentaufnahme)) {
+            startphasen.erreicht("momentaufnahme");
+        }
+        loadEntries(); // Lädt bestehende Einträge aus der Datenbank in die Tabelle
+
+        // Solange eigene Änderungen unterwegs sind, wird nicht aktualisiert; sie würden sonst zweimal gezählt.
+        aktualisierungTimer = new Timer(Integer.getInteger("aktualisierung.sekunden", 5) * 1000, e -> {
+            if (schreibpuffer.getAnzahlAusstehend() == 0 && abgleich.getAnzahlOffen() == 0) {
+                tableModel.aktualisieren();
+            }
+        });
+        aktualisierungTimer.start();
+
+        /*
+         * Listener hinzufügen, um den Filter anzuwenden, wenn sich der Text in einem Filterfeld ändert.
+         * Jede Änderung startet den Timer neu; angewendet wird erst, wenn FILTER_VERZOEGERUNG_MS lang nichts getippt wurde.
+         */
+        filterTimer = new Timer(FILTER_VERZOEGERUNG_MS, e -> applyFilter());
+        filterTimer.setRepeats(false);
+        DocumentListener filterAenderung = new DocumentListener() {
             @Override
             public void insertUpdate(DocumentEvent e) {
-                applyFilter();
+                filterTimer.restart();
             }
 
             @Override
             public void removeUpdate(DocumentEvent e) {
-                applyFilter();
+                filterTimer.restart();
             }
 
             @Override
             public void changedUpdate(DocumentEvent e) {
+                filterTimer.restart();
+            }
+        };
+        for (JTextField feld : new JTextField[]{filterField, filterVonField, filterBisField, filterBetragVonField, filterBetragBisField}) {
+            feld.getDocument().addDocumentListener(filterAenderung);
+        }
+        // Eine andere Filterspalte wird sofort übernommen.
+        filterColumnBox.addActionListener(e -> applyFilter());
+        // Ein gewählter Zeitraum beginnt beim aktuellen Monat, Quartal oder Jahr; die Pfeile blättern weiter.
+        zeitraumBox.addActionListener(e -> {
+            if (zeitraumBox.getSelectedItem() instanceof Zeitraum.Art) {
+                setZeitraum(Zeitraum.mit((Zeitraum.Art) zeitraumBox.getSelectedItem(), LocalDate.now()));
+            } else {
+                filterVonField.setText("");
+                filterBisField.setText("");
                 applyFilter();
             }
         });
+        zeitraumZurueckButton.addActionListener(e -> setZeitraum(gewaehlterZeitraum().vorheriger()));
+        zeitraumVorButton.addActionListener(e -> setZeitraum(gewaehlterZeitraum().naechster()));
     }
 
     /*
@@ -349,54 +580,145 @@ public class HaushaltsBuch extends JFrame {
      * Die Änderungen werden auch in der Benutzeroberfläche sichtbar gemacht.
      */
     private void deleteRows(int[] rows) {
-        try (Connection conn = DriverManager.getConnection(dbManager.getUrl(), dbManager.getUser(), dbManager.getPassword())) {
-            conn.setAutoCommit(false);
-            String deleteSql = "DELETE FROM eintraege WHERE id = ?";
-            try (PreparedStatement pstmt = conn.prepareStatement(deleteSql)) {
-                for (int row : rows) {
-                    int id = (int) tableModel.getValueAt(row, 0);
-                    pstmt.setInt(1, id);
-                    pstmt.addBatch();
-                }
-                pstmt.executeBatch();
+        // Die IDs werden auf dem Event Dispatch Thread gelesen, gelöscht wird im Hintergrund.
+        // Zeilen ausgelagerter Jahre bleiben stehen; sie werden nur beim Aufräumen gelöscht.
+        int[] ids = new int[rows.length];
+        int[] zeilen = new int[rows.length];
+        int anzahl = 0;
+        for (int row : rows) {
+            int id = tableModel.getId(row);
+            if (id >= 0 && !tableModel.isArchiviert(row)) {
+                zeilen[anzahl] = row;
+                ids[anzahl++] = id;
             }
-            conn.commit();
-            for (int i = rows.length - 1; i >= 0; i--) {
-                tableModel.removeRow(rows[i]);
-            }
-            updateSum();
-        } catch (SQLException e) {
-            e.printStackTrace();
         }
+        int[] zuLoeschen = Arrays.copyOf(ids, anzahl);
+        SummenAggregator entfernt = tableModel.summeDerZeilen(Arrays.copyOf(zeilen, anzahl));
+        imHintergrund(() -> {
+            abgleich.loeschen(zuLoeschen);
+            return null;
+        }, ergebnis -> tableModel.eintraegeEntfernt(zuLoeschen, entfernt));
     }
 
     /*
      * Wendet einen Filter auf die Tabelle basierend auf der Benutzereingabe an.
      * Ermöglicht es dem Benutzer, die angezeigten Einträge zu durchsuchen und zu filtern.
+     * Gefiltert wird in der Datenbank; die Tabelle lädt nur neu, wenn sich die Abfrage tatsächlich geändert hat.
+     * Ungültige Eingaben in den Bereichsfeldern werden rot markiert und bis zur Korrektur ignoriert.
      */
     private void applyFilter() {
+        filterTimer.stop();
         String text = filterField.getText();
         int columnIndex = filterColumnBox.getSelectedIndex();
-        if (text.trim().isEmpty()) {
-            sorter.setRowFilter(null);
-        } else {
-            sorter.setRowFilter(RowFilter.regexFilter("(?i)" + text, columnIndex));
+        LocalDate von = datumAusFeld(filterVonField);
+        LocalDate bis = datumAusFeld(filterBisField);
+        Long betragVon = betragAusFeld(filterBetragVonField);
+        Long betragBis = betragAusFeld(filterBetragBisField);
+        zeitraumAnzeigen(von, bis);
+        tableModel.setAbfrage(tableModel.getAbfrage()
+                .mitFilter(EintragSpalte.values()[columnIndex], text)
+                .mitZeitraum(von, bis)
+                .mitBetragsbereich(betragVon, betragBis));
+    }
+
+    // Trägt den Zeitraum in die Felder Von/Bis ein und wendet den Filter sofort an.
+    private void setZeitraum(Zeitraum zeitraum) {
+        DateTimeFormatter format = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+        filterVonField.setText(zeitraum.getVon().format(format));
+        filterBisField.setText(zeitraum.getBis().format(format));
+        applyFilter();
+    }
+
+    // Der Zeitraum der gewählten Art, in dem das Von-Datum liegt (ohne gültiges Von-Datum: der aktuelle).
+    private Zeitraum gewaehlterZeitraum() {
+        LocalDate von = datumAusFeld(filterVonField);
+        return Zeitraum.mit((Zeitraum.Art) zeitraumBox.getSelectedItem(), von != null ? von : LocalDate.now());
+    }
+
+    /*
+     * Zeigt den Namen des Zeitraums an, wenn Von/Bis genau einem Zeitraum der gewählten Art entsprechen.
+     * Werden die Felder von Hand geändert, bleibt die Anzeige leer.
+     */
+    private void zeitraumAnzeigen(LocalDate von, LocalDate bis) {
+        boolean gewaehlt = zeitraumBox.getSelectedItem() instanceof Zeitraum.Art;
+        zeitraumZurueckButton.setEnabled(gewaehlt);
+        zeitraumVorButton.setEnabled(gewaehlt);
+        Zeitraum zeitraum = gewaehlt && von != null ? Zeitraum.mit((Zeitraum.Art) zeitraumBox.getSelectedItem(), von) : null;
+        zeitraumLabel.setText(zeitraum != null && zeitraum.getVon().equals(von) && zeitraum.getBis().equals(bis)
+                ? zeitraum.toString() : "");
+    }
+
+    // Liest ein Datum aus einem Filterfeld; leer oder ungültig ergibt null.
+    private LocalDate datumAusFeld(JTextField feld) {
+        String text = feld.getText().trim();
+        LocalDate datum = null;
+        if (!text.isEmpty()) {
+            try {
+                datum = LocalDate.parse(text, DateTimeFormatter.ofPattern("dd.MM.yyyy"));
+            } catch (DateTimeParseException e) {
+                // bleibt null
+            }
+        }
+        eingabeMarkieren(feld, text.isEmpty() || datum != null);
+        return datum;
+    }
+
+    // Liest einen Betrag in Cent aus einem Filterfeld; leer oder ungültig ergibt null.
+    private Long betragAusFeld(JTextField feld) {
+        String text = feld.getText().trim();
+        Long cent = null;
+        if (!text.isEmpty()) {
+            try {
+                cent = Math.abs(Geld.parsen(text));
+            } catch (NumberFormatException e) {
+                // bleibt null
+            }
         }
+        eingabeMarkieren(feld, text.isEmpty() || cent != null);
+        return cent;
+    }
+
+    private void eingabeMarkieren(JTextField feld, boolean gueltig) {
+        feld.setBackground(gueltig ? UIManager.getColor("TextField.background") : new Color(255, 200, 200));
     }
 
     /*
      * Lädt die Kategorien aus der Datenbank in die ComboBox.
-     * Die Kategorien werden alphabetisch sortiert und der ComboBox hinzugefügt.
+     * Die Kategorien kommen alphabetisch sortiert aus dem Katalog des DatenbankManagers und werden der ComboBox hinzugefügt.
+     * Das Laden hängt von keiner anderen Operation ab und läuft daher asynchron neben dem Hintergrund-Thread,
+     * beim Start also gleichzeitig mit dem Laden der Einträge.
      */
     private void loadKategorien() {
-        List<Kategorie> kategorien = dbManager.getAllKategorien();
-        kategorien.sort(Comparator.comparing(Kategorie::getName));
-        kategorieBox.removeAllItems();
-        for (Kategorie kategorie : kategorien) {
-            kategorieBox.addItem(kategorie.getName());
+        dbManager.getAllKategorienAsync().whenComplete((kategorien, fehler) -> SwingUtilities.invokeLater(() -> {
+            if (fehler != null) {
+                fehler.printStackTrace();
+                return;
+            }
+            kategorieBox.removeAllItems();
+            for (Kategorie kategorie : kategorien) {
+                kategorieBox.addItem(kategorie.getName());
+            }
+            startphaseErreicht("kategorien");
+        }));
+    }
+
+    /*
+     * Kategorien und Einträge werden beim Start gleichzeitig geladen; sobald beides da ist, ist das Fenster bedienbar.
+     */
+    private void startphaseErreicht(String phase) {
+        startphasen.erreicht(phase);
+        if (startphasen.istErreicht("kategorien") && startphasen.istErreicht("eintraege")) {
+            startphasen.erreicht("bedienbar");
         }
     }
 
+    // Misst beim ersten Aufruf die Zeit bis zum ersten Zeichnen des Fensters.
+    @Override
+    public void paint(Graphics g) {
+        super.paint(g);
+        startphasen.erreicht("erstesZeichnen");
+    }
+
     /*
      * Speichert einen neuen Eintrag in der Datenbank und aktualisiert die Tabelle.
      * Stellt sicher, dass alle notwendigen Felder korrekt ausgefüllt sind, bevor der Eintrag gespeichert wird.
@@ -407,12 +729,9 @@ public class HaushaltsBuch extends JFrame {
             return;
         }
         try {
-            String betragText = betragField.getText().trim().replace('.', ',');
-            NumberFormat format = NumberFormat.getInstance(Locale.GERMANY);
-            Number number = format.parse(betragText);
-            double betrag = number.doubleValue();
+            long betragCent = Geld.parsen(betragField.getText());
 
-            if (betrag <= 0) {
+            if (betragCent <= 0) {
                 JOptionPane.showMessageDialog(this, "Bitte geben Sie einen Betrag größer als 0 ein.", "Ungültiger Betrag", JOptionPane.WARNING_MESSAGE);
                 return;
             }
@@ -420,15 +739,28 @@ public class HaushaltsBuch extends JFrame {
             String kategorieName = (String) kategorieBox.getSelectedItem();
             String typ = (String) typBox.getSelectedItem();
 
-            Kategorie kategorie = new Kategorie(kategorieName);
+            Kategorie kategorie = dbManager.getKategorie(kategorieName);
 
-            Eintrag eintrag = new Eintrag(0, kategorieName, betrag, LocalDate.now(), infoField.getText().trim(), kategorie, typ);
-            dbManager.addEintrag(eintrag);
-            loadEntries();
+            Eintrag eintrag = new Eintrag(0, kategorieName, betragCent, LocalDate.now(), infoField.getText().trim(), kategorie, typ);
+            // Vor dem Journal prüfen: Was die Datenbank später ablehnt, ginge nach dem Speichern verloren.
+            try {
+                DatenbankManager.pruefen(eintrag);
+            } catch (IllegalArgumentException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Ungültige Eingabe", JOptionPane.WARNING_MESSAGE);
+                return;
+            }
+            /*
+             * Gespeichert ist der Eintrag, sobald er im Journal steht. In der Tabelle erscheint er erst mit der
+             * ID, die die Datenbank beim Übertragen vergibt (siehe JournalAbgleich.Beobachter).
+             */
+            imHintergrund(() -> {
+                abgleich.einfuegen(eintrag);
+                return null;
+            }, null);
 
             betragField.setText("");
             infoField.setText("");
-        } catch (ParseException ex) {
+        } catch (NumberFormatException | ArithmeticException ex) {
             JOptionPane.showMessageDialog(this, "Bitte geben Sie eine gültige Zahl im Format '0,00' ein.", "Ungültiger Betrag", JOptionPane.ERROR_MESSAGE);
         }
     }
@@ -440,11 +772,37 @@ public class HaushaltsBuch extends JFrame {
     private void deleteTodayEntries() {
         int response = JOptionPane.showConfirmDialog(this, "Möchten Sie wirklich alle Einträge des heutigen Tages löschen?", "Bestätigung", JOptionPane.YES_NO_OPTION);
         if (response == JOptionPane.YES_OPTION) {
-            dbManager.deleteTodayEntries();
-            loadEntries();
+            // Nur die gelöschten Zeilen werden aus der Tabelle entfernt, sobald das Löschen übertragen ist.
+            LocalDate heute = LocalDate.now();
+            ueberJournalLoeschen(() -> abgleich.tagLoeschen(heute));
         }
     }
 
+    // Eine Operation, die an das Journal angehängt wird.
+    private interface JournalOperation {
+        void anhaengen() throws IOException;
+    }
+
+    /*
+     * Hängt das Löschen vieler Einträge an das Journal an, in derselben Reihenfolge wie Speichern und Bearbeiten.
+     * Noch ausstehende Änderungen aus dem Schreibpuffer kommen vorher ins Journal, damit sie nicht erst nach dem
+     * Löschen übertragen werden; gelingt das nicht, wird nichts gelöscht.
+     */
+    private void ueberJournalLoeschen(JournalOperation loeschen) {
+        imHintergrund(() -> {
+            if (!schreibpuffer.leeren(PUFFER_LEEREN_MS)) {
+                return false;
+            }
+            loeschen.anhaengen();
+            return true;
+        }, angenommen -> {
+            if (!angenommen) {
+                JOptionPane.showMessageDialog(this, "Noch nicht gespeicherte Änderungen konnten nicht gesichert werden; es wurde nichts gelöscht.",
+                        "Löschen nicht möglich", JOptionPane.WARNING_MESSAGE);
+            }
+        });
+    }
+
     /*
      * Leert die Eingabefelder für einen neuen Eintrag.
      * Setzt die Textfelder für Betrag und Info auf leeren Inhalt zurück.
@@ -455,105 +813,161 @@ public class HaushaltsBuch extends JFrame {
     }
 
     /*
-     * Lädt alle Einträge aus der Datenbank in die Tabelle und aktualisiert die Summe.
-     * Jeder Eintrag wird in der Tabelle angezeigt und die Summe aller Einträge wird berechnet.
+     * Lädt die Einträge aus der Datenbank neu in die Tabelle und aktualisiert die Summe.
+     * Es werden nur die Anzahl der Einträge und ihre Summen ermittelt; die Zeilen selbst lädt das Modell
+     * seitenweise im Hintergrund, während die Oberfläche bedienbar bleibt.
      */
     private void loadEntries() {
-        List<Eintrag> eintraege = dbManager.getAllEintraege();
-        tableModel.setRowCount(0);
-        double sum = 0;
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        for (Eintrag eintrag : eintraege) {
-            tableModel.addRow(new Object[]{
-                    eintrag.getId(),
-                    eintrag.getBezeichnung(),
-                    eintrag.getTyp().equals("Einnahme") ? String.format(Locale.GERMANY, "%.2f", eintrag.getBetrag()) : "",
-                    eintrag.getTyp().equals("Ausgabe") ? String.format(Locale.GERMANY, "%.2f", Math.abs(eintrag.getBetrag())) : "",
-                    eintrag.getDatum().format(formatter),
-                    eintrag.getInfo()
-            });
-            sum += eintrag.getTyp().equals("Einnahme") ? eintrag.getBetrag() : -eintrag.getBetrag();
-        }
-        sumLabel.setText(String.format(Locale.GERMANY, "Summe: %.2f €", sum));
+        tableModel.neuLaden();
     }
 
     /*
-     * Berechnet die aktuelle Summe aller Einträge in der Tabelle.
-     * Durchläuft alle Zeilen und addiert Einnahmen, während Ausgaben subtrahiert werden.
+     * Zeigt die aktuelle Summe aller Einträge an.
+     * Das Modell führt die Summen bei jeder Änderung mit, daher muss hier keine Zeile durchlaufen werden.
+     * Ist ein Filter aktiv, wird zusätzlich die Summe der gefilterten Einträge angezeigt.
      */
     private void updateSum() {
-        double sum = 0;
-        for (int i = 0; i < tableModel.getRowCount(); i++) {
-            String einnahme = (String) tableModel.getValueAt(i, 2);
-            String ausgabe = (String) tableModel.getValueAt(i, 3);
-            if (einnahme != null && !einnahme.isEmpty()) {
-                sum += Double.parseDouble(einnahme.replace(',', '.'));
-            }
-            if (ausgabe != null && !ausgabe.isEmpty()) {
-                sum -= Double.parseDouble(ausgabe.replace(',', '.'));
-            }
+        SummenAggregator gesamt = tableModel.getGesamt();
+        SummenAggregator gefiltert = tableModel.getGefiltert();
+        StringBuilder text = new StringBuilder("Summe: ");
+        Geld.anhaengen(text, gesamt.getSaldoCent());
+        text.append(" €");
+        if (tableModel.getAbfrage().hatFilter()) {
+            text.append(" (Filter: ");
+            Geld.anhaengen(text, gefiltert.getSaldoCent());
+            text.append(" €)");
         }
-        sumLabel.setText(String.format("Summe: %.2f €", sum));
+        sumLabel.setText(text.toString());
+        sumLabel.setToolTipText("Einnahmen: " + Geld.formatieren(gesamt.getEinnahmenCent())
+                + " €, Ausgaben: " + Geld.formatieren(gesamt.getAusgabenCent()) + " €");
     }
 
     /*
      * Aktualisiert einen Eintrag in der Datenbank, wenn die entsprechende Tabellenzeile bearbeitet wird.
      * Stellt sicher, dass die Änderungen auch in der Datenbank gespeichert werden.
+     * Die Werte werden auf dem Event Dispatch Thread gelesen, das UPDATE läuft im Hintergrund.
      */
     private void updateDatabase(int row) {
-        int id = (Integer) tableModel.getValueAt(row, 0);
-        String bezeichnung = (String) tableModel.getValueAt(row, 1);
-        String einnahmeStr = (String) tableModel.getValueAt(row, 2);
-        String ausgabeStr = (String) tableModel.getValueAt(row, 3);
-        String datumStr = (String) tableModel.getValueAt(row, 4);
-        String info = (String) tableModel.getValueAt(row, 5);
-
-        double betrag;
-        String typ;
-        try {
-            if (einnahmeStr != null && !einnahmeStr.isEmpty()) {
-                betrag = Double.parseDouble(einnahmeStr.replace(',', '.'));
-                typ = "Einnahme";
-            } else if (ausgabeStr != null && !ausgabeStr.isEmpty()) {
-                betrag = Double.parseDouble(ausgabeStr.replace(',', '.'));
-                typ = "Ausgabe";
-            } else {
-                System.err.println("Kein gültiger Betrag angegeben.");
-                return;
-            }
-        } catch (NumberFormatException e) {
-            System.err.println("Error parsing betrag: " + e.getMessage());
-            e.printStackTrace();
+        // Die Werte sind schon beim Bearbeiten geprüft und geparst worden (siehe zellenEditor).
+        // Mit dem gelesenen Änderungsstand, damit eine inzwischen anderswo gespeicherte Änderung erkannt wird.
+        Eintrag eintrag = tableModel.getEintrag(row);
+        if (eintrag == null) {
             return;
         }
+        schreibpuffer.vormerken(eintrag);
+    }
 
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
-        LocalDate datum;
-        try {
-            datum = LocalDate.parse(datumStr, formatter);
-        } catch (Exception e) {
-            System.err.println("Error parsing datum: " + e.getMessage());
-            e.printStackTrace();
-            return;
-        }
+    /*
+     * Erstellt einen Renderer mit der angegebenen Ausrichtung, der die Werte der Spalte erst beim Zeichnen formatiert
+     * und Zeilen mit noch nicht gespeicherten Änderungen kursiv und farbig hinterlegt darstellt.
+     * Ein Renderer je Spalte genügt; er wird für jede sichtbare Zelle wiederverwendet.
+     */
+    private DefaultTableCellRenderer zellenRenderer(EintragSpalte spalte, int ausrichtung) {
+        DefaultTableCellRenderer renderer = new DefaultTableCellRenderer() {
+            @Override
+            public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus,
+                                                           int row, int column) {
+                int id = tableModel.getId(table.convertRowIndexToModel(row));
+                boolean ausstehend = id >= 0 && schreibpuffer.istAusstehend(id);
+                // Vor dem Aufruf der Oberklasse setzen; null steht für den normalen Hintergrund der Tabelle.
+                setBackground(ausstehend ? AUSSTEHEND_FARBE : null);
+                Component c = super.getTableCellRendererComponent(table, value, isSelected, hasFocus, row, column);
+                if (ausstehend) {
+                    c.setFont(c.getFont().deriveFont(Font.ITALIC));
+                }
+                return c;
+            }
 
-        String updateSql = "UPDATE eintraege SET bezeichnung=?, betrag=?, datum=?, info=?, kategorie=?, typ=? WHERE id=?";
+            @Override
+            protected void setValue(Object value) {
+                setText(spalte.formatieren(value));
+            }
+        };
+        renderer.setHorizontalAlignment(ausrichtung);
+        return renderer;
+    }
 
-        try (Connection conn = DriverManager.getConnection(dbManager.getUrl(), dbManager.getUser(), dbManager.getPassword());
-             PreparedStatement pstmt = conn.prepareStatement(updateSql)) {
+    /*
+     * Erstellt einen Editor mit der angegebenen Ausrichtung, der den Wert der Spalte wie der Renderer als Text vorbelegt
+     * und die Eingabe beim Beenden mit EintragSpalte.parsen prüft. Das Modell erhält so den geparsten Wert; eine
+     * ungültige Eingabe wird rot umrandet und bleibt im Editor, statt gespeichert zu werden.
+     */
+    private DefaultCellEditor zellenEditor(EintragSpalte spalte, int ausrichtung) {
+        JTextField feld = new JTextField();
+        feld.setHorizontalAlignment(ausrichtung);
+        return new DefaultCellEditor(feld) {
 
-            pstmt.setString(1, bezeichnung);
-            pstmt.setDouble(2, Math.abs(betrag));
-            pstmt.setDate(3, Date.valueOf(datum));
-            pstmt.setString(4, info);
-            pstmt.setString(5, bezeichnung);
-            pstmt.setString(6, typ);
-            pstmt.setInt(7, id);
+            private Object wert;
 
-            pstmt.executeUpdate();
-        } catch (SQLException e) {
-            System.err.println("Error updating database: " + e.getMessage());
-            e.printStackTrace();
+            @Override
+            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
+                feld.setBorder(new LineBorder(Color.BLACK));
+                return super.getTableCellEditorComponent(table, spalte.formatieren(value), isSelected, row, column);
+            }
+
+            @Override
+            public boolean stopCellEditing() {
+                try {
+                    wert = spalte.parsen(feld.getText());
+                } catch (IllegalArgumentException | ArithmeticException | DateTimeException e) {
+                    feld.setBorder(new LineBorder(Color.RED));
+                    return false;
+                }
+                return super.stopCellEditing();
+            }
+
+            @Override
+            public Object getCellEditorValue() {
+                return wert;
+            }
+        };
+    }
+
+    /*
+     * Erstellt den Editor der Bezeichnung: eine Auswahl der vorhandenen Kategorien, denn nach der Bezeichnung richtet
+     * sich die Kategorie des Eintrags (neue Kategorien entstehen nur über "Neue Kategorie"). Eine bisherige
+     * Bezeichnung, die keine Kategorie ist (z.B. aus dem Import), steht zuoberst und kann so unverändert bleiben.
+     */
+    private DefaultCellEditor bezeichnungEditor() {
+        JComboBox<String> auswahl = new JComboBox<>();
+        return new DefaultCellEditor(auswahl) {
+            @Override
+            public Component getTableCellEditorComponent(JTable table, Object value, boolean isSelected, int row, int column) {
+                String bisher = value == null ? "" : value.toString();
+                auswahl.removeAllItems();
+                boolean bekannt = false;
+                for (int i = 0; i < kategorieBox.getItemCount(); i++) {
+                    String name = kategorieBox.getItemAt(i);
+                    auswahl.addItem(name);
+                    bekannt |= name.equals(bisher);
+                }
+                if (!bekannt) {
+                    auswahl.insertItemAt(bisher, 0);
+                }
+                return super.getTableCellEditorComponent(table, bisher, isSelected, row, column);
+            }
+        };
+    }
+
+    /*
+     * Zeigt an, wie viele Änderungen noch nicht in der Datenbank sind (im Schreibpuffer oder im Journal) und ob
+     * das Speichern zuletzt fehlgeschlagen ist.
+     */
+    private void speicherStatusAnzeigen() {
+        int anzahl = schreibpuffer.getAnzahlAusstehend() + abgleich.getAnzahlOffen();
+        String fehler = schreibpuffer.getLetzterFehler() != null ? schreibpuffer.getLetzterFehler() : abgleich.getLetzterFehler();
+        speicherStatus.setToolTipText(fehler);
+        if (anzahl == 0) {
+            speicherStatus.setText("");
+        } else if (fehler == null) {
+            speicherStatus.setForeground(UIManager.getColor("Label.foreground"));
+            speicherStatus.setText(anzahl == 1 ? "1 Änderung wird gespeichert…" : anzahl + " Änderungen werden gespeichert…");
+        } else {
+            LocalTime naechsterVersuch = LocalTime.now().plus(
+                    Math.max(0, Math.max(schreibpuffer.getNaechsterVersuch(), abgleich.getNaechsterVersuch()) - System.currentTimeMillis()), ChronoUnit.MILLIS);
+            speicherStatus.setForeground(Color.RED);
+            speicherStatus.setText("Speichern fehlgeschlagen (" + anzahl + " ausstehend), nächster Versuch um "
+                    + naechsterVersuch.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
         }
     }
 
@@ -564,17 +978,152 @@ public class HaushaltsBuch extends JFrame {
     public void deleteAllEntries() {
         int response = JOptionPane.showConfirmDialog(null, "Möchten Sie wirklich alle Einträge unwiderruflich löschen?", "Bestätigung", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         if (response == JOptionPane.YES_OPTION) {
-            String deleteSql = "DELETE FROM eintraege";
-            String resetSql = "ALTER TABLE eintraege AUTO_INCREMENT = 1";
-            try (Connection conn = DriverManager.getConnection(dbManager.getUrl(), dbManager.getUser(), dbManager.getPassword());
-                 Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(deleteSql);
-                stmt.executeUpdate(resetSql);
+            // Die Tabelle wird neu geladen, sobald das Löschen übertragen ist (siehe Beobachter.geloescht).
+            ueberJournalLoeschen(abgleich::alleLoeschen);
+        }
+    }
+
+    /*
+     * Importiert einen Kontoauszug (CSV oder CAMT.053-XML), den der Benutzer auswählt.
+     * Die Zuordnung zu Kategorien und der Aufbau der CSV-Datei werden aus "import.properties" im
+     * Arbeitsverzeichnis gelesen (siehe ImportRegeln). Der Import läuft im Datenbank-Thread; ein
+     * ProgressMonitor zeigt den Fortschritt an und erlaubt das Abbrechen. Danach wird ein Bericht angezeigt.
+     */
+    private void importKontoauszug() {
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("Kontoauszug (CSV, CAMT.053)", "csv", "txt", "xml"));
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
+        }
+        Path datei = chooser.getSelectedFile().toPath();
+        ProgressMonitor monitor = new ProgressMonitor(this, "Importiere " + datei.getFileName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        SwingWorker<ImportBericht, Void> worker = new SwingWorker<>() {
+            @Override
+            protected ImportBericht doInBackground() throws Exception {
+                ImportRegeln regeln = ImportRegeln.laden(Paths.get("import.properties"));
+                return new BankImport(dbManager, regeln).importieren(datei, this::setProgress, monitor::isCanceled);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                ImportBericht bericht;
+                try {
+                    bericht = get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    JOptionPane.showMessageDialog(HaushaltsBuch.this, e.getCause().getMessage(), "Import fehlgeschlagen", JOptionPane.ERROR_MESSAGE);
+                    return;
+                }
+                tableModel.gesamtNeuBerechnen();
                 loadEntries();
-            } catch (SQLException e) {
-                e.printStackTrace();
+                loadKategorien();
+
+                StringBuilder text = new StringBuilder(bericht.toString());
+                for (String fehler : bericht.getFehler()) {
+                    text.append('\n').append(fehler);
+                }
+                if (bericht.getFehlerhaft() > ImportBericht.MAX_FEHLER) {
+                    text.append("\n…");
+                }
+                JTextArea berichtFeld = new JTextArea(text.toString(), 12, 60);
+                berichtFeld.setEditable(false);
+                JOptionPane.showMessageDialog(HaushaltsBuch.this, new JScrollPane(berichtFeld), "Import abgeschlossen",
+                        bericht.isAbgebrochen() || bericht.getFehlerhaft() > 0 ? JOptionPane.WARNING_MESSAGE : JOptionPane.INFORMATION_MESSAGE);
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                monitor.setProgress((Integer) e.getNewValue());
             }
+        });
+        datenbankThread.execute(worker);
+    }
+
+    /*
+     * Exportiert die Einträge als CSV oder JSON Lines (".jsonl"), bei der Endung ".gz" gzip-komprimiert.
+     * Übernommen werden Sortierung und Filter der Tabelle; zusätzlich kann auf einen Zeitraum und eine
+     * Kategorie eingeschränkt werden. Der Export läuft im Datenbank-Thread und meldet am Ende den Durchsatz.
+     */
+    private void exportEntries() {
+        JTextField vonField = new JTextField(10);
+        JTextField bisField = new JTextField(10);
+        JComboBox<String> exportKategorieBox = new JComboBox<>();
+        exportKategorieBox.addItem("Alle Kategorien");
+        for (int i = 0; i < kategorieBox.getItemCount(); i++) {
+            exportKategorieBox.addItem(kategorieBox.getItemAt(i));
+        }
+        // Vorbelegt mit dem Zeitraum des Tabellenfilters.
+        vonField.setText(filterVonField.getText().trim());
+        bisField.setText(filterBisField.getText().trim());
+        JPanel auswahl = new JPanel(new GridLayout(0, 2, 5, 5));
+        auswahl.add(new JLabel("Von (TT.MM.JJJJ):"));
+        auswahl.add(vonField);
+        auswahl.add(new JLabel("Bis (TT.MM.JJJJ):"));
+        auswahl.add(bisField);
+        auswahl.add(new JLabel("Kategorie:"));
+        auswahl.add(exportKategorieBox);
+        if (JOptionPane.showConfirmDialog(this, auswahl, "Einträge exportieren", JOptionPane.OK_CANCEL_OPTION) != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        EintragAbfrage abfrage = tableModel.getAbfrage();
+        try {
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+            LocalDate von = vonField.getText().trim().isEmpty() ? null : LocalDate.parse(vonField.getText().trim(), formatter);
+            LocalDate bis = bisField.getText().trim().isEmpty() ? null : LocalDate.parse(bisField.getText().trim(), formatter);
+            abfrage = abfrage.mitZeitraum(von, bis);
+        } catch (DateTimeParseException ex) {
+            JOptionPane.showMessageDialog(this, "Bitte geben Sie das Datum im Format 'TT.MM.JJJJ' ein.", "Ungültiges Datum", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (exportKategorieBox.getSelectedIndex() > 0) {
+            abfrage = abfrage.mitKategorie((String) exportKategorieBox.getSelectedItem());
+        }
+
+        JFileChooser chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("CSV, JSON Lines (auch .gz)", "csv", "jsonl", "gz"));
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
+        Path datei = chooser.getSelectedFile().toPath();
+        boolean gzip = datei.getFileName().toString().toLowerCase().endsWith(".gz");
+        EintragAbfrage exportAbfrage = abfrage;
+        ProgressMonitor monitor = new ProgressMonitor(this, "Exportiere nach " + datei.getFileName(), null, 0, 100);
+        monitor.setMillisToDecideToPopup(200);
+
+        SwingWorker<EintragExport.Ergebnis, Void> worker = new SwingWorker<>() {
+            @Override
+            protected EintragExport.Ergebnis doInBackground() throws Exception {
+                return new EintragExport(dbManager).exportieren(exportAbfrage, datei, EintragExport.formatFuer(datei), gzip,
+                        this::setProgress, monitor::isCanceled);
+            }
+
+            @Override
+            protected void done() {
+                monitor.close();
+                try {
+                    EintragExport.Ergebnis ergebnis = get();
+                    JOptionPane.showMessageDialog(HaushaltsBuch.this, ergebnis.toString(), "Export abgeschlossen", JOptionPane.INFORMATION_MESSAGE);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                    JOptionPane.showMessageDialog(HaushaltsBuch.this, e.getCause().getMessage(), "Export fehlgeschlagen", JOptionPane.ERROR_MESSAGE);
+                }
+            }
+        };
+        worker.addPropertyChangeListener(e -> {
+            if ("progress".equals(e.getPropertyName())) {
+                monitor.setProgress((Integer) e.getNewValue());
+            }
+        });
+        datenbankThread.execute(worker);
     }
 
     /*
@@ -584,16 +1133,146 @@ public class HaushaltsBuch extends JFrame {
     public void deleteAllCategories() {
         int response = JOptionPane.showConfirmDialog(null, "Möchten Sie wirklich alle Kategorien unwiderruflich löschen?", "Bestätigung", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
         if (response == JOptionPane.YES_OPTION) {
-            String deleteSql = "DELETE FROM kategorien";
-            String resetSql = "ALTER TABLE kategorien AUTO_INCREMENT = 1";
-            try (Connection conn = DriverManager.getConnection(dbManager.getUrl(), dbManager.getUser(), dbManager.getPassword());
-                 Statement stmt = conn.createStatement()) {
-                stmt.executeUpdate(deleteSql);
-                stmt.executeUpdate(resetSql);
-                loadKategorien();
-            } catch (SQLException e) {
-                e.printStackTrace();
+            imHintergrund(() -> {
+                dbManager.deleteAllKategorien();
+                return null;
+            }, ergebnis -> loadKategorien());
+        }
+    }
+
+    /*
+     * Zeigt Anzahl und Summe je Monat, Kategorie und Typ der letzten zwölf Monate an.
+     * Gelesen werden nur die vorberechneten Monatssummen, nicht die Einträge.
+     */
+    private void showMonatsauswertung() {
+        imHintergrund(() -> dbManager.getMonatssummen(1), summen -> {
+            StringBuilder text = new StringBuilder();
+            for (Monatssumme summe : summen) {
+                text.append(summe).append('\n');
+            }
+            JTextArea bereich = new JTextArea(text.length() == 0 ? "Keine Einträge in den letzten zwölf Monaten." : text.toString(), 20, 50);
+            bereich.setEditable(false);
+            JOptionPane.showMessageDialog(this, new JScrollPane(bereich), "Auswertung nach Monat und Kategorie", JOptionPane.PLAIN_MESSAGE);
+        });
+    }
+
+    /*
+     * Vergleicht die Monatssummen mit den Einträgen und bietet bei Abweichungen an, sie neu zu berechnen.
+     */
+    private void monatssummenPruefen() {
+        imHintergrund(dbManager::monatssummenPruefen, abweichungen -> {
+            if (abweichungen == 0) {
+                JOptionPane.showMessageDialog(this, "Die Monatssummen stimmen mit den Einträgen überein.", "Monatssummen", JOptionPane.INFORMATION_MESSAGE);
+                return;
             }
+            int response = JOptionPane.showConfirmDialog(this, abweichungen + " Monatssummen weichen von den Einträgen ab. Jetzt neu berechnen?",
+                    "Monatssummen", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+            if (response == JOptionPane.YES_OPTION) {
+                imHintergrund(() -> {
+                    dbManager.monatssummenNeuAufbauen();
+                    return null;
+                }, ergebnis -> JOptionPane.showMessageDialog(this, "Die Monatssummen wurden neu berechnet.", "Monatssummen", JOptionPane.INFORMATION_MESSAGE));
+            }
+        });
+    }
+
+    /*
+     * Lagert nach Rückfrage alle abgeschlossenen Jahre bis zu einem gewählten Jahr in Archivtabellen aus (siehe Archiv).
+     * Danach zeigt die Tabelle ohne Zeitraum nur noch die laufenden Jahre; ausgelagerte Jahre erscheinen, sobald der
+     * gewählte Zeitraum sie einschließt.
+     */
+    private void jahreAuslagern() {
+        int letztesJahr = LocalDate.now().getYear() - 1;
+        Object eingabe = JOptionPane.showInputDialog(this, "Alle Einträge bis einschließlich diesem Jahr auslagern:",
+                "Jahre auslagern", JOptionPane.QUESTION_MESSAGE, null, null, String.valueOf(letztesJahr));
+        if (eingabe == null) {
+            return;
+        }
+        int bisJahr;
+        try {
+            bisJahr = Integer.parseInt(eingabe.toString().trim());
+        } catch (NumberFormatException e) {
+            JOptionPane.showMessageDialog(this, "Bitte ein Jahr angeben, z.B. " + letztesJahr + ".", "Jahre auslagern", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        if (bisJahr > letztesJahr) {
+            JOptionPane.showMessageDialog(this, "Nur abgeschlossene Jahre können ausgelagert werden (bis " + letztesJahr + ").",
+                    "Jahre auslagern", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        imHintergrund(() -> dbManager.archivieren(bisJahr), verschoben -> {
+            loadEntries();
+            JOptionPane.showMessageDialog(this, verschoben + " Einträge bis " + bisJahr + " wurden ausgelagert.",
+                    "Jahre auslagern", JOptionPane.INFORMATION_MESSAGE);
+        });
+    }
+
+    /*
+     * Führt eine Datenbankoperation im Hintergrund-Thread aus und übergibt das Ergebnis anschließend
+     * auf dem Event Dispatch Thread an "danach" (falls angegeben). Tritt ein Fehler auf, wird er ausgegeben
+     * und "danach" nicht aufgerufen.
+     */
+    private <T> void imHintergrund(Callable<T> arbeit, Consumer<T> danach) {
+        SwingWorker<T, Void> worker = new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                return arbeit.call();
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    T ergebnis = get();
+                    if (danach != null) {
+                        danach.accept(ergebnis);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException e) {
+                    e.getCause().printStackTrace();
+                }
+            }
+        };
+        datenbankThread.execute(worker);
+    }
+
+    /*
+     * Liest die Momentaufnahme vom letzten Beenden und löscht die Datei: Sie gilt nur für den Stand beim Beenden
+     * und wird beim nächsten Beenden neu geschrieben. Gibt null zurück, wenn es keine (gültige) gibt.
+     */
+    private Momentaufnahme momentaufnahmeLaden() {
+        Path datei = Momentaufnahme.datei();
+        Momentaufnahme momentaufnahme = Momentaufnahme.laden(datei, dbManager.getUrl());
+        try {
+            Files.deleteIfExists(datei);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return momentaufnahme;
+    }
+
+    // Schreibt die Momentaufnahme für den nächsten Start.
+    private void momentaufnahmeSchreiben() {
+        try {
+            dbManager.momentaufnahmeErstellen(EintragTableModel.MOMENTAUFNAHME_ZEILEN).schreiben(Momentaufnahme.datei());
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Öffnet das Journal (siehe Journal.oeffnen). Ohne Journal könnten Einträge verloren gehen; die Anwendung
+     * wird dann mit einer Meldung beendet.
+     */
+    private Journal journalOeffnen() {
+        try {
+            return Journal.oeffnen();
+        } catch (IOException | IllegalArgumentException e) {
+            e.printStackTrace();
+            JOptionPane.showMessageDialog(this, "Das Journal kann nicht geöffnet werden:\n" + e.getMessage()
+                    + "\n\nEin anderer Ort kann mit -Djournal.datei=<Datei> angegeben werden.", "Fehler", JOptionPane.ERROR_MESSAGE);
+            System.exit(1);
+            throw new IllegalStateException(e);
         }
     }
 
@@ -604,7 +1283,11 @@ public class HaushaltsBuch extends JFrame {
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
             HaushaltsBuch app = new HaushaltsBuch();
+            app.startphasen.erreicht("fenster");
+            app.dbManager.getGestartet().thenRun(() -> app.startphasen.erreicht("datenbank"));
             app.setVisible(true);
+            // Meldet, wenn der Event Dispatch Thread länger blockiert ist (siehe Diagnose und Java Flight Recorder).
+            new EdtUeberwachung(app.dbManager.getMesswerte()).starten();
         });
     }
 }
@@ -0,0 +1,278 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Die Klasse "HaushaltsBuchKonsole" ist ein Einstiegspunkt ohne Oberfläche für Skripte und regelmäßige Aufgaben
+ * (z.B. per cron auf einem Server ohne Bildschirm). Sie verwendet denselben DatenbankManager wie das Fenster,
+ * lädt aber keine Klasse aus Swing oder AWT und liest keine Einträge, die der Befehl nicht braucht.
+ *
+ *   java -cp haushaltsbuch.jar HaushaltsBuchKonsole <befehl> [optionen]
+ *
+ * Befehle:
+ *   import <datei> [--regeln import.properties]        Kontoauszug (CSV oder CAMT.053) importieren
+ *   export <datei> [--von JJJJ-MM-TT] [--bis JJJJ-MM-TT] [--kategorie NAME]... [--typ Einnahme|Ausgabe]
+ *                                                      Einträge als CSV oder JSON Lines (.gz) exportieren
+ *   report [--jahre N]                                 Summen je Monat, Kategorie und Typ ausgeben
+ *   purge --vor JJJJ-MM-TT                             alle Einträge vor dem Datum löschen
+ *   archive [--bis JJJJ]                               abgeschlossene Jahre (Standard: bis zum Vorjahr) auslagern
+ *   recompute-rollups                                  Monatssummen prüfen und neu berechnen
+ *
+ * Rückgabewerte: 0 = erfolgreich, 1 = Fehler bei der Ausführung, 2 = ungültiger Aufruf.
+ */
+public class HaushaltsBuchKonsole {
+
+    static final int OK = 0;
+    static final int FEHLER = 1;
+    static final int UNGUELTIG = 2;
+
+    private static final String HILFE = String.join(System.lineSeparator(),
+            "Aufruf: HaushaltsBuchKonsole <befehl> [optionen]",
+            "  import <datei> [--regeln import.properties]",
+            "  export <datei> [--von JJJJ-MM-TT] [--bis JJJJ-MM-TT] [--kategorie NAME]... [--typ Einnahme|Ausgabe]",
+            "  report [--jahre N]",
+            "  purge --vor JJJJ-MM-TT",
+            "  archive [--bis JJJJ]",
+            "  recompute-rollups");
+
+    private final PrintStream aus;
+    private final PrintStream err;
+
+    public HaushaltsBuchKonsole(PrintStream aus, PrintStream err) {
+        this.aus = aus;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        // Sicherheitshalber: Sollte doch eine AWT-Klasse geladen werden, darf sie keinen Bildschirm verlangen.
+        System.setProperty("java.awt.headless", "true");
+        System.exit(new HaushaltsBuchKonsole(System.out, System.err).ausfuehren(args));
+    }
+
+    /*
+     * Führt einen Befehl aus und gibt den Rückgabewert für den Prozess zurück. Die Datenbank wird erst geöffnet,
+     * wenn der Aufruf gültig ist.
+     */
+    public int ausfuehren(String[] args) {
+        if (args.length == 0 || args[0].equals("--help") || args[0].equals("-h")) {
+            aus.println(HILFE);
+            return args.length == 0 ? UNGUELTIG : OK;
+        }
+        Optionen optionen;
+        try {
+            optionen = new Optionen(Arrays.asList(args).subList(1, args.length));
+        } catch (IllegalArgumentException e) {
+            return ungueltig(e.getMessage());
+        }
+        try {
+            switch (args[0]) {
+                case "import":
+                    return importieren(optionen);
+                case "export":
+                    return exportieren(optionen);
+                case "report":
+                    return bericht(optionen);
+                case "purge":
+                    return bereinigen(optionen);
+                case "archive":
+                    return auslagern(optionen);
+                case "recompute-rollups":
+                    return summenNeuBerechnen(optionen);
+                default:
+                    return ungueltig("Unbekannter Befehl: " + args[0]);
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ungueltig(e.getMessage());
+        } catch (IOException | SQLException e) {
+            err.println("Fehler: " + e.getMessage());
+            e.printStackTrace(err);
+            return FEHLER;
+        }
+    }
+
+    /*
+     * Öffnet die Datenbank aus "datenbank.properties" bzw. den Systemeigenschaften. Anders als im Fenster wird bei
+     * einer fehlerhaften Konfiguration nicht auf die Standarddatenbank ausgewichen. Die Messwerte werden nur
+     * gezählt (ohne JMX und Java Flight Recorder), damit der Aufruf schnell startet.
+     */
+    private static DatenbankManager oeffnen() throws IOException {
+        return new DatenbankManager(DatenbankKonfiguration.laden(), false);
+    }
+
+    private int ungueltig(String meldung) {
+        err.println(meldung);
+        err.println(HILFE);
+        return UNGUELTIG;
+    }
+
+    private int importieren(Optionen optionen) throws IOException {
+        Path datei = Paths.get(optionen.argument("Datei"));
+        ImportRegeln regeln = ImportRegeln.laden(Paths.get(optionen.wert("--regeln", "import.properties")));
+        optionen.pruefen();
+        DatenbankManager dbManager = oeffnen();
+        try {
+            ImportBericht bericht = new BankImport(dbManager, regeln).importieren(datei, fortschritt -> { }, () -> false);
+            aus.println(bericht);
+            for (String fehler : bericht.getFehler()) {
+                err.println(fehler);
+            }
+            return bericht.isAbgebrochen() ? FEHLER : OK;
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    private int exportieren(Optionen optionen) throws IOException {
+        Path datei = Paths.get(optionen.argument("Datei"));
+        EintragAbfrage abfrage = new EintragAbfrage().mitZeitraum(optionen.datum("--von"), optionen.datum("--bis"));
+        List<String> kategorien = optionen.werte("--kategorie");
+        if (!kategorien.isEmpty()) {
+            abfrage = abfrage.mitKategorien(kategorien);
+        }
+        String typ = optionen.wert("--typ", null);
+        if (typ != null) {
+            if (!typ.equals("Einnahme") && !typ.equals("Ausgabe")) {
+                throw new IllegalArgumentException("Ungültiger Typ: " + typ);
+            }
+            abfrage = abfrage.mitTyp(typ);
+        }
+        optionen.pruefen();
+        boolean gzip = datei.getFileName().toString().toLowerCase().endsWith(".gz");
+        DatenbankManager dbManager = oeffnen();
+        try {
+            EintragExport.Ergebnis ergebnis = new EintragExport(dbManager).exportieren(abfrage, datei,
+                    EintragExport.formatFuer(datei), gzip, fortschritt -> { }, () -> false);
+            aus.println(ergebnis);
+            return OK;
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    // Gibt die Monatssummen der letzten Jahre aus; gelesen wird nur die Tabelle "monatssummen".
+    private int bericht(Optionen optionen) throws IOException, SQLException {
+        int jahre = Integer.parseInt(optionen.wert("--jahre", "1"));
+        if (jahre < 1) {
+            throw new IllegalArgumentException("--jahre muss mindestens 1 sein");
+        }
+        optionen.pruefen();
+        DatenbankManager dbManager = oeffnen();
+        try {
+            for (Monatssumme summe : dbManager.getMonatssummen(jahre)) {
+                aus.println(summe);
+            }
+            return OK;
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    private int bereinigen(Optionen optionen) throws IOException, SQLException {
+        LocalDate vor = optionen.datum("--vor");
+        if (vor == null) {
+            throw new IllegalArgumentException("purge braucht --vor JJJJ-MM-TT");
+        }
+        optionen.pruefen();
+        DatenbankManager dbManager = oeffnen();
+        try {
+            int geloescht = dbManager.deleteEintraegeVor(vor);
+            aus.println(geloescht + " Einträge vor dem " + vor + " gelöscht.");
+            return OK;
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    private int auslagern(Optionen optionen) throws IOException, SQLException {
+        int bisJahr = Integer.parseInt(optionen.wert("--bis", String.valueOf(LocalDate.now().getYear() - 1)));
+        optionen.pruefen();
+        DatenbankManager dbManager = oeffnen();
+        try {
+            int verschoben = dbManager.archivieren(bisJahr);
+            aus.println(verschoben + " Einträge bis " + bisJahr + " ausgelagert.");
+            return OK;
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    private int summenNeuBerechnen(Optionen optionen) throws IOException, SQLException {
+        optionen.pruefen();
+        DatenbankManager dbManager = oeffnen();
+        try {
+            int abweichungen = dbManager.monatssummenPruefen();
+            aus.println(abweichungen + " Monatssummen wichen von den Einträgen ab.");
+            dbManager.monatssummenNeuAufbauen();
+            aus.println("Monatssummen neu berechnet.");
+            return OK;
+        } finally {
+            dbManager.close();
+        }
+    }
+
+    /*
+     * Die Argumente nach dem Befehl: Optionen der Form "--name wert" (auch mehrfach) und freie Argumente.
+     * Jede Option und jedes Argument muss vom Befehl abgeholt werden; pruefen() meldet übrig gebliebene.
+     */
+    private static final class Optionen {
+
+        private final List<String[]> optionen = new ArrayList<>();
+        private final List<String> argumente = new ArrayList<>();
+
+        private Optionen(List<String> args) {
+            for (int i = 0; i < args.size(); i++) {
+                String arg = args.get(i);
+                if (arg.startsWith("--")) {
+                    if (i + 1 >= args.size()) {
+                        throw new IllegalArgumentException("Wert fehlt für " + arg);
+                    }
+                    optionen.add(new String[]{arg, args.get(++i)});
+                } else {
+                    argumente.add(arg);
+                }
+            }
+        }
+
+        private String argument(String bezeichnung) {
+            if (argumente.isEmpty()) {
+                throw new IllegalArgumentException(bezeichnung + " fehlt");
+            }
+            return argumente.remove(0);
+        }
+
+        private List<String> werte(String name) {
+            List<String> werte = new ArrayList<>();
+            optionen.removeIf(option -> option[0].equals(name) && werte.add(option[1]));
+            return werte;
+        }
+
+        private String wert(String name, String standard) {
+            List<String> werte = werte(name);
+            if (werte.size() > 1) {
+                throw new IllegalArgumentException(name + " darf nur einmal angegeben werden");
+            }
+            return werte.isEmpty() ? standard : werte.get(0);
+        }
+
+        private LocalDate datum(String name) {
+            String wert = wert(name, null);
+            return wert == null ? null : LocalDate.parse(wert);
+        }
+
+        private void pruefen() {
+            if (!optionen.isEmpty()) {
+                throw new IllegalArgumentException("Unbekannte Option: " + optionen.get(0)[0]);
+            }
+            if (!argumente.isEmpty()) {
+                throw new IllegalArgumentException("Überzähliges Argument: " + argumente.get(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Die Klasse "ImportBericht" fasst das Ergebnis eines Imports zusammen: gelesene, übernommene und
+ * fehlerhafte Buchungen sowie die Fehlermeldungen. Damit der Speicherbedarf auch bei vielen fehlerhaften
+ * Zeilen begrenzt bleibt, werden nur die ersten MAX_FEHLER Meldungen aufbewahrt, gezählt werden alle.
+ */
+public class ImportBericht {
+
+    public static final int MAX_FEHLER = 100;
+
+    private long gelesen;
+    private long importiert;
+    private long fehlerhaft;
+    private final List<String> fehler = new ArrayList<>();
+    private boolean abgebrochen;
+    private long dauerMillis;
+
+    void gelesen() {
+        gelesen++;
+    }
+
+    void importiert(long anzahl) {
+        importiert += anzahl;
+    }
+
+    // Vermerkt eine Buchung, die nicht übernommen werden konnte.
+    void fehler(String position, String meldung) {
+        fehlerhaft++;
+        if (fehler.size() < MAX_FEHLER) {
+            fehler.add(position + ": " + meldung);
+        }
+    }
+
+    // Vermerkt einen Fehler, der den Import beendet hat.
+    void abbruch(String meldung) {
+        abgebrochen = true;
+        if (meldung != null) {
+            fehler.add(meldung);
+        }
+    }
+
+    void setDauerMillis(long dauerMillis) {
+        this.dauerMillis = dauerMillis;
+    }
+
+    public long getGelesen() {
+        return gelesen;
+    }
+
+    public long getImportiert() {
+        return importiert;
+    }
+
+    public long getFehlerhaft() {
+        return fehlerhaft;
+    }
+
+    public List<String> getFehler() {
+        return fehler;
+    }
+
+    public boolean isAbgebrochen() {
+        return abgebrochen;
+    }
+
+    public long getDauerMillis() {
+        return dauerMillis;
+    }
+
+    @Override
+    public String toString() {
+        return importiert + " von " + gelesen + " Buchungen importiert, " + fehlerhaft + " fehlerhaft"
+                + (abgebrochen ? ", abgebrochen" : "") + " (" + dauerMillis + " ms)";
+    }
+}
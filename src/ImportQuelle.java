@@ -0,0 +1,24 @@
+import java.io.IOException;
+
+/*
+ * Eine ImportQuelle liest die Buchungen eines Kontoauszugs nacheinander aus einem Datenstrom.
+ * Es wird immer nur die aktuelle Buchung im Speicher gehalten, sodass auch sehr große Dateien
+ * mit gleichbleibendem Speicherbedarf gelesen werden können.
+ */
+public interface ImportQuelle extends AutoCloseable {
+
+    /*
+     * Liest die nächste Buchung, oder "null" am Ende der Datei.
+     * Ist eine einzelne Buchung fehlerhaft (z.B. ungültiger Betrag), wird eine RuntimeException geworfen;
+     * die Quelle steht dann bereits hinter dieser Buchung, und der Import kann mit der nächsten fortfahren.
+     *
+     * @throws IOException wenn die Datei nicht weitergelesen werden kann
+     */
+    Buchung naechste() throws IOException;
+
+    // Beschreibt die Stelle der zuletzt gelesenen Buchung für Fehlermeldungen, z.B. "Zeile 17".
+    String getPosition();
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,171 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/*
+ * Die Klasse "ImportRegeln" legt fest, wie Buchungen aus einem Kontoauszug in Einträge übernommen werden,
+ * und wie CSV-Dateien aufgebaut sind. Die Regeln werden aus einer Properties-Datei gelesen, z.B.:
+ *
+ *   csv.trennzeichen=;
+ *   csv.zeichensatz=ISO-8859-1
+ *   csv.datum=Buchungstag
+ *   csv.betrag=Betrag
+ *   csv.verwendungszweck=Verwendungszweck
+ *   csv.gegenpartei=Beguenstigter/Zahlungspflichtiger
+ *   csv.datumsformat=dd.MM.yyyy
+ *   csv.tausendertrennzeichen=.
+ *   kategorie.standard=Sonstiges
+ *   kategorie.Lebensmittel=billa, spar, hofer
+ *   kategorie.Wohnen=miete, strom
+ *
+ * Eine Buchung erhält die erste Kategorie (alphabetisch), deren Stichwort im Verwendungszweck oder bei der
+ * Gegenpartei vorkommt (ohne Beachtung der Groß-/Kleinschreibung), sonst die Standardkategorie.
+ * Gutschriften werden zu Einnahmen, Belastungen zu Ausgaben.
+ */
+public class ImportRegeln {
+
+    // Maximale Länge der Info, wie bei der Eingabe im Hauptfenster.
+    public static final int MAX_INFO_LAENGE = 50;
+
+    private char trennzeichen = ';';
+    private Charset zeichensatz = StandardCharsets.UTF_8;
+    private String spalteDatum = "Buchungstag";
+    private String spalteBetrag = "Betrag";
+    private String spalteVerwendungszweck = "Verwendungszweck";
+    private String spalteGegenpartei = "Beguenstigter/Zahlungspflichtiger";
+    private DateTimeFormatter datumsformat = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private String tausendertrennzeichen = "";
+
+    private Kategorie standardKategorie = new Kategorie("Sonstiges");
+
+    // Stichwörter (klein geschrieben) je Kategorie, in der Reihenfolge, in der sie geprüft werden.
+    private final Map<Kategorie, String[]> stichwoerter = new LinkedHashMap<>();
+
+    // Standardregeln: CSV mit Semikolon und deutschen Spaltennamen, alle Buchungen in "Sonstiges".
+    public ImportRegeln() {
+    }
+
+    /*
+     * Liest die Regeln aus einer Properties-Datei. Existiert die Datei nicht, gelten die Standardregeln.
+     *
+     * @throws IOException wenn die Datei nicht gelesen werden kann
+     */
+    public static ImportRegeln laden(Path datei) throws IOException {
+        ImportRegeln regeln = new ImportRegeln();
+        if (!Files.exists(datei)) {
+            return regeln;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(datei, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+
+        String trennzeichen = properties.getProperty("csv.trennzeichen");
+        if (trennzeichen != null && !trennzeichen.isEmpty()) {
+            regeln.trennzeichen = trennzeichen.equals("\\t") ? '\t' : trennzeichen.charAt(0);
+        }
+        regeln.zeichensatz = Charset.forName(properties.getProperty("csv.zeichensatz", regeln.zeichensatz.name()));
+        regeln.spalteDatum = properties.getProperty("csv.datum", regeln.spalteDatum);
+        regeln.spalteBetrag = properties.getProperty("csv.betrag", regeln.spalteBetrag);
+        regeln.spalteVerwendungszweck = properties.getProperty("csv.verwendungszweck", regeln.spalteVerwendungszweck);
+        regeln.spalteGegenpartei = properties.getProperty("csv.gegenpartei", regeln.spalteGegenpartei);
+        if (properties.getProperty("csv.datumsformat") != null) {
+            regeln.datumsformat = DateTimeFormatter.ofPattern(properties.getProperty("csv.datumsformat"));
+        }
+        regeln.tausendertrennzeichen = properties.getProperty("csv.tausendertrennzeichen", "");
+        regeln.standardKategorie = new Kategorie(properties.getProperty("kategorie.standard", "Sonstiges"));
+
+        // Alphabetisch, damit die Zuordnung nicht von der Reihenfolge in der Properties-Datei abhängt.
+        Map<String, String> kategorien = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            if (name.startsWith("kategorie.") && !name.equals("kategorie.standard")) {
+                kategorien.put(name.substring("kategorie.".length()), properties.getProperty(name));
+            }
+        }
+        for (Map.Entry<String, String> kategorie : kategorien.entrySet()) {
+            List<String> woerter = new ArrayList<>();
+            for (String wort : kategorie.getValue().split(",")) {
+                if (!wort.trim().isEmpty()) {
+                    woerter.add(wort.trim().toLowerCase(Locale.GERMANY));
+                }
+            }
+            regeln.stichwoerter.put(new Kategorie(kategorie.getKey()), woerter.toArray(new String[0]));
+        }
+        return regeln;
+    }
+
+    /*
+     * Wandelt eine Buchung in einen neuen Eintrag (ID 0) um.
+     * Bezeichnung ist wie bei der Eingabe im Hauptfenster der Name der Kategorie.
+     */
+    public Eintrag abbilden(Buchung buchung) {
+        String zweck = buchung.getVerwendungszweck() == null ? "" : buchung.getVerwendungszweck().trim();
+        String gegenpartei = buchung.getGegenpartei() == null ? "" : buchung.getGegenpartei().trim();
+        Kategorie kategorie = kategorieFuer(zweck, gegenpartei);
+
+        String info = gegenpartei.isEmpty() ? zweck : zweck.isEmpty() ? gegenpartei : gegenpartei + ": " + zweck;
+        if (info.length() > MAX_INFO_LAENGE) {
+            info = info.substring(0, MAX_INFO_LAENGE);
+        }
+        String typ = buchung.getBetragCent() >= 0 ? "Einnahme" : "Ausgabe";
+        return new Eintrag(0, kategorie.getName(), Math.abs(buchung.getBetragCent()), buchung.getDatum(), info, kategorie, typ);
+    }
+
+    private Kategorie kategorieFuer(String zweck, String gegenpartei) {
+        if (stichwoerter.isEmpty()) {
+            return standardKategorie;
+        }
+        String text = (gegenpartei + " " + zweck).toLowerCase(Locale.GERMANY);
+        for (Map.Entry<Kategorie, String[]> eintrag : stichwoerter.entrySet()) {
+            for (String wort : eintrag.getValue()) {
+                if (text.contains(wort)) {
+                    return eintrag.getKey();
+                }
+            }
+        }
+        return standardKategorie;
+    }
+
+    public char getTrennzeichen() {
+        return trennzeichen;
+    }
+
+    public Charset getZeichensatz() {
+        return zeichensatz;
+    }
+
+    public String getSpalteDatum() {
+        return spalteDatum;
+    }
+
+    public String getSpalteBetrag() {
+        return spalteBetrag;
+    }
+
+    public String getSpalteVerwendungszweck() {
+        return spalteVerwendungszweck;
+    }
+
+    public String getSpalteGegenpartei() {
+        return spalteGegenpartei;
+    }
+
+    public DateTimeFormatter getDatumsformat() {
+        return datumsformat;
+    }
+
+    public String getTausendertrennzeichen() {
+        return tausendertrennzeichen;
+    }
+}
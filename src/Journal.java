@@ -0,0 +1,438 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+/*
+ * Die Klasse "Journal" ist ein lokales Protokoll, an das jede Änderung an den Einträgen zuerst angehängt wird,
+ * bevor sie in die Datenbank geschrieben wird (Write-Ahead-Log). Ist die Datenbank nicht erreichbar, gehen
+ * Änderungen so nicht verloren; der JournalAbgleich überträgt sie, sobald die Verbindung wieder steht.
+ *
+ * Aufbau der Datei: eine Folge von Sätzen [Länge (int)][CRC32 der Nutzdaten (int)][Nutzdaten]. Die Nutzdaten
+ * beginnen mit der Art und der Sequenznummer. Neben Anlegen, Ändern und Löschen (einzelner Einträge, eines Tages oder
+ * aller Einträge) gibt es Bestätigungen: "alle
+ * Operationen bis Sequenz n sind in der Datenbank". Beim Öffnen wird die Datei gelesen; offen sind alle Operationen
+ * nach der letzten Bestätigung. Ein unvollständiger oder beschädigter Satz am Ende (Absturz beim Schreiben) wird
+ * abgeschnitten. Sind alle Operationen bestätigt, wird die Datei geleert, damit sie nicht unbegrenzt wächst.
+ *
+ * Geänderte Einträge werden mit der Änderungsnummer gespeichert, mit der sie gelesen wurden, damit die Datenbank
+ * auch beim späteren Übertragen erkennt, ob sie inzwischen von anderer Seite geändert wurden. Neben der Datei liegt
+ * die Kennung dieser Installation (Endung ".kennung"), unter der die Änderungen in die Datenbank geschrieben werden.
+ *
+ * Wann die Daten mit force() auf den Datenträger gebracht werden, legt die Synchronisierung fest. Geht eine
+ * Bestätigung verloren, wird die Operation beim nächsten Start noch einmal übertragen. Das ist nur bei neuen Einträgen
+ * (über ihren Schlüssel) sowie beim Ändern und Löschen einzelner IDs ohne Wirkung; deshalb werden nur Bestätigungen
+ * erzwungen, die das Löschen eines Tages oder aller Einträge abschließen. Ein zweites Mal ausgeführt, würden diese
+ * auch Einträge löschen, die andere Installationen inzwischen geschrieben haben.
+ */
+public class Journal implements AutoCloseable {
+
+    public enum Synchronisierung {
+        // Nach jeder Operation; sie ist sicher gespeichert, sobald der Aufruf zurückkehrt.
+        IMMER,
+        // Höchstens einmal je Intervall des JournalAbgleichs; ein Absturz des Rechners kann die letzten Operationen kosten.
+        INTERVALL,
+        // Dem Betriebssystem überlassen.
+        NIE;
+
+        public static Synchronisierung ausName(String name) {
+            return valueOf(name.trim().toUpperCase());
+        }
+    }
+
+    // Standardort des Journals, neben der eingebetteten Datenbank.
+    public static final Path STANDARD_DATEI = Paths.get(System.getProperty("user.home"), ".haushaltsbuch", "journal.log");
+
+    // Ab dieser Größe wird die Datei geleert, sobald keine Operation mehr offen ist.
+    private static final long KOMPAKTIEREN_AB = 64 * 1024;
+
+    // Obergrenze für die Länge eines Satzes; größere Längenangaben gelten als beschädigt.
+    private static final int MAX_SATZ = 1 << 20;
+
+    private static final byte EINFUEGEN = 1;
+    // Ändern ohne Änderungsnummer; wird nur noch aus älteren Journalen gelesen.
+    private static final byte AENDERN = 2;
+    private static final byte LOESCHEN = 3;
+    private static final byte BESTAETIGT = 4;
+    private static final byte AENDERN_MIT_STAND = 5;
+    private static final byte TAG_LOESCHEN = 6;
+    private static final byte ALLE_LOESCHEN = 7;
+
+    private final Path datei;
+    private final FileChannel kanal;
+    private final FileLock sperre;
+    private final Synchronisierung synchronisierung;
+    private final String kennung;
+
+    // Noch nicht bestätigte Operationen in der Reihenfolge ihrer Sequenz.
+    private final List<JournalEintrag> offen = new ArrayList<>();
+    private long naechsteSequenz = 1;
+    private boolean ungesichert;
+
+    /*
+     * Öffnet (oder erstellt) das Journal und stellt die offenen Operationen wieder her.
+     *
+     * @throws IOException wenn die Datei nicht geöffnet oder gelesen werden kann
+     */
+    public Journal(Path datei, Synchronisierung synchronisierung) throws IOException {
+        this.datei = datei;
+        this.synchronisierung = synchronisierung;
+        if (datei.getParent() != null) {
+            Files.createDirectories(datei.getParent());
+        }
+        kanal = FileChannel.open(datei, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Zwei Instanzen dürfen nicht in dasselbe Journal schreiben; die Sequenznummern würden sich überschneiden.
+        FileLock gesperrt;
+        try {
+            gesperrt = kanal.tryLock();
+        } catch (OverlappingFileLockException e) {
+            gesperrt = null;
+        }
+        sperre = gesperrt;
+        if (sperre == null) {
+            kanal.close();
+            throw new IOException("Das Journal " + datei + " wird bereits von einer anderen Instanz verwendet");
+        }
+        try {
+            kennung = kennungLesen(datei.resolveSibling(datei.getFileName() + ".kennung"));
+            wiederherstellen();
+        } catch (IOException | RuntimeException e) {
+            sperre.release();
+            kanal.close();
+            throw e;
+        }
+    }
+
+    // Liest die Kennung dieser Installation, beim ersten Mal wird sie erzeugt und gespeichert.
+    private static String kennungLesen(Path datei) throws IOException {
+        if (Files.exists(datei)) {
+            String gelesen = new String(Files.readAllBytes(datei), StandardCharsets.UTF_8).trim();
+            if (!gelesen.isEmpty()) {
+                return gelesen;
+            }
+        }
+        String neu = UUID.randomUUID().toString();
+        Files.write(datei, neu.getBytes(StandardCharsets.UTF_8));
+        return neu;
+    }
+
+    /*
+     * Öffnet das Journal aus den Systemeigenschaften "journal.datei" (Standard: STANDARD_DATEI) und
+     * "journal.sync" (IMMER, INTERVALL oder NIE; Standard: IMMER).
+     */
+    public static Journal oeffnen() throws IOException {
+        String datei = System.getProperty("journal.datei");
+        return new Journal(datei != null ? Paths.get(datei) : STANDARD_DATEI,
+                Synchronisierung.ausName(System.getProperty("journal.sync", Synchronisierung.IMMER.name())));
+    }
+
+    public Path getDatei() {
+        return datei;
+    }
+
+    public Synchronisierung getSynchronisierung() {
+        return synchronisierung;
+    }
+
+    // Kennung dieser Installation; bleibt über Neustarts gleich (siehe DatenbankManager.setKennung).
+    public String getKennung() {
+        return kennung;
+    }
+
+    // Hängt einen neuen Eintrag an; er bekommt einen eigenen Schlüssel, aber noch keine ID.
+    public synchronized JournalEintrag einfuegen(Eintrag eintrag) throws IOException {
+        JournalEintrag operation = JournalEintrag.einfuegen(naechsteSequenz, UUID.randomUUID().toString(), eintrag);
+        anhaengen(Collections.singletonList(operation));
+        return operation;
+    }
+
+    // Hängt geänderte Einträge an (je Eintrag eine Operation, aber nur ein force()).
+    public synchronized List<JournalEintrag> aendern(List<Eintrag> eintraege) throws IOException {
+        List<JournalEintrag> operationen = new ArrayList<>(eintraege.size());
+        for (Eintrag eintrag : eintraege) {
+            operationen.add(JournalEintrag.aendern(naechsteSequenz + operationen.size(), eintrag));
+        }
+        anhaengen(operationen);
+        return operationen;
+    }
+
+    public synchronized JournalEintrag loeschen(int[] ids) throws IOException {
+        JournalEintrag operation = JournalEintrag.loeschen(naechsteSequenz, ids.clone());
+        anhaengen(Collections.singletonList(operation));
+        return operation;
+    }
+
+    // Hängt das Löschen aller Einträge eines Tages an.
+    public synchronized JournalEintrag tagLoeschen(LocalDate datum) throws IOException {
+        JournalEintrag operation = JournalEintrag.tagLoeschen(naechsteSequenz, datum);
+        anhaengen(Collections.singletonList(operation));
+        return operation;
+    }
+
+    // Hängt das Löschen aller Einträge an.
+    public synchronized JournalEintrag alleLoeschen() throws IOException {
+        JournalEintrag operation = JournalEintrag.alleLoeschen(naechsteSequenz);
+        anhaengen(Collections.singletonList(operation));
+        return operation;
+    }
+
+    // Die ältesten höchstens "max" offenen Operationen.
+    public synchronized List<JournalEintrag> offene(int max) {
+        return new ArrayList<>(offen.subList(0, Math.min(max, offen.size())));
+    }
+
+    // Sequenz der zuletzt angehängten (oder beim Öffnen gelesenen) Operation, 0 bei einem leeren Journal.
+    public synchronized long getLetzteSequenz() {
+        return naechsteSequenz - 1;
+    }
+
+    public synchronized int getAnzahlOffen() {
+        return offen.size();
+    }
+
+    /*
+     * Vermerkt, dass alle Operationen bis einschließlich "sequenz" in der Datenbank sind. Ist danach nichts mehr
+     * offen und die Datei groß genug, wird sie geleert. Gehört das Löschen eines Tages oder aller Einträge dazu,
+     * wird die Bestätigung sofort auf den Datenträger gebracht (siehe oben).
+     */
+    public synchronized void bestaetigen(long sequenz) throws IOException {
+        boolean erzwingen = false;
+        for (Iterator<JournalEintrag> it = offen.iterator(); it.hasNext(); ) {
+            JournalEintrag operation = it.next();
+            if (operation.getSequenz() <= sequenz) {
+                erzwingen |= operation.getArt() == JournalEintrag.Art.TAG_LOESCHEN
+                        || operation.getArt() == JournalEintrag.Art.ALLE_LOESCHEN;
+                it.remove();
+            }
+        }
+        if (offen.isEmpty() && kanal.size() >= KOMPAKTIEREN_AB) {
+            kanal.truncate(0);
+            kanal.force(true);
+            ungesichert = false;
+            return;
+        }
+        schreiben(Collections.singletonList(satz(BESTAETIGT, sequenz, null)));
+        if (erzwingen) {
+            kanal.force(false);
+            ungesichert = false;
+        }
+    }
+
+    // Bringt bei der Synchronisierung INTERVALL die seit dem letzten Aufruf angehängten Operationen auf den Datenträger.
+    public synchronized void sichern() throws IOException {
+        if (ungesichert) {
+            kanal.force(false);
+            ungesichert = false;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (kanal.isOpen()) {
+            sichern();
+            sperre.release();
+            kanal.close();
+        }
+    }
+
+    private void anhaengen(List<JournalEintrag> operationen) throws IOException {
+        List<ByteBuffer> saetze = new ArrayList<>(operationen.size());
+        for (JournalEintrag operation : operationen) {
+            saetze.add(satz(artCode(operation.getArt()), operation.getSequenz(), operation));
+        }
+        schreiben(saetze);
+        if (synchronisierung == Synchronisierung.IMMER) {
+            kanal.force(false);
+        } else {
+            ungesichert = true;
+        }
+        // Erst nach dem Schreiben übernehmen: Schlägt es fehl, gilt die Operation als nicht angenommen.
+        offen.addAll(operationen);
+        naechsteSequenz += operationen.size();
+    }
+
+    private void schreiben(List<ByteBuffer> saetze) throws IOException {
+        long position = kanal.size();
+        for (ByteBuffer satz : saetze) {
+            while (satz.hasRemaining()) {
+                position += kanal.write(satz, position);
+            }
+        }
+    }
+
+    private static byte artCode(JournalEintrag.Art art) {
+        switch (art) {
+            case EINFUEGEN:
+                return EINFUEGEN;
+            case AENDERN:
+                return AENDERN_MIT_STAND;
+            case TAG_LOESCHEN:
+                return TAG_LOESCHEN;
+            case ALLE_LOESCHEN:
+                return ALLE_LOESCHEN;
+            default:
+                return LOESCHEN;
+        }
+    }
+
+    // Ein vollständiger Satz mit Länge und Prüfsumme.
+    private static ByteBuffer satz(byte art, long sequenz, JournalEintrag operation) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream aus = new DataOutputStream(bytes)) {
+            aus.writeByte(art);
+            aus.writeLong(sequenz);
+            if (art == EINFUEGEN) {
+                aus.writeUTF(operation.getSchluessel());
+                eintragSchreiben(aus, operation.getEintrag());
+            } else if (art == AENDERN_MIT_STAND) {
+                eintragSchreiben(aus, operation.getEintrag());
+                aus.writeLong(operation.getEintrag().getAenderung());
+            } else if (art == LOESCHEN) {
+                aus.writeInt(operation.getIds().length);
+                for (int id : operation.getIds()) {
+                    aus.writeInt(id);
+                }
+            } else if (art == TAG_LOESCHEN) {
+                aus.writeLong(operation.getDatum().toEpochDay());
+            }
+        }
+        byte[] nutzdaten = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(nutzdaten);
+        ByteBuffer satz = ByteBuffer.allocate(8 + nutzdaten.length);
+        satz.putInt(nutzdaten.length).putInt((int) crc.getValue()).put(nutzdaten).flip();
+        return satz;
+    }
+
+    private static void eintragSchreiben(DataOutputStream aus, Eintrag eintrag) throws IOException {
+        aus.writeInt(eintrag.getId());
+        textSchreiben(aus, eintrag.getBezeichnung());
+        aus.writeLong(eintrag.getBetragCent());
+        aus.writeLong(eintrag.getDatum().toEpochDay());
+        textSchreiben(aus, eintrag.getInfo());
+        textSchreiben(aus, eintrag.getKategorie() == null ? null : eintrag.getKategorie().getName());
+        textSchreiben(aus, eintrag.getTyp());
+    }
+
+    private static Eintrag eintragLesen(DataInputStream ein) throws IOException {
+        int id = ein.readInt();
+        String bezeichnung = textLesen(ein);
+        long betragCent = ein.readLong();
+        LocalDate datum = LocalDate.ofEpochDay(ein.readLong());
+        String info = textLesen(ein);
+        String kategorie = textLesen(ein);
+        String typ = textLesen(ein);
+        return new Eintrag(id, bezeichnung, betragCent, datum, info,
+                kategorie == null || kategorie.isEmpty() ? KategorieKatalog.KEINE : new Kategorie(kategorie), typ);
+    }
+
+    private static void textSchreiben(DataOutputStream aus, String text) throws IOException {
+        aus.writeBoolean(text != null);
+        if (text != null) {
+            aus.writeUTF(text);
+        }
+    }
+
+    private static String textLesen(DataInputStream ein) throws IOException {
+        return ein.readBoolean() ? ein.readUTF() : null;
+    }
+
+    /*
+     * Liest alle vollständigen Sätze und baut daraus die offenen Operationen auf. Alles ab dem ersten
+     * unvollständigen oder beschädigten Satz wird abgeschnitten.
+     */
+    private void wiederherstellen() throws IOException {
+        long groesse = kanal.size();
+        ByteBuffer inhalt = ByteBuffer.allocate((int) Math.min(groesse, Integer.MAX_VALUE - 8));
+        while (inhalt.hasRemaining() && kanal.read(inhalt, inhalt.position()) >= 0) {
+            // weiterlesen, bis der Puffer voll ist
+        }
+        inhalt.flip();
+
+        long gueltig = 0;
+        long hoechsteSequenz = 0;
+        CRC32 crc = new CRC32();
+        while (inhalt.remaining() >= 8) {
+            int laenge = inhalt.getInt();
+            int pruefsumme = inhalt.getInt();
+            if (laenge <= 0 || laenge > MAX_SATZ || laenge > inhalt.remaining()) {
+                break;
+            }
+            byte[] nutzdaten = new byte[laenge];
+            inhalt.get(nutzdaten);
+            crc.reset();
+            crc.update(nutzdaten);
+            if ((int) crc.getValue() != pruefsumme) {
+                break;
+            }
+            try (DataInputStream ein = new DataInputStream(new ByteArrayInputStream(nutzdaten))) {
+                byte art = ein.readByte();
+                long sequenz = ein.readLong();
+                hoechsteSequenz = Math.max(hoechsteSequenz, sequenz);
+                switch (art) {
+                    case EINFUEGEN:
+                        String schluessel = ein.readUTF();
+                        offen.add(JournalEintrag.einfuegen(sequenz, schluessel, eintragLesen(ein)));
+                        break;
+                    case AENDERN:
+                        offen.add(JournalEintrag.aendern(sequenz, eintragLesen(ein)));
+                        break;
+                    case AENDERN_MIT_STAND:
+                        Eintrag e = eintragLesen(ein);
+                        offen.add(JournalEintrag.aendern(sequenz, new Eintrag(e.getId(), e.getBezeichnung(), e.getBetragCent(),
+                                e.getDatum(), e.getInfo(), e.getKategorie(), e.getTyp(), ein.readLong())));
+                        break;
+                    case LOESCHEN:
+                        int[] ids = new int[ein.readInt()];
+                        for (int i = 0; i < ids.length; i++) {
+                            ids[i] = ein.readInt();
+                        }
+                        offen.add(JournalEintrag.loeschen(sequenz, ids));
+                        break;
+                    case TAG_LOESCHEN:
+                        offen.add(JournalEintrag.tagLoeschen(sequenz, LocalDate.ofEpochDay(ein.readLong())));
+                        break;
+                    case ALLE_LOESCHEN:
+                        offen.add(JournalEintrag.alleLoeschen(sequenz));
+                        break;
+                    case BESTAETIGT:
+                        for (Iterator<JournalEintrag> it = offen.iterator(); it.hasNext(); ) {
+                            if (it.next().getSequenz() <= sequenz) {
+                                it.remove();
+                            }
+                        }
+                        break;
+                    default:
+                        throw new IOException("Unbekannte Art " + art + " im Journal " + datei);
+                }
+            }
+            gueltig = inhalt.position();
+        }
+        naechsteSequenz = hoechsteSequenz + 1;
+        if (gueltig < groesse) {
+            System.err.println("Journal " + datei + ": " + (groesse - gueltig) + " unvollständige Bytes am Ende verworfen");
+            kanal.truncate(gueltig);
+            kanal.force(true);
+        }
+        if (!offen.isEmpty()) {
+            System.err.println("Journal " + datei + ": " + offen.size() + " Operationen noch nicht in der Datenbank");
+        }
+    }
+}
@@ -0,0 +1,328 @@
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/*
+ * Die Klasse "JournalAbgleich" nimmt neue, geänderte und gelöschte Einträge entgegen, hängt sie an das Journal an
+ * und überträgt sie im Hintergrund in die Datenbank. Eine Änderung gilt als gespeichert, sobald sie im Journal
+ * steht; ist die Datenbank nicht erreichbar, bleibt sie dort, bis die Verbindung wieder steht.
+ *
+ * Übertragen wird in der Reihenfolge des Journals, in Blöcken von höchstens BATCH_GROESSE Operationen je
+ * Transaktion. Neue und geänderte Einträge werden vor dem Anhängen mit DatenbankManager.pruefen geprüft, damit das
+ * Journal nichts annimmt, was die Datenbank ablehnen würde. Scheitert ein Block trotzdem, werden seine Operationen
+ * einzeln wiederholt: Eine Operation, die die Datenbank grundsätzlich ablehnt (ungültige Werte, verletzte
+ * Bedingung), wird verworfen und dem Beobachter gemeldet, damit sie die folgenden nicht für immer aufhält. Bei jedem anderen Fehler (z.B. keine Verbindung) wird mit wachsendem
+ * Abstand (bis MAX_WARTEZEIT_MILLIS) erneut versucht.
+ *
+ * Auch das Löschen aller Einträge eines Tages oder aller Einträge läuft über das Journal, damit vorher gespeicherte
+ * Einträge, die noch im Journal stehen, nicht erst danach in die Datenbank kommen. Das Löschen aller Einträge wird
+ * als eigener Block übertragen (siehe DatenbankManager.deleteAllEintraege) und erst danach bestätigt; bricht es ab,
+ * wird es wiederholt.
+ *
+ * Geänderte Einträge, die inzwischen eine andere Anwendung geändert hat, schreibt die Datenbank nicht (siehe
+ * DatenbankManager.journalAnwenden); sie werden dem Beobachter als Konflikt gemeldet und gelten als erledigt.
+ *
+ * Beim Start werden die beim letzten Mal nicht mehr übertragenen Operationen aus dem Journal zuerst übertragen.
+ */
+public class JournalAbgleich implements AutoCloseable {
+
+    // Benachrichtigungen auf dem Event Dispatch Thread.
+    public interface Beobachter {
+
+        // Ein in dieser Sitzung angelegter Eintrag steht mit seiner ID in der Datenbank.
+        void eingefuegt(Eintrag eintrag);
+
+        // Alle beim Start aus dem Journal wiederhergestellten Operationen sind in der Datenbank.
+        void wiederhergestellt();
+
+        // Anzahl der offenen Operationen oder der letzte Fehler haben sich geändert.
+        void statusGeaendert();
+
+        // Diese Änderungen wurden verworfen, weil die Einträge inzwischen von anderer Seite geändert, gelöscht oder
+        // ausgelagert wurden.
+        void konflikt(List<Eintrag> eintraege);
+
+        // Die Einträge eines Tages (alle = false) oder alle Einträge sind in der Datenbank gelöscht.
+        void geloescht(boolean alle);
+
+        // Die Datenbank hat diese Operation abgelehnt; sie wurde verworfen und ist nicht gespeichert.
+        void verworfen(JournalEintrag operation, String grund);
+    }
+
+    // Abstand zwischen zwei Durchläufen, wenn nichts angestoßen wurde.
+    public static final long INTERVALL_MILLIS = 200;
+
+    // Höchstzahl der Operationen je Transaktion.
+    public static final int BATCH_GROESSE = 500;
+
+    // Größte Wartezeit zwischen zwei Versuchen nach wiederholten Fehlern.
+    public static final long MAX_WARTEZEIT_MILLIS = 30_000;
+
+    private final DatenbankManager dbManager;
+    private final Journal journal;
+    private final Beobachter beobachter;
+    private final ScheduledExecutorService abgleicher;
+
+    // Operationen bis zu dieser Sequenz stammen aus einer früheren Sitzung.
+    private final long wiederhergestelltBis;
+    private boolean wiederhergestelltGemeldet;
+
+    private int fehlversuche;
+    private long naechsterVersuch;
+    private String letzterFehler;
+
+    public JournalAbgleich(DatenbankManager dbManager, Journal journal, Beobachter beobachter) {
+        this.dbManager = dbManager;
+        this.journal = journal;
+        this.beobachter = beobachter;
+        wiederhergestelltBis = journal.getAnzahlOffen() > 0 ? journal.getLetzteSequenz() : 0;
+        wiederhergestelltGemeldet = wiederhergestelltBis == 0;
+        abgleicher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Journal-Abgleich");
+            thread.setDaemon(true);
+            return thread;
+        });
+        abgleicher.scheduleWithFixedDelay(this::abgleichen, 0, INTERVALL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Hängt einen neuen Eintrag an das Journal an. Kehrt der Aufruf zurück, ist der Eintrag gespeichert
+     * (bei der Synchronisierung IMMER auch auf dem Datenträger); seine ID meldet der Beobachter später.
+     *
+     * @throws IllegalArgumentException wenn die Datenbank den Eintrag nicht annehmen würde (siehe DatenbankManager.pruefen)
+     * @throws IOException wenn das Journal nicht geschrieben werden konnte; dann ist der Eintrag nicht gespeichert
+     */
+    public void einfuegen(Eintrag eintrag) throws IOException {
+        DatenbankManager.pruefen(eintrag);
+        journal.einfuegen(eintrag);
+        anstossen();
+    }
+
+    // Hängt geänderte Einträge an (z.B. aus dem Schreibpuffer), siehe einfuegen.
+    public void aendern(List<Eintrag> eintraege) throws IOException {
+        for (Eintrag eintrag : eintraege) {
+            DatenbankManager.pruefen(eintrag);
+        }
+        journal.aendern(eintraege);
+        anstossen();
+    }
+
+    // Hängt das Löschen der Einträge mit den angegebenen IDs an, siehe einfuegen.
+    public void loeschen(int[] ids) throws IOException {
+        journal.loeschen(ids);
+        anstossen();
+    }
+
+    // Hängt das Löschen aller Einträge des Tages an, siehe einfuegen.
+    public void tagLoeschen(LocalDate datum) throws IOException {
+        journal.tagLoeschen(datum);
+        anstossen();
+    }
+
+    // Hängt das Löschen aller Einträge an, siehe einfuegen.
+    public void alleLoeschen() throws IOException {
+        journal.alleLoeschen();
+        anstossen();
+    }
+
+    public int getAnzahlOffen() {
+        return journal.getAnzahlOffen();
+    }
+
+    // Meldung des letzten fehlgeschlagenen Versuchs, oder null, wenn der letzte Versuch geklappt hat.
+    public synchronized String getLetzterFehler() {
+        return letzterFehler;
+    }
+
+    // Zeitpunkt (System.currentTimeMillis()) des nächsten Versuchs nach einem Fehler, sonst 0.
+    public synchronized long getNaechsterVersuch() {
+        return naechsterVersuch;
+    }
+
+    // Überträgt neu angehängte Operationen gleich, statt auf den nächsten Durchlauf zu warten.
+    private void anstossen() {
+        melden(Beobachter::statusGeaendert);
+        if (!abgleicher.isShutdown()) {
+            abgleicher.execute(this::abgleichen);
+        }
+    }
+
+    private void abgleichen() {
+        synchronized (this) {
+            if (System.currentTimeMillis() < naechsterVersuch) {
+                return;
+            }
+        }
+        try {
+            journal.sichern();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        List<JournalEintrag> block;
+        while (!(block = naechsterBlock()).isEmpty()) {
+            try {
+                uebertragen(block);
+            } catch (SQLException | RuntimeException e) {
+                e.printStackTrace();
+                if (!einzelnUebertragen(block)) {
+                    return;
+                }
+            }
+        }
+        wiederhergestelltMelden();
+    }
+
+    // Die nächsten offenen Operationen; ALLE_LOESCHEN steht immer allein in einem Block.
+    private List<JournalEintrag> naechsterBlock() {
+        List<JournalEintrag> block = journal.offene(BATCH_GROESSE);
+        for (int i = 0; i < block.size(); i++) {
+            if (block.get(i).getArt() == JournalEintrag.Art.ALLE_LOESCHEN) {
+                return block.subList(0, Math.max(i, 1));
+            }
+        }
+        return block;
+    }
+
+    /*
+     * Überträgt die Operationen eines gescheiterten Blocks einzeln und in Reihenfolge. Gibt "false" zurück, wenn
+     * dabei ein vorübergehender Fehler aufgetreten ist; die restlichen Operationen bleiben dann offen.
+     */
+    private boolean einzelnUebertragen(List<JournalEintrag> block) {
+        for (JournalEintrag operation : block) {
+            try {
+                uebertragen(Collections.singletonList(operation));
+            } catch (SQLException e) {
+                if (!abgelehnt(e)) {
+                    fehlgeschlagen(e);
+                    return false;
+                }
+                bestaetigen(operation.getSequenz());
+                melden(b -> b.verworfen(operation, e.getMessage()));
+            } catch (RuntimeException e) {
+                fehlgeschlagen(e);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Ob die Datenbank die Operation grundsätzlich ablehnt: SQLState-Klasse 22 (ungültige Daten) oder 23
+     * (verletzte Bedingung), auch wenn der Treiber sie in eine BatchUpdateException verpackt.
+     */
+    private static boolean abgelehnt(SQLException e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            String zustand = t instanceof SQLException ? ((SQLException) t).getSQLState() : null;
+            if (zustand != null && (zustand.startsWith("22") || zustand.startsWith("23"))) {
+                return true;
+            }
+        }
+        return e.getNextException() != null && abgelehnt(e.getNextException());
+    }
+
+    // Merkt einen vorübergehenden Fehler; der nächste Versuch folgt mit wachsendem Abstand.
+    private void fehlgeschlagen(Exception e) {
+        synchronized (this) {
+            fehlversuche++;
+            long wartezeit = Math.min(MAX_WARTEZEIT_MILLIS, INTERVALL_MILLIS << Math.min(fehlversuche, 16));
+            naechsterVersuch = System.currentTimeMillis() + wartezeit;
+            letzterFehler = e.getMessage();
+        }
+        melden(Beobachter::statusGeaendert);
+    }
+
+    private void uebertragen(List<JournalEintrag> block) throws SQLException {
+        if (block.get(0).getArt() == JournalEintrag.Art.ALLE_LOESCHEN) {
+            dbManager.deleteAllEintraege();
+            bestaetigen(block.get(0).getSequenz());
+            erfolgreich();
+            melden(b -> b.geloescht(true));
+            melden(Beobachter::statusGeaendert);
+            return;
+        }
+        DatenbankManager.JournalErgebnis ergebnis = dbManager.journalAnwenden(block);
+        Map<String, Integer> ids = ergebnis.getIds();
+        bestaetigen(block.get(block.size() - 1).getSequenz());
+        erfolgreich();
+        boolean tagGeloescht = false;
+        for (JournalEintrag operation : block) {
+            tagGeloescht |= operation.getArt() == JournalEintrag.Art.TAG_LOESCHEN;
+            Integer id = ids.get(operation.getSchluessel());
+            if (operation.getArt() == JournalEintrag.Art.EINFUEGEN && id != null && operation.getSequenz() > wiederhergestelltBis) {
+                Eintrag e = operation.getEintrag();
+                Eintrag mitId = new Eintrag(id, e.getBezeichnung(), e.getBetragCent(), e.getDatum(), e.getInfo(), e.getKategorie(), e.getTyp());
+                melden(b -> b.eingefuegt(mitId));
+            }
+        }
+        if (!ergebnis.getKonflikte().isEmpty()) {
+            melden(b -> b.konflikt(ergebnis.getKonflikte()));
+        }
+        if (tagGeloescht) {
+            melden(b -> b.geloescht(false));
+        }
+        melden(Beobachter::statusGeaendert);
+    }
+
+    // Nach einem gelungenen Versuch beginnt die Wartezeit nach dem nächsten Fehler wieder von vorn.
+    private synchronized void erfolgreich() {
+        fehlversuche = 0;
+        naechsterVersuch = 0;
+        letzterFehler = null;
+    }
+
+    private void bestaetigen(long sequenz) {
+        try {
+            journal.bestaetigen(sequenz);
+        } catch (IOException e) {
+            // Ohne Bestätigung wird die Operation beim nächsten Start noch einmal übertragen (siehe Journal).
+            e.printStackTrace();
+        }
+    }
+
+    private void wiederhergestelltMelden() {
+        synchronized (this) {
+            if (wiederhergestelltGemeldet) {
+                return;
+            }
+            wiederhergestelltGemeldet = true;
+        }
+        melden(Beobachter::wiederhergestellt);
+    }
+
+    private void melden(Consumer<Beobachter> meldung) {
+        if (beobachter != null) {
+            SwingUtilities.invokeLater(() -> meldung.accept(beobachter));
+        }
+    }
+
+    /*
+     * Versucht ein letztes Mal, alle offenen Operationen zu übertragen, und beendet den Hintergrund-Thread.
+     * Was dabei nicht übertragen werden kann, bleibt im Journal und wird beim nächsten Start übertragen.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            naechsterVersuch = 0;
+        }
+        try {
+            abgleicher.submit(this::abgleichen).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        abgleicher.shutdown();
+        if (journal.getAnzahlOffen() > 0) {
+            System.err.println(journal.getAnzahlOffen() + " Operationen bleiben im Journal " + journal.getDatei()
+                    + " und werden beim nächsten Start übertragen");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import java.time.LocalDate;
+
+/*
+ * Die Klasse "JournalEintrag" ist eine im Journal gespeicherte, noch nicht (sicher) in die Datenbank geschriebene
+ * Operation: einen Eintrag anlegen, ändern, Einträge löschen, alle Einträge eines Tages oder alle Einträge überhaupt
+ * löschen. Die Sequenznummer gibt die Reihenfolge vor, in der die Operationen in die Datenbank übertragen werden;
+ * so kann ein vorher gespeicherter Eintrag nicht erst nach dem Löschen ankommen.
+ *
+ * Neue Einträge haben noch keine ID; sie werden über ihren Schlüssel (eine UUID) erkannt, der beim Anlegen in der
+ * Spalte "journal_id" gespeichert wird. So wird ein Eintrag auch bei einem wiederholten Abgleich nur einmal angelegt.
+ */
+public final class JournalEintrag {
+
+    public enum Art {
+        EINFUEGEN, AENDERN, LOESCHEN, TAG_LOESCHEN, ALLE_LOESCHEN
+    }
+
+    private final Art art;
+    private final long sequenz;
+    private final String schluessel;
+    private final Eintrag eintrag;
+    private final int[] ids;
+    private final LocalDate datum;
+
+    private JournalEintrag(Art art, long sequenz, String schluessel, Eintrag eintrag, int[] ids, LocalDate datum) {
+        this.art = art;
+        this.sequenz = sequenz;
+        this.schluessel = schluessel;
+        this.eintrag = eintrag;
+        this.ids = ids;
+        this.datum = datum;
+    }
+
+    static JournalEintrag einfuegen(long sequenz, String schluessel, Eintrag eintrag) {
+        return new JournalEintrag(Art.EINFUEGEN, sequenz, schluessel, eintrag, null, null);
+    }
+
+    static JournalEintrag aendern(long sequenz, Eintrag eintrag) {
+        return new JournalEintrag(Art.AENDERN, sequenz, null, eintrag, null, null);
+    }
+
+    static JournalEintrag loeschen(long sequenz, int[] ids) {
+        return new JournalEintrag(Art.LOESCHEN, sequenz, null, null, ids, null);
+    }
+
+    static JournalEintrag tagLoeschen(long sequenz, LocalDate datum) {
+        return new JournalEintrag(Art.TAG_LOESCHEN, sequenz, null, null, null, datum);
+    }
+
+    static JournalEintrag alleLoeschen(long sequenz) {
+        return new JournalEintrag(Art.ALLE_LOESCHEN, sequenz, null, null, null, null);
+    }
+
+    public Art getArt() {
+        return art;
+    }
+
+    public long getSequenz() {
+        return sequenz;
+    }
+
+    // Schlüssel eines neuen Eintrags (nur bei EINFUEGEN).
+    public String getSchluessel() {
+        return schluessel;
+    }
+
+    // Der neue bzw. geänderte Eintrag (nur bei EINFUEGEN und AENDERN).
+    public Eintrag getEintrag() {
+        return eintrag;
+    }
+
+    // IDs der zu löschenden Einträge (nur bei LOESCHEN).
+    public int[] getIds() {
+        return ids;
+    }
+
+    // Tag, dessen Einträge gelöscht werden (nur bei TAG_LOESCHEN).
+    public LocalDate getDatum() {
+        return datum;
+    }
+}
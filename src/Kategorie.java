@@ -1,3 +1,5 @@
+import java.util.Objects;
+
 /*
  * Die Klasse "Kategorie" repräsentiert eine Kategorie, die in der Haushaltsbuch-Anwendung verwendet wird.
  * Jede Kategorie hat einen Namen, der durch das Attribut "name" repräsentiert wird.
@@ -26,4 +28,18 @@ public class Kategorie {
     public String getName() {
         return name;
     }
+
+    /*
+     * Zwei Kategorien sind gleich, wenn sie denselben Namen haben.
+     * Aus der Datenbank gelesene Einträge teilen sich ohnehin ein Objekt je Kategorie (siehe KategorieKatalog).
+     */
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Kategorie && Objects.equals(name, ((Kategorie) o).name));
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(name);
+    }
 }
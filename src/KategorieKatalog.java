@@ -0,0 +1,127 @@
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Die Klasse "KategorieKatalog" hält alle Kategorien im Speicher: ID und Name jeweils auf ein einziges
+ * Kategorie-Objekt. Beim Lesen von Einträgen wird so für jede Kategorie immer dasselbe Objekt verwendet, statt
+ * für jede Zeile ein neues anzulegen; die Auswahlliste der Kategorien braucht keine eigene Abfrage.
+ *
+ * Der Katalog wird beim ersten Zugriff mit einer Abfrage geladen. Jede Änderung an der Tabelle "kategorien"
+ * (anlegen, löschen) erklärt ihn mit "ungueltig" für veraltet; beim nächsten Zugriff wird er neu geladen.
+ * Ein geladener Stand wird nie verändert, sondern nur als Ganzes ersetzt, und kann daher ohne Sperre von
+ * mehreren Threads gelesen werden.
+ */
+public class KategorieKatalog {
+
+    // Die "Kategorie" der Einträge ohne Kategorie.
+    public static final Kategorie KEINE = new Kategorie("");
+
+    // Liefert eine Verbindung zum Laden des Katalogs (z.B. aus dem Verbindungspool).
+    public interface Quelle {
+        Connection getConnection() throws SQLException;
+    }
+
+    private final Quelle quelle;
+
+    // Aktueller Stand, oder null, wenn er beim nächsten Zugriff (neu) geladen werden muss.
+    private volatile Stand stand;
+
+    public KategorieKatalog(Quelle quelle) {
+        this.quelle = quelle;
+    }
+
+    // Alle Kategorien nach Namen sortiert (unveränderlich).
+    public List<Kategorie> alle() {
+        return geladen().sortiert;
+    }
+
+    /*
+     * Die Kategorie mit der ID aus der Spalte "kategorie_id"; null ergibt KEINE. Kennt der Katalog die ID
+     * (noch) nicht, z.B. weil sie gerade in einer anderen Transaktion angelegt wurde, wird ersatzweise ein
+     * neues Objekt mit dem angegebenen Namen geliefert.
+     */
+    public Kategorie nachId(Integer id, String name) {
+        if (id == null) {
+            return KEINE;
+        }
+        Kategorie kategorie = geladen().nachId.get(id);
+        return kategorie != null ? kategorie : new Kategorie(name);
+    }
+
+    /*
+     * Die Kategorie mit diesem Namen, ohne dafür die Datenbank abzufragen (z.B. auf dem Event Dispatch Thread).
+     * Ist der Katalog gerade nicht geladen oder der Name unbekannt, wird ein neues Objekt geliefert.
+     */
+    public Kategorie nachName(String name) {
+        if (name == null || name.isEmpty()) {
+            return KEINE;
+        }
+        Stand aktuell = stand;
+        Kategorie kategorie = aktuell == null ? null : aktuell.nachName.get(name);
+        return kategorie != null ? kategorie : new Kategorie(name);
+    }
+
+    // Die ID der Kategorie mit diesem Namen, oder null, wenn der Katalog sie nicht kennt.
+    public Integer id(String name) {
+        return geladen().idNachName.get(name);
+    }
+
+    // Verwirft den geladenen Stand; aufzurufen nach jeder Änderung an der Tabelle "kategorien".
+    public void ungueltig() {
+        stand = null;
+    }
+
+    private Stand geladen() {
+        Stand aktuell = stand;
+        if (aktuell != null) {
+            return aktuell;
+        }
+        synchronized (this) {
+            if (stand == null) {
+                try {
+                    stand = laden();
+                } catch (SQLException e) {
+                    // Ohne Katalog wird weiter aus der Datenbank gelesen; beim nächsten Zugriff wird erneut geladen.
+                    e.printStackTrace();
+                    return new Stand();
+                }
+            }
+            return stand;
+        }
+    }
+
+    private Stand laden() throws SQLException {
+        Stand neu = new Stand();
+        List<Kategorie> sortiert = new ArrayList<>();
+        try (Connection conn = quelle.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT id, name FROM kategorien")) {
+            while (rs.next()) {
+                Kategorie kategorie = new Kategorie(rs.getString(2));
+                neu.nachId.put(rs.getInt(1), kategorie);
+                neu.nachName.put(kategorie.getName(), kategorie);
+                neu.idNachName.put(kategorie.getName(), rs.getInt(1));
+                sortiert.add(kategorie);
+            }
+        }
+        sortiert.sort(Comparator.comparing(Kategorie::getName));
+        neu.sortiert = Collections.unmodifiableList(sortiert);
+        return neu;
+    }
+
+    // Ein geladener, danach unveränderter Stand des Katalogs.
+    private static final class Stand {
+        private final Map<Integer, Kategorie> nachId = new HashMap<>();
+        private final Map<String, Kategorie> nachName = new HashMap<>();
+        private final Map<String, Integer> idNachName = new HashMap<>();
+        private List<Kategorie> sortiert = Collections.emptyList();
+    }
+}
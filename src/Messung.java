@@ -0,0 +1,60 @@
+/*
+ * Die Klasse "Messung" misst eine einzelne Operation für die Messwerte und als DatenbankEvent für
+ * Java Flight Recorder. Sie wird mit try-with-resources verwendet; wird vor dem Schließen nicht "erfolg()"
+ * aufgerufen (z.B. weil eine Exception geworfen wurde), zählt die Operation als Fehler.
+ */
+public class Messung implements AutoCloseable {
+
+    private final Messwerte messwerte;
+    private final String operation;
+    // null, wenn keine Events für Java Flight Recorder erzeugt werden.
+    private final DatenbankEvent event;
+    private final long beginn;
+    private long zeilen;
+    private int batchGroesse;
+    private boolean erfolgreich;
+
+    Messung(Messwerte messwerte, String operation, boolean flightRecorder) {
+        this.messwerte = messwerte;
+        this.operation = operation;
+        this.event = flightRecorder ? new DatenbankEvent() : null;
+        if (event != null) {
+            event.begin();
+        }
+        beginn = System.nanoTime();
+    }
+
+    // Anzahl der gelesenen oder geschriebenen Zeilen.
+    public Messung zeilen(long zeilen) {
+        this.zeilen = zeilen;
+        return this;
+    }
+
+    // Anzahl der Anweisungen je Batch (0 = kein Batch).
+    public Messung batch(int groesse) {
+        this.batchGroesse = groesse;
+        return this;
+    }
+
+    // Markiert die Operation als erfolgreich; sonst zählt sie beim Schließen als Fehler.
+    public void erfolg() {
+        erfolgreich = true;
+    }
+
+    @Override
+    public void close() {
+        long dauer = System.nanoTime() - beginn;
+        messwerte.erfassen(operation, dauer, zeilen, batchGroesse, !erfolgreich);
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.zeilen = zeilen;
+            event.batchGroesse = batchGroesse;
+            event.fehlgeschlagen = !erfolgreich;
+            event.commit();
+        }
+    }
+}
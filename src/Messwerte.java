@@ -0,0 +1,131 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/*
+ * Die Klasse "Messwerte" sammelt Laufzeiten, Zeilenzahlen, Batchgrößen und Fehler je Operation
+ * (z.B. "addEintrag", "verbindung", "import"). Gemessen wird mit einer Messung:
+ *
+ *   try (Messung messung = messwerte.messen("addEintrag")) {
+ *       ...
+ *       messung.erfolg();
+ *   }
+ *
+ * Die Laufzeiten werden in einem Histogramm mit Zweierpotenzen von Mikrosekunden gezählt, daraus werden
+ * Perzentile geschätzt (jeweils die Obergrenze der Klasse). Die Werte sind über JMX (MesswerteMXBean) und im
+ * Diagnosefenster sichtbar; jede Messung erzeugt außerdem ein DatenbankEvent für Java Flight Recorder.
+ */
+public class Messwerte implements MesswerteMXBean {
+
+    // Klasse i zählt Laufzeiten bis 2^i Mikrosekunden; die letzte Klasse alle längeren (ab etwa 17 s).
+    static final int KLASSEN = 26;
+
+    private final Map<String, Operation> operationen = new ConcurrentHashMap<>();
+    private final Supplier<VerbindungsPool.Statistik> poolStatistik;
+    private final boolean flightRecorder;
+
+    public Messwerte(Supplier<VerbindungsPool.Statistik> poolStatistik) {
+        this(poolStatistik, true);
+    }
+
+    /*
+     * Mit "flightRecorder" = false erzeugen die Messungen keine DatenbankEvents; die Klassen von Java Flight Recorder
+     * werden dann gar nicht geladen (spart beim Start der Konsole einige hundert Millisekunden).
+     */
+    public Messwerte(Supplier<VerbindungsPool.Statistik> poolStatistik, boolean flightRecorder) {
+        this.poolStatistik = poolStatistik;
+        this.flightRecorder = flightRecorder;
+    }
+
+    // Beginnt eine Messung; sie endet mit close() und gilt als fehlgeschlagen, wenn vorher nicht erfolg() aufgerufen wurde.
+    public Messung messen(String operation) {
+        return new Messung(this, operation, flightRecorder);
+    }
+
+    // Trägt eine bereits gemessene Dauer ein (z.B. die Wartezeit auf eine Verbindung).
+    public void erfassen(String operation, long nanos, long zeilen, int batchGroesse, boolean fehler) {
+        operationen.computeIfAbsent(operation, Operation::new).erfassen(nanos, zeilen, batchGroesse, fehler);
+    }
+
+    // Die Werte aller bisher gemessenen Operationen, nach Namen sortiert.
+    @Override
+    public List<OperationsStatistik> getOperationen() {
+        List<OperationsStatistik> liste = new ArrayList<>();
+        for (Operation operation : operationen.values()) {
+            liste.add(operation.statistik());
+        }
+        liste.sort((a, b) -> a.getName().compareTo(b.getName()));
+        return liste;
+    }
+
+    @Override
+    public VerbindungsPool.Statistik getVerbindungspool() {
+        return poolStatistik.get();
+    }
+
+    @Override
+    public void zuruecksetzen() {
+        operationen.clear();
+    }
+
+    // Klasse des Histogramms für eine Dauer: die kleinste Zweierpotenz von Mikrosekunden, die nicht kleiner ist.
+    static int klasse(long nanos) {
+        long mikros = Math.max(1, (nanos + 999) / 1000);
+        int klasse = 64 - Long.numberOfLeadingZeros(mikros - 1);
+        return Math.min(klasse, KLASSEN - 1);
+    }
+
+    // Zähler einer Operation; alle Änderungen und Abfragen sind synchronisiert.
+    private static final class Operation {
+
+        private final String name;
+        private final long[] histogramm = new long[KLASSEN];
+        private long aufrufe;
+        private long fehler;
+        private long summeNanos;
+        private long maxNanos;
+        private long zeilen;
+        private long batches;
+        private long batchZeilen;
+
+        private Operation(String name) {
+            this.name = name;
+        }
+
+        private synchronized void erfassen(long nanos, long zeilen, int batchGroesse, boolean fehler) {
+            aufrufe++;
+            if (fehler) {
+                this.fehler++;
+            }
+            summeNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            this.zeilen += zeilen;
+            if (batchGroesse > 0) {
+                batches++;
+                batchZeilen += batchGroesse;
+            }
+            histogramm[klasse(nanos)]++;
+        }
+
+        private synchronized OperationsStatistik statistik() {
+            return new OperationsStatistik(name, aufrufe, fehler, summeNanos / 1e6 / Math.max(aufrufe, 1),
+                    perzentil(0.5), perzentil(0.95), perzentil(0.99), maxNanos / 1e6, zeilen,
+                    batches == 0 ? 0 : (double) batchZeilen / batches);
+        }
+
+        // Obergrenze der Histogrammklasse, in die das Perzentil fällt, in Millisekunden (höchstens das Maximum).
+        private double perzentil(double anteil) {
+            long ziel = (long) Math.ceil(aufrufe * anteil);
+            long gezaehlt = 0;
+            for (int i = 0; i < KLASSEN; i++) {
+                gezaehlt += histogramm[i];
+                if (gezaehlt >= ziel && gezaehlt > 0) {
+                    return Math.min((1L << i) / 1000.0, maxNanos / 1e6);
+                }
+            }
+            return maxNanos / 1e6;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+import java.util.List;
+
+/*
+ * JMX-Schnittstelle der Messwerte, z.B. in JConsole oder VisualVM unter "haushaltsbuch:type=Datenbank".
+ */
+public interface MesswerteMXBean {
+
+    List<OperationsStatistik> getOperationen();
+
+    VerbindungsPool.Statistik getVerbindungspool();
+
+    // Setzt alle Zähler der Operationen zurück (die Zähler des Verbindungspools bleiben).
+    void zuruecksetzen();
+}
@@ -0,0 +1,317 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/*
+ * Die Klasse "Momentaufnahme" hält die ersten Zeilen der Standardansicht (alle Einträge aufsteigend nach ID)
+ * samt Anzahl und Summen in einer Binärdatei fest. Beim Beenden wird sie geschrieben, beim nächsten Start
+ * gelesen und sofort angezeigt, noch bevor die Datenbank geöffnet ist. Danach liest das EintragTableModel nur die
+ * Änderungen seit ihrem Änderungsstand aus der Datenbank nach (siehe stand und obergrenzeId).
+ *
+ * Die Zeilen werden spaltenweise gespeichert: IDs, Tage (Epochentag), Beträge in Cent und Änderungsnummern als Zahlenfelder,
+ * Typ und Kategorie als Index in ein Wörterbuch, Bezeichnung und Info als Index in einen Textpool (-1 = null).
+ *
+ * Aufbau der Datei: Kennung, Format-Version, Länge und CRC32 der Nutzdaten, dann die Nutzdaten. Eine Datei mit
+ * anderer Version, falscher Länge oder Prüfsumme wird nicht verwendet. Die Datei wird beim Lesen in den Speicher
+ * abgebildet (Memory-Mapping) und beim Schreiben über eine temporäre Datei ersetzt, sodass nie eine halb
+ * geschriebene Momentaufnahme gelesen wird.
+ */
+public final class Momentaufnahme {
+
+    // Standardort, neben Datenbank und Journal.
+    public static final Path STANDARD_DATEI = Paths.get(System.getProperty("user.home"), ".haushaltsbuch", "momentaufnahme.bin");
+
+    private static final int KENNUNG = 0x48424d41; // "HBMA"
+    private static final int VERSION = 2;
+    private static final int KOPF_GROESSE = 16;
+
+    // Datenbank, aus der die Momentaufnahme stammt; eine andere Datenbank verwirft sie.
+    private final String url;
+
+    // Höchste ID beim Erstellen; Anzahl und Summen beziehen sich auf alle Einträge bis zu dieser ID.
+    private final int obergrenzeId;
+    private final SummenAggregator summen;
+
+    // Änderungsstand der Datenbank beim Erstellen (siehe Aenderungsnummern).
+    private final long stand;
+
+    private final int[] ids;
+    private final int[] tage;
+    private final long[] cent;
+    private final long[] aenderung;
+    private final byte[] typ;
+    private final int[] kategorie;
+    private final int[] bezeichnung;
+    private final int[] info;
+
+    private final String[] typen;
+    private final String[] kategorien;
+    private final String[] texte;
+
+    private Momentaufnahme(String url, int obergrenzeId, SummenAggregator summen, long stand, int[] ids, int[] tage, long[] cent,
+                           long[] aenderung, byte[] typ, int[] kategorie, int[] bezeichnung, int[] info, String[] typen,
+                           String[] kategorien, String[] texte) {
+        this.url = url;
+        this.obergrenzeId = obergrenzeId;
+        this.summen = summen;
+        this.stand = stand;
+        this.ids = ids;
+        this.tage = tage;
+        this.cent = cent;
+        this.aenderung = aenderung;
+        this.typ = typ;
+        this.kategorie = kategorie;
+        this.bezeichnung = bezeichnung;
+        this.info = info;
+        this.typen = typen;
+        this.kategorien = kategorien;
+        this.texte = texte;
+    }
+
+    /*
+     * Erstellt eine Momentaufnahme aus den ersten Einträgen (aufsteigend nach ID), Anzahl und Summen
+     * aller Einträge bis "obergrenzeId" und dem Änderungsstand, zu dem sie gelesen wurden.
+     */
+    public static Momentaufnahme aus(String url, int obergrenzeId, SummenAggregator summen, long stand, List<Eintrag> eintraege) {
+        int n = eintraege.size();
+        int[] ids = new int[n];
+        int[] tage = new int[n];
+        long[] cent = new long[n];
+        long[] aenderung = new long[n];
+        byte[] typ = new byte[n];
+        int[] kategorie = new int[n];
+        int[] bezeichnung = new int[n];
+        int[] info = new int[n];
+        Map<String, Integer> typen = new HashMap<>();
+        Map<String, Integer> kategorien = new HashMap<>();
+        Map<String, Integer> texte = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            Eintrag eintrag = eintraege.get(i);
+            ids[i] = eintrag.getId();
+            tage[i] = (int) eintrag.getDatum().toEpochDay();
+            cent[i] = eintrag.getBetragCent();
+            aenderung[i] = eintrag.getAenderung();
+            typ[i] = (byte) (int) typen.computeIfAbsent(eintrag.getTyp(), t -> typen.size());
+            kategorie[i] = eintrag.getKategorie() == null ? -1 : kategorien.computeIfAbsent(eintrag.getKategorie().getName(), k -> kategorien.size());
+            bezeichnung[i] = eintrag.getBezeichnung() == null ? -1 : texte.computeIfAbsent(eintrag.getBezeichnung(), t -> texte.size());
+            info[i] = eintrag.getInfo() == null ? -1 : texte.computeIfAbsent(eintrag.getInfo(), t -> texte.size());
+        }
+        return new Momentaufnahme(url, obergrenzeId, summen, stand, ids, tage, cent, aenderung, typ, kategorie, bezeichnung, info,
+                alsFeld(typen), alsFeld(kategorien), alsFeld(texte));
+    }
+
+    private static String[] alsFeld(Map<String, Integer> woerterbuch) {
+        String[] feld = new String[woerterbuch.size()];
+        woerterbuch.forEach((text, index) -> feld[index] = text);
+        return feld;
+    }
+
+    // Datei aus der Systemeigenschaft "momentaufnahme.datei", sonst STANDARD_DATEI.
+    public static Path datei() {
+        String datei = System.getProperty("momentaufnahme.datei");
+        return datei != null ? Paths.get(datei) : STANDARD_DATEI;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getObergrenzeId() {
+        return obergrenzeId;
+    }
+
+    // Anzahl und Summen aller Einträge bis zur Obergrenze (nicht nur der gespeicherten Zeilen).
+    public SummenAggregator getSummen() {
+        return summen;
+    }
+
+    public long getStand() {
+        return stand;
+    }
+
+    // Anzahl der gespeicherten Zeilen.
+    public int getZeilen() {
+        return ids.length;
+    }
+
+    // Baut die gespeicherte Zeile "i" wieder als Eintrag zusammen.
+    public Eintrag eintrag(int i) {
+        Kategorie k = kategorie[i] < 0 ? null : kategorien[kategorie[i]].isEmpty() ? KategorieKatalog.KEINE : new Kategorie(kategorien[kategorie[i]]);
+        return new Eintrag(ids[i], text(bezeichnung[i]), cent[i], LocalDate.ofEpochDay(tage[i]), text(info[i]), k, typen[typ[i]], aenderung[i]);
+    }
+
+    private String text(int index) {
+        return index < 0 ? null : texte[index];
+    }
+
+    /*
+     * Schreibt die Momentaufnahme in eine temporäre Datei neben "datei" und ersetzt "datei" anschließend.
+     *
+     * @throws IOException wenn die Datei nicht geschrieben werden konnte; eine vorhandene bleibt dann unverändert
+     */
+    public void schreiben(Path datei) throws IOException {
+        List<String> pool = new ArrayList<>();
+        pool.add(url);
+        addAlle(pool, typen);
+        addAlle(pool, kategorien);
+        addAlle(pool, texte);
+        List<byte[]> kodiert = new ArrayList<>(pool.size());
+        int textBytes = 0;
+        for (String text : pool) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            kodiert.add(bytes);
+            textBytes += 4 + bytes.length;
+        }
+        int n = ids.length;
+        int laenge = 4 + 8 + 4 + 8 + 8 + 4 + 4 + 4 + 4 + textBytes + n * (4 + 4 + 8 + 8 + 1 + 4 + 4 + 4);
+
+        ByteBuffer puffer = ByteBuffer.allocate(KOPF_GROESSE + laenge);
+        puffer.position(KOPF_GROESSE);
+        puffer.putInt(obergrenzeId).putLong(stand).putInt(summen.getAnzahl()).putLong(summen.getEinnahmenCent()).putLong(summen.getAusgabenCent());
+        puffer.putInt(typen.length).putInt(kategorien.length).putInt(texte.length).putInt(n);
+        for (byte[] bytes : kodiert) {
+            puffer.putInt(bytes.length).put(bytes);
+        }
+        // Spaltenweise, damit jede Spalte beim Lesen in einem Stück übernommen werden kann.
+        puffer.asIntBuffer().put(ids);
+        puffer.position(puffer.position() + 4 * n);
+        puffer.asIntBuffer().put(tage);
+        puffer.position(puffer.position() + 4 * n);
+        for (long[] spalte : new long[][]{cent, aenderung}) {
+            puffer.asLongBuffer().put(spalte);
+            puffer.position(puffer.position() + 8 * n);
+        }
+        puffer.put(typ);
+        for (int[] spalte : new int[][]{kategorie, bezeichnung, info}) {
+            puffer.asIntBuffer().put(spalte);
+            puffer.position(puffer.position() + 4 * n);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(puffer.array(), KOPF_GROESSE, laenge);
+        puffer.putInt(0, KENNUNG).putInt(4, VERSION).putInt(8, laenge).putInt(12, (int) crc.getValue());
+        puffer.rewind();
+
+        if (datei.getParent() != null) {
+            Files.createDirectories(datei.getParent());
+        }
+        Path temporaer = datei.resolveSibling(datei.getFileName() + ".neu");
+        try (FileChannel kanal = FileChannel.open(temporaer, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (puffer.hasRemaining()) {
+                kanal.write(puffer);
+            }
+            kanal.force(false);
+        }
+        Files.move(temporaer, datei, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void addAlle(List<String> pool, String[] texte) {
+        for (String text : texte) {
+            pool.add(text);
+        }
+    }
+
+    /*
+     * Liest die Momentaufnahme aus "datei". Gibt null zurück, wenn es keine gibt, sie beschädigt ist, ein anderes
+     * Format hat oder aus einer anderen Datenbank ("url") stammt.
+     */
+    public static Momentaufnahme laden(Path datei, String url) {
+        try (FileChannel kanal = FileChannel.open(datei, StandardOpenOption.READ)) {
+            long groesse = kanal.size();
+            if (groesse < KOPF_GROESSE || groesse > Integer.MAX_VALUE) {
+                return verworfen(datei, "ungültige Größe");
+            }
+            MappedByteBuffer puffer = kanal.map(FileChannel.MapMode.READ_ONLY, 0, groesse);
+            if (puffer.getInt(0) != KENNUNG) {
+                return verworfen(datei, "keine Momentaufnahme");
+            }
+            if (puffer.getInt(4) != VERSION) {
+                return verworfen(datei, "Version " + puffer.getInt(4));
+            }
+            int laenge = puffer.getInt(8);
+            if (laenge != groesse - KOPF_GROESSE) {
+                return verworfen(datei, "unvollständig");
+            }
+            CRC32 crc = new CRC32();
+            crc.update(puffer.position(KOPF_GROESSE));
+            if ((int) crc.getValue() != puffer.getInt(12)) {
+                return verworfen(datei, "Prüfsumme falsch");
+            }
+            puffer.position(KOPF_GROESSE);
+            return lesen(puffer, datei, url);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return verworfen(datei, e.toString());
+        }
+    }
+
+    private static Momentaufnahme lesen(ByteBuffer puffer, Path datei, String url) {
+        int obergrenzeId = puffer.getInt();
+        long stand = puffer.getLong();
+        SummenAggregator summen = new SummenAggregator(puffer.getInt(), puffer.getLong(), puffer.getLong());
+        String[] typen = new String[puffer.getInt()];
+        String[] kategorien = new String[puffer.getInt()];
+        String[] texte = new String[puffer.getInt()];
+        int n = puffer.getInt();
+        String gespeicherteUrl = textLesen(puffer);
+        if (!gespeicherteUrl.equals(url)) {
+            return verworfen(datei, "andere Datenbank");
+        }
+        for (String[] feld : new String[][]{typen, kategorien, texte}) {
+            for (int i = 0; i < feld.length; i++) {
+                feld[i] = textLesen(puffer);
+            }
+        }
+        int[] ids = new int[n];
+        int[] tage = new int[n];
+        long[] cent = new long[n];
+        long[] aenderung = new long[n];
+        byte[] typ = new byte[n];
+        int[] kategorie = new int[n];
+        int[] bezeichnung = new int[n];
+        int[] info = new int[n];
+        puffer.asIntBuffer().get(ids);
+        puffer.position(puffer.position() + 4 * n);
+        puffer.asIntBuffer().get(tage);
+        puffer.position(puffer.position() + 4 * n);
+        for (long[] spalte : new long[][]{cent, aenderung}) {
+            puffer.asLongBuffer().get(spalte);
+            puffer.position(puffer.position() + 8 * n);
+        }
+        puffer.get(typ);
+        for (int[] spalte : new int[][]{kategorie, bezeichnung, info}) {
+            puffer.asIntBuffer().get(spalte);
+            puffer.position(puffer.position() + 4 * n);
+        }
+        return new Momentaufnahme(url, obergrenzeId, summen, stand, ids, tage, cent, aenderung, typ, kategorie, bezeichnung, info,
+                typen, kategorien, texte);
+    }
+
+    private static String textLesen(ByteBuffer puffer) {
+        byte[] bytes = new byte[puffer.getInt()];
+        puffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Momentaufnahme verworfen(Path datei, String grund) {
+        System.err.println("Momentaufnahme " + datei + " wird nicht verwendet: " + grund);
+        return null;
+    }
+}
@@ -0,0 +1,50 @@
+import java.time.YearMonth;
+
+/*
+ * Die Klasse "Monatssumme" ist eine Zeile einer Auswertung: Anzahl und Summe der Einträge eines Typs
+ * ("Einnahme" oder "Ausgabe") in einer Kategorie und einem Monat.
+ */
+public class Monatssumme {
+
+    private final YearMonth monat;
+
+    // Name der Kategorie; leer für Einträge ohne Kategorie.
+    private final String kategorie;
+    private final String typ;
+    private final long anzahl;
+    private final long summeCent;
+
+    public Monatssumme(YearMonth monat, String kategorie, String typ, long anzahl, long summeCent) {
+        this.monat = monat;
+        this.kategorie = kategorie;
+        this.typ = typ;
+        this.anzahl = anzahl;
+        this.summeCent = summeCent;
+    }
+
+    public YearMonth getMonat() {
+        return monat;
+    }
+
+    public String getKategorie() {
+        return kategorie;
+    }
+
+    public String getTyp() {
+        return typ;
+    }
+
+    public long getAnzahl() {
+        return anzahl;
+    }
+
+    public long getSummeCent() {
+        return summeCent;
+    }
+
+    @Override
+    public String toString() {
+        return monat + " " + (kategorie.isEmpty() ? "(ohne Kategorie)" : kategorie) + " " + typ + ": "
+                + Geld.formatieren(summeCent) + " (" + anzahl + ")";
+    }
+}
@@ -0,0 +1,203 @@
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/*
+ * Die Klasse "Monatssummen" pflegt die Tabelle "monatssummen": Anzahl und Summe der Beträge je Monat,
+ * Kategorie und Typ. Auswertungen nach Monat und Kategorie lesen damit nur wenige hundert vorberechnete Zeilen
+ * statt aller Einträge.
+ *
+ * Jede Änderung an "eintraege" ändert die betroffenen Summen in derselben Transaktion. Dafür sammelt ein
+ * Monatssummen-Objekt die Änderungen (hinzufuegen/entfernen) und schreibt sie vor dem Commit mit "schreiben"
+ * als INSERT ... ON DUPLICATE KEY UPDATE. Für das Löschen vieler Einträge zieht "abziehen" ihre Summen direkt
+ * in der Datenbank ab. Einträge ohne Kategorie werden unter kategorie_id 0 gezählt.
+ *
+ * Ausgelagerte Jahre (siehe Archiv) bleiben in den Summen enthalten; "neuAufbauen" und "pruefen" lesen dafür aus
+ * einer Quelle, die die Archivtabellen einschließt.
+ */
+public class Monatssummen {
+
+    // Monat eines Datums als Zahl JJJJMM, wie in der Spalte "monat".
+    public static final String MONAT_AUSDRUCK = "YEAR(datum) * 100 + MONTH(datum)";
+
+    private static final String AENDERN = " ON DUPLICATE KEY UPDATE anzahl = anzahl + VALUES(anzahl), summe = summe + VALUES(summe)";
+
+    private static final String EINFUEGEN = "INSERT INTO monatssummen(monat, kategorie_id, typ, anzahl, summe) ";
+
+    // Gruppierte Summen der Einträge, die zu einer Bedingung passen (Vorzeichen, Tabelle und Bedingung werden eingesetzt).
+    private static final String GRUPPIERT = "SELECT " + MONAT_AUSDRUCK + ", COALESCE(kategorie_id, 0), typ, %sCOUNT(*), %sSUM(betrag) "
+            + "FROM %s %s GROUP BY " + MONAT_AUSDRUCK + ", COALESCE(kategorie_id, 0), typ";
+
+    // Gesammelte Änderungen: Schlüssel aus Monat, Kategorie und Typ, Wert {Anzahl, Cent}.
+    private final Map<Schluessel, long[]> aenderungen = new HashMap<>();
+
+    public static int monat(LocalDate datum) {
+        return datum.getYear() * 100 + datum.getMonthValue();
+    }
+
+    // Zählt einen neuen Eintrag hinzu.
+    public void hinzufuegen(LocalDate datum, Integer kategorieId, int typ, long betragCent) {
+        aendern(datum, kategorieId, typ, 1, betragCent);
+    }
+
+    // Zieht einen gelöschten Eintrag (oder den alten Stand eines geänderten Eintrags) ab.
+    public void entfernen(LocalDate datum, Integer kategorieId, int typ, long betragCent) {
+        aendern(datum, kategorieId, typ, -1, -betragCent);
+    }
+
+    private void aendern(LocalDate datum, Integer kategorieId, int typ, long anzahl, long cent) {
+        long[] wert = aenderungen.computeIfAbsent(new Schluessel(monat(datum), kategorieId == null ? 0 : kategorieId, typ),
+                s -> new long[2]);
+        wert[0] += anzahl;
+        wert[1] += cent;
+    }
+
+    /*
+     * Schreibt die gesammelten Änderungen über die Verbindung (in deren laufender Transaktion) und leert sie.
+     */
+    public void schreiben(Connection conn) throws SQLException {
+        if (aenderungen.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement pstmt = conn.prepareStatement(EINFUEGEN + "VALUES(?, ?, ?, ?, ?)" + AENDERN)) {
+            for (Map.Entry<Schluessel, long[]> aenderung : aenderungen.entrySet()) {
+                long[] wert = aenderung.getValue();
+                if (wert[0] == 0 && wert[1] == 0) {
+                    continue;
+                }
+                pstmt.setInt(1, aenderung.getKey().monat);
+                pstmt.setInt(2, aenderung.getKey().kategorieId);
+                pstmt.setInt(3, aenderung.getKey().typ);
+                pstmt.setLong(4, wert[0]);
+                pstmt.setBigDecimal(5, Geld.zuBigDecimal(wert[1]));
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        aenderungen.clear();
+    }
+
+    /*
+     * Zieht die Summen aller Einträge ab, die zu der Bedingung (z.B. "WHERE datum = CURRENT_DATE") passen.
+     * Muss in derselben Transaktion vor dem Löschen dieser Einträge aufgerufen werden.
+     */
+    public static void abziehen(Connection conn, String bedingung, Object... parameter) throws SQLException {
+        abziehenAus(conn, "eintraege", bedingung, parameter);
+    }
+
+    // Wie "abziehen", aber für Einträge einer anderen Tabelle (z.B. einer Archivtabelle).
+    public static void abziehenAus(Connection conn, String tabelle, String bedingung, Object... parameter) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement(EINFUEGEN + String.format(GRUPPIERT, "-", "-", tabelle, bedingung) + AENDERN)) {
+            for (int i = 0; i < parameter.length; i++) {
+                pstmt.setObject(i + 1, parameter[i]);
+            }
+            pstmt.executeUpdate();
+        }
+    }
+
+    /*
+     * Entfernt die Summen eines ganzen Jahres, z.B. wenn dessen Archivtabelle beim Aufräumen gelöscht wird.
+     * Es darf danach kein Eintrag dieses Jahres mehr übrig sein.
+     */
+    public static void jahrEntfernen(Connection conn, int jahr) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM monatssummen WHERE monat BETWEEN ? AND ?")) {
+            pstmt.setInt(1, jahr * 100 + 1);
+            pstmt.setInt(2, jahr * 100 + 12);
+            pstmt.executeUpdate();
+        }
+    }
+
+    /*
+     * Ordnet die Summen der Kategorien, die zu der Bedingung auf "kategorien" passen, der Kategorie 0 (ohne
+     * Kategorie) zu. Muss in derselben Transaktion vor dem Löschen dieser Kategorien aufgerufen werden,
+     * weil der Fremdschlüssel die Einträge dann auf "keine Kategorie" setzt.
+     * Die Summen werden vorher je Monat und Typ zusammengefasst: Liefert das SELECT mehrere Zeilen für denselben
+     * Schlüssel, übernimmt H2 im MySQL-Modus bei ON DUPLICATE KEY UPDATE nur die erste davon.
+     */
+    public static void kategorienAufloesen(Connection conn, String bedingung, Object... parameter) throws SQLException {
+        String auswahl = "kategorie_id IN (SELECT id FROM kategorien " + bedingung + ")";
+        try (PreparedStatement umbuchen = conn.prepareStatement(EINFUEGEN
+                + "SELECT monat, 0, typ, SUM(anzahl), SUM(summe) FROM monatssummen WHERE " + auswahl
+                + " GROUP BY monat, typ" + AENDERN);
+             PreparedStatement loeschen = conn.prepareStatement("DELETE FROM monatssummen WHERE " + auswahl)) {
+            for (int i = 0; i < parameter.length; i++) {
+                umbuchen.setObject(i + 1, parameter[i]);
+                loeschen.setObject(i + 1, parameter[i]);
+            }
+            umbuchen.executeUpdate();
+            loeschen.executeUpdate();
+        }
+    }
+
+    /*
+     * Berechnet alle Summen aus den Einträgen der Quelle ("eintraege" oder Archiv.quelle) neu (in der laufenden
+     * Transaktion der Verbindung).
+     */
+    public static void neuAufbauen(Connection conn, String quelle) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM monatssummen");
+            stmt.executeUpdate(EINFUEGEN + String.format(GRUPPIERT, "", "", quelle, ""));
+        }
+    }
+
+    /*
+     * Vergleicht die gespeicherten Summen mit den aus der Quelle berechneten und gibt die Anzahl der
+     * abweichenden Kombinationen aus Monat, Kategorie und Typ zurück (0 = alles stimmt).
+     */
+    public static int pruefen(Connection conn, String quelle) throws SQLException {
+        Map<Schluessel, long[]> erwartet = new HashMap<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(String.format(GRUPPIERT, "", "", quelle, ""))) {
+            while (rs.next()) {
+                erwartet.put(new Schluessel(rs.getInt(1), rs.getInt(2), rs.getInt(3)),
+                        new long[]{rs.getLong(4), Geld.ausBigDecimal(rs.getBigDecimal(5))});
+            }
+        }
+        int abweichungen = 0;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT monat, kategorie_id, typ, anzahl, summe FROM monatssummen")) {
+            while (rs.next()) {
+                long[] soll = erwartet.remove(new Schluessel(rs.getInt(1), rs.getInt(2), rs.getInt(3)));
+                long anzahl = rs.getLong(4);
+                long cent = Geld.ausBigDecimal(rs.getBigDecimal(5));
+                if (soll == null ? anzahl != 0 || cent != 0 : soll[0] != anzahl || soll[1] != cent) {
+                    abweichungen++;
+                }
+            }
+        }
+        return abweichungen + erwartet.size();
+    }
+
+    private static final class Schluessel {
+
+        private final int monat;
+        private final int kategorieId;
+        private final int typ;
+
+        private Schluessel(int monat, int kategorieId, int typ) {
+            this.monat = monat;
+            this.kategorieId = kategorieId;
+            this.typ = typ;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Schluessel)) {
+                return false;
+            }
+            Schluessel andere = (Schluessel) o;
+            return monat == andere.monat && kategorieId == andere.kategorieId && typ == andere.typ;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(monat, kategorieId, typ);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.beans.ConstructorProperties;
+
+/*
+ * Die Klasse "OperationsStatistik" ist der Stand der Messwerte einer Operation zu einem Zeitpunkt.
+ * Zeiten sind in Millisekunden; die Perzentile sind aus dem Histogramm geschätzt.
+ */
+public class OperationsStatistik {
+
+    private final String name;
+    private final long aufrufe;
+    private final long fehler;
+    private final double mittelMillis;
+    private final double p50Millis;
+    private final double p95Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private final long zeilen;
+    private final double mittlereBatchGroesse;
+
+    @ConstructorProperties({"name", "aufrufe", "fehler", "mittelMillis", "p50Millis", "p95Millis", "p99Millis",
+            "maxMillis", "zeilen", "mittlereBatchGroesse"})
+    public OperationsStatistik(String name, long aufrufe, long fehler, double mittelMillis, double p50Millis,
+                               double p95Millis, double p99Millis, double maxMillis, long zeilen, double mittlereBatchGroesse) {
+        this.name = name;
+        this.aufrufe = aufrufe;
+        this.fehler = fehler;
+        this.mittelMillis = mittelMillis;
+        this.p50Millis = p50Millis;
+        this.p95Millis = p95Millis;
+        this.p99Millis = p99Millis;
+        this.maxMillis = maxMillis;
+        this.zeilen = zeilen;
+        this.mittlereBatchGroesse = mittlereBatchGroesse;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getAufrufe() {
+        return aufrufe;
+    }
+
+    public long getFehler() {
+        return fehler;
+    }
+
+    public double getMittelMillis() {
+        return mittelMillis;
+    }
+
+    public double getP50Millis() {
+        return p50Millis;
+    }
+
+    public double getP95Millis() {
+        return p95Millis;
+    }
+
+    public double getP99Millis() {
+        return p99Millis;
+    }
+
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getZeilen() {
+        return zeilen;
+    }
+
+    public double getMittlereBatchGroesse() {
+        return mittlereBatchGroesse;
+    }
+}
@@ -0,0 +1,374 @@
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Die Klasse "SchemaMigration" bringt das Datenbankschema schrittweise auf den aktuellen Stand.
+ *
+ * Jeder Schritt hat eine fortlaufende Versionsnummer. Die Tabelle "schema_version" enthält eine Zeile für jeden
+ * ausgeführten Schritt; beim Start werden nur die noch fehlenden Schritte in aufsteigender Reihenfolge ausgeführt.
+ * Eine Datenbank aus der Zeit vor den Migrationen (ohne "schema_version") hat die Version 0 und wird damit
+ * automatisch umgestellt. Ist das Schema schon aktuell (der Normalfall bei jedem weiteren Start), bleibt es bei
+ * einer einzigen Abfrage der Version; DDL-Anweisungen werden dann gar nicht ausgeführt.
+ *
+ * Da MySQL Schemaänderungen (ALTER TABLE, CREATE INDEX) sofort committet, kann ein Schritt nicht als Ganzes
+ * zurückgerollt werden. Jeder Teilschritt prüft deshalb selbst, ob er schon ausgeführt wurde, sodass ein
+ * abgebrochener Schritt beim nächsten Start einfach wiederholt werden kann. Datenänderungen an "eintraege"
+ * laufen in Blöcken von BLOCK_GROESSE IDs mit je einem Commit, damit große Tabellen nicht lange gesperrt werden.
+ */
+public class SchemaMigration {
+
+    // Anzahl der IDs, die beim Umschreiben von Daten in einer Transaktion bearbeitet werden.
+    public static final int BLOCK_GROESSE = 10_000;
+
+    // Ein einzelner Migrationsschritt.
+    private interface Schritt {
+        void ausfuehren(Connection conn) throws SQLException;
+    }
+
+    private final List<String> beschreibungen = new ArrayList<>();
+    private final List<Schritt> schritte = new ArrayList<>();
+
+    public SchemaMigration() {
+        schritt("Grundschema: Tabellen eintraege und kategorien", this::grundschema);
+        schritt("Kategorienamen eindeutig", this::kategorienEindeutig);
+        schritt("Kategorie der Einträge als Fremdschlüssel auf kategorien.id", this::kategorieFremdschluessel);
+        schritt("Typ der Einträge als TINYINT (1 = Einnahme, 2 = Ausgabe)", this::typAlsZahl);
+        schritt("Indizes auf datum und typ", this::indizes);
+        schritt("Index auf betrag", this::betragIndex);
+        schritt("Monatssummen je Kategorie und Typ", this::monatssummen);
+        schritt("Index auf kategorie_id und datum", this::kategorieDatumIndex);
+        schritt("Journal-Schlüssel der Einträge", this::journalSchluessel);
+        schritt("Änderungsnummern und Löschungen", this::aenderungsnummern);
+        schritt("Archivierte Jahre", this::archivjahre);
+    }
+
+    private void schritt(String beschreibung, Schritt schritt) {
+        beschreibungen.add(beschreibung);
+        schritte.add(schritt);
+    }
+
+    // Version, die das Schema nach allen Schritten hat.
+    public int getZielVersion() {
+        return schritte.size();
+    }
+
+    /*
+     * Führt alle noch fehlenden Schritte aus und gibt die Version des Schemas danach zurück.
+     *
+     * @throws SQLException wenn ein Schritt fehlschlägt; die bis dahin ausgeführten Schritte bleiben eingetragen
+     */
+    public int migrieren(Connection conn) throws SQLException {
+        int version;
+        try {
+            version = aktuelleVersion(conn);
+        } catch (SQLException e) {
+            // Noch keine Tabelle "schema_version": neue Datenbank oder eine aus der Zeit vor den Migrationen.
+            version = -1;
+        }
+        if (version == schritte.size()) {
+            return version;
+        }
+        if (version < 0) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                        + "version INT PRIMARY KEY, "
+                        + "beschreibung VARCHAR(255) NOT NULL, "
+                        + "ausgefuehrt_am TIMESTAMP DEFAULT CURRENT_TIMESTAMP"
+                        + ")");
+            }
+            version = aktuelleVersion(conn);
+        }
+        while (version < schritte.size()) {
+            System.err.println("Schemamigration auf Version " + (version + 1) + ": " + beschreibungen.get(version));
+            schritte.get(version).ausfuehren(conn);
+            version++;
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT INTO schema_version(version, beschreibung) VALUES(?, ?)")) {
+                pstmt.setInt(1, version);
+                pstmt.setString(2, beschreibungen.get(version - 1));
+                pstmt.executeUpdate();
+            }
+            if (!conn.getAutoCommit()) {
+                conn.commit();
+            }
+        }
+        return version;
+    }
+
+    private int aktuelleVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    // Version 1: die ursprünglichen Tabellen, wie sie der DatenbankManager bisher angelegt hat.
+    private void grundschema(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS eintraege ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "bezeichnung VARCHAR(255) NOT NULL, "
+                    + "betrag DECIMAL(10, 2) NOT NULL, "
+                    + "kategorie VARCHAR(255) NOT NULL, "
+                    + "typ VARCHAR(50) NOT NULL, "
+                    + "datum DATE NOT NULL, "
+                    + "info TEXT"
+                    + ")");
+            stmt.execute("CREATE TABLE IF NOT EXISTS kategorien ("
+                    + "id INT AUTO_INCREMENT PRIMARY KEY, "
+                    + "name VARCHAR(255) NOT NULL"
+                    + ")");
+        }
+    }
+
+    /*
+     * Version 2: doppelte Kategorienamen entfernen (die Kategorie mit der kleinsten ID bleibt) und einen
+     * eindeutigen Index auf den Namen anlegen. Die Einträge verweisen zu diesem Zeitpunkt noch über den Namen.
+     */
+    private void kategorienEindeutig(Connection conn) throws SQLException {
+        if (indexVorhanden(conn, "kategorien", "idx_kategorien_name")) {
+            return;
+        }
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM kategorien WHERE id NOT IN "
+                    + "(SELECT id FROM (SELECT MIN(id) AS id FROM kategorien GROUP BY name) behalten)");
+            stmt.execute("CREATE UNIQUE INDEX idx_kategorien_name ON kategorien(name)");
+        }
+    }
+
+    /*
+     * Version 3: "eintraege.kategorie" (Name als VARCHAR) durch "kategorie_id" mit Fremdschlüssel ersetzen.
+     * Fehlende Kategorien werden zuerst angelegt, danach werden die IDs blockweise übernommen.
+     * Wird eine Kategorie später gelöscht, wird "kategorie_id" der betroffenen Einträge auf NULL gesetzt.
+     */
+    private void kategorieFremdschluessel(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!spalteVorhanden(conn, "eintraege", "kategorie_id")) {
+                stmt.execute("ALTER TABLE eintraege ADD COLUMN kategorie_id INT NULL");
+            }
+            if (spalteVorhanden(conn, "eintraege", "kategorie")) {
+                stmt.executeUpdate("INSERT INTO kategorien(name) SELECT DISTINCT kategorie FROM eintraege "
+                        + "WHERE kategorie NOT IN (SELECT name FROM kategorien)");
+                blockweise(conn, "UPDATE eintraege SET kategorie_id = "
+                        + "(SELECT k.id FROM kategorien k WHERE k.name = eintraege.kategorie) "
+                        + "WHERE id >= ? AND id < ? AND kategorie_id IS NULL");
+                stmt.execute("ALTER TABLE eintraege DROP COLUMN kategorie");
+            }
+            if (!indexVorhanden(conn, "eintraege", "idx_eintraege_kategorie")) {
+                stmt.execute("CREATE INDEX idx_eintraege_kategorie ON eintraege(kategorie_id)");
+            }
+            if (!fremdschluesselVorhanden(conn, "eintraege", "fk_eintraege_kategorie")) {
+                stmt.execute("ALTER TABLE eintraege ADD CONSTRAINT fk_eintraege_kategorie "
+                        + "FOREIGN KEY (kategorie_id) REFERENCES kategorien(id) ON DELETE SET NULL");
+            }
+        }
+    }
+
+    // Version 4: "typ" von VARCHAR(50) ('Einnahme'/'Ausgabe') auf TINYINT umstellen.
+    private void typAlsZahl(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (spaltenTyp(conn, "eintraege", "typ") == Types.VARCHAR) {
+                if (!spalteVorhanden(conn, "eintraege", "typ_neu")) {
+                    stmt.execute("ALTER TABLE eintraege ADD COLUMN typ_neu TINYINT NULL");
+                }
+                blockweise(conn, "UPDATE eintraege SET typ_neu = CASE WHEN typ = 'Einnahme' THEN "
+                        + DatenbankManager.TYP_EINNAHME + " ELSE " + DatenbankManager.TYP_AUSGABE + " END "
+                        + "WHERE id >= ? AND id < ? AND typ_neu IS NULL");
+                stmt.execute("ALTER TABLE eintraege DROP COLUMN typ");
+            }
+            if (spalteVorhanden(conn, "eintraege", "typ_neu")) {
+                stmt.execute("ALTER TABLE eintraege RENAME COLUMN typ_neu TO typ");
+                stmt.execute("ALTER TABLE eintraege MODIFY typ TINYINT NOT NULL");
+            }
+        }
+    }
+
+    /*
+     * Version 5: Index auf "datum" (Heute löschen, Zeiträume, Sortierung nach Datum) und auf "typ, datum"
+     * (Summen und Auswertungen nach Einnahmen und Ausgaben).
+     */
+    private void indizes(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!indexVorhanden(conn, "eintraege", "idx_eintraege_datum")) {
+                stmt.execute("CREATE INDEX idx_eintraege_datum ON eintraege(datum)");
+            }
+            if (!indexVorhanden(conn, "eintraege", "idx_eintraege_typ_datum")) {
+                stmt.execute("CREATE INDEX idx_eintraege_typ_datum ON eintraege(typ, datum)");
+            }
+        }
+    }
+
+    // Version 6: Index auf "betrag" für Betragsbereiche und die Suche nach einem Betrag.
+    private void betragIndex(Connection conn) throws SQLException {
+        if (!indexVorhanden(conn, "eintraege", "idx_eintraege_betrag")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX idx_eintraege_betrag ON eintraege(betrag)");
+            }
+        }
+    }
+
+    // Version 7: vorberechnete Summen je Monat, Kategorie und Typ (siehe Monatssummen), aus den Einträgen befüllt.
+    private void monatssummen(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS monatssummen ("
+                    + "monat INT NOT NULL, "
+                    + "kategorie_id INT NOT NULL, "
+                    + "typ TINYINT NOT NULL, "
+                    + "anzahl INT NOT NULL, "
+                    + "summe DECIMAL(15,2) NOT NULL, "
+                    + "PRIMARY KEY (monat, kategorie_id, typ)"
+                    + ")");
+        }
+        Monatssummen.neuAufbauen(conn, "eintraege");
+    }
+
+    // Version 8: Index für Abfragen nach Kategorien in einem Zeitraum (ersetzt für MySQL den Index des Fremdschlüssels).
+    private void kategorieDatumIndex(Connection conn) throws SQLException {
+        if (!indexVorhanden(conn, "eintraege", "idx_eintraege_kategorie_datum")) {
+            try (Statement stmt = conn.createStatement()) {
+                stmt.execute("CREATE INDEX idx_eintraege_kategorie_datum ON eintraege(kategorie_id, datum)");
+            }
+        }
+    }
+
+    /*
+     * Version 9: Einträge, die über das Journal gespeichert werden, tragen dessen Schlüssel. Der eindeutige Index
+     * verhindert, dass ein Eintrag beim erneuten Abgleich nach einem Absturz doppelt angelegt wird.
+     */
+    private void journalSchluessel(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!spalteVorhanden(conn, "eintraege", "journal_id")) {
+                stmt.execute("ALTER TABLE eintraege ADD COLUMN journal_id VARCHAR(36) NULL");
+            }
+            if (!indexVorhanden(conn, "eintraege", "idx_eintraege_journal")) {
+                stmt.execute("CREATE UNIQUE INDEX idx_eintraege_journal ON eintraege(journal_id)");
+            }
+        }
+    }
+
+    /*
+     * Version 10: jede Änderung an "eintraege" und "kategorien" trägt eine fortlaufende Änderungsnummer (siehe
+     * Aenderungsnummern), gelöschte Zeilen hinterlassen eine Zeile in "loeschungen". Bestehende Zeilen behalten
+     * die Nummer 0; "geaendert_von" ist die Kennung der Anwendung, die die Zeile zuletzt geändert hat.
+     */
+    private void aenderungsnummern(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS aenderungsstand ("
+                    + "id INT PRIMARY KEY, "
+                    + "nummer BIGINT NOT NULL"
+                    + ")");
+            stmt.executeUpdate("INSERT INTO aenderungsstand(id, nummer) SELECT 1, 0 FROM DUAL "
+                    + "WHERE NOT EXISTS (SELECT 1 FROM aenderungsstand WHERE id = 1)");
+            if (!spalteVorhanden(conn, "eintraege", "aenderung")) {
+                stmt.execute("ALTER TABLE eintraege ADD COLUMN aenderung BIGINT NOT NULL DEFAULT 0");
+            }
+            if (!spalteVorhanden(conn, "eintraege", "geaendert_von")) {
+                stmt.execute("ALTER TABLE eintraege ADD COLUMN geaendert_von VARCHAR(36) NULL");
+            }
+            if (!indexVorhanden(conn, "eintraege", "idx_eintraege_aenderung")) {
+                stmt.execute("CREATE INDEX idx_eintraege_aenderung ON eintraege(aenderung)");
+            }
+            if (!spalteVorhanden(conn, "kategorien", "aenderung")) {
+                stmt.execute("ALTER TABLE kategorien ADD COLUMN aenderung BIGINT NOT NULL DEFAULT 0");
+            }
+            stmt.execute("CREATE TABLE IF NOT EXISTS loeschungen ("
+                    + "tabelle VARCHAR(20) NOT NULL, "
+                    + "id INT NOT NULL, "
+                    + "aenderung BIGINT NOT NULL"
+                    + ")");
+            if (!indexVorhanden(conn, "loeschungen", "idx_loeschungen_aenderung")) {
+                stmt.execute("CREATE INDEX idx_loeschungen_aenderung ON loeschungen(aenderung)");
+            }
+        }
+    }
+
+    /*
+     * Version 11: Verzeichnis der in eigene Tabellen ausgelagerten Jahre mit der Anzahl ihrer Einträge (siehe Archiv).
+     * Die Archivtabellen selbst entstehen erst beim Auslagern.
+     */
+    private void archivjahre(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TABLE IF NOT EXISTS archivjahre ("
+                    + "jahr INT PRIMARY KEY, "
+                    + "anzahl INT NOT NULL"
+                    + ")");
+        }
+    }
+
+    /*
+     * Führt ein UPDATE mit den Parametern "von" (einschließlich) und "bis" (ausschließlich) für alle ID-Blöcke
+     * der Tabelle "eintraege" aus und committet nach jedem Block.
+     */
+    private void blockweise(Connection conn, String sql) throws SQLException {
+        int minId;
+        int maxId;
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MIN(id), 0), COALESCE(MAX(id), -1) FROM eintraege")) {
+            rs.next();
+            minId = rs.getInt(1);
+            maxId = rs.getInt(2);
+        }
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (long von = minId; von <= maxId; von += BLOCK_GROESSE) {
+                pstmt.setLong(1, von);
+                pstmt.setLong(2, von + BLOCK_GROESSE);
+                pstmt.executeUpdate();
+                conn.commit();
+            }
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    private static boolean spalteVorhanden(Connection conn, String tabelle, String spalte) throws SQLException {
+        return spaltenTyp(conn, tabelle, spalte) != Types.NULL;
+    }
+
+    // Liefert den JDBC-Typ einer Spalte (java.sql.Types), oder Types.NULL, wenn es sie nicht gibt.
+    private static int spaltenTyp(Connection conn, String tabelle, String spalte) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, tabelle, null)) {
+            while (rs.next()) {
+                if (rs.getString("COLUMN_NAME").equalsIgnoreCase(spalte)) {
+                    return rs.getInt("DATA_TYPE");
+                }
+            }
+        }
+        return Types.NULL;
+    }
+
+    private static boolean indexVorhanden(Connection conn, String tabelle, String index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, tabelle, false, false)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean fremdschluesselVorhanden(Connection conn, String tabelle, String name) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        try (ResultSet rs = meta.getImportedKeys(conn.getCatalog(), null, tabelle)) {
+            while (rs.next()) {
+                if (name.equalsIgnoreCase(rs.getString("FK_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,189 @@
+import javax.swing.SwingUtilities;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Die Klasse "Schreibpuffer" sammelt Änderungen an bestehenden Einträgen (Bearbeiten in der Tabelle) und schreibt
+ * sie verzögert im Hintergrund in die Datenbank (oder ein anderes Ziel, z.B. das Journal).
+ *
+ * Pro ID wird nur der neueste Stand gehalten: Wer in einer Zeile mit Tab durch alle Zellen geht, erzeugt fünf
+ * Änderungen, aber nur ein UPDATE. Alle INTERVALL_MILLIS werden die ausstehenden Einträge als Batch in einer
+ * Transaktion geschrieben. Schlägt das fehl, bleiben sie vorgemerkt und werden mit wachsendem Abstand (bis
+ * MAX_WARTEZEIT_MILLIS) erneut geschrieben; eine inzwischen neuere Änderung desselben Eintrags hat dabei Vorrang.
+ * Scheitert ein Batch, werden seine Einträge einzeln wiederholt, sodass nur die fehlerhaften ausstehend bleiben.
+ * Beim Schließen wird der Puffer sofort geleert.
+ *
+ * Nach jeder Änderung des Zustands (vorgemerkt, geschrieben, fehlgeschlagen) wird der Beobachter auf dem
+ * Event Dispatch Thread benachrichtigt, z.B. um ausstehende Zeilen hervorzuheben.
+ */
+public class Schreibpuffer implements AutoCloseable {
+
+    // Abstand zwischen zwei Schreibvorgängen.
+    public static final long INTERVALL_MILLIS = 500;
+
+    // Größte Wartezeit zwischen zwei Versuchen nach wiederholten Fehlern.
+    public static final long MAX_WARTEZEIT_MILLIS = 30_000;
+
+    // Nimmt einen Block geänderter Einträge entgegen; wirft eine Ausnahme, wenn keiner gespeichert wurde.
+    @FunctionalInterface
+    public interface Ziel {
+        void schreiben(List<Eintrag> eintraege) throws SQLException, IOException;
+    }
+
+    private final Ziel ziel;
+    private final Runnable beobachter;
+    private final ScheduledExecutorService schreiber;
+
+    // Neuester noch nicht geschriebener Stand je ID, in der Reihenfolge der ersten Änderung.
+    private final Map<Integer, Eintrag> ausstehend = new LinkedHashMap<>();
+
+    private int fehlversuche;
+    private long naechsterVersuch;
+    private String letzterFehler;
+
+    public Schreibpuffer(DatenbankManager dbManager, Runnable beobachter) {
+        this(dbManager::updateEintraege, beobachter);
+    }
+
+    public Schreibpuffer(Ziel ziel, Runnable beobachter) {
+        this.ziel = ziel;
+        this.beobachter = beobachter;
+        schreiber = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "Schreibpuffer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        schreiber.scheduleWithFixedDelay(this::schreiben, INTERVALL_MILLIS, INTERVALL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    // Merkt den geänderten Eintrag zum Schreiben vor; ein älterer, noch nicht geschriebener Stand wird ersetzt.
+    public void vormerken(Eintrag eintrag) {
+        synchronized (this) {
+            ausstehend.put(eintrag.getId(), eintrag);
+        }
+        melden();
+    }
+
+    // Liefert den noch nicht geschriebenen Stand eines Eintrags, oder den Eintrag selbst, wenn nichts aussteht.
+    public synchronized Eintrag aktuell(Eintrag eintrag) {
+        return ausstehend.getOrDefault(eintrag.getId(), eintrag);
+    }
+
+    public synchronized boolean istAusstehend(int id) {
+        return ausstehend.containsKey(id);
+    }
+
+    public synchronized int getAnzahlAusstehend() {
+        return ausstehend.size();
+    }
+
+    // Meldung des letzten fehlgeschlagenen Schreibversuchs, oder null, wenn der letzte Versuch geklappt hat.
+    public synchronized String getLetzterFehler() {
+        return letzterFehler;
+    }
+
+    // Zeitpunkt (System.currentTimeMillis()) des nächsten Versuchs nach einem Fehler, sonst 0.
+    public synchronized long getNaechsterVersuch() {
+        return naechsterVersuch;
+    }
+
+    /*
+     * Schreibt alle ausstehenden Einträge sofort, ohne eine Wartezeit nach einem Fehler abzuwarten.
+     * Gibt "true" zurück, wenn danach nichts mehr aussteht.
+     */
+    public boolean leeren(long timeoutMillis) {
+        synchronized (this) {
+            naechsterVersuch = 0;
+        }
+        try {
+            schreiber.submit(this::schreiben).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return getAnzahlAusstehend() == 0;
+    }
+
+    private void schreiben() {
+        List<Eintrag> block;
+        synchronized (this) {
+            if (ausstehend.isEmpty() || System.currentTimeMillis() < naechsterVersuch) {
+                return;
+            }
+            block = new ArrayList<>(ausstehend.values());
+        }
+        try {
+            ziel.schreiben(block);
+            geschrieben(block, true);
+        } catch (SQLException | IOException | RuntimeException e) {
+            e.printStackTrace();
+            // Einzeln wiederholen, damit ein einzelner fehlerhafter Eintrag die übrigen nicht aufhält.
+            String fehler = e.getMessage();
+            List<Eintrag> erfolgreich = new ArrayList<>();
+            if (block.size() > 1) {
+                for (Eintrag eintrag : block) {
+                    try {
+                        ziel.schreiben(Collections.singletonList(eintrag));
+                        erfolgreich.add(eintrag);
+                    } catch (SQLException | IOException | RuntimeException einzeln) {
+                        fehler = einzeln.getMessage();
+                    }
+                }
+            }
+            geschrieben(erfolgreich, erfolgreich.size() == block.size());
+            if (erfolgreich.size() < block.size()) {
+                synchronized (this) {
+                    fehlversuche++;
+                    long wartezeit = Math.min(MAX_WARTEZEIT_MILLIS, INTERVALL_MILLIS << Math.min(fehlversuche, 16));
+                    naechsterVersuch = System.currentTimeMillis() + wartezeit;
+                    letzterFehler = fehler;
+                }
+            }
+        }
+        melden();
+    }
+
+    /*
+     * Entfernt geschriebene Einträge; inzwischen neuere Stände derselben ID bleiben für den nächsten Durchlauf.
+     * Waren alle Einträge erfolgreich, beginnt die Wartezeit nach dem nächsten Fehler wieder von vorn.
+     */
+    private synchronized void geschrieben(List<Eintrag> eintraege, boolean alle) {
+        for (Eintrag eintrag : eintraege) {
+            ausstehend.remove(eintrag.getId(), eintrag);
+        }
+        if (alle) {
+            fehlversuche = 0;
+            naechsterVersuch = 0;
+            letzterFehler = null;
+        }
+    }
+
+    private void melden() {
+        if (beobachter != null) {
+            SwingUtilities.invokeLater(beobachter);
+        }
+    }
+
+    /*
+     * Leert den Puffer ein letztes Mal und beendet den Hintergrund-Thread.
+     * Ausstehende Einträge, die dabei nicht geschrieben werden können, werden auf System.err gemeldet.
+     */
+    @Override
+    public void close() {
+        if (!leeren(TimeUnit.SECONDS.toMillis(5))) {
+            synchronized (this) {
+                System.err.println(ausstehend.size() + " Änderungen konnten nicht gespeichert werden: " + ausstehend.keySet());
+            }
+        }
+        schreiber.shutdown();
+    }
+}
@@ -0,0 +1,38 @@
+import java.time.Instant;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Die Klasse "Startphasen" hält fest, wie lange der Start der Anwendung bis zu bestimmten Punkten gedauert hat,
+ * gemessen ab dem Start des Prozesses: z.B. bis das Fenster zum ersten Mal gezeichnet ist ("erstesZeichnen") und
+ * bis Kategorien und Einträge geladen sind ("bedienbar"). Jede Phase wird beim ersten Erreichen auf System.err
+ * ausgegeben und als Operation "start:<phase>" in die Messwerte eingetragen (Diagnosefenster, JMX).
+ */
+public class Startphasen {
+
+    private final Messwerte messwerte;
+    private final long prozessStartMillis;
+    private final Set<String> erreicht = ConcurrentHashMap.newKeySet();
+
+    public Startphasen(Messwerte messwerte) {
+        this.messwerte = messwerte;
+        this.prozessStartMillis = ProcessHandle.current().info().startInstant()
+                .map(Instant::toEpochMilli)
+                .orElse(System.currentTimeMillis());
+    }
+
+    // Meldet eine Phase; jede Phase zählt nur beim ersten Mal.
+    public void erreicht(String phase) {
+        if (!erreicht.add(phase)) {
+            return;
+        }
+        long millis = System.currentTimeMillis() - prozessStartMillis;
+        System.err.println("Start: " + phase + " nach " + millis + " ms");
+        messwerte.erfassen("start:" + phase, TimeUnit.MILLISECONDS.toNanos(millis), 0, 0, false);
+    }
+
+    public boolean istErreicht(String phase) {
+        return erreicht.contains(phase);
+    }
+}
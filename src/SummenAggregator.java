@@ -0,0 +1,78 @@
+/*
+ * Die Klasse "SummenAggregator" führt Anzahl, Einnahmen und Ausgaben einer Menge von Einträgen mit.
+ * Beträge werden als ganze Cent gezählt, damit die Summe auch über viele Jahre exakt bleibt.
+ * Statt bei jeder Änderung alle Zeilen neu zu addieren, wird der Aggregator beim Einfügen, Ändern und
+ * Löschen einer Zeile angepasst; alle Abfragen sind damit O(1).
+ */
+public class SummenAggregator {
+
+    private int anzahl;
+    private long einnahmenCent;
+    private long ausgabenCent;
+
+    public SummenAggregator() {
+    }
+
+    public SummenAggregator(int anzahl, long einnahmenCent, long ausgabenCent) {
+        this.anzahl = anzahl;
+        this.einnahmenCent = einnahmenCent;
+        this.ausgabenCent = ausgabenCent;
+    }
+
+    // Übernimmt die Werte eines anderen Aggregators, z.B. nach einer Neuberechnung in der Datenbank.
+    public void setzen(SummenAggregator andere) {
+        this.anzahl = andere.anzahl;
+        this.einnahmenCent = andere.einnahmenCent;
+        this.ausgabenCent = andere.ausgabenCent;
+    }
+
+    // Berücksichtigt eine neu hinzugekommene Zeile.
+    public void hinzufuegen(boolean einnahme, long cent) {
+        anzahl++;
+        buchen(einnahme, cent);
+    }
+
+    // Nimmt eine gelöschte Zeile aus der Summe heraus.
+    public void entfernen(boolean einnahme, long cent) {
+        anzahl--;
+        buchen(einnahme, -cent);
+    }
+
+    // Nimmt mehrere gelöschte Zeilen auf einmal heraus, deren Summen ein anderer Aggregator enthält.
+    public void entfernen(SummenAggregator andere) {
+        anzahl -= andere.anzahl;
+        einnahmenCent -= andere.einnahmenCent;
+        ausgabenCent -= andere.ausgabenCent;
+    }
+
+    // Ersetzt die Werte einer bearbeiteten Zeile, die Anzahl bleibt gleich.
+    public void ersetzen(boolean altEinnahme, long altCent, boolean neuEinnahme, long neuCent) {
+        buchen(altEinnahme, -altCent);
+        buchen(neuEinnahme, neuCent);
+    }
+
+    private void buchen(boolean einnahme, long cent) {
+        if (einnahme) {
+            einnahmenCent += cent;
+        } else {
+            ausgabenCent += cent;
+        }
+    }
+
+    public int getAnzahl() {
+        return anzahl;
+    }
+
+    public long getEinnahmenCent() {
+        return einnahmenCent;
+    }
+
+    public long getAusgabenCent() {
+        return ausgabenCent;
+    }
+
+    // Saldo: Einnahmen minus Ausgaben in Cent.
+    public long getSaldoCent() {
+        return einnahmenCent - ausgabenCent;
+    }
+}
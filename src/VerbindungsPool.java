@@ -0,0 +1,548 @@
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Die Klasse "VerbindungsPool" hält eine begrenzte Anzahl offener JDBC-Verbindungen bereit,
+ * damit nicht jede Datenbankoperation einen neuen TCP- und Anmelde-Handshake bezahlen muss.
+ * Verbindungen werden mit "getConnection()" ausgeliehen und beim Schließen automatisch
+ * an den Pool zurückgegeben, sodass bestehender try-with-resources-Code unverändert bleibt.
+ */
+public class VerbindungsPool implements AutoCloseable {
+
+    private final String url;
+    private final String user;
+    private final String password;
+
+    // Minimale und maximale Anzahl gleichzeitig offener Verbindungen.
+    private final int minGroesse;
+    private final int maxGroesse;
+
+    // Nach dieser Leerlaufzeit werden überzählige Verbindungen geschlossen.
+    private final long leerlaufTimeoutMillis;
+
+    // Maximale Wartezeit beim Ausleihen, bevor eine SQLException geworfen wird.
+    private final long ausleihTimeoutMillis;
+
+    /*
+     * Verbindungen, die kürzer als diese Zeit im Leerlauf waren, werden beim Ausleihen nicht erneut geprüft.
+     * Damit kostet ein schneller Wechsel zwischen Operationen keinen zusätzlichen Ping zur Datenbank.
+     */
+    private final long validierungNachMillis;
+
+    // Anzahl der PreparedStatements, die pro Verbindung zwischengespeichert werden.
+    private final int statementCacheGroesse;
+
+    // Freie Verbindungen, die zuletzt zurückgegebene liegt vorne.
+    private final Deque<PoolVerbindung> frei = new ArrayDeque<>();
+
+    // Begrenzt die Anzahl gleichzeitig ausgeliehener Verbindungen auf "maxGroesse".
+    private final Semaphore erlaubnisse;
+
+    private final ScheduledExecutorService aufraeumer;
+
+    private int offen;
+    private boolean geschlossen;
+
+    // Zähler für die Auswertung des Pools.
+    private final AtomicLong ausleihen = new AtomicLong();
+    private final AtomicLong wartezeitNanos = new AtomicLong();
+    private final AtomicLong maxWartezeitNanos = new AtomicLong();
+    private final AtomicLong neueVerbindungen = new AtomicLong();
+    private final AtomicLong verworfeneVerbindungen = new AtomicLong();
+    private final AtomicLong statementTreffer = new AtomicLong();
+    private final AtomicLong statementFehlgriffe = new AtomicLong();
+
+    // Höchstzahl gleichzeitig ausgeliehener Verbindungen, wenn nichts anderes angegeben ist.
+    public static final int STANDARD_MAX_GROESSE = 8;
+
+    public VerbindungsPool(String url, String user, String password) {
+        this(url, user, password, 1, STANDARD_MAX_GROESSE, TimeUnit.MINUTES.toMillis(5), TimeUnit.SECONDS.toMillis(30), 1000, 64);
+    }
+
+    /*
+     * Konstruktor mit allen Einstellungen des Pools.
+     * Die Mindestanzahl an Verbindungen wird sofort geöffnet, damit die erste Operation nicht warten muss.
+     */
+    public VerbindungsPool(String url, String user, String password, int minGroesse, int maxGroesse,
+                           long leerlaufTimeoutMillis, long ausleihTimeoutMillis,
+                           long validierungNachMillis, int statementCacheGroesse) {
+        if (minGroesse < 0 || maxGroesse < 1 || minGroesse > maxGroesse) {
+            throw new IllegalArgumentException("Ungültige Poolgröße: min=" + minGroesse + ", max=" + maxGroesse);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.minGroesse = minGroesse;
+        this.maxGroesse = maxGroesse;
+        this.leerlaufTimeoutMillis = leerlaufTimeoutMillis;
+        this.ausleihTimeoutMillis = ausleihTimeoutMillis;
+        this.validierungNachMillis = validierungNachMillis;
+        this.statementCacheGroesse = statementCacheGroesse;
+        this.erlaubnisse = new Semaphore(maxGroesse, true);
+
+        for (int i = 0; i < minGroesse; i++) {
+            try {
+                PoolVerbindung verbindung = oeffnen();
+                synchronized (this) {
+                    frei.push(verbindung);
+                }
+            } catch (SQLException e) {
+                // Die Datenbank ist eventuell noch nicht erreichbar; Verbindungen werden dann bei Bedarf geöffnet.
+                e.printStackTrace();
+                break;
+            }
+        }
+
+        aufraeumer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "VerbindungsPool-Aufraeumer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervall = Math.max(1000, leerlaufTimeoutMillis / 2);
+        aufraeumer.scheduleWithFixedDelay(this::leerlaufVerbindungenSchliessen, intervall, intervall, TimeUnit.MILLISECONDS);
+    }
+
+    /*
+     * Leiht eine Verbindung aus dem Pool aus.
+     * Freie Verbindungen werden vor der Ausgabe geprüft; ist keine frei und das Maximum erreicht,
+     * wartet der Aufruf höchstens "ausleihTimeoutMillis".
+     */
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            if (!erlaubnisse.tryAcquire(ausleihTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Zeitüberschreitung beim Warten auf eine Datenbankverbindung ("
+                        + ausleihTimeoutMillis + " ms)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Warten auf eine Datenbankverbindung wurde unterbrochen", e);
+        }
+
+        try {
+            PoolVerbindung verbindung = freieVerbindungHolen();
+            if (verbindung == null) {
+                verbindung = oeffnen();
+            }
+            verbindung.ausgeliehen = true;
+            long gewartet = System.nanoTime() - start;
+            ausleihen.incrementAndGet();
+            wartezeitNanos.addAndGet(gewartet);
+            maxWartezeitNanos.accumulateAndGet(gewartet, Math::max);
+            return verbindung.proxy;
+        } catch (SQLException | RuntimeException e) {
+            erlaubnisse.release();
+            throw e;
+        }
+    }
+
+    /*
+     * Nimmt freie Verbindungen vom Stapel, bis eine gültige gefunden wird.
+     * Ungültige Verbindungen (z.B. nach einem Neustart des Servers) werden verworfen.
+     */
+    private PoolVerbindung freieVerbindungHolen() throws SQLException {
+        while (true) {
+            PoolVerbindung verbindung;
+            synchronized (this) {
+                if (geschlossen) {
+                    throw new SQLException("Der Verbindungspool wurde bereits geschlossen");
+                }
+                verbindung = frei.poll();
+            }
+            if (verbindung == null) {
+                return null;
+            }
+            long leerlauf = System.currentTimeMillis() - verbindung.zuletztBenutzt;
+            if (leerlauf < validierungNachMillis || istGueltig(verbindung)) {
+                return verbindung;
+            }
+            verwerfen(verbindung);
+        }
+    }
+
+    private boolean istGueltig(PoolVerbindung verbindung) {
+        try {
+            return verbindung.echt.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PoolVerbindung oeffnen() throws SQLException {
+        Connection echt = DriverManager.getConnection(url, user, password);
+        synchronized (this) {
+            offen++;
+        }
+        neueVerbindungen.incrementAndGet();
+        return new PoolVerbindung(echt);
+    }
+
+    /*
+     * Gibt eine Verbindung an den Pool zurück.
+     * Offene Transaktionen werden zurückgerollt und der Autocommit-Modus wiederhergestellt,
+     * damit der nächste Ausleiher eine saubere Verbindung bekommt.
+     */
+    private void zurueckgeben(PoolVerbindung verbindung) {
+        if (!verbindung.ausgeliehen) {
+            return;
+        }
+        verbindung.ausgeliehen = false;
+        boolean behalten = true;
+        try {
+            if (!verbindung.echt.getAutoCommit()) {
+                verbindung.echt.rollback();
+                verbindung.echt.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            behalten = false;
+        }
+
+        synchronized (this) {
+            if (behalten && !geschlossen) {
+                verbindung.zuletztBenutzt = System.currentTimeMillis();
+                frei.push(verbindung);
+            } else {
+                behalten = false;
+            }
+        }
+        if (!behalten) {
+            verwerfen(verbindung);
+        }
+        erlaubnisse.release();
+    }
+
+    private void verwerfen(PoolVerbindung verbindung) {
+        synchronized (this) {
+            offen--;
+        }
+        verworfeneVerbindungen.incrementAndGet();
+        verbindung.physischSchliessen();
+    }
+
+    /*
+     * Wird regelmäßig vom Aufräum-Thread aufgerufen.
+     * Schließt Verbindungen, die länger als "leerlaufTimeoutMillis" unbenutzt waren, solange mehr als
+     * "minGroesse" Verbindungen offen sind.
+     */
+    private void leerlaufVerbindungenSchliessen() {
+        long grenze = System.currentTimeMillis() - leerlaufTimeoutMillis;
+        while (true) {
+            PoolVerbindung kandidat = null;
+            synchronized (this) {
+                if (offen <= minGroesse) {
+                    return;
+                }
+                // Die älteste freie Verbindung liegt am Ende des Stapels.
+                PoolVerbindung aelteste = frei.peekLast();
+                if (aelteste != null && aelteste.zuletztBenutzt < grenze) {
+                    kandidat = frei.pollLast();
+                }
+            }
+            if (kandidat == null) {
+                return;
+            }
+            verwerfen(kandidat);
+        }
+    }
+
+    /*
+     * Liefert eine Momentaufnahme der Zähler des Pools.
+     */
+    public Statistik getStatistik() {
+        int freiAnzahl;
+        int offenAnzahl;
+        synchronized (this) {
+            freiAnzahl = frei.size();
+            offenAnzahl = offen;
+        }
+        return new Statistik(offenAnzahl - freiAnzahl, freiAnzahl, maxGroesse, ausleihen.get(),
+                wartezeitNanos.get(), maxWartezeitNanos.get(), neueVerbindungen.get(),
+                verworfeneVerbindungen.get(), statementTreffer.get(), statementFehlgriffe.get());
+    }
+
+    /*
+     * Schließt alle freien Verbindungen und beendet den Aufräum-Thread.
+     * Noch ausgeliehene Verbindungen werden bei ihrer Rückgabe geschlossen.
+     */
+    @Override
+    public void close() {
+        Deque<PoolVerbindung> zuSchliessen;
+        synchronized (this) {
+            if (geschlossen) {
+                return;
+            }
+            geschlossen = true;
+            zuSchliessen = new ArrayDeque<>(frei);
+            frei.clear();
+        }
+        aufraeumer.shutdownNow();
+        for (PoolVerbindung verbindung : zuSchliessen) {
+            verwerfen(verbindung);
+        }
+    }
+
+    /*
+     * Eine physische Verbindung des Pools.
+     * Nach außen wird nur der Proxy herausgegeben, dessen "close()" die Verbindung zurückgibt
+     * und dessen "prepareStatement(sql)" zwischengespeicherte Statements wiederverwendet.
+     */
+    private final class PoolVerbindung implements InvocationHandler {
+
+        private final Connection echt;
+        private final Connection proxy;
+        private final Map<String, GecachtesStatement> statements;
+        private volatile boolean ausgeliehen;
+        private long zuletztBenutzt = System.currentTimeMillis();
+
+        private PoolVerbindung(Connection echt) {
+            this.echt = echt;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, this);
+            // LRU-Cache: das am längsten unbenutzte Statement wird geschlossen, wenn der Cache voll ist.
+            this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GecachtesStatement> eldest) {
+                    if (size() > statementCacheGroesse) {
+                        eldest.getValue().physischSchliessen();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    zurueckgeben(this);
+                    return null;
+                case "isClosed":
+                    return !ausgeliehen || echt.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PoolVerbindung[" + echt + "]";
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "prepareStatement":
+                    if (args.length == 1 && statementCacheGroesse > 0) {
+                        return gecachtesStatement((String) args[0], -1);
+                    }
+                    if (args.length == 2 && args[1] instanceof Integer && statementCacheGroesse > 0) {
+                        return gecachtesStatement((String) args[0], (Integer) args[1]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            if (!ausgeliehen) {
+                throw new SQLException("Die Verbindung wurde bereits an den Pool zurückgegeben");
+            }
+            try {
+                return method.invoke(echt, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        /*
+         * Liefert ein zwischengespeichertes PreparedStatement für das SQL.
+         * "generierteSchluessel" ist -1 für prepareStatement(sql), sonst der Wert für prepareStatement(sql, int).
+         * Ist das Statement gerade in Benutzung (verschachtelte Verwendung), wird ein ungecachtes erzeugt.
+         */
+        private PreparedStatement gecachtesStatement(String sql, int generierteSchluessel) throws SQLException {
+            String schluessel = generierteSchluessel < 0 ? sql : generierteSchluessel + ":" + sql;
+            GecachtesStatement gecacht;
+            synchronized (statements) {
+                gecacht = statements.get(schluessel);
+                if (gecacht != null && !gecacht.inBenutzung && !gecacht.echt.isClosed()) {
+                    gecacht.inBenutzung = true;
+                    statementTreffer.incrementAndGet();
+                    return gecacht.proxy;
+                }
+            }
+            statementFehlgriffe.incrementAndGet();
+            PreparedStatement echtesStatement = generierteSchluessel < 0
+                    ? echt.prepareStatement(sql)
+                    : echt.prepareStatement(sql, generierteSchluessel);
+            if (gecacht != null && gecacht.inBenutzung) {
+                return echtesStatement;
+            }
+            GecachtesStatement neu = new GecachtesStatement(echtesStatement);
+            neu.inBenutzung = true;
+            synchronized (statements) {
+                statements.put(schluessel, neu);
+            }
+            return neu.proxy;
+        }
+
+        private void physischSchliessen() {
+            synchronized (statements) {
+                for (Iterator<GecachtesStatement> it = statements.values().iterator(); it.hasNext(); ) {
+                    it.next().physischSchliessen();
+                    it.remove();
+                }
+            }
+            try {
+                echt.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Ein PreparedStatement im Cache einer Verbindung.
+     * "close()" setzt nur die Parameter zurück, das eigentliche Statement bleibt für die nächste Verwendung offen.
+     */
+    private static final class GecachtesStatement implements InvocationHandler {
+
+        private final PreparedStatement echt;
+        private final PreparedStatement proxy;
+        private boolean inBenutzung;
+
+        private GecachtesStatement(PreparedStatement echt) {
+            this.echt = echt;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (inBenutzung) {
+                        inBenutzung = false;
+                        echt.clearParameters();
+                        echt.clearBatch();
+                    }
+                    return null;
+                case "isClosed":
+                    return !inBenutzung || echt.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    try {
+                        return method.invoke(echt, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        private void physischSchliessen() {
+            try {
+                echt.close();
+            } catch (SQLException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /*
+     * Unveränderliche Momentaufnahme der Pool-Zähler.
+     * Die Wartezeiten werden in Nanosekunden gezählt und über die Getter in Millisekunden ausgegeben.
+     */
+    public static final class Statistik {
+
+        private final int aktiv;
+        private final int frei;
+        private final int maxGroesse;
+        private final long ausleihen;
+        private final long wartezeitNanos;
+        private final long maxWartezeitNanos;
+        private final long neueVerbindungen;
+        private final long verworfeneVerbindungen;
+        private final long statementTreffer;
+        private final long statementFehlgriffe;
+
+        private Statistik(int aktiv, int frei, int maxGroesse, long ausleihen, long wartezeitNanos,
+                          long maxWartezeitNanos, long neueVerbindungen, long verworfeneVerbindungen,
+                          long statementTreffer, long statementFehlgriffe) {
+            this.aktiv = aktiv;
+            this.frei = frei;
+            this.maxGroesse = maxGroesse;
+            this.ausleihen = ausleihen;
+            this.wartezeitNanos = wartezeitNanos;
+            this.maxWartezeitNanos = maxWartezeitNanos;
+            this.neueVerbindungen = neueVerbindungen;
+            this.verworfeneVerbindungen = verworfeneVerbindungen;
+            this.statementTreffer = statementTreffer;
+            this.statementFehlgriffe = statementFehlgriffe;
+        }
+
+        public int getAktiv() {
+            return aktiv;
+        }
+
+        public int getFrei() {
+            return frei;
+        }
+
+        public int getMaxGroesse() {
+            return maxGroesse;
+        }
+
+        public long getAusleihen() {
+            return ausleihen;
+        }
+
+        public double getDurchschnittlicheWartezeitMillis() {
+            return ausleihen == 0 ? 0 : wartezeitNanos / (double) ausleihen / 1_000_000.0;
+        }
+
+        public double getMaxWartezeitMillis() {
+            return maxWartezeitNanos / 1_000_000.0;
+        }
+
+        public long getNeueVerbindungen() {
+            return neueVerbindungen;
+        }
+
+        public long getVerworfeneVerbindungen() {
+            return verworfeneVerbindungen;
+        }
+
+        public long getStatementTreffer() {
+            return statementTreffer;
+        }
+
+        public long getStatementFehlgriffe() {
+            return statementFehlgriffe;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.GERMANY,
+                    "Pool: aktiv=%d, frei=%d, max=%d, Ausleihen=%d, Wartezeit Ø %.3f ms / max %.3f ms, "
+                            + "neu geöffnet=%d, verworfen=%d, Statement-Cache %d/%d",
+                    aktiv, frei, maxGroesse, ausleihen, getDurchschnittlicheWartezeitMillis(),
+                    getMaxWartezeitMillis(), neueVerbindungen, verworfeneVerbindungen,
+                    statementTreffer, statementTreffer + statementFehlgriffe);
+        }
+    }
+}
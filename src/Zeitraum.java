@@ -0,0 +1,82 @@
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.TextStyle;
+import java.util.Locale;
+
+/*
+ * Die Klasse "Zeitraum" ist ein Kalendermonat, ein Quartal oder ein Kalenderjahr, z.B. für die Zeitraumauswahl
+ * unter der Tabelle. Sie ist unveränderlich; "vorheriger" und "naechster" liefern den angrenzenden Zeitraum
+ * derselben Art.
+ */
+public class Zeitraum {
+
+    public enum Art {
+        MONAT("Monat", 1),
+        QUARTAL("Quartal", 3),
+        JAHR("Jahr", 12);
+
+        private final String name;
+        private final int monate;
+
+        Art(String name, int monate) {
+            this.name = name;
+            this.monate = monate;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final Art art;
+
+    // Erster Monat des Zeitraums.
+    private final YearMonth beginn;
+
+    private Zeitraum(Art art, YearMonth beginn) {
+        this.art = art;
+        this.beginn = beginn;
+    }
+
+    // Der Zeitraum der angegebenen Art, in dem das Datum liegt.
+    public static Zeitraum mit(Art art, LocalDate datum) {
+        int monat = datum.getMonthValue() - 1;
+        return new Zeitraum(art, YearMonth.of(datum.getYear(), monat - monat % art.monate + 1));
+    }
+
+    public Art getArt() {
+        return art;
+    }
+
+    // Erster Tag des Zeitraums.
+    public LocalDate getVon() {
+        return beginn.atDay(1);
+    }
+
+    // Letzter Tag des Zeitraums (einschließlich).
+    public LocalDate getBis() {
+        return beginn.plusMonths(art.monate - 1).atEndOfMonth();
+    }
+
+    public Zeitraum vorheriger() {
+        return new Zeitraum(art, beginn.minusMonths(art.monate));
+    }
+
+    public Zeitraum naechster() {
+        return new Zeitraum(art, beginn.plusMonths(art.monate));
+    }
+
+    // z.B. "Oktober 2026", "Q4 2026" oder "2026".
+    @Override
+    public String toString() {
+        switch (art) {
+            case MONAT:
+                return beginn.getMonth().getDisplayName(TextStyle.FULL, Locale.GERMANY) + " " + beginn.getYear();
+            case QUARTAL:
+                return "Q" + ((beginn.getMonthValue() - 1) / 3 + 1) + " " + beginn.getYear();
+            default:
+                return String.valueOf(beginn.getYear());
+        }
+    }
+}